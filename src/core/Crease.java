@@ -21,16 +21,130 @@
 
 package core;
 
+import java.io.Serializable;
+
 /**
  * A function used to calculate the influence of a movement vector (given by a
  * starting tile and an ending tile) on a value of a given tile.
  *
+ * Creases are serializable so they can be sent to the processes that generate
+ * the sections of a terrain.
+ *
+ * Creases of the same type with the same parameters are equal, so what is
+ * computed from a crease can be reused for an equal crease made later.
+ *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.2
+ * @version 0.5
  * @since 0.1
  *
  */
-public interface Crease {
+public interface Crease extends Serializable {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * A crease function bound to a specific movement vector. Everything that only
+	 * depends on the movement vector, such as its magnitude and the height and
+	 * radius of the crease function, is calculated once when the kernel is
+	 * created, so only the part that depends on the target point is calculated
+	 * for each point.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * @see core.Crease#bind(double, double, double, double)
+	 * 
+	 */
+	public interface Kernel {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		/**
+		 * Calculates the influence of the movement vector this kernel is bound to on
+		 * the point with coordinates thisX, thisY.
+		 * 
+		 * @param thisX X coordinate of the point on which we're calculating the
+		 *              influence of the movement vector.
+		 * @param thisY Y coordinate of the point on which we're calculating the
+		 *              influence of the movement vector.
+		 * @return The influence of the movement vector this kernel is bound to on the
+		 *         point with coordinates thisX, thisY.
+		 */
+		public double valueAt(double thisX, double thisY);
+
+		/**
+		 * Get the radius of the region influenced by the movement vector this kernel
+		 * is bound to.
+		 * 
+		 * @return The radius of the region influenced by the movement vector this
+		 *         kernel is bound to.
+		 * @see core.Crease#getRadius(double, double, double, double)
+		 */
+		public double getRadius();
+
+		/**
+		 * Adds the influence of the movement vector this kernel is bound to on the
+		 * points with coordinates firstX, thisY to lastX - 1, thisY, multiplied by the
+		 * given scale, to a row of values. The influence on the point with x
+		 * coordinate x is added to destination[destinationOffset + x - firstX].
+		 * 
+		 * By default, the influence on each point is calculated through
+		 * {@link #valueAt(double, double)}. Implementations should override this
+		 * method with an equivalent loop the compiler can optimize.
+		 * 
+		 * @param thisY             Y coordinate of the points on which we're
+		 *                          calculating the influence of the movement vector.
+		 * @param firstX            X coordinate of the first point.
+		 * @param lastX             X coordinate after that of the last point.
+		 * @param destination       The row of values the influence is added to.
+		 * @param destinationOffset The index of the value the influence on the first
+		 *                          point is added to.
+		 * @param scale             The factor the influence is multiplied by.
+		 */
+		public default void accumulateRow(double thisY, int firstX, int lastX, double[] destination,
+				int destinationOffset, double scale) {
+			for (int thisX = firstX, index = destinationOffset; thisX < lastX; ++thisX, ++index) {
+				destination[index] += this.valueAt(thisX, thisY) * scale;
+			}
+		}
+
+		/**
+		 * Adds the influence of the movement vector this kernel is bound to on the
+		 * points with coordinates firstX, thisY, firstX + stride, thisY and so on up
+		 * to lastX - 1, thisY, multiplied by the given scale, to a row of values. The
+		 * influence on the point with x coordinate x is added to
+		 * destination[destinationOffset + x - firstX].
+		 * 
+		 * By default, the influence on each point is added through
+		 * {@link #accumulateRow(double, int, int, double[], int, double)} for that
+		 * point alone, so it's the same as the influence added for the whole row.
+		 * Implementations should override this method if they can skip points more
+		 * efficiently.
+		 * 
+		 * @param thisY             Y coordinate of the points on which we're
+		 *                          calculating the influence of the movement vector.
+		 * @param firstX            X coordinate of the first point.
+		 * @param lastX             X coordinate after that of the last point.
+		 * @param stride            The distance between the points.
+		 * @param destination       The row of values the influence is added to.
+		 * @param destinationOffset The index of the value the influence on the first
+		 *                          point is added to.
+		 * @param scale             The factor the influence is multiplied by.
+		 */
+		public default void accumulateRow(double thisY, int firstX, int lastX, int stride, double[] destination,
+				int destinationOffset, double scale) {
+			if (stride == 1) {
+				this.accumulateRow(thisY, firstX, lastX, destination, destinationOffset, scale);
+				return;
+			}
+			for (int thisX = firstX, index = destinationOffset; thisX < lastX; thisX += stride, index += stride) {
+				this.accumulateRow(thisY, thisX, thisX + 1, destination, index, scale);
+			}
+		}
+
+	}
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
@@ -54,4 +168,58 @@ public interface Crease {
 	 */
 	public double valueAt(double startX, double startY, double endX, double endY, double thisX, double thisY);
 
+	/**
+	 * Calculates the radius of the region influenced by the movement vector
+	 * starting at the point with coordinates startX, startY and ending at the point
+	 * with coordinates endX, endY. The influence of the movement vector must be
+	 * zero on any point whose x or y coordinate differs from the corresponding
+	 * coordinate of the ending point by more than this radius.
+	 * 
+	 * By default, the influence of a movement vector is assumed to be unbounded.
+	 * 
+	 * @param startX X coordinate of the starting point of a movement vector.
+	 * @param startY Y coordinate of the starting point of a movement vector.
+	 * @param endX   X coordinate of the ending point of a movement vector.
+	 * @param endY   Y coordinate of the ending point of a movement vector.
+	 * @return The radius of the region influenced by the movement vector starting
+	 *         at the point with coordinates startX, startY and ending at the point
+	 *         with coordinates endX, endY, or positive infinity if the influence of
+	 *         the movement vector isn't bounded.
+	 */
+	public default double getRadius(double startX, double startY, double endX, double endY) {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Binds this crease function to the movement vector starting at the point with
+	 * coordinates startX, startY and ending at the point with coordinates endX,
+	 * endY. The values of the kernel must be the same as those of
+	 * {@link #valueAt(double, double, double, double, double, double)} for the
+	 * same movement vector.
+	 * 
+	 * By default, the kernel calculates every value through this crease function.
+	 * 
+	 * @param startX X coordinate of the starting point of a movement vector.
+	 * @param startY Y coordinate of the starting point of a movement vector.
+	 * @param endX   X coordinate of the ending point of a movement vector.
+	 * @param endY   Y coordinate of the ending point of a movement vector.
+	 * @return This crease function bound to the given movement vector.
+	 */
+	public default Kernel bind(double startX, double startY, double endX, double endY) {
+		final double radius = this.getRadius(startX, startY, endX, endY);
+		return new Kernel() {
+
+			@Override
+			public double valueAt(double thisX, double thisY) {
+				return Crease.this.valueAt(startX, startY, endX, endY, thisX, thisY);
+			}
+
+			@Override
+			public double getRadius() {
+				return radius;
+			}
+
+		};
+	}
+
 }
@@ -0,0 +1,265 @@
+/*
+ * GenerationMonitor.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows the progress of a generation and tells it to stop when it's cancelled
+ * or when its deadline is reached. Generations check whether they must stop
+ * between plates, so a generation stops shortly after being cancelled, leaving
+ * its terrain partially generated.
+ *
+ * A monitor can be used by a single generation. Progress is counted in units of
+ * work chosen by the generation, and reported as a fraction of the plates of
+ * the plan.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ *
+ */
+public class GenerationMonitor {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * The state of a generation.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	public static enum Status {
+		/**
+		 * The generation hasn't finished or stopped yet.
+		 */
+		RUNNING,
+		/**
+		 * The generation finished and its terrain is complete.
+		 */
+		COMPLETED,
+		/**
+		 * The generation was cancelled before finishing, so its terrain is partial.
+		 */
+		CANCELLED,
+		/**
+		 * The deadline of the generation was reached before finishing, so its
+		 * terrain is partial.
+		 */
+		TIMED_OUT
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Whether the deadline is used.
+	 */
+	private final boolean hasDeadline;
+	/**
+	 * The value of {@link System#nanoTime()} at which the generation must stop.
+	 */
+	private final long deadline;
+	/**
+	 * Whether the generation has been cancelled.
+	 */
+	private volatile boolean cancelled;
+	/**
+	 * The state of the generation.
+	 */
+	private volatile Status status = Status.RUNNING;
+	/**
+	 * The number of plates of the plan being generated.
+	 */
+	private volatile int totalPlates;
+	/**
+	 * The units of work of the whole generation.
+	 */
+	private volatile long totalWork;
+	/**
+	 * The units of work done so far.
+	 */
+	private final AtomicLong completedWork = new AtomicLong();
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Create a new monitor for a generation without a deadline, which only stops
+	 * if it's cancelled.
+	 */
+	public GenerationMonitor() {
+		this.hasDeadline = false;
+		this.deadline = 0L;
+	}
+
+	/**
+	 * Create a new monitor for a generation that must stop after the given amount
+	 * of time from now.
+	 * 
+	 * @param timeout The amount of time the generation can take.
+	 * @param unit    The unit of the amount of time.
+	 * @throws IllegalArgumentException If the amount of time is negative.
+	 */
+	public GenerationMonitor(long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("The timeout can't be negative.");
+		}
+		this.hasDeadline = true;
+		this.deadline = System.nanoTime() + unit.toNanos(timeout);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Cancel the generation. The generation stops the next time it checks this
+	 * monitor.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Get the state of the generation.
+	 * 
+	 * @return The state of the generation.
+	 */
+	public Status getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Get the number of plates of the plan being generated.
+	 * 
+	 * @return The number of plates of the plan, or 0 if the generation hasn't
+	 *         started.
+	 */
+	public int getTotalPlates() {
+		return this.totalPlates;
+	}
+
+	/**
+	 * Get an estimate of the number of plates generated so far, as the fraction of
+	 * the work done times the number of plates of the plan. Generations split the
+	 * work of each plate among parts of the terrain, so when the estimate reaches
+	 * a number of plates, those plates may still be missing from some parts.
+	 * 
+	 * @return An estimate of the number of plates generated so far.
+	 */
+	public int getEstimatedCompletedPlates() {
+		return (int) (this.getProgress() * this.totalPlates);
+	}
+
+	/**
+	 * Get the fraction of the work of the generation done so far.
+	 * 
+	 * @return A value from 0 to 1.
+	 */
+	public double getProgress() {
+		if (this.status == Status.COMPLETED) {
+			return 1.0d;
+		}
+		long totalWork = this.totalWork;
+		return totalWork == 0 ? 0.0d : java.lang.Math.min(1.0d, (double) this.completedWork.get() / totalWork);
+	}
+
+	/**
+	 * Start following a generation. Called by the generation before any work is
+	 * done.
+	 * 
+	 * @param totalPlates The number of plates of the plan being generated.
+	 * @param totalWork   The units of work of the whole generation.
+	 */
+	public void start(int totalPlates, long totalWork) {
+		this.totalPlates = totalPlates;
+		this.totalWork = totalWork;
+		this.completedWork.set(0L);
+	}
+
+	/**
+	 * Adds the given units of work to the work done. Called by the generation as
+	 * the work is done.
+	 * 
+	 * @param work Units of work done.
+	 */
+	public void advance(long work) {
+		this.completedWork.addAndGet(work);
+	}
+
+	/**
+	 * Checks whether the generation must stop because it has been cancelled or
+	 * its deadline has been reached. Once this returns true, it always returns
+	 * true.
+	 * 
+	 * @return True if the generation must stop, false otherwise.
+	 */
+	public boolean isStopped() {
+		Status status = this.status;
+		if (status == Status.CANCELLED || status == Status.TIMED_OUT) {
+			return true;
+		}
+		if (status == Status.COMPLETED) {
+			return false;
+		}
+		if (this.cancelled) {
+			this.stop(Status.CANCELLED);
+			return true;
+		}
+		if (this.hasDeadline && System.nanoTime() - this.deadline >= 0) {
+			this.stop(Status.TIMED_OUT);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Marks the generation as completed unless it has already stopped. Called by
+	 * the generation after all the work is done.
+	 * 
+	 * @return True if the generation was marked as completed, false if it had
+	 *         stopped.
+	 */
+	public synchronized boolean complete() {
+		if (this.status == Status.RUNNING) {
+			this.status = Status.COMPLETED;
+		}
+		return this.status == Status.COMPLETED;
+	}
+
+	/**
+	 * Marks the generation as stopped with the given state unless it has already
+	 * stopped or completed.
+	 * 
+	 * @param status The state of the stopped generation.
+	 */
+	private synchronized void stop(Status status) {
+		if (this.status == Status.RUNNING) {
+			this.status = status;
+		}
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * PlatePlan.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The movement vectors of the plates of a terrain, chosen before any tile of the
+ * terrain is generated. Each plate moves from a starting tile to an ending tile.
+ *
+ * A plan doesn't depend on the crease used to generate the terrain, so the same
+ * plan can be used to generate a terrain with different creases.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.Crease
+ *
+ */
+public class PlatePlan {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The x index of the starting tile of each plate.
+	 */
+	private int[] startX;
+	/**
+	 * The y index of the starting tile of each plate.
+	 */
+	private int[] startY;
+	/**
+	 * The x index of the ending tile of each plate.
+	 */
+	private int[] endX;
+	/**
+	 * The y index of the ending tile of each plate.
+	 */
+	private int[] endY;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Create a new plan for the given number of plates. All movement vectors start
+	 * and end at the tile with indices 0, 0 until they are set.
+	 * 
+	 * @param numberOfPlates The number of plates.
+	 * @throws IllegalArgumentException If the number of plates is negative.
+	 */
+	public PlatePlan(int numberOfPlates) {
+		if (numberOfPlates < 0) {
+			throw new IllegalArgumentException("The number of plates can't be negative.");
+		}
+		this.startX = new int[numberOfPlates];
+		this.startY = new int[numberOfPlates];
+		this.endX = new int[numberOfPlates];
+		this.endY = new int[numberOfPlates];
+	}
+
+	/**
+	 * Create a copy of the given plan, which can be modified without modifying
+	 * the given plan.
+	 * 
+	 * @param platePlan A plan.
+	 */
+	public PlatePlan(PlatePlan platePlan) {
+		this.startX = platePlan.startX.clone();
+		this.startY = platePlan.startY.clone();
+		this.endX = platePlan.endX.clone();
+		this.endY = platePlan.endY.clone();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of plates of this plan.
+	 * 
+	 * @return The number of plates of this plan.
+	 */
+	public int getNumberOfPlates() {
+		return this.startX.length;
+	}
+
+	/**
+	 * Get the x index of the starting tile of the given plate.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @return The x index of the starting tile of the given plate.
+	 */
+	public int getStartX(int plateIndex) {
+		return this.startX[plateIndex];
+	}
+
+	/**
+	 * Get the y index of the starting tile of the given plate.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @return The y index of the starting tile of the given plate.
+	 */
+	public int getStartY(int plateIndex) {
+		return this.startY[plateIndex];
+	}
+
+	/**
+	 * Get the x index of the ending tile of the given plate.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @return The x index of the ending tile of the given plate.
+	 */
+	public int getEndX(int plateIndex) {
+		return this.endX[plateIndex];
+	}
+
+	/**
+	 * Get the y index of the ending tile of the given plate.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @return The y index of the ending tile of the given plate.
+	 */
+	public int getEndY(int plateIndex) {
+		return this.endY[plateIndex];
+	}
+
+	/**
+	 * Set the movement vector of the given plate.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @param startX     The x index of the starting tile of the plate.
+	 * @param startY     The y index of the starting tile of the plate.
+	 * @param endX       The x index of the ending tile of the plate.
+	 * @param endY       The y index of the ending tile of the plate.
+	 */
+	public void setMovement(int plateIndex, int startX, int startY, int endX, int endY) {
+		this.startX[plateIndex] = startX;
+		this.startY[plateIndex] = startY;
+		this.endX[plateIndex] = endX;
+		this.endY[plateIndex] = endY;
+	}
+
+	/**
+	 * Add a plate with the given movement vector after the last plate of this
+	 * plan.
+	 * 
+	 * @param startX The x index of the starting tile of the plate.
+	 * @param startY The y index of the starting tile of the plate.
+	 * @param endX   The x index of the ending tile of the plate.
+	 * @param endY   The y index of the ending tile of the plate.
+	 * @return The index of the new plate.
+	 */
+	public int addMovement(int startX, int startY, int endX, int endY) {
+		int plateIndex = this.getNumberOfPlates();
+		this.startX = Arrays.copyOf(this.startX, plateIndex + 1);
+		this.startY = Arrays.copyOf(this.startY, plateIndex + 1);
+		this.endX = Arrays.copyOf(this.endX, plateIndex + 1);
+		this.endY = Arrays.copyOf(this.endY, plateIndex + 1);
+		this.setMovement(plateIndex, startX, startY, endX, endY);
+		return plateIndex;
+	}
+
+	/**
+	 * Remove the given plate from this plan. The plates after it keep their order
+	 * and their index is decreased by one.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @throws IndexOutOfBoundsException If there's no plate with the given index.
+	 */
+	public void removeMovement(int plateIndex) {
+		Objects.checkIndex(plateIndex, this.getNumberOfPlates());
+		this.startX = remove(this.startX, plateIndex);
+		this.startY = remove(this.startY, plateIndex);
+		this.endX = remove(this.endX, plateIndex);
+		this.endY = remove(this.endY, plateIndex);
+	}
+
+	/**
+	 * Create a plan where every plate moves in the opposite direction of the
+	 * plates of this plan, that is, from the ending tile to the starting tile.
+	 * 
+	 * @return A plan with the movement vectors of this plan reversed.
+	 */
+	public PlatePlan reverse() {
+		PlatePlan reverse = new PlatePlan(this.getNumberOfPlates());
+		for (int plateIndex = 0; plateIndex < this.getNumberOfPlates(); ++plateIndex) {
+			reverse.setMovement(plateIndex, this.endX[plateIndex], this.endY[plateIndex], this.startX[plateIndex],
+					this.startY[plateIndex]);
+		}
+		return reverse;
+	}
+
+	/**
+	 * Check whether all the tiles of this plan are within a terrain of the given
+	 * size.
+	 * 
+	 * @param sizeX The amount of tiles of a terrain along the x axis.
+	 * @param sizeY The amount of tiles of a terrain along the y axis.
+	 * @return True if all the tiles of this plan are within the terrain, false
+	 *         otherwise.
+	 */
+	public boolean isWithin(int sizeX, int sizeY) {
+		for (int plateIndex = 0; plateIndex < this.getNumberOfPlates(); ++plateIndex) {
+			if (this.startX[plateIndex] < 0 || this.startX[plateIndex] >= sizeX || this.startY[plateIndex] < 0
+					|| this.startY[plateIndex] >= sizeY || this.endX[plateIndex] < 0
+					|| this.endX[plateIndex] >= sizeX || this.endY[plateIndex] < 0
+					|| this.endY[plateIndex] >= sizeY) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Copies the given array without the element at the given index.
+	 * 
+	 * @param array An array.
+	 * @param index The index of an element of the array.
+	 * @return A copy of the array without the element at the given index.
+	 */
+	private static int[] remove(int[] array, int index) {
+		int[] result = Arrays.copyOf(array, array.length - 1);
+		System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+		return result;
+	}
+
+}
@@ -21,6 +21,8 @@
 
 package core.crease;
 
+import java.util.Objects;
+
 import core.Crease;
 import util.Math;
 
@@ -29,13 +31,18 @@ import util.Math;
  * distance to the center to determine its value.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.1
  * @see core.Crease
  *
  */
 public class Cone implements Crease {
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	private static final long serialVersionUID = 1L;
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
 
@@ -64,31 +71,147 @@ public class Cone implements Crease {
 		this.radiusPower = radiusPower;
 	}
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * A cone crease function bound to a movement vector.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * @see core.Crease.Kernel
+	 * 
+	 */
+	private static final class ConeKernel implements Kernel {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * X coordinate of the center of the crease function.
+		 */
+		private final double centerX;
+		/**
+		 * Y coordinate of the center of the crease function.
+		 */
+		private final double centerY;
+		/**
+		 * Height of the crease function.
+		 */
+		private final double height;
+		/**
+		 * Radius of the crease function.
+		 */
+		private final double radius;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		/**
+		 * Construct a new kernel.
+		 * 
+		 * @param centerX X coordinate of the center of the crease function.
+		 * @param centerY Y coordinate of the center of the crease function.
+		 * @param height  Height of the crease function.
+		 * @param radius  Radius of the crease function.
+		 */
+		private ConeKernel(double centerX, double centerY, double height, double radius) {
+			this.centerX = centerX;
+			this.centerY = centerY;
+			this.height = height;
+			this.radius = radius;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		@Override
+		public double valueAt(double thisX, double thisY) {
+			// Distance from the target tile to the center of the crease function
+			final double distanceToCenter = Math.euclideanDistance(thisY, thisX, centerY, centerX);
+			// If the target tile is outside of the tiles affected by the function, height
+			// is zero.
+			if (distanceToCenter > radius) {
+				return 0;
+			}
+			// Distance from the target tile to the edge of the crease function
+			final double distanceToEdge = radius - distanceToCenter;
+			// Distance from the target tile to the edge of the crease function,
+			// normalized so that the edge is at a distance of 1
+			final double distanceToEdgeNormalized = distanceToEdge / radius;
+			// Interpolate
+			return distanceToEdgeNormalized * height;
+		}
+
+		@Override
+		public void accumulateRow(double thisY, int firstX, int lastX, double[] destination, int destinationOffset,
+				double scale) {
+			final double deltaY = centerY - thisY;
+			final double deltaY2 = deltaY * deltaY;
+			// Only the tiles within the radius are influenced, so the loop needs no
+			// branches and can be vectorized
+			final int firstInsideX = CreaseUtil.firstWithinEuclideanDistance(centerX, deltaY2, radius, firstX, lastX);
+			final int lastInsideX = CreaseUtil.lastWithinEuclideanDistance(centerX, deltaY2, radius, firstX, lastX);
+			for (int thisX = firstInsideX, index = destinationOffset + firstInsideX - firstX; thisX < lastInsideX;
+					++thisX, ++index) {
+				final double deltaX = centerX - thisX;
+				final double distanceToCenter = java.lang.Math.sqrt(deltaY2 + deltaX * deltaX);
+				final double distanceToEdgeNormalized = (radius - distanceToCenter) / radius;
+				destination[index] += distanceToEdgeNormalized * height * scale;
+			}
+		}
+
+		@Override
+		public double getRadius() {
+			return radius;
+		}
+
+	}
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
 	@Override
 	public double valueAt(double startX, double startY, double endX, double endY, double thisX, double thisY) {
+		return this.bind(startX, startY, endX, endY).valueAt(thisX, thisY);
+	}
+
+	@Override
+	public Kernel bind(double startX, double startY, double endX, double endY) {
 		// Magnitude of the movement vector
 		final double movementVectorMagnitude = Math.euclideanDistance(startY, startX, endY, endX);
 		// Height of the crease function
 		final double height = Math.power(movementVectorMagnitude, heightPower) * heightFactor;
 		// Radius of the crease function
 		final double radius = Math.power(movementVectorMagnitude, radiusPower) * radiusFactor;
-		// Distance from the target tile to the center of the crease function
-		final double distanceToCenter = Math.euclideanDistance(thisY, thisX, endY, endX);
-		// If the target tile is outside of the tiles affected by the function, height
-		// is zero.
-		if (distanceToCenter > radius) {
-			return 0;
+		return new ConeKernel(endX, endY, height, radius);
+	}
+
+	@Override
+	public double getRadius(double startX, double startY, double endX, double endY) {
+		// Magnitude of the movement vector
+		final double movementVectorMagnitude = Math.euclideanDistance(startY, startX, endY, endX);
+		// Radius of the crease function
+		return Math.power(movementVectorMagnitude, radiusPower) * radiusFactor;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (object instanceof Cone) {
+			Cone cone = (Cone) object;
+			return Double.compare(this.heightFactor, cone.heightFactor) == 0
+					&& Double.compare(this.heightPower, cone.heightPower) == 0
+					&& Double.compare(this.radiusFactor, cone.radiusFactor) == 0
+					&& Double.compare(this.radiusPower, cone.radiusPower) == 0;
+		} else {
+			return false;
 		}
-		// Distance from the target tile to the edge of the crease function
-		final double distanceToEdge = radius - distanceToCenter;
-		// Distance from the target tile to the edge of the crease function,
-		// normalized so that the edge is at a distance of 1
-		final double distanceToEdgeNormalized = distanceToEdge / radius;
-		// Interpolate
-		return distanceToEdgeNormalized * height;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.heightFactor, this.heightPower, this.radiusFactor, this.radiusPower);
 	}
 
 }
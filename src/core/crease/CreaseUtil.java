@@ -0,0 +1,155 @@
+/*
+ * CreaseUtil.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.crease;
+
+/**
+ * Utilities related to crease functions.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.Crease.Kernel
+ *
+ */
+public class CreaseUtil {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Calculates the first x coordinate between firstX and lastX - 1 of the points
+	 * of a row that are within the given radius of a center, using the Euclidean
+	 * distance. The points within the radius are those for which a crease function
+	 * doesn't consider the distance to the center to be greater than the radius,
+	 * so the result matches the check done by the crease function exactly.
+	 * 
+	 * @param centerX X coordinate of the center.
+	 * @param deltaY2 The square of the difference between the y coordinate of the
+	 *                center and the y coordinate of the row.
+	 * @param radius  A radius.
+	 * @param firstX  X coordinate of the first point of the row.
+	 * @param lastX   X coordinate after that of the last point of the row.
+	 * @return The first x coordinate of the points of the row within the radius,
+	 *         equal to the result of
+	 *         {@link #lastWithinEuclideanDistance(double, double, double, int, int)}
+	 *         if there is no such point.
+	 */
+	public static int firstWithinEuclideanDistance(double centerX, double deltaY2, double radius, int firstX,
+			int lastX) {
+		if (firstX >= lastX) {
+			return firstX;
+		}
+		int nearestX = nearest(centerX, firstX, lastX);
+		if (!isWithinEuclideanDistance(centerX, deltaY2, radius, nearestX)) {
+			return nearestX;
+		}
+		// Estimate the edge and correct the estimate with the exact check
+		double halfWidth = java.lang.Math.sqrt(radius * radius - deltaY2);
+		double estimate = java.lang.Math.ceil(centerX - halfWidth);
+		// Comparisons with NaN are always false
+		int x = estimate > firstX ? (estimate < nearestX ? (int) estimate : nearestX) : firstX;
+		while (x > firstX && isWithinEuclideanDistance(centerX, deltaY2, radius, x - 1)) {
+			--x;
+		}
+		while (!isWithinEuclideanDistance(centerX, deltaY2, radius, x)) {
+			++x;
+		}
+		return x;
+	}
+
+	/**
+	 * Calculates the x coordinate after the last x coordinate between firstX and
+	 * lastX - 1 of the points of a row that are within the given radius of a
+	 * center, using the Euclidean distance. The points within the radius are those
+	 * for which a crease function doesn't consider the distance to the center to
+	 * be greater than the radius, so the result matches the check done by the
+	 * crease function exactly.
+	 * 
+	 * @param centerX X coordinate of the center.
+	 * @param deltaY2 The square of the difference between the y coordinate of the
+	 *                center and the y coordinate of the row.
+	 * @param radius  A radius.
+	 * @param firstX  X coordinate of the first point of the row.
+	 * @param lastX   X coordinate after that of the last point of the row.
+	 * @return The x coordinate after that of the last point of the row within the
+	 *         radius, equal to the result of
+	 *         {@link #firstWithinEuclideanDistance(double, double, double, int, int)}
+	 *         if there is no such point.
+	 */
+	public static int lastWithinEuclideanDistance(double centerX, double deltaY2, double radius, int firstX,
+			int lastX) {
+		if (firstX >= lastX) {
+			return firstX;
+		}
+		int nearestX = nearest(centerX, firstX, lastX);
+		if (!isWithinEuclideanDistance(centerX, deltaY2, radius, nearestX)) {
+			return nearestX;
+		}
+		// Estimate the edge and correct the estimate with the exact check
+		double halfWidth = java.lang.Math.sqrt(radius * radius - deltaY2);
+		double estimate = java.lang.Math.floor(centerX + halfWidth) + 1;
+		// Comparisons with NaN are always false
+		int x = estimate < lastX ? (estimate > nearestX + 1 ? (int) estimate : nearestX + 1) : lastX;
+		while (x < lastX && isWithinEuclideanDistance(centerX, deltaY2, radius, x)) {
+			++x;
+		}
+		while (!isWithinEuclideanDistance(centerX, deltaY2, radius, x - 1)) {
+			--x;
+		}
+		return x;
+	}
+
+	/**
+	 * Calculates the x coordinate between firstX and lastX - 1 nearest to the
+	 * given center.
+	 * 
+	 * @param centerX X coordinate of the center.
+	 * @param firstX  X coordinate of the first point of a row.
+	 * @param lastX   X coordinate after that of the last point of a row.
+	 * @return The x coordinate between firstX and lastX - 1 nearest to the given
+	 *         center.
+	 */
+	private static int nearest(double centerX, int firstX, int lastX) {
+		double rounded = java.lang.Math.rint(centerX);
+		// Comparisons with NaN are always false
+		return rounded > firstX ? (rounded < lastX - 1 ? (int) rounded : lastX - 1) : firstX;
+	}
+
+	/**
+	 * Checks whether the point with the given x coordinate is within the given
+	 * radius of a center, calculating the distance the same way as the Euclidean
+	 * crease functions.
+	 * 
+	 * @param centerX X coordinate of the center.
+	 * @param deltaY2 The square of the difference between the y coordinate of the
+	 *                center and the y coordinate of the row.
+	 * @param radius  A radius.
+	 * @param thisX   X coordinate of a point.
+	 * @return True if the distance from the point to the center isn't greater than
+	 *         the radius.
+	 */
+	private static boolean isWithinEuclideanDistance(double centerX, double deltaY2, double radius, int thisX) {
+		final double deltaX = centerX - thisX;
+		return !(java.lang.Math.sqrt(deltaY2 + deltaX * deltaX) > radius);
+	}
+
+}
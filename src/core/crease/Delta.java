@@ -28,13 +28,18 @@ import core.Crease;
  * center, 0 elsewhere.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.1
  * @see core.Crease
  *
  */
 public class Delta implements Crease {
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	private static final long serialVersionUID = 1L;
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance initializers
 
@@ -44,17 +49,104 @@ public class Delta implements Crease {
 	public Delta() {
 	}
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * A delta crease function bound to a movement vector.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * @see core.Crease.Kernel
+	 * 
+	 */
+	private static final class DeltaKernel implements Kernel {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * X coordinate of the center of the crease function.
+		 */
+		private final double centerX;
+		/**
+		 * Y coordinate of the center of the crease function.
+		 */
+		private final double centerY;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		/**
+		 * Construct a new kernel.
+		 * 
+		 * @param centerX X coordinate of the center of the crease function.
+		 * @param centerY Y coordinate of the center of the crease function.
+		 */
+		private DeltaKernel(double centerX, double centerY) {
+			this.centerX = centerX;
+			this.centerY = centerY;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		@Override
+		public double valueAt(double thisX, double thisY) {
+			if (thisY == centerY) {
+				if (thisX == centerX) {
+					return 1.0d;
+				}
+			}
+			return 0.0d;
+		}
+
+		@Override
+		public void accumulateRow(double thisY, int firstX, int lastX, double[] destination, int destinationOffset,
+				double scale) {
+			// Only the center is influenced
+			if (thisY == centerY) {
+				int centerIndexX = (int) centerX;
+				if (centerIndexX == centerX && centerIndexX >= firstX && centerIndexX < lastX) {
+					destination[destinationOffset + centerIndexX - firstX] += scale;
+				}
+			}
+		}
+
+		@Override
+		public double getRadius() {
+			return 0.0d;
+		}
+
+	}
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
 	@Override
 	public double valueAt(double startX, double startY, double endX, double endY, double thisX, double thisY) {
-		if (thisY == endY) {
-			if (thisX == endX) {
-				return 1.0d;
-			}
-		}
+		return this.bind(startX, startY, endX, endY).valueAt(thisX, thisY);
+	}
+
+	@Override
+	public Kernel bind(double startX, double startY, double endX, double endY) {
+		return new DeltaKernel(endX, endY);
+	}
+
+	@Override
+	public double getRadius(double startX, double startY, double endX, double endY) {
 		return 0.0d;
 	}
 
+	@Override
+	public boolean equals(Object object) {
+		return object instanceof Delta;
+	}
+
+	@Override
+	public int hashCode() {
+		return Delta.class.hashCode();
+	}
+
 }
@@ -21,6 +21,8 @@
 
 package core.crease;
 
+import java.util.Objects;
+
 import core.Crease;
 import util.Math;
 
@@ -28,13 +30,18 @@ import util.Math;
  * Definition of the diamond crease function. This function uses the Manhattan distance to the center to determine its value.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.1
  * @see core.Crease
  *
  */
 public class Diamond implements Crease {
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	private static final long serialVersionUID = 1L;
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
 
@@ -63,30 +70,137 @@ public class Diamond implements Crease {
 		this.radiusPower = radiusPower;
 	}
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * A diamond crease function bound to a movement vector.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * @see core.Crease.Kernel
+	 * 
+	 */
+	private static final class DiamondKernel implements Kernel {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * X coordinate of the center of the crease function.
+		 */
+		private final double centerX;
+		/**
+		 * Y coordinate of the center of the crease function.
+		 */
+		private final double centerY;
+		/**
+		 * Height of the crease function.
+		 */
+		private final double height;
+		/**
+		 * Radius of the crease function.
+		 */
+		private final double radius;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		/**
+		 * Construct a new kernel.
+		 * 
+		 * @param centerX X coordinate of the center of the crease function.
+		 * @param centerY Y coordinate of the center of the crease function.
+		 * @param height  Height of the crease function.
+		 * @param radius  Radius of the crease function.
+		 */
+		private DiamondKernel(double centerX, double centerY, double height, double radius) {
+			this.centerX = centerX;
+			this.centerY = centerY;
+			this.height = height;
+			this.radius = radius;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		@Override
+		public double valueAt(double thisX, double thisY) {
+			// Distance from the target tile to the center of the crease function
+			final double distanceToCenter = Math.manhattanDistance(thisY, thisX, centerY, centerX);
+			// If the target tile is outside of the tiles affected by the function, height
+			// is zero.
+			if (distanceToCenter > radius) {
+				return 0;
+			}
+			// Distance from the target tile to the edge of the crease function
+			final double distanceToEdge = radius - distanceToCenter;
+			// Distance from the target tile to the edge of the crease function,
+			// normalized so that the edge is at a distance of 1
+			final double distanceToEdgeNormalized = distanceToEdge / radius;
+			// Interpolate
+			return distanceToEdgeNormalized * height;
+		}
+
+		@Override
+		public void accumulateRow(double thisY, int firstX, int lastX, double[] destination, int destinationOffset,
+				double scale) {
+			for (int thisX = firstX, index = destinationOffset; thisX < lastX; ++thisX, ++index) {
+				destination[index] += this.valueAt(thisX, thisY) * scale;
+			}
+		}
+
+		@Override
+		public double getRadius() {
+			return radius;
+		}
+
+	}
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
 	@Override
 	public double valueAt(double startX, double startY, double endX, double endY, double thisX, double thisY) {
+		return this.bind(startX, startY, endX, endY).valueAt(thisX, thisY);
+	}
+
+	@Override
+	public Kernel bind(double startX, double startY, double endX, double endY) {
 		// Magnitude of the movement vector
 		final double movementVectorMagnitude = Math.manhattanDistance(startY, startX, endY, endX);
 		// Height of the crease function
 		final double height = Math.power(movementVectorMagnitude, heightPower) * heightFactor;
 		// Radius of the crease function
 		final double radius = Math.power(movementVectorMagnitude, radiusPower) * radiusFactor;
-		// Distance from the target tile to the center of the crease function
-		final double distanceToCenter = Math.manhattanDistance(thisY, thisX, endY, endX);
-		// If the target tile is outside of the tiles affected by the function, height is zero.
-		if (distanceToCenter > radius) {
-			return 0;
+		return new DiamondKernel(endX, endY, height, radius);
+	}
+
+	@Override
+	public double getRadius(double startX, double startY, double endX, double endY) {
+		// Magnitude of the movement vector
+		final double movementVectorMagnitude = Math.manhattanDistance(startY, startX, endY, endX);
+		// Radius of the crease function
+		return Math.power(movementVectorMagnitude, radiusPower) * radiusFactor;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (object instanceof Diamond) {
+			Diamond diamond = (Diamond) object;
+			return Double.compare(this.heightFactor, diamond.heightFactor) == 0
+					&& Double.compare(this.heightPower, diamond.heightPower) == 0
+					&& Double.compare(this.radiusFactor, diamond.radiusFactor) == 0
+					&& Double.compare(this.radiusPower, diamond.radiusPower) == 0;
+		} else {
+			return false;
 		}
-		// Distance from the target tile to the edge of the crease function
-		final double distanceToEdge = radius - distanceToCenter;
-		// Distance from the target tile to the edge of the crease function,
-		// normalized so that the edge is at a distance of 1
-		final double distanceToEdgeNormalized = distanceToEdge / radius;
-		// Interpolate
-		return distanceToEdgeNormalized * height;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.heightFactor, this.heightPower, this.radiusFactor, this.radiusPower);
 	}
 
 }
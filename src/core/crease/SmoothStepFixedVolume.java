@@ -21,6 +21,8 @@
 
 package core.crease;
 
+import java.util.Objects;
+
 import core.Crease;
 import util.Math;
 
@@ -29,13 +31,18 @@ import util.Math;
  * 0, 1 at 1 and a given value at 0.5 having a zero derivative at 0 and 1.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.1
  * @see core.Crease
  *
  */
 public class SmoothStepFixedVolume implements Crease {
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	private static final long serialVersionUID = 1L;
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance fields
 
@@ -68,44 +75,173 @@ public class SmoothStepFixedVolume implements Crease {
 		this.targetVolume = targetVolume;
 	}
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * A smooth step fixed volume crease function bound to a movement vector.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * @see core.Crease.Kernel
+	 * 
+	 */
+	private static final class SmoothStepFixedVolumeKernel implements Kernel {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * X coordinate of the center of the crease function.
+		 */
+		private final double centerX;
+		/**
+		 * Y coordinate of the center of the crease function.
+		 */
+		private final double centerY;
+		/**
+		 * Height of the crease function.
+		 */
+		private final double height;
+		/**
+		 * Radius of the crease function.
+		 */
+		private final double radius;
+		/**
+		 * The coefficient of the interpolation function.
+		 */
+		private final double a;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		/**
+		 * Construct a new kernel.
+		 * 
+		 * @param centerX X coordinate of the center of the crease function.
+		 * @param centerY Y coordinate of the center of the crease function.
+		 * @param height  Height of the crease function.
+		 * @param radius  Radius of the crease function.
+		 * @param a       The coefficient of the interpolation function.
+		 */
+		private SmoothStepFixedVolumeKernel(double centerX, double centerY, double height, double radius, double a) {
+			this.centerX = centerX;
+			this.centerY = centerY;
+			this.height = height;
+			this.radius = radius;
+			this.a = a;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		@Override
+		public double valueAt(double thisX, double thisY) {
+			// Distance from the target tile to the center of the crease function
+			final double distanceToCenter = Math.euclideanDistance(thisY, thisX, centerY, centerX);
+			// If the target tile is outside of the tiles affected by the function, height
+			// is zero.
+			if (distanceToCenter > radius) {
+				return 0;
+			}
+			// Distance from the target tile to the edge of the crease function
+			final double distanceToEdge = radius - distanceToCenter;
+			// Distance from the target tile to the edge of the crease function,
+			// normalized so that the edge is at a distance of 1
+			final double distanceToEdgeNormalized = distanceToEdge / radius;
+			/*
+			 * Calculate interpolation function
+			 */
+			final double x = distanceToEdgeNormalized;
+			final double x2 = x * x;
+			final double x3 = x2 * x;
+			final double x4 = x3 * x;
+			final double y = (16 * a - 8) * x4 + (-32 * a + 14) * x3 + (16 * a - 5) * x2;
+			// Result
+			return y * height;
+		}
+
+		@Override
+		public void accumulateRow(double thisY, int firstX, int lastX, double[] destination, int destinationOffset,
+				double scale) {
+			// Coefficients of the interpolation function
+			final double c4 = 16 * a - 8;
+			final double c3 = -32 * a + 14;
+			final double c2 = 16 * a - 5;
+			final double deltaY = centerY - thisY;
+			final double deltaY2 = deltaY * deltaY;
+			// Only the tiles within the radius are influenced, so the loop needs no
+			// branches and can be vectorized
+			final int firstInsideX = CreaseUtil.firstWithinEuclideanDistance(centerX, deltaY2, radius, firstX, lastX);
+			final int lastInsideX = CreaseUtil.lastWithinEuclideanDistance(centerX, deltaY2, radius, firstX, lastX);
+			for (int thisX = firstInsideX, index = destinationOffset + firstInsideX - firstX; thisX < lastInsideX;
+					++thisX, ++index) {
+				final double deltaX = centerX - thisX;
+				final double distanceToCenter = java.lang.Math.sqrt(deltaY2 + deltaX * deltaX);
+				final double x = (radius - distanceToCenter) / radius;
+				final double x2 = x * x;
+				final double x3 = x2 * x;
+				final double x4 = x3 * x;
+				final double y = c4 * x4 + c3 * x3 + c2 * x2;
+				destination[index] += y * height * scale;
+			}
+		}
+
+		@Override
+		public double getRadius() {
+			return radius;
+		}
+
+	}
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
 	@Override
 	public double valueAt(double startX, double startY, double endX, double endY, double thisX, double thisY) {
-		/*
-		 * Calculate distance to end tile normalized to distance between start and end
-		 * tiles
-		 */
+		return this.bind(startX, startY, endX, endY).valueAt(thisX, thisY);
+	}
+
+	@Override
+	public Kernel bind(double startX, double startY, double endX, double endY) {
 		// Magnitude of the movement vector
 		final double movementVectorMagnitude = Math.euclideanDistance(startY, startX, endY, endX);
 		// Height of the crease function
 		final double height = Math.power(movementVectorMagnitude, heightPower) * heightFactor;
 		// Radius of the crease function
 		final double radius = Math.power(movementVectorMagnitude, radiusPower) * radiusFactor;
-		// Distance from the target tile to the center of the crease function
-		final double distanceToCenter = Math.euclideanDistance(thisY, thisX, endY, endX);
-		// If the target tile is outside of the tiles affected by the function, height
-		// is zero.
-		if (distanceToCenter > radius) {
-			return 0;
-		}
-		// Distance from the target tile to the edge of the crease function
-		final double distanceToEdge = radius - distanceToCenter;
-		// Distance from the target tile to the edge of the crease function,
-		// normalized so that the edge is at a distance of 1
-		final double distanceToEdgeNormalized = distanceToEdge / radius;
-		/*
-		 * Calculate interpolation function
-		 */
+		// Coefficient of the interpolation function
 		final double a = ((targetVolume / (height * radius)) - 14) / 32;
-		final double x = distanceToEdgeNormalized;
-		final double x2 = x * x;
-		final double x3 = x2 * x;
-		final double x4 = x3 * x;
-		final double y = (16 * a - 8) * x4 + (-32 * a + 14) * x3 + (16 * a - 5) * x2;
-		// Result
-		return y * height;
+		return new SmoothStepFixedVolumeKernel(endX, endY, height, radius, a);
+	}
+
+	@Override
+	public double getRadius(double startX, double startY, double endX, double endY) {
+		// Magnitude of the movement vector
+		final double movementVectorMagnitude = Math.euclideanDistance(startY, startX, endY, endX);
+		// Radius of the crease function
+		return Math.power(movementVectorMagnitude, radiusPower) * radiusFactor;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (object instanceof SmoothStepFixedVolume) {
+			SmoothStepFixedVolume smoothStepFixedVolume = (SmoothStepFixedVolume) object;
+			return Double.compare(this.heightFactor, smoothStepFixedVolume.heightFactor) == 0
+					&& Double.compare(this.heightPower, smoothStepFixedVolume.heightPower) == 0
+					&& Double.compare(this.radiusFactor, smoothStepFixedVolume.radiusFactor) == 0
+					&& Double.compare(this.radiusPower, smoothStepFixedVolume.radiusPower) == 0
+					&& Double.compare(this.targetVolume, smoothStepFixedVolume.targetVolume) == 0;
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.heightFactor, this.heightPower, this.radiusFactor, this.radiusPower,
+				this.targetVolume);
 	}
 
 }
@@ -0,0 +1,236 @@
+/*
+ * FootprintIndex.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.Arrays;
+
+import core.Crease.Kernel;
+
+/**
+ * An index of the plates whose influence reaches each cell of a grid of square
+ * cells laid over a square terrain, including the influence of the copies of
+ * each plate if the terrain wraps around.
+ *
+ * The plates of each cell are kept in ascending order, so visiting them in
+ * order adds their influence in the same order the stamping engine does.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ *
+ */
+final class FootprintIndex {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The amount of tiles along each axis of the cells.
+	 */
+	private final int cellSize;
+	/**
+	 * The amount of cells along the x axis.
+	 */
+	private final int cellsX;
+	/**
+	 * The amount of cells along the y axis.
+	 */
+	private final int cellsY;
+	/**
+	 * The position in the plate indices after the plates of each cell, in row
+	 * major order.
+	 */
+	private final int[] cellEnds;
+	/**
+	 * The plates whose influence reaches each cell, grouped by cell.
+	 */
+	private final int[] plateIndices;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new index of the given plates over a terrain of the given size.
+	 * 
+	 * @param sizeX       The amount of tiles of the terrain along the x axis.
+	 * @param sizeY       The amount of tiles of the terrain along the y axis.
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param cellSize    The amount of tiles along each axis of the cells.
+	 * @param kernels     The crease bound to the movement vector of each plate, or
+	 *                    null for the plates left out of the index.
+	 * @param centersX    X index of the center of the influence of each plate.
+	 * @param centersY    Y index of the center of the influence of each plate.
+	 */
+	FootprintIndex(int sizeX, int sizeY, boolean wrapAroundX, boolean wrapAroundY, int cellSize, Kernel[] kernels,
+			int[] centersX, int[] centersY) {
+		this.cellSize = cellSize;
+		this.cellsX = (sizeX + cellSize - 1) / cellSize;
+		this.cellsY = (sizeY + cellSize - 1) / cellSize;
+		// The index is built in two passes, counting the plates of each cell first
+		this.cellEnds = new int[this.cellsX * this.cellsY];
+		int[] lastPlates = new int[this.cellEnds.length];
+		Arrays.fill(lastPlates, -1);
+		for (int plateIndex = 0; plateIndex < kernels.length; ++plateIndex) {
+			if (kernels[plateIndex] != null) {
+				this.add(plateIndex, kernels[plateIndex].getRadius(), centersX[plateIndex], centersY[plateIndex],
+						sizeX, sizeY, wrapAroundX, wrapAroundY, lastPlates, null);
+			}
+		}
+		for (int cellIndex = 1; cellIndex < this.cellEnds.length; ++cellIndex) {
+			this.cellEnds[cellIndex] += this.cellEnds[cellIndex - 1];
+		}
+		this.plateIndices = new int[this.cellEnds[this.cellEnds.length - 1]];
+		// The ends are moved back to the start of each cell and advance as the cell
+		// is filled
+		System.arraycopy(this.cellEnds, 0, this.cellEnds, 1, this.cellEnds.length - 1);
+		this.cellEnds[0] = 0;
+		Arrays.fill(lastPlates, -1);
+		for (int plateIndex = 0; plateIndex < kernels.length; ++plateIndex) {
+			if (kernels[plateIndex] != null) {
+				this.add(plateIndex, kernels[plateIndex].getRadius(), centersX[plateIndex], centersY[plateIndex],
+						sizeX, sizeY, wrapAroundX, wrapAroundY, lastPlates, this.plateIndices);
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the amount of tiles along each axis of the cells.
+	 * 
+	 * @return The amount of tiles along each axis of the cells.
+	 */
+	int getCellSize() {
+		return this.cellSize;
+	}
+
+	/**
+	 * Get the amount of cells along the x axis.
+	 * 
+	 * @return The amount of cells along the x axis.
+	 */
+	int getCellsX() {
+		return this.cellsX;
+	}
+
+	/**
+	 * Get the amount of cells along the y axis.
+	 * 
+	 * @return The amount of cells along the y axis.
+	 */
+	int getCellsY() {
+		return this.cellsY;
+	}
+
+	/**
+	 * Get the index of the cell that contains the tile at the given indices.
+	 * 
+	 * @param tileIndexX The index of the tile along the x axis.
+	 * @param tileIndexY The index of the tile along the y axis.
+	 * @return The index of the cell, in row major order.
+	 */
+	int getCellIndex(int tileIndexX, int tileIndexY) {
+		return tileIndexY / this.cellSize * this.cellsX + tileIndexX / this.cellSize;
+	}
+
+	/**
+	 * Get the position of the first plate of the given cell.
+	 * 
+	 * @param cellIndex The index of a cell, in row major order.
+	 * @return The position of the first plate of the cell.
+	 */
+	int getFirstPosition(int cellIndex) {
+		return cellIndex == 0 ? 0 : this.cellEnds[cellIndex - 1];
+	}
+
+	/**
+	 * Get the position after the last plate of the given cell.
+	 * 
+	 * @param cellIndex The index of a cell, in row major order.
+	 * @return The position after the last plate of the cell.
+	 */
+	int getLastPosition(int cellIndex) {
+		return this.cellEnds[cellIndex];
+	}
+
+	/**
+	 * Get the plate at the given position.
+	 * 
+	 * @param position A position between the first and last position of a cell.
+	 * @return The index of the plate.
+	 */
+	int getPlateIndex(int position) {
+		return this.plateIndices[position];
+	}
+
+	/**
+	 * Adds the given plate to the cells its influence reaches, or counts it if no
+	 * plate indices are given.
+	 * 
+	 * @param plateIndex   The index of a plate.
+	 * @param radius       The radius of the influence of the plate.
+	 * @param centerX      X index of the center of the influence of the plate.
+	 * @param centerY      Y index of the center of the influence of the plate.
+	 * @param sizeX        The amount of tiles of the terrain along the x axis.
+	 * @param sizeY        The amount of tiles of the terrain along the y axis.
+	 * @param wrapAroundX  Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY  Whether the terrain wraps around along the y axis.
+	 * @param lastPlates   The last plate added to each cell.
+	 * @param plateIndices The plate indices being filled, or null to count the
+	 *                     plates of each cell.
+	 */
+	private void add(int plateIndex, double radius, int centerX, int centerY, int sizeX, int sizeY,
+			boolean wrapAroundX, boolean wrapAroundY, int[] lastPlates, int[] plateIndices) {
+		int firstCopyX = SquareTerrainStamper.firstCopy(centerX, radius, 0, sizeX, sizeX, wrapAroundX);
+		int lastCopyX = SquareTerrainStamper.lastCopy(centerX, radius, 0, sizeX, sizeX, wrapAroundX);
+		int firstCopyY = SquareTerrainStamper.firstCopy(centerY, radius, 0, sizeY, sizeY, wrapAroundY);
+		int lastCopyY = SquareTerrainStamper.lastCopy(centerY, radius, 0, sizeY, sizeY, wrapAroundY);
+		for (int copyY = firstCopyY; copyY <= lastCopyY; ++copyY) {
+			int firstCellY = SquareTerrainStamper.lowerBound(centerY - copyY * sizeY, radius) / this.cellSize;
+			int lastCellY = (SquareTerrainStamper.upperBound(centerY - copyY * sizeY, radius, sizeY)
+					+ this.cellSize - 1) / this.cellSize;
+			for (int copyX = firstCopyX; copyX <= lastCopyX; ++copyX) {
+				int firstCellX = SquareTerrainStamper.lowerBound(centerX - copyX * sizeX, radius) / this.cellSize;
+				int lastCellX = (SquareTerrainStamper.upperBound(centerX - copyX * sizeX, radius, sizeX)
+						+ this.cellSize - 1) / this.cellSize;
+				for (int cellY = firstCellY; cellY < lastCellY; ++cellY) {
+					for (int cellX = firstCellX; cellX < lastCellX; ++cellX) {
+						int cellIndex = cellY * this.cellsX + cellX;
+						// A plate whose copies reach a cell more than once is added once
+						if (lastPlates[cellIndex] != plateIndex) {
+							lastPlates[cellIndex] = plateIndex;
+							if (plateIndices == null) {
+								++this.cellEnds[cellIndex];
+							} else {
+								plateIndices[this.cellEnds[cellIndex]++] = plateIndex;
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,444 @@
+/*
+ * LazySquareTerrain.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import core.Crease;
+import core.Crease.Kernel;
+import core.PlatePlan;
+import core.Terrain;
+
+/**
+ * A square terrain whose tiles are calculated from a plan when they're asked
+ * for instead of being stored, for uses that only need a few tiles of a big
+ * terrain.
+ *
+ * The tiles each plate influences are indexed in a grid of cells, so the value
+ * of a tile is calculated from the plates that influence its cell only. The
+ * value of a tile is the same the stamping engine would generate for it. The
+ * most recently calculated tiles of each layer are kept in a small cache.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ *
+ */
+public class LazySquareTerrain extends Terrain<LazySquareTerrain.LazySquareTerrainLayer> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The default amount of tiles kept in the cache of each layer.
+	 */
+	public static final int DEFAULT_CACHE_CAPACITY = 4096;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The amount of tiles along the x axis.
+	 */
+	private final int sizeX;
+	/**
+	 * The amount of tiles along the y axis.
+	 */
+	private final int sizeY;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Create a new lazy square terrain of the given size generated from the given
+	 * plan, with caches of the default capacity.
+	 * 
+	 * @param sizeX          The amount of tiles along the x axis.
+	 * @param sizeY          The amount of tiles along the y axis.
+	 * @param wrapAroundX    Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY    Whether the terrain wraps around along the y axis.
+	 * @param hasWater       Whether the terrain has water.
+	 * @param hasMagma       Whether the terrain has magma.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan for a terrain of the given size.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 */
+	public LazySquareTerrain(int sizeX, int sizeY, boolean wrapAroundX, boolean wrapAroundY, boolean hasWater,
+			boolean hasMagma, Crease crease, PlatePlan platePlan, double seaLevel, double crustThickness) {
+		this(sizeX, sizeY, wrapAroundX, wrapAroundY, hasWater, hasMagma, crease, platePlan, seaLevel,
+				crustThickness, DEFAULT_CACHE_CAPACITY);
+	}
+
+	/**
+	 * Create a new lazy square terrain of the given size generated from the given
+	 * plan.
+	 * 
+	 * @param sizeX          The amount of tiles along the x axis.
+	 * @param sizeY          The amount of tiles along the y axis.
+	 * @param wrapAroundX    Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY    Whether the terrain wraps around along the y axis.
+	 * @param hasWater       Whether the terrain has water.
+	 * @param hasMagma       Whether the terrain has magma.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan for a terrain of the given size.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param cacheCapacity  The amount of tiles kept in the cache of each layer,
+	 *                       or 0 for no cache.
+	 * @throws IllegalArgumentException If the size is lower than 1 along any axis
+	 *                                  or the capacity of the cache is negative.
+	 */
+	public LazySquareTerrain(int sizeX, int sizeY, boolean wrapAroundX, boolean wrapAroundY, boolean hasWater,
+			boolean hasMagma, Crease crease, PlatePlan platePlan, double seaLevel, double crustThickness,
+			int cacheCapacity) {
+		if (sizeX < 1 || sizeY < 1) {
+			throw new IllegalArgumentException("The size must be at least 1.");
+		}
+		if (cacheCapacity < 0) {
+			throw new IllegalArgumentException("The capacity of the cache can't be negative.");
+		}
+		this.sizeX = sizeX;
+		this.sizeY = sizeY;
+		int numberOfPlates = platePlan.getNumberOfPlates();
+		// Cells of about the area of a plate
+		int cellSize = (int) java.lang.Math
+				.ceil(java.lang.Math.sqrt((double) sizeX * sizeY / java.lang.Math.max(numberOfPlates, 1)));
+		this.landLayer = new LazySquareTerrainLayer(sizeX, sizeY, wrapAroundX, wrapAroundY, cellSize, crease,
+				platePlan, false, 0.0d, cacheCapacity);
+		if (hasWater) {
+			this.waterLayer = new LazySquareTerrainLayer(sizeX, sizeY, seaLevel);
+		}
+		if (hasMagma) {
+			// Magma is generated like land but in the opposite direction of the plate
+			// movement
+			this.magmaLayer = new LazySquareTerrainLayer(sizeX, sizeY, wrapAroundX, wrapAroundY, cellSize, crease,
+					platePlan, true, crustThickness, cacheCapacity);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * A layer of a lazy terrain, which calculates the value of its tiles when
+	 * they're asked for.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	public static class LazySquareTerrainLayer extends Terrain.TerrainLayer {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		/**
+		 * The amount of tiles along the x axis.
+		 */
+		private final int sizeX;
+		/**
+		 * The amount of tiles along the y axis.
+		 */
+		private final int sizeY;
+		/**
+		 * Whether the terrain wraps around along the x axis.
+		 */
+		private final boolean wrapAroundX;
+		/**
+		 * Whether the terrain wraps around along the y axis.
+		 */
+		private final boolean wrapAroundY;
+		/**
+		 * The crease bound to the movement vector of each plate, or null if every
+		 * tile of this layer has the same value.
+		 */
+		private final Kernel[] kernels;
+		/**
+		 * X index of the center of the influence of each plate.
+		 */
+		private final int[] centersX;
+		/**
+		 * Y index of the center of the influence of each plate.
+		 */
+		private final int[] centersY;
+		/**
+		 * The value subtracted from the sum of the influences, or the value of every
+		 * tile if this layer has no kernels.
+		 */
+		private final double offset;
+		/**
+		 * The index of the plates whose influence reaches each cell of the layer, or
+		 * null if this layer has no kernels.
+		 */
+		private final FootprintIndex index;
+		/**
+		 * The most recently calculated tiles, keyed by their indices, or null.
+		 */
+		private final LinkedHashMap<Long, Double> cache;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		/**
+		 * Create a new layer where every tile has the given value.
+		 * 
+		 * @param sizeX The amount of tiles along the x axis.
+		 * @param sizeY The amount of tiles along the y axis.
+		 * @param value The value of every tile.
+		 */
+		private LazySquareTerrainLayer(int sizeX, int sizeY, double value) {
+			this.sizeX = sizeX;
+			this.sizeY = sizeY;
+			this.wrapAroundX = false;
+			this.wrapAroundY = false;
+			this.kernels = null;
+			this.centersX = null;
+			this.centersY = null;
+			this.offset = value;
+			this.index = null;
+			this.cache = null;
+		}
+
+		/**
+		 * Create a new layer that sums the influence of the movement vectors of the
+		 * given plan.
+		 * 
+		 * @param sizeX         The amount of tiles along the x axis.
+		 * @param sizeY         The amount of tiles along the y axis.
+		 * @param wrapAroundX   Whether the terrain wraps around along the x axis.
+		 * @param wrapAroundY   Whether the terrain wraps around along the y axis.
+		 * @param cellSize      The amount of tiles along each axis of the cells of
+		 *                      the index.
+		 * @param crease        A crease.
+		 * @param platePlan     A plan.
+		 * @param reverse       Whether to use the movement vectors in the opposite
+		 *                      direction.
+		 * @param offset        The value subtracted from the sum of the influences.
+		 * @param cacheCapacity The amount of tiles kept in the cache, or 0.
+		 */
+		private LazySquareTerrainLayer(int sizeX, int sizeY, boolean wrapAroundX, boolean wrapAroundY,
+				int cellSize, Crease crease, PlatePlan platePlan, boolean reverse, double offset,
+				int cacheCapacity) {
+			this.sizeX = sizeX;
+			this.sizeY = sizeY;
+			this.wrapAroundX = wrapAroundX;
+			this.wrapAroundY = wrapAroundY;
+			int numberOfPlates = platePlan.getNumberOfPlates();
+			this.kernels = new Kernel[numberOfPlates];
+			this.centersX = new int[numberOfPlates];
+			this.centersY = new int[numberOfPlates];
+			for (int plateIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+				int startX = platePlan.getStartX(plateIndex);
+				int startY = platePlan.getStartY(plateIndex);
+				int endX = platePlan.getEndX(plateIndex);
+				int endY = platePlan.getEndY(plateIndex);
+				if (reverse) {
+					this.kernels[plateIndex] = crease.bind(endX, endY, startX, startY);
+					this.centersX[plateIndex] = startX;
+					this.centersY[plateIndex] = startY;
+				} else {
+					this.kernels[plateIndex] = crease.bind(startX, startY, endX, endY);
+					this.centersX[plateIndex] = endX;
+					this.centersY[plateIndex] = endY;
+				}
+			}
+			this.offset = offset;
+			this.index = new FootprintIndex(sizeX, sizeY, wrapAroundX, wrapAroundY, cellSize, this.kernels,
+					this.centersX, this.centersY);
+			this.cache = cacheCapacity == 0 ? null : new LinkedHashMap<Long, Double>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+					return this.size() > cacheCapacity;
+				}
+
+			};
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		/**
+		 * Get the size of this layer along the x axis.
+		 * 
+		 * @return The size of this layer along the x axis.
+		 */
+		public int getSizeX() {
+			return this.sizeX;
+		}
+
+		/**
+		 * Get the size of this layer along the y axis.
+		 * 
+		 * @return The size of this layer along the y axis.
+		 */
+		public int getSizeY() {
+			return this.sizeY;
+		}
+
+		/**
+		 * Get the value of this layer at the tile at the given indices.
+		 * 
+		 * @param indexX The index of the tile along the x axis.
+		 * @param indexY The index of the tile along the y axis.
+		 * @return The value of this layer at the tile at the given indices.
+		 * @throws IndexOutOfBoundsException If the indices are out of the layer.
+		 */
+		public double getTile(int indexX, int indexY) {
+			Objects.checkIndex(indexX, this.sizeX);
+			Objects.checkIndex(indexY, this.sizeY);
+			if (this.kernels == null) {
+				return this.offset;
+			}
+			if (this.cache == null) {
+				return this.calculate(indexX, indexY, new double[1]);
+			}
+			Long key = (long) indexY << 32 | indexX;
+			synchronized (this.cache) {
+				Double value = this.cache.get(key);
+				if (value != null) {
+					return value;
+				}
+			}
+			double value = this.calculate(indexX, indexY, new double[1]);
+			synchronized (this.cache) {
+				this.cache.put(key, value);
+			}
+			return value;
+		}
+
+		/**
+		 * Get the value of this layer at the tiles at the given indices.
+		 * 
+		 * @param indicesX The index of each tile along the x axis.
+		 * @param indicesY The index of each tile along the y axis.
+		 * @param values   The array the value of each tile is written to.
+		 * @throws IllegalArgumentException  If the arrays don't have the same
+		 *                                   length.
+		 * @throws IndexOutOfBoundsException If any indices are out of the layer.
+		 */
+		public void getTiles(int[] indicesX, int[] indicesY, double[] values) {
+			if (indicesX.length != indicesY.length || indicesX.length != values.length) {
+				throw new IllegalArgumentException("The arrays must have the same length.");
+			}
+			for (int index = 0; index < values.length; ++index) {
+				values[index] = this.getTile(indicesX[index], indicesY[index]);
+			}
+		}
+
+		/**
+		 * Calculates the value of this layer at the tile at the given indices.
+		 * 
+		 * @param indexX  The index of the tile along the x axis.
+		 * @param indexY  The index of the tile along the y axis.
+		 * @param scratch An array of one element used to sum the influences.
+		 * @return The value of this layer at the tile at the given indices.
+		 */
+		private double calculate(int indexX, int indexY, double[] scratch) {
+			int cellIndex = this.index.getCellIndex(indexX, indexY);
+			int first = this.index.getFirstPosition(cellIndex);
+			int last = this.index.getLastPosition(cellIndex);
+			// The influences are added in the same order the stamping engine adds them
+			// so the sum is the same
+			scratch[0] = 0.0d;
+			for (int position = first; position < last; ++position) {
+				int plateIndex = this.index.getPlateIndex(position);
+				Kernel kernel = this.kernels[plateIndex];
+				int centerX = this.centersX[plateIndex];
+				int centerY = this.centersY[plateIndex];
+				double radius = kernel.getRadius();
+				int firstCopyX = SquareTerrainStamper.firstCopy(centerX, radius, indexX, indexX + 1, this.sizeX,
+						this.wrapAroundX);
+				int lastCopyX = SquareTerrainStamper.lastCopy(centerX, radius, indexX, indexX + 1, this.sizeX,
+						this.wrapAroundX);
+				int firstCopyY = SquareTerrainStamper.firstCopy(centerY, radius, indexY, indexY + 1, this.sizeY,
+						this.wrapAroundY);
+				int lastCopyY = SquareTerrainStamper.lastCopy(centerY, radius, indexY, indexY + 1, this.sizeY,
+						this.wrapAroundY);
+				this.accumulate(kernel, centerX, centerY, 0, 0, indexX, indexY, scratch);
+				for (int copyY = firstCopyY; copyY <= lastCopyY; ++copyY) {
+					for (int copyX = firstCopyX; copyX <= lastCopyX; ++copyX) {
+						if (copyX != 0 || copyY != 0) {
+							this.accumulate(kernel, centerX, centerY, copyX * this.sizeX, copyY * this.sizeY, indexX,
+									indexY, scratch);
+						}
+					}
+				}
+			}
+			return scratch[0] - this.offset;
+		}
+
+		/**
+		 * Adds the influence of a movement vector to the given sum if the tile at the
+		 * given indices is within its radius once displaced by the given offsets.
+		 * 
+		 * @param kernel  A crease bound to a movement vector.
+		 * @param centerX X index of the center of the influence.
+		 * @param centerY Y index of the center of the influence.
+		 * @param offsetX The displacement of the tile along the x axis.
+		 * @param offsetY The displacement of the tile along the y axis.
+		 * @param indexX  The index of the tile along the x axis.
+		 * @param indexY  The index of the tile along the y axis.
+		 * @param sum     An array of one element with the sum of the influences.
+		 */
+		private void accumulate(Kernel kernel, int centerX, int centerY, int offsetX, int offsetY, int indexX,
+				int indexY, double[] sum) {
+			double radius = kernel.getRadius();
+			if (indexX >= SquareTerrainStamper.lowerBound(centerX - offsetX, radius)
+					&& indexX < SquareTerrainStamper.upperBound(centerX - offsetX, radius, this.sizeX)
+					&& indexY >= SquareTerrainStamper.lowerBound(centerY - offsetY, radius)
+					&& indexY < SquareTerrainStamper.upperBound(centerY - offsetY, radius, this.sizeY)) {
+				kernel.accumulateRow(indexY + offsetY, indexX + offsetX, indexX + offsetX + 1, sum, 0, 1.0d);
+			}
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the size of this terrain along the x axis.
+	 * 
+	 * @return The size of this terrain along the x axis.
+	 */
+	public int getSizeX() {
+		return this.sizeX;
+	}
+
+	/**
+	 * Get the size of this terrain along the y axis.
+	 * 
+	 * @return The size of this terrain along the y axis.
+	 */
+	public int getSizeY() {
+		return this.sizeY;
+	}
+
+}
@@ -21,6 +21,8 @@
 
 package core.terrain;
 
+import java.util.Arrays;
+
 import core.Terrain;
 
 /**
@@ -91,6 +93,18 @@ public class SquareTerrain extends Terrain<SquareTerrain.SquareTerrainLayer> {
 			this.tiles = new double[sizeY][sizeX];
 		}
 
+		/**
+		 * Create a new square terrain layer with the same tiles as the given layer.
+		 * 
+		 * @param layer A layer.
+		 */
+		public SquareTerrainLayer(SquareTerrainLayer layer) {
+			this.tiles = new double[layer.tiles.length][];
+			for (int tileIndexY = 0; tileIndexY < this.tiles.length; ++tileIndexY) {
+				this.tiles[tileIndexY] = layer.tiles[tileIndexY].clone();
+			}
+		}
+
 		////////////////////////////////////////////////////////////////////////////////
 		// Instance methods
 
@@ -134,6 +148,15 @@ public class SquareTerrain extends Terrain<SquareTerrain.SquareTerrainLayer> {
 			this.tiles[indexY][indexX] = value;
 		}
 
+		/**
+		 * Set the value of all tiles of this layer to zero.
+		 */
+		public void clear() {
+			for (double[] row : this.tiles) {
+				Arrays.fill(row, 0.0d);
+			}
+		}
+
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -157,4 +180,18 @@ public class SquareTerrain extends Terrain<SquareTerrain.SquareTerrainLayer> {
 		return this.landLayer.getSizeY();
 	}
 
+	/**
+	 * Set the value of all tiles of all layers of this terrain to zero, so it can
+	 * be generated again without allocating new layers.
+	 */
+	public void clear() {
+		this.landLayer.clear();
+		if (this.waterLayer != null) {
+			this.waterLayer.clear();
+		}
+		if (this.magmaLayer != null) {
+			this.magmaLayer.clear();
+		}
+	}
+
 }
@@ -0,0 +1,522 @@
+/*
+ * SquareTerrainBlockStamper.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import core.Crease;
+import core.Crease.Kernel;
+import core.PlatePlan;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+
+/**
+ * Applies the influence of movement vectors to the layers of a square terrain
+ * one block of tiles at a time. The plates are first binned by the blocks their
+ * influence reaches, and then each block receives the influence of its plates
+ * only, so the tiles of a block stay in the cache while all the plates that
+ * reach it are applied instead of the whole terrain being walked once for each
+ * plate.
+ *
+ * Every tile receives the influences of the movement vectors, and of their
+ * copies if the terrain wraps around, in the same order as it would with
+ * {@link core.terrain.SquareTerrainStamper}, so the result is the same. Blocks
+ * are independent of each other, so several threads can take blocks as they
+ * finish the previous ones and the result doesn't depend on the number of
+ * threads.
+ *
+ * This engine can't be set by the configuration yet, since it hasn't been
+ * measured faster than {@link core.terrain.SquareTerrainStamper}, whose bands
+ * of rows already keep the tiles being stamped in the cache. The benchmark mode
+ * measures both engines.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ * @see core.terrain.SquareTerrainEngine
+ *
+ */
+public class SquareTerrainBlockStamper implements SquareTerrainEngine {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The amount of tiles along each axis of a block. The tiles of a block of
+	 * land and magma take 64 KiB, which fits in the L2 cache of most processors.
+	 */
+	public static final int BLOCK_SIZE = 64;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The number of threads used to generate several blocks at once.
+	 */
+	private final int parallelism;
+	/**
+	 * The threads used to generate several blocks at once, shared with the other
+	 * engines with the same number of threads, or null if a single thread is used.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * The cache used to bind creases to movement vectors, or null if no cache is
+	 * used.
+	 */
+	private final StampCache stampCache;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new block stamper that uses a single thread.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 */
+	public SquareTerrainBlockStamper(boolean wrapAroundX, boolean wrapAroundY) {
+		this(wrapAroundX, wrapAroundY, 1);
+	}
+
+	/**
+	 * Construct a new block stamper.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used to generate several blocks at
+	 *                    once.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainBlockStamper(boolean wrapAroundX, boolean wrapAroundY, int parallelism) {
+		this(wrapAroundX, wrapAroundY, parallelism, null);
+	}
+
+	/**
+	 * Construct a new block stamper that binds creases to movement vectors
+	 * through a stamp cache.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used to generate several blocks at
+	 *                    once.
+	 * @param stampCache  A stamp cache, or null to bind creases directly.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainBlockStamper(boolean wrapAroundX, boolean wrapAroundY, int parallelism,
+			StampCache stampCache) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.parallelism = parallelism;
+		this.pool = parallelism == 1 ? null : ThreadPools.get(parallelism);
+		this.stampCache = stampCache;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * The tiles of a layer together with the kernels applied to them and the
+	 * index of the plates that reach each block.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	private static final class Binning {
+
+		/**
+		 * The tiles receiving the influence of the movement vectors.
+		 */
+		private final double[][] tiles;
+		/**
+		 * The crease bound to the movement vector of each plate.
+		 */
+		private final Kernel[] kernels;
+		/**
+		 * X index of the center of the influence of each plate.
+		 */
+		private final int[] centersX;
+		/**
+		 * Y index of the center of the influence of each plate.
+		 */
+		private final int[] centersY;
+		/**
+		 * The plates that reach each block.
+		 */
+		private final FootprintIndex index;
+
+		private Binning(double[][] tiles, Kernel[] kernels, int[] centersX, int[] centersY, FootprintIndex index) {
+			this.tiles = tiles;
+			this.kernels = kernels;
+			this.centersX = centersX;
+			this.centersY = centersY;
+			this.index = index;
+		}
+
+	}
+
+	/**
+	 * The layers of a terrain being generated, so all the layers of a block can be
+	 * generated while the block is in the cache.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	private class Generation {
+
+		/**
+		 * The layer receiving the influence of the movement vectors.
+		 */
+		private final Binning binning;
+		/**
+		 * The layer receiving the influence of the movement vectors in the opposite
+		 * direction, or null.
+		 */
+		private final Binning reverseBinning;
+		/**
+		 * The value subtracted from the tiles of the reverse layer once generated.
+		 */
+		private final double reverseOffset;
+		/**
+		 * The tiles filled with a value, or null.
+		 */
+		private final double[][] filledTiles;
+		/**
+		 * The value the filled tiles are filled with.
+		 */
+		private final double fillValue;
+
+		private Generation(Binning binning, Binning reverseBinning, double reverseOffset, double[][] filledTiles,
+				double fillValue) {
+			this.binning = binning;
+			this.reverseBinning = reverseBinning;
+			this.reverseOffset = reverseOffset;
+			this.filledTiles = filledTiles;
+			this.fillValue = fillValue;
+		}
+
+		/**
+		 * Generates the given range of blocks of all layers.
+		 * 
+		 * @param firstBlock The first block, in row major order.
+		 * @param lastBlock  The block after the last block.
+		 */
+		private void generate(int firstBlock, int lastBlock) {
+			double[][] tiles = this.binning.tiles;
+			int sizeX = tiles[0].length;
+			int sizeY = tiles.length;
+			int blocksX = this.binning.index.getCellsX();
+			for (int blockIndex = firstBlock; blockIndex < lastBlock; ++blockIndex) {
+				int firstColumn = blockIndex % blocksX * BLOCK_SIZE;
+				int lastColumn = java.lang.Math.min(firstColumn + BLOCK_SIZE, sizeX);
+				int firstRow = blockIndex / blocksX * BLOCK_SIZE;
+				int lastRow = java.lang.Math.min(firstRow + BLOCK_SIZE, sizeY);
+				this.stamp(this.binning, blockIndex, firstColumn, lastColumn, firstRow, lastRow);
+				if (this.reverseBinning != null) {
+					this.stamp(this.reverseBinning, blockIndex, firstColumn, lastColumn, firstRow, lastRow);
+				}
+				// The block is finished while it's still in the cache
+				for (int tileIndexY = firstRow; tileIndexY < lastRow; ++tileIndexY) {
+					if (this.filledTiles != null) {
+						Arrays.fill(this.filledTiles[tileIndexY], firstColumn, lastColumn, this.fillValue);
+					}
+					if (this.reverseBinning != null) {
+						double[] row = this.reverseBinning.tiles[tileIndexY];
+						for (int tileIndexX = firstColumn; tileIndexX < lastColumn; ++tileIndexX) {
+							row[tileIndexX] -= this.reverseOffset;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds the influence of the plates that reach the given block to its tiles,
+		 * in order, including the influence of every copy of each plate that reaches
+		 * the block.
+		 * 
+		 * @param binning     The layer.
+		 * @param blockIndex  The index of the block, in row major order.
+		 * @param firstColumn The first column of the block.
+		 * @param lastColumn  The column after the last column of the block.
+		 * @param firstRow    The first row of the block.
+		 * @param lastRow     The row after the last row of the block.
+		 */
+		private void stamp(Binning binning, int blockIndex, int firstColumn, int lastColumn, int firstRow,
+				int lastRow) {
+			boolean wrapAroundX = SquareTerrainBlockStamper.this.wrapAroundX;
+			boolean wrapAroundY = SquareTerrainBlockStamper.this.wrapAroundY;
+			double[][] tiles = binning.tiles;
+			int sizeX = tiles[0].length;
+			int sizeY = tiles.length;
+			FootprintIndex index = binning.index;
+			for (int position = index.getFirstPosition(blockIndex); position < index
+					.getLastPosition(blockIndex); ++position) {
+				int plateIndex = index.getPlateIndex(position);
+				Kernel kernel = binning.kernels[plateIndex];
+				int centerX = binning.centersX[plateIndex];
+				int centerY = binning.centersY[plateIndex];
+				double radius = kernel.getRadius();
+				int firstCopyX = SquareTerrainStamper.firstCopy(centerX, radius, firstColumn, lastColumn, sizeX,
+						wrapAroundX);
+				int lastCopyX = SquareTerrainStamper.lastCopy(centerX, radius, firstColumn, lastColumn, sizeX,
+						wrapAroundX);
+				int firstCopyY = SquareTerrainStamper.firstCopy(centerY, radius, firstRow, lastRow, sizeY,
+						wrapAroundY);
+				int lastCopyY = SquareTerrainStamper.lastCopy(centerY, radius, firstRow, lastRow, sizeY, wrapAroundY);
+				SquareTerrainBlockStamper.stamp(tiles, kernel, centerX, centerY, 0, 0, firstColumn, lastColumn,
+						firstRow, lastRow);
+				for (int copyY = firstCopyY; copyY <= lastCopyY; ++copyY) {
+					for (int copyX = firstCopyX; copyX <= lastCopyX; ++copyX) {
+						if (copyX != 0 || copyY != 0) {
+							SquareTerrainBlockStamper.stamp(tiles, kernel, centerX, centerY, copyX * sizeX,
+									copyY * sizeY, firstColumn, lastColumn, firstRow, lastRow);
+						}
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A task that generates a range of blocks of the layers of a terrain,
+	 * splitting the range among several threads if it's big enough.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	private static final class BlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Generation generation;
+		private final int firstBlock;
+		private final int lastBlock;
+		private final int blocksPerTask;
+
+		private BlockTask(Generation generation, int firstBlock, int lastBlock, int blocksPerTask) {
+			this.generation = generation;
+			this.firstBlock = firstBlock;
+			this.lastBlock = lastBlock;
+			this.blocksPerTask = blocksPerTask;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.lastBlock - this.firstBlock <= this.blocksPerTask) {
+				this.generation.generate(this.firstBlock, this.lastBlock);
+			} else {
+				int middleBlock = (this.firstBlock + this.lastBlock) >>> 1;
+				invokeAll(new BlockTask(this.generation, this.firstBlock, middleBlock, this.blocksPerTask),
+						new BlockTask(this.generation, middleBlock, this.lastBlock, this.blocksPerTask));
+			}
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of threads used to generate several blocks at once.
+	 * 
+	 * @return The number of threads used to generate several blocks at once.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Adds the influence of the movement vectors of all plates of the given plan
+	 * to the tiles of the given layer.
+	 * 
+	 * The result is the same as that of
+	 * {@link core.terrain.SquareTerrainStamper#stamp(SquareTerrainLayer, Crease, PlatePlan)}.
+	 * 
+	 * @param layer     A layer.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 */
+	@Override
+	public void stamp(SquareTerrainLayer layer, Crease crease, PlatePlan platePlan) {
+		Generation generation = new Generation(this.bin(layer.tiles, crease, platePlan, false), null, 0.0d, null,
+				0.0d);
+		this.generate(generation);
+	}
+
+	/**
+	 * Generates the layers of the given terrain one block at a time. Each block
+	 * receives the influence of its plates on land and magma, and is filled with
+	 * water and shifted by the crust thickness right after, so no further pass
+	 * over the terrain is needed.
+	 * 
+	 * The result is the same as that of the default implementation.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 */
+	@Override
+	public void generate(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness) {
+		SquareTerrainLayer magmaLayer = terrain.getMagmaLayer();
+		SquareTerrainLayer waterLayer = terrain.getWaterLayer();
+		// Magma is generated like land but in the opposite direction of the plate
+		// movement
+		Generation generation = new Generation(this.bin(terrain.getLandLayer().tiles, crease, platePlan, false),
+				magmaLayer == null ? null : this.bin(magmaLayer.tiles, crease, platePlan, true), crustThickness,
+				waterLayer == null ? null : waterLayer.tiles, seaLevel);
+		this.generate(generation);
+	}
+
+	/**
+	 * Generates all blocks of the given layers, using multiple threads if this
+	 * stamper has more than one.
+	 * 
+	 * @param generation The layers.
+	 */
+	private void generate(Generation generation) {
+		FootprintIndex index = generation.binning.index;
+		int blocks = index.getCellsX() * index.getCellsY();
+		if (this.parallelism == 1 || blocks == 1) {
+			generation.generate(0, blocks);
+		} else {
+			// Several tasks per thread so threads that finish early can take more work
+			int blocksPerTask = java.lang.Math.max(1, blocks / (this.parallelism * 4));
+			this.pool.invoke(new BlockTask(generation, 0, blocks, blocksPerTask));
+		}
+	}
+
+	/**
+	 * Binds the given crease to the movement vector of each plate of the given
+	 * plan and bins the plates by the blocks of the given tiles their influence
+	 * reaches.
+	 * 
+	 * @param tiles     The tiles of a layer.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @param reverse   Whether to bind the crease to the movement vectors in the
+	 *                  opposite direction.
+	 * @return The tiles of the layer with their kernels and bins.
+	 */
+	private Binning bin(double[][] tiles, Crease crease, PlatePlan platePlan, boolean reverse) {
+		int numberOfPlates = platePlan.getNumberOfPlates();
+		Kernel[] kernels = new Kernel[numberOfPlates];
+		int[] centersX = new int[numberOfPlates];
+		int[] centersY = new int[numberOfPlates];
+		for (int plateIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+			int startX = platePlan.getStartX(plateIndex);
+			int startY = platePlan.getStartY(plateIndex);
+			int endX = platePlan.getEndX(plateIndex);
+			int endY = platePlan.getEndY(plateIndex);
+			if (reverse) {
+				kernels[plateIndex] = this.bind(crease, endX, endY, startX, startY);
+				centersX[plateIndex] = startX;
+				centersY[plateIndex] = startY;
+			} else {
+				kernels[plateIndex] = this.bind(crease, startX, startY, endX, endY);
+				centersX[plateIndex] = endX;
+				centersY[plateIndex] = endY;
+			}
+		}
+		return new Binning(tiles, kernels, centersX, centersY, new FootprintIndex(tiles[0].length, tiles.length,
+				this.wrapAroundX, this.wrapAroundY, BLOCK_SIZE, kernels, centersX, centersY));
+	}
+
+	/**
+	 * Binds the given crease to a movement vector, through the stamp cache of this
+	 * stamper if it has one.
+	 * 
+	 * @param crease A crease.
+	 * @param startX X index of the starting tile of a movement vector.
+	 * @param startY Y index of the starting tile of a movement vector.
+	 * @param endX   X index of the ending tile of a movement vector.
+	 * @param endY   Y index of the ending tile of a movement vector.
+	 * @return The given crease bound to the given movement vector.
+	 */
+	private Kernel bind(Crease crease, int startX, int startY, int endX, int endY) {
+		if (this.stampCache == null) {
+			return crease.bind(startX, startY, endX, endY);
+		}
+		return this.stampCache.bind(crease, startX, startY, endX, endY);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Adds the influence of a movement vector to the tiles of the given array
+	 * within the given radius of its center and the given block. The influence on
+	 * each tile is calculated as if the tile was displaced by the given offsets.
+	 * 
+	 * @param tiles       The tiles of a layer.
+	 * @param kernel      A crease bound to a movement vector.
+	 * @param centerX     X index of the center of the influence.
+	 * @param centerY     Y index of the center of the influence.
+	 * @param offsetX     The displacement of the tiles along the x axis.
+	 * @param offsetY     The displacement of the tiles along the y axis.
+	 * @param firstColumn The first column of the block.
+	 * @param lastColumn  The column after the last column of the block.
+	 * @param firstRow    The first row of the block.
+	 * @param lastRow     The row after the last row of the block.
+	 */
+	private static void stamp(double[][] tiles, Kernel kernel, int centerX, int centerY, int offsetX, int offsetY,
+			int firstColumn, int lastColumn, int firstRow, int lastRow) {
+		double radius = kernel.getRadius();
+		int firstTileIndexY = java.lang.Math.max(firstRow, SquareTerrainStamper.lowerBound(centerY - offsetY, radius));
+		int lastTileIndexY = java.lang.Math.min(lastRow,
+				SquareTerrainStamper.upperBound(centerY - offsetY, radius, tiles.length));
+		int firstTileIndexX = java.lang.Math.max(firstColumn,
+				SquareTerrainStamper.lowerBound(centerX - offsetX, radius));
+		int lastTileIndexX = java.lang.Math.min(lastColumn,
+				SquareTerrainStamper.upperBound(centerX - offsetX, radius, tiles[0].length));
+		if (firstTileIndexX >= lastTileIndexX) {
+			return;
+		}
+		for (int tileIndexY = firstTileIndexY; tileIndexY < lastTileIndexY; ++tileIndexY) {
+			kernel.accumulateRow(tileIndexY + offsetY, firstTileIndexX + offsetX, lastTileIndexX + offsetX,
+					tiles[tileIndexY], firstTileIndexX, 1.0d);
+		}
+	}
+
+}
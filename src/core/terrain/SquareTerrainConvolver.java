@@ -0,0 +1,630 @@
+/*
+ * SquareTerrainConvolver.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import core.Crease;
+import core.Crease.Kernel;
+import core.PlatePlan;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+import util.FourierTransform;
+
+/**
+ * Applies the influence of movement vectors to the layers of a square terrain
+ * through convolutions calculated with fast Fourier transforms.
+ *
+ * The influence of a movement vector only depends on the displacement of the
+ * movement vector and on the position of the tiles relative to its ending tile,
+ * so the influence of all the plates whose movement vectors have the same
+ * displacement is the convolution of a map with the number of plates ending at
+ * each tile and the influence of a single movement vector ending at the tile
+ * with indices 0, 0. The displacement is used instead of the magnitude because
+ * each crease measures the magnitude with its own distance, such as the
+ * Manhattan distance of a diamond. The transforms of those convolutions are
+ * added together, so a single inverse transform is needed for the whole layer.
+ * The cost of generating a layer depends on the number of different
+ * displacements and the size of the terrain instead of the number of plates and the region
+ * influenced by each plate, which makes this engine much faster than stamping
+ * for terrains with many plates and large creases.
+ *
+ * Along the axes the terrain wraps around, the convolution is circular, so the
+ * influence of a movement vector includes all its copies displaced by any
+ * multiple of the size of the terrain along those axes. Along the other axes
+ * the layer is padded with enough tiles so the influence doesn't wrap around.
+ *
+ * Movement vectors whose influence isn't bounded or isn't finite on every tile
+ * are applied through a {@link core.terrain.SquareTerrainStamper} instead.
+ *
+ * This engine is approximate: the result is the same as that of a
+ * {@link core.terrain.SquareTerrainStamper} up to rounding errors, which are
+ * spread by the transforms over every tile. So that tiles no plate influences
+ * don't receive those errors, the tiles each convolved plate influences are
+ * tracked row by row, and the result of the convolutions is only added to
+ * those tiles. The other tiles are left exactly as they were.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see util.FourierTransform
+ * @see core.terrain.SquareTerrain
+ *
+ */
+public class SquareTerrainConvolver implements SquareTerrainEngine {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The greatest radius of the influence of a movement vector applied through a
+	 * convolution. The influence of movement vectors with a greater radius is
+	 * applied by stamping.
+	 */
+	static final double MAXIMUM_RADIUS = 1 << 28;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The number of threads used to calculate the transforms.
+	 */
+	private final int parallelism;
+	/**
+	 * The threads used to calculate the transforms, shared with the other engines
+	 * with the same number of threads, or null if a single thread is used.
+	 */
+	private final ForkJoinPool pool;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new convolver that uses a single thread.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 */
+	public SquareTerrainConvolver(boolean wrapAroundX, boolean wrapAroundY) {
+		this(wrapAroundX, wrapAroundY, 1);
+	}
+
+	/**
+	 * Construct a new convolver.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used to calculate the transforms.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainConvolver(boolean wrapAroundX, boolean wrapAroundY, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.parallelism = parallelism;
+		this.pool = parallelism == 1 ? null : ThreadPools.get(parallelism);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * The plates whose movement vectors have the same displacement.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * 
+	 */
+	private static final class Bucket {
+
+		/**
+		 * The crease bound to a movement vector of this displacement that ends at
+		 * the point with coordinates 0, 0.
+		 */
+		private final Kernel kernel;
+		/**
+		 * The first index along the x axis, relative to the ending tile, of the tiles
+		 * influenced in each row within the reach along the y axis, from the top.
+		 */
+		private int[] firstInfluencedX;
+		/**
+		 * The last index along the x axis, relative to the ending tile, of the tiles
+		 * influenced in each row, lower than the first if no tile is influenced.
+		 */
+		private int[] lastInfluencedX;
+		/**
+		 * The indices of the plates, in order.
+		 */
+		private int[] plates;
+		/**
+		 * The number of plates.
+		 */
+		private int numberOfPlates;
+
+		private Bucket(Kernel kernel) {
+			this.kernel = kernel;
+			this.plates = new int[4];
+		}
+
+		private void add(int plateIndex) {
+			if (this.numberOfPlates == this.plates.length) {
+				this.plates = Arrays.copyOf(this.plates, this.plates.length * 2);
+			}
+			this.plates[this.numberOfPlates++] = plateIndex;
+		}
+
+	}
+
+	/**
+	 * A task that transforms a range of lines of a two-dimensional sequence,
+	 * splitting the range among several threads if it's big enough.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * 
+	 */
+	private static final class LineTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final FourierTransform transform;
+		private final boolean inverse;
+		private final double[] real;
+		private final double[] imaginary;
+		private final int lineStride;
+		private final int elementStride;
+		private final int firstLine;
+		private final int lastLine;
+		private final int linesPerTask;
+
+		private LineTask(FourierTransform transform, boolean inverse, double[] real, double[] imaginary,
+				int lineStride, int elementStride, int firstLine, int lastLine, int linesPerTask) {
+			this.transform = transform;
+			this.inverse = inverse;
+			this.real = real;
+			this.imaginary = imaginary;
+			this.lineStride = lineStride;
+			this.elementStride = elementStride;
+			this.firstLine = firstLine;
+			this.lastLine = lastLine;
+			this.linesPerTask = linesPerTask;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.lastLine - this.firstLine <= this.linesPerTask) {
+				int length = this.transform.getLength();
+				double[] lineReal = new double[length];
+				double[] lineImaginary = new double[length];
+				for (int line = this.firstLine; line < this.lastLine; ++line) {
+					for (int element = 0, index = line * this.lineStride; element < length;
+							++element, index += this.elementStride) {
+						lineReal[element] = this.real[index];
+						lineImaginary[element] = this.imaginary[index];
+					}
+					if (this.inverse) {
+						this.transform.inverseTransform(lineReal, lineImaginary);
+					} else {
+						this.transform.transform(lineReal, lineImaginary);
+					}
+					for (int element = 0, index = line * this.lineStride; element < length;
+							++element, index += this.elementStride) {
+						this.real[index] = lineReal[element];
+						this.imaginary[index] = lineImaginary[element];
+					}
+				}
+			} else {
+				int middleLine = (this.firstLine + this.lastLine) >>> 1;
+				invokeAll(
+						new LineTask(this.transform, this.inverse, this.real, this.imaginary, this.lineStride,
+								this.elementStride, this.firstLine, middleLine, this.linesPerTask),
+						new LineTask(this.transform, this.inverse, this.real, this.imaginary, this.lineStride,
+								this.elementStride, middleLine, this.lastLine, this.linesPerTask));
+			}
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of threads used to calculate the transforms.
+	 * 
+	 * @return The number of threads used to calculate the transforms.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	@Override
+	public void stamp(SquareTerrainLayer layer, Crease crease, PlatePlan platePlan) {
+		int sizeX = layer.getSizeX();
+		int sizeY = layer.getSizeY();
+		int numberOfPlates = platePlan.getNumberOfPlates();
+
+		// Group the plates by the displacement of their movement vectors
+		LinkedHashMap<Long, Bucket> buckets = new LinkedHashMap<>();
+		for (int plateIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+			int displacementX = platePlan.getEndX(plateIndex) - platePlan.getStartX(plateIndex);
+			int displacementY = platePlan.getEndY(plateIndex) - platePlan.getStartY(plateIndex);
+			Long key = displacementKey(displacementX, displacementY);
+			Bucket bucket = buckets.get(key);
+			if (bucket == null) {
+				bucket = new Bucket(crease.bind(-displacementX, -displacementY, 0, 0));
+				buckets.put(key, bucket);
+			}
+			bucket.add(plateIndex);
+		}
+
+		// Find the size of the transforms
+		boolean[] stamped = new boolean[numberOfPlates];
+		int maximumReachX = 0;
+		int maximumReachY = 0;
+		for (Bucket bucket : buckets.values()) {
+			double radius = bucket.kernel.getRadius();
+			// Comparisons with NaN are always false
+			if (!(radius <= MAXIMUM_RADIUS)) {
+				for (int index = 0; index < bucket.numberOfPlates; ++index) {
+					stamped[bucket.plates[index]] = true;
+				}
+			} else {
+				maximumReachX = java.lang.Math.max(maximumReachX, reach(radius, sizeX, this.wrapAroundX));
+				maximumReachY = java.lang.Math.max(maximumReachY, reach(radius, sizeY, this.wrapAroundY));
+			}
+		}
+		int lengthX = transformLength(sizeX, maximumReachX, this.wrapAroundX);
+		int lengthY = transformLength(sizeY, maximumReachY, this.wrapAroundY);
+		FourierTransform transformX = new FourierTransform(lengthX);
+		FourierTransform transformY = new FourierTransform(lengthY);
+
+		// Add up the transforms of the convolutions
+		double[] sumReal = new double[lengthX * lengthY];
+		double[] sumImaginary = new double[lengthX * lengthY];
+		double[] real = new double[lengthX * lengthY];
+		double[] imaginary = new double[lengthX * lengthY];
+		boolean convolved = false;
+		ForkJoinPool pool = this.pool;
+		for (Bucket bucket : buckets.values()) {
+			if (stamped[bucket.plates[0]]) {
+				continue;
+			}
+			double radius = bucket.kernel.getRadius();
+			if (radius < 0) {
+				// No tile is influenced
+				continue;
+			}
+			// The influence goes in the imaginary part and the number of plates ending
+			// at each tile in the real part, so both are transformed at once
+			Arrays.fill(real, 0.0d);
+			Arrays.fill(imaginary, 0.0d);
+			if (!this.sample(bucket, radius, sizeX, sizeY, lengthX, lengthY, imaginary)) {
+				for (int index = 0; index < bucket.numberOfPlates; ++index) {
+					stamped[bucket.plates[index]] = true;
+				}
+				continue;
+			}
+			for (int index = 0; index < bucket.numberOfPlates; ++index) {
+				int plateIndex = bucket.plates[index];
+				real[platePlan.getEndY(plateIndex) * lengthX + platePlan.getEndX(plateIndex)] += 1.0d;
+			}
+			this.transform(transformX, transformY, false, real, imaginary, pool);
+			accumulate(real, imaginary, lengthX, lengthY, sumReal, sumImaginary);
+			convolved = true;
+		}
+		if (convolved) {
+			this.transform(transformX, transformY, true, sumReal, sumImaginary, pool);
+		}
+		if (convolved) {
+			int[] influences = this.countInfluences(buckets, stamped, platePlan, sizeX, sizeY);
+			for (int tileIndexY = 0; tileIndexY < sizeY; ++tileIndexY) {
+				double[] row = layer.tiles[tileIndexY];
+				int influenceCount = 0;
+				for (int tileIndexX = 0, index = tileIndexY * lengthX; tileIndexX < sizeX; ++tileIndexX, ++index) {
+					influenceCount += influences[tileIndexY * (sizeX + 1) + tileIndexX];
+					// Tiles no plate influences would only receive rounding errors
+					if (influenceCount > 0) {
+						row[tileIndexX] += sumReal[index];
+					}
+				}
+			}
+		}
+
+		// Stamp the plates that couldn't be convolved
+		int numberOfStampedPlates = 0;
+		for (int plateIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+			if (stamped[plateIndex]) {
+				++numberOfStampedPlates;
+			}
+		}
+		if (numberOfStampedPlates > 0) {
+			PlatePlan stampedPlan = new PlatePlan(numberOfStampedPlates);
+			for (int plateIndex = 0, stampedIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+				if (stamped[plateIndex]) {
+					stampedPlan.setMovement(stampedIndex++, platePlan.getStartX(plateIndex),
+							platePlan.getStartY(plateIndex), platePlan.getEndX(plateIndex),
+							platePlan.getEndY(plateIndex));
+				}
+			}
+			new SquareTerrainStamper(this.wrapAroundX, this.wrapAroundY, this.parallelism).stamp(layer, crease,
+					stampedPlan);
+		}
+	}
+
+	/**
+	 * Writes the influence of a movement vector ending at the tile with indices 0,
+	 * 0 to the given array, wrapping the tiles with negative indices around the
+	 * lengths of the transforms, and keeps the tiles influenced in each row in the
+	 * given bucket.
+	 * 
+	 * @param bucket      The plates whose movement vectors have the displacement
+	 *                    of the movement vector.
+	 * @param radius      The radius of the kernel.
+	 * @param sizeX       The amount of tiles of the terrain along the x axis.
+	 * @param sizeY       The amount of tiles of the terrain along the y axis.
+	 * @param lengthX     The length of the transforms along the x axis.
+	 * @param lengthY     The length of the transforms along the y axis.
+	 * @param destination The array, row by row.
+	 * @return False if the influence isn't finite on some tile, true otherwise.
+	 */
+	private boolean sample(Bucket bucket, double radius, int sizeX, int sizeY, int lengthX, int lengthY,
+			double[] destination) {
+		int reachX = reach(radius, sizeX, this.wrapAroundX);
+		int reachY = reach(radius, sizeY, this.wrapAroundY);
+		double[] row = new double[2 * reachX + 1];
+		bucket.firstInfluencedX = new int[2 * reachY + 1];
+		bucket.lastInfluencedX = new int[2 * reachY + 1];
+		for (int relativeY = -reachY; relativeY <= reachY; ++relativeY) {
+			Arrays.fill(row, 0.0d);
+			bucket.kernel.accumulateRow(relativeY, -reachX, reachX + 1, row, 0, 1.0d);
+			int rowOffset = java.lang.Math.floorMod(relativeY, lengthY) * lengthX;
+			int firstInfluencedX = reachX + 1;
+			int lastInfluencedX = -reachX - 1;
+			for (int relativeX = -reachX; relativeX <= reachX; ++relativeX) {
+				double value = row[relativeX + reachX];
+				if (!Double.isFinite(value)) {
+					return false;
+				}
+				if (value != 0.0d) {
+					firstInfluencedX = java.lang.Math.min(firstInfluencedX, relativeX);
+					lastInfluencedX = relativeX;
+				}
+				destination[rowOffset + java.lang.Math.floorMod(relativeX, lengthX)] += value;
+			}
+			bucket.firstInfluencedX[relativeY + reachY] = firstInfluencedX;
+			bucket.lastInfluencedX[relativeY + reachY] = lastInfluencedX;
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the convolved plates that influence each tile, as the differences
+	 * between the count of each tile and the count of the previous tile of its
+	 * row, so each plate only takes a couple of steps for each row it influences.
+	 * 
+	 * @param buckets   The plates grouped by the displacement of their
+	 *                  movement vectors.
+	 * @param stamped   Whether each plate is stamped instead of convolved.
+	 * @param platePlan A plan.
+	 * @param sizeX     The amount of tiles of the terrain along the x axis.
+	 * @param sizeY     The amount of tiles of the terrain along the y axis.
+	 * @return The differences between the counts of consecutive tiles, row by row,
+	 *         with an extra tile at the end of each row.
+	 */
+	private int[] countInfluences(LinkedHashMap<Long, Bucket> buckets, boolean[] stamped, PlatePlan platePlan,
+			int sizeX, int sizeY) {
+		int[] influences = new int[sizeY * (sizeX + 1)];
+		for (Bucket bucket : buckets.values()) {
+			if (stamped[bucket.plates[0]] || bucket.firstInfluencedX == null) {
+				continue;
+			}
+			int reachY = bucket.firstInfluencedX.length / 2;
+			for (int index = 0; index < bucket.numberOfPlates; ++index) {
+				int plateIndex = bucket.plates[index];
+				int endX = platePlan.getEndX(plateIndex);
+				int endY = platePlan.getEndY(plateIndex);
+				for (int relativeY = -reachY; relativeY <= reachY; ++relativeY) {
+					int firstX = endX + bucket.firstInfluencedX[relativeY + reachY];
+					int lastX = endX + bucket.lastInfluencedX[relativeY + reachY];
+					int tileIndexY = endY + relativeY;
+					if (this.wrapAroundY) {
+						tileIndexY = java.lang.Math.floorMod(tileIndexY, sizeY);
+					} else if (tileIndexY < 0 || tileIndexY >= sizeY) {
+						continue;
+					}
+					if (firstX > lastX) {
+						continue;
+					}
+					int rowOffset = tileIndexY * (sizeX + 1);
+					if (this.wrapAroundX) {
+						int length = lastX - firstX + 1;
+						if (length >= sizeX) {
+							firstX = 0;
+							lastX = sizeX - 1;
+						} else {
+							firstX = java.lang.Math.floorMod(firstX, sizeX);
+							lastX = firstX + length - 1;
+							if (lastX >= sizeX) {
+								// The tiles wrap around onto the start of the row
+								++influences[rowOffset];
+								--influences[rowOffset + lastX - sizeX + 1];
+								lastX = sizeX - 1;
+							}
+						}
+					} else {
+						firstX = java.lang.Math.max(firstX, 0);
+						lastX = java.lang.Math.min(lastX, sizeX - 1);
+						if (firstX > lastX) {
+							continue;
+						}
+					}
+					++influences[rowOffset + firstX];
+					--influences[rowOffset + lastX + 1];
+				}
+			}
+		}
+		return influences;
+	}
+
+	/**
+	 * Calculates the two-dimensional transform of the given sequence, row by row
+	 * and then column by column.
+	 * 
+	 * @param transformX The transform of the rows.
+	 * @param transformY The transform of the columns.
+	 * @param inverse    Whether to calculate the inverse transform.
+	 * @param real       The real part of the sequence, row by row.
+	 * @param imaginary  The imaginary part of the sequence, row by row.
+	 * @param pool       The pool used to run the transforms, or null to run them in
+	 *                   the current thread.
+	 */
+	private void transform(FourierTransform transformX, FourierTransform transformY, boolean inverse,
+			double[] real, double[] imaginary, ForkJoinPool pool) {
+		int lengthX = transformX.getLength();
+		int lengthY = transformY.getLength();
+		this.run(new LineTask(transformX, inverse, real, imaginary, lengthX, 1, 0, lengthY,
+				this.linesPerTask(lengthY)), pool);
+		this.run(new LineTask(transformY, inverse, real, imaginary, 1, lengthX, 0, lengthX,
+				this.linesPerTask(lengthX)), pool);
+	}
+
+	/**
+	 * Calculates how many lines are transformed by each task.
+	 * 
+	 * @param numberOfLines The number of lines.
+	 * @return The number of lines transformed by each task.
+	 */
+	private int linesPerTask(int numberOfLines) {
+		// Several tasks per thread so threads that finish early can take more work
+		return this.parallelism == 1 ? numberOfLines
+				: java.lang.Math.max(1, numberOfLines / (this.parallelism * 4));
+	}
+
+	/**
+	 * Runs the given task in the given pool, or in the current thread if the pool
+	 * is null.
+	 * 
+	 * @param task A task.
+	 * @param pool A pool or null.
+	 */
+	private void run(LineTask task, ForkJoinPool pool) {
+		if (pool == null) {
+			task.invoke();
+		} else {
+			pool.invoke(task);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Calculates the key the plates are grouped by, which is the same for two
+	 * movement vectors if and only if they have the same displacement.
+	 * 
+	 * @param displacementX The displacement of a movement vector along the x axis.
+	 * @param displacementY The displacement of a movement vector along the y axis.
+	 * @return The key of the displacement.
+	 */
+	static long displacementKey(int displacementX, int displacementY) {
+		return ((long) displacementX << 32) | (displacementY & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Calculates the greatest distance along an axis from the ending tile of a
+	 * movement vector to a tile it influences that has to be included in a
+	 * convolution.
+	 * 
+	 * @param radius     The radius of the influence of the movement vector.
+	 * @param size       The amount of tiles of the terrain along the axis.
+	 * @param wrapAround Whether the terrain wraps around along the axis.
+	 * @return The greatest distance to a tile that has to be included.
+	 */
+	static int reach(double radius, int size, boolean wrapAround) {
+		int reach = (int) java.lang.Math.floor(java.lang.Math.max(radius, 0));
+		// Without wrapping around, tiles further away than the size are never inside
+		// the terrain
+		return wrapAround ? reach : java.lang.Math.min(reach, size - 1);
+	}
+
+	/**
+	 * Calculates the length of the transforms along an axis.
+	 * 
+	 * @param size         The amount of tiles of the terrain along the axis.
+	 * @param maximumReach The greatest reach of a movement vector along the axis.
+	 * @param wrapAround   Whether the terrain wraps around along the axis.
+	 * @return The length of the transforms along the axis.
+	 */
+	static int transformLength(int size, int maximumReach, boolean wrapAround) {
+		// Without wrapping around, the influence must not wrap around the transform
+		// onto the tiles of the terrain
+		return wrapAround ? size : FourierTransform.nextPowerOfTwo(size + maximumReach);
+	}
+
+	/**
+	 * Separates the transforms of the number of plates ending at each tile and of
+	 * the influence of their movement vectors, which were calculated at once as
+	 * the real and imaginary parts of a single sequence, and adds their product to
+	 * the given sum.
+	 * 
+	 * @param real          The real part of the transform, row by row.
+	 * @param imaginary     The imaginary part of the transform, row by row.
+	 * @param lengthX       The length of the transform along the x axis.
+	 * @param lengthY       The length of the transform along the y axis.
+	 * @param sumReal       The real part of the sum, row by row.
+	 * @param sumImaginary  The imaginary part of the sum, row by row.
+	 */
+	private static void accumulate(double[] real, double[] imaginary, int lengthX, int lengthY, double[] sumReal,
+			double[] sumImaginary) {
+		for (int frequencyY = 0; frequencyY < lengthY; ++frequencyY) {
+			int rowOffset = frequencyY * lengthX;
+			int mirrorRowOffset = (frequencyY == 0 ? 0 : lengthY - frequencyY) * lengthX;
+			for (int frequencyX = 0; frequencyX < lengthX; ++frequencyX) {
+				int index = rowOffset + frequencyX;
+				int mirrorIndex = mirrorRowOffset + (frequencyX == 0 ? 0 : lengthX - frequencyX);
+				// The transform of a real sequence at a frequency is the conjugate of its
+				// transform at the opposite frequency
+				double plates = (real[index] + real[mirrorIndex]) * 0.5d;
+				double platesImaginary = (imaginary[index] - imaginary[mirrorIndex]) * 0.5d;
+				double influence = (imaginary[index] + imaginary[mirrorIndex]) * 0.5d;
+				double influenceImaginary = (real[mirrorIndex] - real[index]) * 0.5d;
+				sumReal[index] += plates * influence - platesImaginary * influenceImaginary;
+				sumImaginary[index] += plates * influenceImaginary + platesImaginary * influence;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,336 @@
+/*
+ * SquareTerrainEditor.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.awt.Rectangle;
+import java.util.Objects;
+
+import core.Crease;
+import core.PlatePlan;
+
+/**
+ * Edits the movement vectors of a generated square terrain one at a time.
+ *
+ * Instead of generating the whole terrain again, the influence of the old
+ * movement vector is subtracted from the tiles it reaches and the influence of
+ * the new one is added to the tiles it reaches, so the cost of an edit depends
+ * on the radius of the crease instead of the size of the terrain. Each edit
+ * returns the rectangle of tiles that may have changed, so only that region of
+ * an image of the terrain has to be drawn again.
+ *
+ * The tiles after an edit are the same as those of a terrain generated from the
+ * edited plan up to rounding, since the influences are added in a different
+ * order.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ *
+ */
+public class SquareTerrainEditor {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The terrain being edited.
+	 */
+	private final SquareTerrain terrain;
+	/**
+	 * The plan the terrain was generated from, edited along with the terrain.
+	 */
+	private final PlatePlan platePlan;
+	/**
+	 * The crease the terrain was generated with.
+	 */
+	private final Crease crease;
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The stamper used to add and subtract the influence of movement vectors.
+	 */
+	private final SquareTerrainStamper stamper;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Create a new editor of the given terrain, generated from the given plan with
+	 * the given crease.
+	 * 
+	 * @param terrain     A terrain.
+	 * @param platePlan   The plan the terrain was generated from. It's modified by
+	 *                    the edits.
+	 * @param crease      The crease the terrain was generated with.
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @throws IllegalArgumentException If the plan doesn't fit the size of the
+	 *                                  terrain.
+	 */
+	public SquareTerrainEditor(SquareTerrain terrain, PlatePlan platePlan, Crease crease, boolean wrapAroundX,
+			boolean wrapAroundY) {
+		this(terrain, platePlan, crease, wrapAroundX, wrapAroundY, null);
+	}
+
+	/**
+	 * Create a new editor of the given terrain, generated from the given plan with
+	 * the given crease, that binds the crease through the given cache of stamps.
+	 * 
+	 * @param terrain     A terrain.
+	 * @param platePlan   The plan the terrain was generated from. It's modified by
+	 *                    the edits.
+	 * @param crease      The crease the terrain was generated with.
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param stampCache  A cache of stamps, or null to bind the crease directly.
+	 * @throws IllegalArgumentException If the plan doesn't fit the size of the
+	 *                                  terrain.
+	 */
+	public SquareTerrainEditor(SquareTerrain terrain, PlatePlan platePlan, Crease crease, boolean wrapAroundX,
+			boolean wrapAroundY, StampCache stampCache) {
+		if (!platePlan.isWithin(terrain.getSizeX(), terrain.getSizeY())) {
+			throw new IllegalArgumentException("The plan doesn't fit the size of the terrain.");
+		}
+		this.terrain = terrain;
+		this.platePlan = platePlan;
+		this.crease = crease;
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.stamper = new SquareTerrainStamper(wrapAroundX, wrapAroundY, 1, stampCache);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the terrain being edited.
+	 * 
+	 * @return The terrain being edited.
+	 */
+	public SquareTerrain getTerrain() {
+		return this.terrain;
+	}
+
+	/**
+	 * Get the plan the terrain was generated from, with the edits made so far.
+	 * 
+	 * @return The plan of the terrain.
+	 */
+	public PlatePlan getPlatePlan() {
+		return this.platePlan;
+	}
+
+	/**
+	 * Change the movement vector of the given plate.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @param startX     The x index of the new starting tile of the plate.
+	 * @param startY     The y index of the new starting tile of the plate.
+	 * @param endX       The x index of the new ending tile of the plate.
+	 * @param endY       The y index of the new ending tile of the plate.
+	 * @return The rectangle of tiles that may have changed.
+	 * @throws IndexOutOfBoundsException If there's no plate with the given index.
+	 * @throws IllegalArgumentException  If the movement vector isn't within the
+	 *                                   terrain.
+	 */
+	public Rectangle setMovement(int plateIndex, int startX, int startY, int endX, int endY) {
+		Objects.checkIndex(plateIndex, this.platePlan.getNumberOfPlates());
+		this.checkMovement(startX, startY, endX, endY);
+		int oldStartX = this.platePlan.getStartX(plateIndex);
+		int oldStartY = this.platePlan.getStartY(plateIndex);
+		int oldEndX = this.platePlan.getEndX(plateIndex);
+		int oldEndY = this.platePlan.getEndY(plateIndex);
+		Rectangle dirty = union(this.footprint(oldStartX, oldStartY, oldEndX, oldEndY),
+				this.footprint(startX, startY, endX, endY));
+		this.stamp(oldStartX, oldStartY, oldEndX, oldEndY, -1.0d);
+		this.platePlan.setMovement(plateIndex, startX, startY, endX, endY);
+		this.stamp(startX, startY, endX, endY, 1.0d);
+		return dirty;
+	}
+
+	/**
+	 * Add a plate with the given movement vector after the last plate of the plan.
+	 * 
+	 * @param startX The x index of the starting tile of the plate.
+	 * @param startY The y index of the starting tile of the plate.
+	 * @param endX   The x index of the ending tile of the plate.
+	 * @param endY   The y index of the ending tile of the plate.
+	 * @return The rectangle of tiles that may have changed.
+	 * @throws IllegalArgumentException If the movement vector isn't within the
+	 *                                  terrain.
+	 */
+	public Rectangle addMovement(int startX, int startY, int endX, int endY) {
+		this.checkMovement(startX, startY, endX, endY);
+		this.platePlan.addMovement(startX, startY, endX, endY);
+		this.stamp(startX, startY, endX, endY, 1.0d);
+		return this.footprint(startX, startY, endX, endY);
+	}
+
+	/**
+	 * Remove the given plate from the plan. The plates after it keep their order
+	 * and their index is decreased by one.
+	 * 
+	 * @param plateIndex The index of a plate.
+	 * @return The rectangle of tiles that may have changed.
+	 * @throws IndexOutOfBoundsException If there's no plate with the given index.
+	 */
+	public Rectangle removeMovement(int plateIndex) {
+		Objects.checkIndex(plateIndex, this.platePlan.getNumberOfPlates());
+		int startX = this.platePlan.getStartX(plateIndex);
+		int startY = this.platePlan.getStartY(plateIndex);
+		int endX = this.platePlan.getEndX(plateIndex);
+		int endY = this.platePlan.getEndY(plateIndex);
+		this.stamp(startX, startY, endX, endY, -1.0d);
+		this.platePlan.removeMovement(plateIndex);
+		return this.footprint(startX, startY, endX, endY);
+	}
+
+	/**
+	 * Checks that the given movement vector is within the terrain.
+	 * 
+	 * @param startX The x index of the starting tile of a movement vector.
+	 * @param startY The y index of the starting tile of a movement vector.
+	 * @param endX   The x index of the ending tile of a movement vector.
+	 * @param endY   The y index of the ending tile of a movement vector.
+	 * @throws IllegalArgumentException If the movement vector isn't within the
+	 *                                  terrain.
+	 */
+	private void checkMovement(int startX, int startY, int endX, int endY) {
+		int sizeX = this.terrain.getSizeX();
+		int sizeY = this.terrain.getSizeY();
+		if (startX < 0 || startX >= sizeX || startY < 0 || startY >= sizeY || endX < 0 || endX >= sizeX
+				|| endY < 0 || endY >= sizeY) {
+			throw new IllegalArgumentException("The movement vector must be within the terrain.");
+		}
+	}
+
+	/**
+	 * Adds the influence of the given movement vector, multiplied by the given
+	 * scale, to the land of the terrain and the influence of the opposite movement
+	 * vector to the magma of the terrain if it has magma.
+	 * 
+	 * @param startX The x index of the starting tile of a movement vector.
+	 * @param startY The y index of the starting tile of a movement vector.
+	 * @param endX   The x index of the ending tile of a movement vector.
+	 * @param endY   The y index of the ending tile of a movement vector.
+	 * @param scale  The factor the influence is multiplied by.
+	 */
+	private void stamp(int startX, int startY, int endX, int endY, double scale) {
+		this.stamper.stamp(this.terrain.getLandLayer(), this.crease, startX, startY, endX, endY, scale);
+		// Magma is generated like land but in the opposite direction of the plate
+		// movement
+		if (this.terrain.getMagmaLayer() != null) {
+			this.stamper.stamp(this.terrain.getMagmaLayer(), this.crease, endX, endY, startX, startY, scale);
+		}
+	}
+
+	/**
+	 * Calculates the rectangle of tiles of the terrain reached by the influence of
+	 * the given movement vector on any of its layers.
+	 * 
+	 * @param startX The x index of the starting tile of a movement vector.
+	 * @param startY The y index of the starting tile of a movement vector.
+	 * @param endX   The x index of the ending tile of a movement vector.
+	 * @param endY   The y index of the ending tile of a movement vector.
+	 * @return The rectangle of tiles reached by the influence of the movement
+	 *         vector.
+	 */
+	private Rectangle footprint(int startX, int startY, int endX, int endY) {
+		Rectangle footprint = this.footprint(endX, endY, this.crease.getRadius(startX, startY, endX, endY));
+		if (this.terrain.getMagmaLayer() != null) {
+			footprint = union(footprint, this.footprint(startX, startY,
+					this.crease.getRadius(endX, endY, startX, startY)));
+		}
+		return footprint;
+	}
+
+	/**
+	 * Calculates the rectangle of tiles of the terrain within the given radius of
+	 * the given center or of any of its copies if the terrain wraps around.
+	 * 
+	 * @param centerX X index of a center.
+	 * @param centerY Y index of a center.
+	 * @param radius  A radius.
+	 * @return The rectangle of tiles within the radius of the center.
+	 */
+	private Rectangle footprint(int centerX, int centerY, double radius) {
+		int sizeX = this.terrain.getSizeX();
+		int sizeY = this.terrain.getSizeY();
+		int firstX = sizeX;
+		int lastX = 0;
+		int firstCopyX = SquareTerrainStamper.firstCopy(centerX, radius, 0, sizeX, sizeX, this.wrapAroundX);
+		int lastCopyX = SquareTerrainStamper.lastCopy(centerX, radius, 0, sizeX, sizeX, this.wrapAroundX);
+		for (int copyX = firstCopyX; copyX <= lastCopyX; ++copyX) {
+			int lowerBound = SquareTerrainStamper.lowerBound(centerX - copyX * sizeX, radius);
+			int upperBound = SquareTerrainStamper.upperBound(centerX - copyX * sizeX, radius, sizeX);
+			if (lowerBound < upperBound) {
+				firstX = java.lang.Math.min(firstX, lowerBound);
+				lastX = java.lang.Math.max(lastX, upperBound);
+			}
+		}
+		int firstY = sizeY;
+		int lastY = 0;
+		int firstCopyY = SquareTerrainStamper.firstCopy(centerY, radius, 0, sizeY, sizeY, this.wrapAroundY);
+		int lastCopyY = SquareTerrainStamper.lastCopy(centerY, radius, 0, sizeY, sizeY, this.wrapAroundY);
+		for (int copyY = firstCopyY; copyY <= lastCopyY; ++copyY) {
+			int lowerBound = SquareTerrainStamper.lowerBound(centerY - copyY * sizeY, radius);
+			int upperBound = SquareTerrainStamper.upperBound(centerY - copyY * sizeY, radius, sizeY);
+			if (lowerBound < upperBound) {
+				firstY = java.lang.Math.min(firstY, lowerBound);
+				lastY = java.lang.Math.max(lastY, upperBound);
+			}
+		}
+		if (firstX >= lastX || firstY >= lastY) {
+			return new Rectangle();
+		}
+		return new Rectangle(firstX, firstY, lastX - firstX, lastY - firstY);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Calculates the smallest rectangle that contains both given rectangles,
+	 * ignoring empty rectangles.
+	 * 
+	 * @param first  A rectangle.
+	 * @param second A rectangle.
+	 * @return The smallest rectangle that contains both rectangles.
+	 */
+	private static Rectangle union(Rectangle first, Rectangle second) {
+		if (first.isEmpty()) {
+			return second;
+		}
+		if (second.isEmpty()) {
+			return first;
+		}
+		return first.union(second);
+	}
+
+}
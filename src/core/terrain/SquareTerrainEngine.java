@@ -0,0 +1,123 @@
+/*
+ * SquareTerrainEngine.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import core.Crease;
+import core.GenerationMonitor;
+import core.PlatePlan;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+
+/**
+ * This interface represents a way of applying the influence of the movement
+ * vectors of a plan to the layers of a square terrain.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ * @see core.terrain.SquareTerrainConvolver
+ *
+ */
+public interface SquareTerrainEngine {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Adds the influence of the movement vectors of all plates of the given plan
+	 * to the tiles of the given layer.
+	 * 
+	 * @param layer     A layer.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 */
+	public void stamp(SquareTerrainLayer layer, Crease crease, PlatePlan platePlan);
+
+	/**
+	 * Generates the layers of the given terrain, whose tiles must be zero. The land
+	 * layer receives the influence of the movement vectors of the given plan, the
+	 * magma layer, if any, receives the influence of the movement vectors in the
+	 * opposite direction shifted down by the crust thickness, and the water layer,
+	 * if any, is filled up to the sea level.
+	 * 
+	 * By default, each layer is stamped on its own and the water and crust are
+	 * applied in a final pass over all tiles.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 */
+	public default void generate(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness) {
+		SquareTerrainLayer magmaLayer = terrain.getMagmaLayer();
+		SquareTerrainLayer waterLayer = terrain.getWaterLayer();
+		this.stamp(terrain.getLandLayer(), crease, platePlan);
+		if (magmaLayer != null) {
+			// Magma is generated like land but in the opposite direction of the plate
+			// movement
+			this.stamp(magmaLayer, crease, platePlan.reverse());
+		}
+		for (int tileIndexY = 0; tileIndexY < terrain.getSizeY(); ++tileIndexY) {
+			for (int tileIndexX = 0; tileIndexX < terrain.getSizeX(); ++tileIndexX) {
+				if (waterLayer != null) {
+					waterLayer.setTile(tileIndexX, tileIndexY, seaLevel);
+				}
+				if (magmaLayer != null) {
+					double magma = magmaLayer.getTile(tileIndexX, tileIndexY);
+					magmaLayer.setTile(tileIndexX, tileIndexY, magma - crustThickness);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates the layers of the given terrain like
+	 * {@link #generate(SquareTerrain, Crease, PlatePlan, double, double)},
+	 * reporting the progress to the given monitor and stopping if the monitor is
+	 * cancelled or its deadline is reached. The state of the monitor tells whether
+	 * the terrain is complete or only partially generated.
+	 * 
+	 * By default, the monitor is only checked before the generation starts, and
+	 * the whole generation is a single unit of work.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param monitor        A monitor that hasn't been used by another
+	 *                       generation.
+	 */
+	public default void generate(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness, GenerationMonitor monitor) {
+		monitor.start(platePlan.getNumberOfPlates(), 1L);
+		if (monitor.isStopped()) {
+			return;
+		}
+		this.generate(terrain, crease, platePlan, seaLevel, crustThickness);
+		monitor.advance(1L);
+		monitor.complete();
+	}
+
+}
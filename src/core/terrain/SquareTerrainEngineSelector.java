@@ -0,0 +1,442 @@
+/*
+ * SquareTerrainEngineSelector.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.logging.Logger;
+
+import core.Crease;
+import core.PlatePlan;
+import util.FourierTransform;
+
+/**
+ * Chooses the engine used to generate the layers of a square terrain by
+ * estimating the cost of generating them with each engine from the size of the
+ * terrain, the number of plates, the radius of the crease for the movement
+ * vector of each plate and the number of threads available, and picking the
+ * cheapest one. The choice is logged.
+ *
+ * Unless approximate engines are allowed, only the engines whose result is the
+ * same as stamping, bit by bit, are considered, so the terrain doesn't depend
+ * on the machine it's generated on. The fixed point stamping and convolution
+ * engines are approximate, and since their estimated costs depend on the number
+ * of processors, allowing them may give different terrains on different
+ * machines.
+ *
+ * The blocked stamping engine gives the same result as stamping, but what it
+ * saves is the time spent waiting for tiles to be brought into the cache, which
+ * these estimates don't measure, and it hasn't been measured faster than
+ * stamping yet, so it's never chosen.
+ *
+ * The costs are measured in the time it takes to add the influence of a
+ * movement vector to a tile by stamping.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ * @see core.terrain.SquareTerrainFixedPointStamper
+ * @see core.terrain.SquareTerrainConvolver
+ *
+ */
+public class SquareTerrainEngineSelector {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The logger the choices are logged to.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(SquareTerrainEngineSelector.class.getName());
+	/**
+	 * The cost of a butterfly of a fast Fourier transform, relative to the cost of
+	 * adding the influence of a movement vector to a tile.
+	 */
+	private static final double BUTTERFLY_COST = 0.5d;
+	/**
+	 * The cost of the work done once for each tile of the transforms, such as
+	 * copying lines and multiplying transforms, relative to the cost of adding the
+	 * influence of a movement vector to a tile.
+	 */
+	private static final double ELEMENT_COST = 4.0d;
+	/**
+	 * The cost of adding the influence of a movement vector to a tile from a stamp
+	 * of a stamp cache, relative to the cost of calculating and adding it.
+	 */
+	private static final double CACHED_TILE_COST = 0.25d;
+	/**
+	 * The cost of rounding the influence of a movement vector on a tile and adding
+	 * it atomically to the sum of the tile, relative to the cost of adding the
+	 * influence of a movement vector to a tile.
+	 */
+	private static final double ATOMIC_ADD_COST = 2.0d;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The number of threads used by the engines.
+	 */
+	private final int parallelism;
+	/**
+	 * The stamp cache used by the stamping engines, or null.
+	 */
+	private final StampCache stampCache;
+	/**
+	 * Whether engines whose result differs from stamping by rounding errors can be
+	 * chosen.
+	 */
+	private final boolean approximate;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new selector that only chooses engines whose result is the same
+	 * as stamping.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used by the engines.
+	 * @param stampCache  The stamp cache used by the stamping engines, or null.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainEngineSelector(boolean wrapAroundX, boolean wrapAroundY, int parallelism,
+			StampCache stampCache) {
+		this(wrapAroundX, wrapAroundY, parallelism, stampCache, false);
+	}
+
+	/**
+	 * Construct a new selector.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used by the engines.
+	 * @param stampCache  The stamp cache used by the stamping engines, or null.
+	 * @param approximate Whether engines whose result differs from stamping by
+	 *                    rounding errors can be chosen.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainEngineSelector(boolean wrapAroundX, boolean wrapAroundY, int parallelism,
+			StampCache stampCache, boolean approximate) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.parallelism = parallelism;
+		this.stampCache = stampCache;
+		this.approximate = approximate;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Chooses the cheapest engine to add the influence of the movement vectors of
+	 * the given plan to a layer of the given size among the engines this selector
+	 * can choose, and logs the choice.
+	 * 
+	 * @param sizeX     The amount of tiles of the layer along the x axis.
+	 * @param sizeY     The amount of tiles of the layer along the y axis.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @return The cheapest engine.
+	 */
+	public SquareTerrainEngine select(int sizeX, int sizeY, Crease crease, PlatePlan platePlan) {
+		double stampingCost = this.estimateStampingCost(sizeX, sizeY, crease, platePlan);
+		double fixedPointCost = this.approximate ? this.estimateFixedPointCost(sizeX, sizeY, crease, platePlan)
+				: Double.POSITIVE_INFINITY;
+		double convolutionCost = this.approximate ? this.estimateConvolutionCost(sizeX, sizeY, crease, platePlan)
+				: Double.POSITIVE_INFINITY;
+		SquareTerrainEngine engine;
+		String name;
+		if (convolutionCost < stampingCost && convolutionCost < fixedPointCost) {
+			engine = new SquareTerrainConvolver(this.wrapAroundX, this.wrapAroundY, this.parallelism);
+			name = "convolution";
+		} else if (fixedPointCost < stampingCost) {
+			engine = new SquareTerrainFixedPointStamper(this.wrapAroundX, this.wrapAroundY, this.parallelism,
+					SquareTerrainFixedPointStamper.DEFAULT_SCALE, this.stampCache);
+			name = "fixed point stamping";
+		} else {
+			engine = new SquareTerrainStamper(this.wrapAroundX, this.wrapAroundY, this.parallelism,
+					this.stampCache);
+			name = "stamping";
+		}
+		LOGGER.info(String.format("Selected %s engine for %dx%d tiles and %d plates (estimated cost of stamping:"
+				+ " %.3e, of fixed point stamping: %.3e, of convolution: %.3e)", name, sizeX, sizeY,
+				platePlan.getNumberOfPlates(), stampingCost, fixedPointCost, convolutionCost));
+		return engine;
+	}
+
+	/**
+	 * Estimates the cost of adding the influence of the movement vectors of the
+	 * given plan to a layer of the given size by stamping, including the cost of
+	 * filling the stamps of the stamp cache if there is one.
+	 * 
+	 * @param sizeX     The amount of tiles of the layer along the x axis.
+	 * @param sizeY     The amount of tiles of the layer along the y axis.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @return The estimated cost of stamping.
+	 */
+	public double estimateStampingCost(int sizeX, int sizeY, Crease crease, PlatePlan platePlan) {
+		double cost = this.estimateTileCost(sizeX, sizeY, crease, platePlan, 0.0d);
+		// The layer is split into bands of rows among the threads, and the stamps
+		// are filled by one thread at a time
+		return cost / java.lang.Math.min(this.threads(), sizeY) + this.estimateFillingCost(crease, platePlan);
+	}
+
+	/**
+	 * Estimates the cost of adding the influence of the movement vectors of the
+	 * given plan to a layer of the given size by fixed point stamping, including
+	 * the cost of filling the stamps of the stamp cache if there is one.
+	 * 
+	 * @param sizeX     The amount of tiles of the layer along the x axis.
+	 * @param sizeY     The amount of tiles of the layer along the y axis.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @return The estimated cost of fixed point stamping.
+	 */
+	public double estimateFixedPointCost(int sizeX, int sizeY, Crease crease, PlatePlan platePlan) {
+		double cost = this.estimateTileCost(sizeX, sizeY, crease, platePlan, ATOMIC_ADD_COST);
+		// The plates are split among the threads, and the sums are added to the
+		// layer by the calling thread
+		int threads = java.lang.Math.max(java.lang.Math.min(this.threads(), platePlan.getNumberOfPlates()), 1);
+		return cost / threads + this.estimateFillingCost(crease, platePlan) + (double) sizeX * sizeY;
+	}
+
+	/**
+	 * Estimates the cost of adding the influence of the movement vectors of the
+	 * given plan to a layer of the given size through convolutions, including the
+	 * cost of stamping the movement vectors that can't be convolved.
+	 * 
+	 * @param sizeX     The amount of tiles of the layer along the x axis.
+	 * @param sizeY     The amount of tiles of the layer along the y axis.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @return The estimated cost of convolution.
+	 */
+	public double estimateConvolutionCost(int sizeX, int sizeY, Crease crease, PlatePlan platePlan) {
+		// The plates are grouped by the displacement of their movement vectors, like
+		// the convolver does
+		HashMap<Long, Double> radii = new HashMap<>();
+		double stampingCost = 0.0d;
+		for (int plateIndex = 0; plateIndex < platePlan.getNumberOfPlates(); ++plateIndex) {
+			int displacementX = platePlan.getEndX(plateIndex) - platePlan.getStartX(plateIndex);
+			int displacementY = platePlan.getEndY(plateIndex) - platePlan.getStartY(plateIndex);
+			Long key = SquareTerrainConvolver.displacementKey(displacementX, displacementY);
+			Double radius = radii.get(key);
+			if (radius == null) {
+				radius = crease.getRadius(-displacementX, -displacementY, 0, 0);
+				radii.put(key, radius);
+			}
+			// Comparisons with NaN are always false
+			if (!(radius <= SquareTerrainConvolver.MAXIMUM_RADIUS)) {
+				stampingCost += this.stampedTiles(radius, sizeX, this.wrapAroundX)
+						* this.stampedTiles(radius, sizeY, this.wrapAroundY);
+			}
+		}
+		int maximumReachX = 0;
+		int maximumReachY = 0;
+		int numberOfConvolutions = 0;
+		double samplingCost = 0.0d;
+		for (double radius : radii.values()) {
+			if (radius <= SquareTerrainConvolver.MAXIMUM_RADIUS && radius >= 0) {
+				int reachX = SquareTerrainConvolver.reach(radius, sizeX, this.wrapAroundX);
+				int reachY = SquareTerrainConvolver.reach(radius, sizeY, this.wrapAroundY);
+				maximumReachX = java.lang.Math.max(maximumReachX, reachX);
+				maximumReachY = java.lang.Math.max(maximumReachY, reachY);
+				samplingCost += (2.0d * reachX + 1) * (2.0d * reachY + 1);
+				++numberOfConvolutions;
+			}
+		}
+		if (numberOfConvolutions == 0) {
+			return stampingCost / java.lang.Math.min(this.threads(), sizeY);
+		}
+		int lengthX = SquareTerrainConvolver.transformLength(sizeX, maximumReachX, this.wrapAroundX);
+		int lengthY = SquareTerrainConvolver.transformLength(sizeY, maximumReachY, this.wrapAroundY);
+		double elements = (double) lengthX * lengthY;
+		// A transform of each line along each axis
+		double transformCost = lengthY * lineTransformCost(lengthX) + lengthX * lineTransformCost(lengthY)
+				+ 2 * elements * ELEMENT_COST;
+		// A transform for each convolution plus the inverse transform of the sum
+		double convolutionCost = (numberOfConvolutions + 1) * transformCost
+				+ numberOfConvolutions * elements * ELEMENT_COST;
+		// The kernels are sampled by the calling thread before the transforms, so
+		// the sampling isn't split among the threads
+		return (convolutionCost + stampingCost) / this.threads() + samplingCost;
+	}
+
+	/**
+	 * Estimates the cost of adding the influence of the movement vectors of the
+	 * given plan to the tiles of a layer of the given size they reach, from the
+	 * stamps of the stamp cache if there is one and the stamp fits in it.
+	 * 
+	 * @param sizeX     The amount of tiles of the layer along the x axis.
+	 * @param sizeY     The amount of tiles of the layer along the y axis.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @param extraCost The cost added to each tile by the engine.
+	 * @return The estimated cost of adding the influences.
+	 */
+	private double estimateTileCost(int sizeX, int sizeY, Crease crease, PlatePlan platePlan, double extraCost) {
+		double cost = 0.0d;
+		for (int plateIndex = 0; plateIndex < platePlan.getNumberOfPlates(); ++plateIndex) {
+			double radius = crease.getRadius(platePlan.getStartX(plateIndex), platePlan.getStartY(plateIndex),
+					platePlan.getEndX(plateIndex), platePlan.getEndY(plateIndex));
+			double tileCost = this.isCached(radius) ? CACHED_TILE_COST : 1.0d;
+			cost += this.stampedTiles(radius, sizeX, this.wrapAroundX)
+					* this.stampedTiles(radius, sizeY, this.wrapAroundY) * (tileCost + extraCost);
+		}
+		return cost;
+	}
+
+	/**
+	 * Estimates the cost of filling the stamps of the stamp cache for the movement
+	 * vectors of the given plan, assuming none of them is in the cache yet and
+	 * all of them stay in it while the layer is generated.
+	 * 
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @return The estimated cost of filling the stamps, or 0 if there's no stamp
+	 *         cache.
+	 */
+	private double estimateFillingCost(Crease crease, PlatePlan platePlan) {
+		if (this.stampCache == null) {
+			return 0.0d;
+		}
+		// The stamp cache, like the convolver, keeps a stamp for each displacement
+		HashSet<Long> displacements = new HashSet<>();
+		double cost = 0.0d;
+		for (int plateIndex = 0; plateIndex < platePlan.getNumberOfPlates(); ++plateIndex) {
+			int displacementX = platePlan.getEndX(plateIndex) - platePlan.getStartX(plateIndex);
+			int displacementY = platePlan.getEndY(plateIndex) - platePlan.getStartY(plateIndex);
+			if (displacements.add(SquareTerrainConvolver.displacementKey(displacementX, displacementY))) {
+				double radius = crease.getRadius(-displacementX, -displacementY, 0, 0);
+				if (this.isCached(radius)) {
+					cost += stampSize(radius);
+				}
+			}
+		}
+		return cost;
+	}
+
+	/**
+	 * Checks whether the stamp cache keeps a stamp for a movement vector with the
+	 * given radius.
+	 * 
+	 * @param radius The radius of the influence of the movement vector.
+	 * @return True if there's a stamp cache and the stamp fits in it, false
+	 *         otherwise.
+	 */
+	private boolean isCached(double radius) {
+		// Comparisons with NaN are always false
+		return this.stampCache != null && stampSize(radius) <= this.stampCache.getCapacity();
+	}
+
+	/**
+	 * Calculates the number of threads that can actually run at once.
+	 * 
+	 * @return The number of threads that can run at once.
+	 */
+	private int threads() {
+		return java.lang.Math.min(this.parallelism, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Estimates the number of tiles along an axis visited when stamping a
+	 * movement vector with the given radius.
+	 * 
+	 * @param radius     The radius of the influence of the movement vector.
+	 * @param size       The amount of tiles of the terrain along the axis.
+	 * @param wrapAround Whether the terrain wraps around along the axis.
+	 * @return The estimated number of tiles visited along the axis.
+	 */
+	private double stampedTiles(double radius, int size, boolean wrapAround) {
+		if (!(radius < Double.POSITIVE_INFINITY)) {
+			// The whole range is used, for the terrain and its two copies along the axis
+			// if it wraps around
+			return wrapAround ? 3.0d * size : size;
+		}
+		if (radius < 0) {
+			return 0.0d;
+		}
+		double tiles = 2.0d * java.lang.Math.floor(radius) + 1;
+		// The copies of the terrain along the axis cover the whole diameter if it
+		// wraps around
+		return wrapAround ? tiles : java.lang.Math.min(tiles, size);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Calculates the amount of tiles of the stamp a stamp cache makes for a
+	 * movement vector with the given radius.
+	 * 
+	 * @param radius The radius of the influence of the movement vector.
+	 * @return The amount of tiles of the stamp.
+	 */
+	private static double stampSize(double radius) {
+		// One more tile than the radius to cover any rounding in the bounds, like
+		// the stamp cache does
+		double reach = java.lang.Math.max(java.lang.Math.floor(radius) + 1, 0);
+		return (2 * reach + 1) * (2 * reach + 1);
+	}
+
+	/**
+	 * Estimates the cost of a transform of a line of the given length.
+	 * 
+	 * @param length The length of the line.
+	 * @return The estimated cost of the transform.
+	 */
+	private static double lineTransformCost(int length) {
+		if (FourierTransform.isPowerOfTwo(length)) {
+			return BUTTERFLY_COST * length / 2 * log2(length);
+		}
+		// Bluestein's algorithm uses two transforms of the convolution length and
+		// some work proportional to that length
+		int convolutionLength = FourierTransform.nextPowerOfTwo(2 * length - 1);
+		return 2 * lineTransformCost(convolutionLength) + convolutionLength * ELEMENT_COST;
+	}
+
+	/**
+	 * Calculates the base 2 logarithm of the given power of two.
+	 * 
+	 * @param powerOfTwo A power of two.
+	 * @return The base 2 logarithm of the given power of two.
+	 */
+	private static int log2(int powerOfTwo) {
+		return Integer.numberOfTrailingZeros(powerOfTwo);
+	}
+
+}
@@ -0,0 +1,475 @@
+/*
+ * SquareTerrainFixedPointStamper.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import core.Crease;
+import core.Crease.Kernel;
+import core.PlatePlan;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+
+/**
+ * Applies the influence of movement vectors to the layers of a square terrain,
+ * accumulating the influences as fixed point numbers. The influence of each
+ * movement vector on each tile is multiplied by a scale and rounded to a long
+ * before being added, and the sums are divided by the scale once all movement
+ * vectors have been applied.
+ *
+ * Unlike the sum of floating point numbers, the sum of integers doesn't depend
+ * on the order of its terms, so several threads can apply different plates to
+ * the same tiles at once, adding to a single shared array atomically instead of
+ * each owning a band of rows or a copy of the terrain, and the result is always
+ * the same regardless of the number of threads or the order in which they reach
+ * each tile. The result differs from that of
+ * {@link core.terrain.SquareTerrainStamper} by at most the rounding error of
+ * each influence, which is half the inverse of the scale.
+ *
+ * The sum of the influences on a tile, multiplied by the scale, must fit in a
+ * long. The default scale keeps 32 bits for the fractional part, which leaves
+ * room for sums of up to 2 to the 31.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ * @see core.terrain.SquareTerrainEngine
+ *
+ */
+public class SquareTerrainFixedPointStamper implements SquareTerrainEngine {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The default factor the influences are multiplied by before being rounded.
+	 */
+	public static final double DEFAULT_SCALE = 0x1p32d;
+	/**
+	 * Handle used to add to the elements of the shared sums atomically.
+	 */
+	private static final VarHandle SUMS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The number of threads used to apply several plates at once.
+	 */
+	private final int parallelism;
+	/**
+	 * The threads used to apply several plates at once, shared with the other
+	 * engines with the same number of threads, or null if a single thread is used.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * The factor the influences are multiplied by before being rounded.
+	 */
+	private final double scale;
+	/**
+	 * The cache used to bind creases to movement vectors, or null if no cache is
+	 * used.
+	 */
+	private final StampCache stampCache;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new fixed point stamper that uses a single thread and the default
+	 * scale.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 */
+	public SquareTerrainFixedPointStamper(boolean wrapAroundX, boolean wrapAroundY) {
+		this(wrapAroundX, wrapAroundY, 1);
+	}
+
+	/**
+	 * Construct a new fixed point stamper that uses the default scale.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used to apply several plates at
+	 *                    once.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainFixedPointStamper(boolean wrapAroundX, boolean wrapAroundY, int parallelism) {
+		this(wrapAroundX, wrapAroundY, parallelism, DEFAULT_SCALE, null);
+	}
+
+	/**
+	 * Construct a new fixed point stamper.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used to apply several plates at
+	 *                    once.
+	 * @param scale       The factor the influences are multiplied by before being
+	 *                    rounded.
+	 * @param stampCache  A stamp cache, or null to bind creases directly.
+	 * @throws IllegalArgumentException If parallelism is lower than 1 or the scale
+	 *                                  isn't positive and finite.
+	 */
+	public SquareTerrainFixedPointStamper(boolean wrapAroundX, boolean wrapAroundY, int parallelism, double scale,
+			StampCache stampCache) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		if (!(scale > 0.0d) || scale == Double.POSITIVE_INFINITY) {
+			throw new IllegalArgumentException("The scale must be positive and finite.");
+		}
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.parallelism = parallelism;
+		this.pool = parallelism == 1 ? null : ThreadPools.get(parallelism);
+		this.scale = scale;
+		this.stampCache = stampCache;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * The sums of a layer being generated together with the kernels applied to
+	 * them.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	private class Accumulation {
+
+		/**
+		 * The sum of the scaled influences on each tile, in row major order.
+		 */
+		private final long[] sums;
+		/**
+		 * The amount of tiles of the layer along the x axis.
+		 */
+		private final int sizeX;
+		/**
+		 * The amount of tiles of the layer along the y axis.
+		 */
+		private final int sizeY;
+		/**
+		 * The crease bound to the movement vector of each plate.
+		 */
+		private final Kernel[] kernels;
+		/**
+		 * X index of the center of the influence of each plate.
+		 */
+		private final int[] centersX;
+		/**
+		 * Y index of the center of the influence of each plate.
+		 */
+		private final int[] centersY;
+
+		private Accumulation(int sizeX, int sizeY, Kernel[] kernels, int[] centersX, int[] centersY) {
+			this.sums = new long[sizeX * sizeY];
+			this.sizeX = sizeX;
+			this.sizeY = sizeY;
+			this.kernels = kernels;
+			this.centersX = centersX;
+			this.centersY = centersY;
+		}
+
+		/**
+		 * Adds the scaled influence of the given range of plates to the sums, including
+		 * the influence of every copy of each plate that reaches the layer.
+		 * 
+		 * @param firstPlate The index of the first plate of the range.
+		 * @param lastPlate  The index after the last plate of the range.
+		 */
+		private void accumulate(int firstPlate, int lastPlate) {
+			boolean wrapAroundX = SquareTerrainFixedPointStamper.this.wrapAroundX;
+			boolean wrapAroundY = SquareTerrainFixedPointStamper.this.wrapAroundY;
+			// Each row is evaluated into a buffer of this range before being rounded
+			double[] row = new double[this.sizeX];
+			for (int plateIndex = firstPlate; plateIndex < lastPlate; ++plateIndex) {
+				Kernel kernel = this.kernels[plateIndex];
+				int centerX = this.centersX[plateIndex];
+				int centerY = this.centersY[plateIndex];
+				double radius = kernel.getRadius();
+				int firstCopyX = SquareTerrainStamper.firstCopy(centerX, radius, 0, this.sizeX, this.sizeX,
+						wrapAroundX);
+				int lastCopyX = SquareTerrainStamper.lastCopy(centerX, radius, 0, this.sizeX, this.sizeX,
+						wrapAroundX);
+				int firstCopyY = SquareTerrainStamper.firstCopy(centerY, radius, 0, this.sizeY, this.sizeY,
+						wrapAroundY);
+				int lastCopyY = SquareTerrainStamper.lastCopy(centerY, radius, 0, this.sizeY, this.sizeY,
+						wrapAroundY);
+				this.accumulate(kernel, centerX, centerY, 0, 0, row);
+				for (int copyY = firstCopyY; copyY <= lastCopyY; ++copyY) {
+					for (int copyX = firstCopyX; copyX <= lastCopyX; ++copyX) {
+						if (copyX != 0 || copyY != 0) {
+							this.accumulate(kernel, centerX, centerY, copyX * this.sizeX, copyY * this.sizeY, row);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds the scaled influence of a movement vector to the sums of the tiles
+		 * within the radius of its center. The influence on each tile is calculated as
+		 * if the tile was displaced by the given offsets.
+		 * 
+		 * @param kernel  A crease bound to a movement vector.
+		 * @param centerX X index of the center of the influence.
+		 * @param centerY Y index of the center of the influence.
+		 * @param offsetX The displacement of the tiles along the x axis.
+		 * @param offsetY The displacement of the tiles along the y axis.
+		 * @param row     A buffer of zeros as long as a row, left filled with zeros.
+		 */
+		private void accumulate(Kernel kernel, int centerX, int centerY, int offsetX, int offsetY, double[] row) {
+			double scale = SquareTerrainFixedPointStamper.this.scale;
+			double radius = kernel.getRadius();
+			int firstTileIndexY = SquareTerrainStamper.lowerBound(centerY - offsetY, radius);
+			int lastTileIndexY = SquareTerrainStamper.upperBound(centerY - offsetY, radius, this.sizeY);
+			int firstTileIndexX = SquareTerrainStamper.lowerBound(centerX - offsetX, radius);
+			int lastTileIndexX = SquareTerrainStamper.upperBound(centerX - offsetX, radius, this.sizeX);
+			for (int tileIndexY = firstTileIndexY; tileIndexY < lastTileIndexY; ++tileIndexY) {
+				kernel.accumulateRow(tileIndexY + offsetY, firstTileIndexX + offsetX, lastTileIndexX + offsetX, row,
+						firstTileIndexX, 1.0d);
+				int rowOffset = tileIndexY * this.sizeX;
+				for (int tileIndexX = firstTileIndexX; tileIndexX < lastTileIndexX; ++tileIndexX) {
+					// Every influence is rounded on its own, so the sum doesn't depend on
+					// which plate reaches the tile first
+					SUMS.getAndAdd(this.sums, rowOffset + tileIndexX, java.lang.Math.round(row[tileIndexX] * scale));
+					row[tileIndexX] = 0.0d;
+				}
+			}
+		}
+
+		/**
+		 * Adds the sums, divided by the scale and shifted by the given offset, to the
+		 * given tiles.
+		 * 
+		 * @param tiles  The tiles of a layer.
+		 * @param offset The amount subtracted from each tile.
+		 */
+		private void resolve(double[][] tiles, double offset) {
+			double scale = SquareTerrainFixedPointStamper.this.scale;
+			for (int tileIndexY = 0; tileIndexY < this.sizeY; ++tileIndexY) {
+				double[] row = tiles[tileIndexY];
+				int rowOffset = tileIndexY * this.sizeX;
+				for (int tileIndexX = 0; tileIndexX < this.sizeX; ++tileIndexX) {
+					row[tileIndexX] += this.sums[rowOffset + tileIndexX] / scale - offset;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A task that applies a range of plates to a layer, splitting the range among
+	 * several threads if it's big enough.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	private static final class PlateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Accumulation accumulation;
+		private final int firstPlate;
+		private final int lastPlate;
+		private final int platesPerTask;
+
+		private PlateTask(Accumulation accumulation, int firstPlate, int lastPlate, int platesPerTask) {
+			this.accumulation = accumulation;
+			this.firstPlate = firstPlate;
+			this.lastPlate = lastPlate;
+			this.platesPerTask = platesPerTask;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.lastPlate - this.firstPlate <= this.platesPerTask) {
+				this.accumulation.accumulate(this.firstPlate, this.lastPlate);
+			} else {
+				int middlePlate = (this.firstPlate + this.lastPlate) >>> 1;
+				invokeAll(new PlateTask(this.accumulation, this.firstPlate, middlePlate, this.platesPerTask),
+						new PlateTask(this.accumulation, middlePlate, this.lastPlate, this.platesPerTask));
+			}
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of threads used to apply several plates at once.
+	 * 
+	 * @return The number of threads used to apply several plates at once.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Get the factor the influences are multiplied by before being rounded.
+	 * 
+	 * @return The factor the influences are multiplied by before being rounded.
+	 */
+	public double getScale() {
+		return this.scale;
+	}
+
+	/**
+	 * Adds the influence of the movement vectors of all plates of the given plan to
+	 * the tiles of the given layer, rounded as fixed point numbers.
+	 * 
+	 * @param layer     A layer.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 */
+	@Override
+	public void stamp(SquareTerrainLayer layer, Crease crease, PlatePlan platePlan) {
+		Accumulation accumulation = this.bind(layer.getSizeX(), layer.getSizeY(), crease, platePlan, false);
+		this.accumulate(accumulation);
+		accumulation.resolve(layer.tiles, 0.0d);
+	}
+
+	/**
+	 * Generates the layers of the given terrain, accumulating the influences on
+	 * land and magma as fixed point numbers.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 */
+	@Override
+	public void generate(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness) {
+		SquareTerrainLayer magmaLayer = terrain.getMagmaLayer();
+		SquareTerrainLayer waterLayer = terrain.getWaterLayer();
+		Accumulation accumulation = this.bind(terrain.getSizeX(), terrain.getSizeY(), crease, platePlan, false);
+		this.accumulate(accumulation);
+		accumulation.resolve(terrain.getLandLayer().tiles, 0.0d);
+		if (magmaLayer != null) {
+			// Magma is generated like land but in the opposite direction of the plate
+			// movement
+			Accumulation reverseAccumulation = this.bind(terrain.getSizeX(), terrain.getSizeY(), crease, platePlan,
+					true);
+			this.accumulate(reverseAccumulation);
+			reverseAccumulation.resolve(magmaLayer.tiles, crustThickness);
+		}
+		if (waterLayer != null) {
+			for (double[] row : waterLayer.tiles) {
+				Arrays.fill(row, seaLevel);
+			}
+		}
+	}
+
+	/**
+	 * Applies all plates of the given accumulation, using multiple threads if this
+	 * stamper has more than one.
+	 * 
+	 * @param accumulation The sums of a layer.
+	 */
+	private void accumulate(Accumulation accumulation) {
+		int numberOfPlates = accumulation.kernels.length;
+		if (this.parallelism == 1 || numberOfPlates <= 1) {
+			accumulation.accumulate(0, numberOfPlates);
+		} else {
+			// Several tasks per thread so threads that finish early can take more work
+			int platesPerTask = java.lang.Math.max(1, numberOfPlates / (this.parallelism * 4));
+			this.pool.invoke(new PlateTask(accumulation, 0, numberOfPlates, platesPerTask));
+		}
+	}
+
+	/**
+	 * Binds the given crease to the movement vector of each plate of the given
+	 * plan.
+	 * 
+	 * @param sizeX     The amount of tiles of the layer along the x axis.
+	 * @param sizeY     The amount of tiles of the layer along the y axis.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 * @param reverse   Whether to bind the crease to the movement vectors in the
+	 *                  opposite direction.
+	 * @return The empty sums of the layer with their kernels.
+	 */
+	private Accumulation bind(int sizeX, int sizeY, Crease crease, PlatePlan platePlan, boolean reverse) {
+		int numberOfPlates = platePlan.getNumberOfPlates();
+		Kernel[] kernels = new Kernel[numberOfPlates];
+		int[] centersX = new int[numberOfPlates];
+		int[] centersY = new int[numberOfPlates];
+		for (int plateIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+			int startX = platePlan.getStartX(plateIndex);
+			int startY = platePlan.getStartY(plateIndex);
+			int endX = platePlan.getEndX(plateIndex);
+			int endY = platePlan.getEndY(plateIndex);
+			if (reverse) {
+				kernels[plateIndex] = this.bind(crease, endX, endY, startX, startY);
+				centersX[plateIndex] = startX;
+				centersY[plateIndex] = startY;
+			} else {
+				kernels[plateIndex] = this.bind(crease, startX, startY, endX, endY);
+				centersX[plateIndex] = endX;
+				centersY[plateIndex] = endY;
+			}
+		}
+		return new Accumulation(sizeX, sizeY, kernels, centersX, centersY);
+	}
+
+	/**
+	 * Binds the given crease to a movement vector, through the stamp cache of this
+	 * stamper if it has one.
+	 * 
+	 * @param crease A crease.
+	 * @param startX X index of the starting tile of a movement vector.
+	 * @param startY Y index of the starting tile of a movement vector.
+	 * @param endX   X index of the ending tile of a movement vector.
+	 * @param endY   Y index of the ending tile of a movement vector.
+	 * @return The given crease bound to the given movement vector.
+	 */
+	private Kernel bind(Crease crease, int startX, int startY, int endX, int endY) {
+		if (this.stampCache == null) {
+			return crease.bind(startX, startY, endX, endY);
+		}
+		return this.stampCache.bind(crease, startX, startY, endX, endY);
+	}
+
+}
@@ -0,0 +1,1244 @@
+/*
+ * SquareTerrainStamper.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import core.Crease;
+import core.Crease.Kernel;
+import core.GenerationMonitor;
+import core.PlatePlan;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+
+/**
+ * Applies the influence of movement vectors to the layers of a square terrain.
+ * Only the tiles within the region influenced by a movement vector, as given by
+ * the radius of the crease, are visited. The crease is bound to each movement
+ * vector once, so only the part of the crease function that depends on the tile
+ * is calculated for each tile.
+ *
+ * Along the axes the terrain wraps around, the influence of a movement vector
+ * includes all its copies displaced by any multiple of the size of the terrain
+ * whose influence reaches the terrain, so a crease whose radius is greater than
+ * the size of the terrain is added as many times as it wraps around. Since only
+ * the tiles within the radius of each copy are visited, a terrain that wraps
+ * around costs the same as one that doesn't for creases smaller than the
+ * terrain.
+ *
+ * Several movement vectors can be applied at once using multiple threads. In
+ * that case, the layer is split into bands of rows and each thread applies all
+ * movement vectors, in order, to the rows of its bands. Since every tile
+ * receives the influences of the movement vectors in the same order as it
+ * would in a single thread, the result doesn't depend on the number of threads.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.Crease#bind(double, double, double, double)
+ * @see core.terrain.SquareTerrain
+ * @see core.terrain.SquareTerrainEngine
+ *
+ */
+public class SquareTerrainStamper implements SquareTerrainEngine {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The stride of the first level of detail of a progressive generation. Each
+	 * following level halves the stride, down to 1.
+	 */
+	public static final int COARSEST_STRIDE = 8;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The number of threads used to apply several movement vectors at once.
+	 */
+	private final int parallelism;
+	/**
+	 * The threads used to apply several movement vectors at once, shared with the
+	 * other engines with the same number of threads, or null if a single thread is
+	 * used.
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * The cache used to bind creases to movement vectors, or null if no cache is
+	 * used.
+	 */
+	private final StampCache stampCache;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new stamper that uses a single thread.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 */
+	public SquareTerrainStamper(boolean wrapAroundX, boolean wrapAroundY) {
+		this(wrapAroundX, wrapAroundY, 1);
+	}
+
+	/**
+	 * Construct a new stamper.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used to apply several movement
+	 *                    vectors at once.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainStamper(boolean wrapAroundX, boolean wrapAroundY, int parallelism) {
+		this(wrapAroundX, wrapAroundY, parallelism, null);
+	}
+
+	/**
+	 * Construct a new stamper that binds creases to movement vectors through a
+	 * stamp cache, so movement vectors with the same displacement share the same
+	 * precalculated influence.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param parallelism The number of threads used to apply several movement
+	 *                    vectors at once.
+	 * @param stampCache  A stamp cache, or null to bind creases directly.
+	 * @throws IllegalArgumentException If parallelism is lower than 1.
+	 */
+	public SquareTerrainStamper(boolean wrapAroundX, boolean wrapAroundY, int parallelism, StampCache stampCache) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.parallelism = parallelism;
+		this.pool = parallelism == 1 ? null : ThreadPools.get(parallelism);
+		this.stampCache = stampCache;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * The layers of a terrain being generated together with the kernels applied to
+	 * them, so all the layers can be generated in a single traversal of each band
+	 * of rows.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * 
+	 */
+	private class Generation {
+
+		/**
+		 * The tiles receiving the influence of the movement vectors.
+		 */
+		private final double[][] tiles;
+		/**
+		 * The crease bound to the movement vector of each plate.
+		 */
+		private final Kernel[] kernels;
+		/**
+		 * The tiles receiving the influence of the movement vectors in the opposite
+		 * direction, or null.
+		 */
+		private final double[][] reverseTiles;
+		/**
+		 * The crease bound to the movement vector of each plate in the opposite
+		 * direction, or null.
+		 */
+		private final Kernel[] reverseKernels;
+		/**
+		 * The amount subtracted from the reverse tiles after applying all movement
+		 * vectors.
+		 */
+		private final double reverseOffset;
+		/**
+		 * The tiles filled with a constant value, or null.
+		 */
+		private final double[][] filledTiles;
+		/**
+		 * The value the filled tiles are filled with.
+		 */
+		private final double fillValue;
+		/**
+		 * The plan the kernels were bound to.
+		 */
+		private final PlatePlan platePlan;
+		/**
+		 * X index, within the terrain, of the first tile of the layers.
+		 */
+		private final int originX;
+		/**
+		 * Y index, within the terrain, of the first tile of the layers.
+		 */
+		private final int originY;
+		/**
+		 * The amount of tiles of the terrain along the x axis.
+		 */
+		private final int sizeX;
+		/**
+		 * The amount of tiles of the terrain along the y axis.
+		 */
+		private final int sizeY;
+		/**
+		 * The distance between the rows and columns of the tiles generated.
+		 */
+		private final int stride;
+		/**
+		 * The stride of the tiles already generated, which are skipped, or 0 if no
+		 * tiles have been generated.
+		 */
+		private final int coarserStride;
+		/**
+		 * The monitor checked between plates, or null.
+		 */
+		private final GenerationMonitor monitor;
+
+		private Generation(double[][] tiles, Kernel[] kernels, double[][] reverseTiles, Kernel[] reverseKernels,
+				double reverseOffset, double[][] filledTiles, double fillValue, PlatePlan platePlan, int originX,
+				int originY, int sizeX, int sizeY, int stride, int coarserStride, GenerationMonitor monitor) {
+			this.tiles = tiles;
+			this.kernels = kernels;
+			this.reverseTiles = reverseTiles;
+			this.reverseKernels = reverseKernels;
+			this.reverseOffset = reverseOffset;
+			this.filledTiles = filledTiles;
+			this.fillValue = fillValue;
+			this.platePlan = platePlan;
+			this.originX = originX;
+			this.originY = originY;
+			this.sizeX = sizeX;
+			this.sizeY = sizeY;
+			this.stride = stride;
+			this.coarserStride = coarserStride;
+			this.monitor = monitor;
+		}
+
+		/**
+		 * Generates the given range of rows of all layers.
+		 * 
+		 * @param firstRow The first row.
+		 * @param lastRow  The row after the last row.
+		 */
+		private void generate(int firstRow, int lastRow) {
+			for (int plateIndex = 0; plateIndex < this.kernels.length; ++plateIndex) {
+				// A stopped generation leaves the rows unfinished
+				if (this.monitor != null) {
+					if (this.monitor.isStopped()) {
+						return;
+					}
+					this.monitor.advance(lastRow - firstRow);
+				}
+				this.stamp(plateIndex, firstRow, lastRow);
+			}
+			this.finish(firstRow, lastRow);
+		}
+
+		/**
+		 * Adds the influence of the given plate to the given range of rows of all
+		 * layers.
+		 * 
+		 * @param plateIndex The index of the plate.
+		 * @param firstRow   The first row.
+		 * @param lastRow    The row after the last row.
+		 */
+		private void stamp(int plateIndex, int firstRow, int lastRow) {
+			// Plates whose influence doesn't reach the layers have no kernel
+			if (this.kernels[plateIndex] != null) {
+				this.stamp(this.tiles, this.kernels[plateIndex], this.platePlan.getEndX(plateIndex),
+						this.platePlan.getEndY(plateIndex), firstRow, lastRow, 1.0d);
+			}
+			if (this.reverseTiles != null && this.reverseKernels[plateIndex] != null) {
+				this.stamp(this.reverseTiles, this.reverseKernels[plateIndex], this.platePlan.getStartX(plateIndex),
+						this.platePlan.getStartY(plateIndex), firstRow, lastRow, 1.0d);
+			}
+		}
+
+		/**
+		 * Fills the water and shifts the magma of the given range of rows once all
+		 * plates have been applied to them.
+		 * 
+		 * @param firstRow The first row.
+		 * @param lastRow  The row after the last row.
+		 */
+		private void finish(int firstRow, int lastRow) {
+			// The rows are finished while they're still in the cache
+			if (this.stride == 1 && this.coarserStride == 0) {
+				for (int tileIndexY = firstRow; tileIndexY < lastRow; ++tileIndexY) {
+					if (this.filledTiles != null) {
+						Arrays.fill(this.filledTiles[tileIndexY], this.fillValue);
+					}
+					if (this.reverseTiles != null) {
+						double[] row = this.reverseTiles[tileIndexY];
+						for (int tileIndexX = 0; tileIndexX < row.length; ++tileIndexX) {
+							row[tileIndexX] -= this.reverseOffset;
+						}
+					}
+				}
+			} else {
+				int sizeX = this.tiles[0].length;
+				for (int tileIndexY = ceilToMultiple(firstRow, this.stride); tileIndexY < lastRow;
+						tileIndexY += this.stride) {
+					for (int tileIndexX = 0; tileIndexX < sizeX; tileIndexX += this.stride) {
+						if (isGenerated(tileIndexX, tileIndexY, this.coarserStride)) {
+							continue;
+						}
+						if (this.filledTiles != null) {
+							this.filledTiles[tileIndexY][tileIndexX] = this.fillValue;
+						}
+						if (this.reverseTiles != null) {
+							this.reverseTiles[tileIndexY][tileIndexX] -= this.reverseOffset;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds the influence of a movement vector to the given tiles within the given
+		 * range of rows, including the influence of every copy of the movement vector
+		 * displaced by a multiple of the size of the terrain along the axes the
+		 * terrain wraps around whose influence reaches those rows.
+		 * 
+		 * @param tiles    The tiles of a layer.
+		 * @param kernel   A crease bound to a movement vector.
+		 * @param endX     X index of the ending tile of the movement vector.
+		 * @param endY     Y index of the ending tile of the movement vector.
+		 * @param firstRow The first row to apply the movement vector to.
+		 * @param lastRow  The row after the last row to apply the movement vector to.
+		 * @param scale    The factor the influence is multiplied by.
+		 */
+		private void stamp(double[][] tiles, Kernel kernel, int endX, int endY, int firstRow, int lastRow,
+				double scale) {
+			double radius = kernel.getRadius();
+			boolean wrapAroundX = SquareTerrainStamper.this.wrapAroundX;
+			boolean wrapAroundY = SquareTerrainStamper.this.wrapAroundY;
+			int firstColumn = this.originX;
+			int lastColumn = this.originX + tiles[0].length;
+			int firstCopyX = firstCopy(endX, radius, firstColumn, lastColumn, this.sizeX, wrapAroundX);
+			int lastCopyX = lastCopy(endX, radius, firstColumn, lastColumn, this.sizeX, wrapAroundX);
+			int firstCopyY = firstCopy(endY, radius, this.originY + firstRow, this.originY + lastRow, this.sizeY,
+					wrapAroundY);
+			int lastCopyY = lastCopy(endY, radius, this.originY + firstRow, this.originY + lastRow, this.sizeY,
+					wrapAroundY);
+			// The tiles are displaced by the origin of the layers so the influence is
+			// calculated for their indices within the terrain
+			this.stamp(tiles, kernel, endX, endY, this.originX, this.originY, firstRow, lastRow, scale);
+			for (int copyY = firstCopyY; copyY <= lastCopyY; ++copyY) {
+				for (int copyX = firstCopyX; copyX <= lastCopyX; ++copyX) {
+					if (copyX != 0 || copyY != 0) {
+						this.stamp(tiles, kernel, endX, endY, this.originX + copyX * this.sizeX,
+								this.originY + copyY * this.sizeY, firstRow, lastRow, scale);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds the influence of a movement vector to the tiles of the given array
+		 * within the given range of rows that are generated by this generation.
+		 * 
+		 * @param tiles    The tiles of a layer.
+		 * @param kernel   A crease bound to a movement vector.
+		 * @param endX     X index of the ending tile of the movement vector.
+		 * @param endY     Y index of the ending tile of the movement vector.
+		 * @param offsetX  The displacement of the tiles along the x axis.
+		 * @param offsetY  The displacement of the tiles along the y axis.
+		 * @param firstRow The first row to apply the movement vector to.
+		 * @param lastRow  The row after the last row to apply the movement vector to.
+		 * @param scale    The factor the influence is multiplied by.
+		 */
+		private void stamp(double[][] tiles, Kernel kernel, int endX, int endY, int offsetX, int offsetY,
+				int firstRow, int lastRow, double scale) {
+			if (this.stride == 1 && this.coarserStride == 0) {
+				SquareTerrainStamper.stamp(tiles, kernel, endX, endY, offsetX, offsetY, firstRow, lastRow, scale);
+			} else {
+				stampLattice(tiles, kernel, endX, endY, offsetX, offsetY, firstRow, lastRow, this.stride,
+						this.coarserStride, scale);
+			}
+		}
+
+	}
+
+	/**
+	 * A task that generates a band of rows of the layers of one or more terrains,
+	 * splitting the band among several threads if it's big enough.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * 
+	 */
+	private static final class BandTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Generation[] generations;
+		private final int firstRow;
+		private final int lastRow;
+		private final int rowsPerBand;
+
+		private BandTask(Generation[] generations, int firstRow, int lastRow, int rowsPerBand) {
+			this.generations = generations;
+			this.firstRow = firstRow;
+			this.lastRow = lastRow;
+			this.rowsPerBand = rowsPerBand;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.lastRow - this.firstRow <= this.rowsPerBand) {
+				generate(this.generations, this.firstRow, this.lastRow);
+			} else {
+				int middleRow = (this.firstRow + this.lastRow) >>> 1;
+				invokeAll(new BandTask(this.generations, this.firstRow, middleRow, this.rowsPerBand),
+						new BandTask(this.generations, middleRow, this.lastRow, this.rowsPerBand));
+			}
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of threads used to apply several movement vectors at once.
+	 * 
+	 * @return The number of threads used to apply several movement vectors at once.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Adds the influence of the movement vector starting at the tile with indices
+	 * startX, startY and ending at the tile with indices endX, endY to the tiles of
+	 * the given layer.
+	 * 
+	 * If the terrain wraps around along an axis, the influence of every copy of
+	 * the movement vector displaced by a multiple of the size of the terrain along
+	 * that axis is added as well, so a crease whose radius is greater than the size
+	 * of the terrain wraps around as many times as needed.
+	 * 
+	 * @param layer  A layer.
+	 * @param crease A crease.
+	 * @param startX X index of the starting tile of a movement vector.
+	 * @param startY Y index of the starting tile of a movement vector.
+	 * @param endX   X index of the ending tile of a movement vector.
+	 * @param endY   Y index of the ending tile of a movement vector.
+	 */
+	public void stamp(SquareTerrainLayer layer, Crease crease, int startX, int startY, int endX, int endY) {
+		this.stamp(layer, crease, startX, startY, endX, endY, 1.0d);
+	}
+
+	/**
+	 * Adds the influence of the movement vector starting at the tile with indices
+	 * startX, startY and ending at the tile with indices endX, endY, multiplied by
+	 * the given scale, to the tiles of the given layer. A scale of -1 removes the
+	 * influence added by {@link #stamp(SquareTerrainLayer, Crease, int, int, int, int)}
+	 * up to rounding.
+	 * 
+	 * @param layer  A layer.
+	 * @param crease A crease.
+	 * @param startX X index of the starting tile of a movement vector.
+	 * @param startY Y index of the starting tile of a movement vector.
+	 * @param endX   X index of the ending tile of a movement vector.
+	 * @param endY   Y index of the ending tile of a movement vector.
+	 * @param scale  The factor the influence is multiplied by.
+	 */
+	public void stamp(SquareTerrainLayer layer, Crease crease, int startX, int startY, int endX, int endY,
+			double scale) {
+		Kernel kernel = this.bind(crease, startX, startY, endX, endY);
+		new Generation(layer.tiles, null, null, null, 0.0d, null, 0.0d, null, 0, 0, layer.getSizeX(),
+				layer.getSizeY(), 1, 0, null).stamp(layer.tiles, kernel, endX, endY, 0, layer.getSizeY(), scale);
+	}
+
+	/**
+	 * Adds the influence of the movement vectors of all plates of the given plan
+	 * to the tiles of the given layer.
+	 * 
+	 * The result is the same as that of applying the movement vector of each plate
+	 * in order through
+	 * {@link #stamp(SquareTerrainLayer, Crease, int, int, int, int)}, regardless of
+	 * the number of threads used.
+	 * 
+	 * @param layer     A layer.
+	 * @param crease    A crease.
+	 * @param platePlan A plan.
+	 */
+	@Override
+	public void stamp(SquareTerrainLayer layer, Crease crease, PlatePlan platePlan) {
+		Kernel[] kernels = this.bind(crease, platePlan, false, 0, platePlan.getNumberOfPlates(), 0, 0,
+				layer.getSizeX(), layer.getSizeY(), layer.getSizeX(), layer.getSizeY());
+		this.generate(new Generation(layer.tiles, kernels, null, null, 0.0d, null, 0.0d, platePlan, 0, 0,
+				layer.getSizeX(), layer.getSizeY(), 1, 0, null), layer.getSizeY());
+	}
+
+	/**
+	 * Generates the layers of the given terrain in a single traversal of each band
+	 * of rows. Each band receives the influence of each plate on land and magma
+	 * before the next plate, and is filled with water and shifted by the crust
+	 * thickness right after, so the tiles are visited while they're still in the
+	 * cache and no further pass over the terrain is needed.
+	 * 
+	 * The result is the same as that of the default implementation.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 */
+	@Override
+	public void generate(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness) {
+		this.generate(terrain, 0, 0, terrain.getSizeX(), terrain.getSizeY(), crease, platePlan, seaLevel,
+				crustThickness);
+	}
+
+	/**
+	 * Generates the layers of the given terrain like
+	 * {@link #generate(SquareTerrain, Crease, PlatePlan, double, double)}, reporting
+	 * the progress to the given monitor and stopping between plates if the monitor
+	 * is cancelled or its deadline is reached. The state of the monitor tells
+	 * whether the terrain is complete or only partially generated.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param monitor        A monitor that hasn't been used by another
+	 *                       generation.
+	 */
+	@Override
+	public void generate(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness, GenerationMonitor monitor) {
+		// Each band adds its rows to the work as it starts each plate
+		monitor.start(platePlan.getNumberOfPlates(), (long) platePlan.getNumberOfPlates() * terrain.getSizeY());
+		this.generate(terrain, 0, 0, terrain.getSizeX(), terrain.getSizeY(), crease, platePlan, seaLevel,
+				crustThickness, 1, 0, monitor);
+		monitor.complete();
+	}
+
+	/**
+	 * Generates the layers of each of the given terrains with the corresponding
+	 * crease and the same plan. Each band of rows is traversed once for all the
+	 * terrains: every plate is applied to the band of each terrain before the next
+	 * plate, so the plan is walked and the bands are scheduled once instead of
+	 * once for each crease, and the rows of the band of every terrain stay in the
+	 * cache while the plate is applied to them.
+	 * 
+	 * Each terrain is the same as if it had been generated with its crease through
+	 * {@link #generate(SquareTerrain, Crease, PlatePlan, double, double)}.
+	 * 
+	 * @param terrains       Terrains of the same size.
+	 * @param creases        The crease each terrain is generated with.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrains have water.
+	 * @param crustThickness The crust thickness, used if the terrains have magma.
+	 * @throws IllegalArgumentException If there are no terrains, the terrains
+	 *                                  don't have the same size or there isn't
+	 *                                  one crease for each terrain.
+	 */
+	public void generate(SquareTerrain[] terrains, Crease[] creases, PlatePlan platePlan, double seaLevel,
+			double crustThickness) {
+		if (terrains.length == 0 || terrains.length != creases.length) {
+			throw new IllegalArgumentException("There must be one crease for each terrain.");
+		}
+		int sizeX = terrains[0].getSizeX();
+		int sizeY = terrains[0].getSizeY();
+		Generation[] generations = new Generation[terrains.length];
+		for (int terrainIndex = 0; terrainIndex < terrains.length; ++terrainIndex) {
+			if (terrains[terrainIndex].getSizeX() != sizeX || terrains[terrainIndex].getSizeY() != sizeY) {
+				throw new IllegalArgumentException("The terrains must have the same size.");
+			}
+			generations[terrainIndex] = this.createGeneration(terrains[terrainIndex], 0, 0, sizeX, sizeY,
+					creases[terrainIndex], platePlan, seaLevel, crustThickness, 1, 0, null);
+		}
+		this.generate(generations, sizeY);
+	}
+
+	/**
+	 * Generates the layers of the given terrain as a window of a bigger terrain of
+	 * the given size, whose first tile has the given indices within the bigger
+	 * terrain. Only the plates whose influence reaches the window are applied, so
+	 * the cost depends on the size of the window instead of the size of the
+	 * bigger terrain.
+	 * 
+	 * The result is the same as the tiles of the window of a terrain of the given
+	 * size generated through
+	 * {@link #generate(SquareTerrain, Crease, PlatePlan, double, double)}.
+	 * 
+	 * @param terrain        A terrain with the size of the window.
+	 * @param originX        X index of the first tile of the window.
+	 * @param originY        Y index of the first tile of the window.
+	 * @param sizeX          The amount of tiles of the bigger terrain along the x
+	 *                       axis.
+	 * @param sizeY          The amount of tiles of the bigger terrain along the y
+	 *                       axis.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan for the bigger terrain.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @throws IllegalArgumentException If the window isn't within the bigger
+	 *                                  terrain.
+	 */
+	public void generate(SquareTerrain terrain, int originX, int originY, int sizeX, int sizeY, Crease crease,
+			PlatePlan platePlan, double seaLevel, double crustThickness) {
+		this.generate(terrain, originX, originY, sizeX, sizeY, crease, platePlan, seaLevel, crustThickness, 1, 0,
+				null);
+	}
+
+	/**
+	 * Generates a level of detail of the layers of the given terrain, made of the
+	 * tiles whose indices are both multiples of the given stride. The tiles
+	 * generated by a previous level with the given coarser stride are skipped, so
+	 * levels with decreasing strides can be generated one after another on the
+	 * same terrain, reusing the tiles of the previous levels. The tiles that
+	 * aren't part of any level generated yet are left untouched.
+	 * 
+	 * Each tile of a level is the same as the same tile generated through
+	 * {@link #generate(SquareTerrain, Crease, PlatePlan, double, double)}, so
+	 * after generating a level with a stride of 1 the terrain is the same as if it
+	 * had been generated at once.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param stride         The distance between the rows and columns of the
+	 *                       tiles of the level.
+	 * @param coarserStride  The stride of the previous level, or 0 if no level
+	 *                       has been generated yet.
+	 * @throws IllegalArgumentException If the stride isn't positive or the coarser
+	 *                                  stride isn't 0 or a greater multiple of the
+	 *                                  stride.
+	 */
+	public void generate(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness, int stride, int coarserStride) {
+		if (stride < 1) {
+			throw new IllegalArgumentException("The stride must be at least 1.");
+		}
+		if (coarserStride != 0 && (coarserStride <= stride || coarserStride % stride != 0)) {
+			throw new IllegalArgumentException("The coarser stride must be 0 or a greater multiple of the stride.");
+		}
+		this.generate(terrain, 0, 0, terrain.getSizeX(), terrain.getSizeY(), crease, platePlan, seaLevel,
+				crustThickness, stride, coarserStride, null);
+	}
+
+	/**
+	 * Adds the influence of the movement vectors of the plates of the given plan
+	 * within the given range to the land of the given terrain, and the influence
+	 * of the opposite movement vectors to its magma if it has magma. Water isn't
+	 * filled and magma isn't shifted by the crust thickness until
+	 * {@link #finish(SquareTerrain, double, double)} is called.
+	 * 
+	 * Stamping consecutive ranges of plates one after another and finishing the
+	 * terrain gives the same result as
+	 * {@link #generate(SquareTerrain, Crease, PlatePlan, double, double)}, since
+	 * every tile receives the influences of the plates in the same order, so a
+	 * generation can be stopped and continued between ranges.
+	 * 
+	 * @param terrain    A terrain.
+	 * @param crease     A crease.
+	 * @param platePlan  A plan.
+	 * @param firstPlate The index of the first plate of the range.
+	 * @param lastPlate  The index after the last plate of the range.
+	 * @throws IndexOutOfBoundsException If the range isn't within the plates of
+	 *                                   the plan.
+	 */
+	public void stamp(SquareTerrain terrain, Crease crease, PlatePlan platePlan, int firstPlate, int lastPlate) {
+		Objects.checkFromToIndex(firstPlate, lastPlate, platePlan.getNumberOfPlates());
+		int sizeX = terrain.getSizeX();
+		int sizeY = terrain.getSizeY();
+		SquareTerrainLayer magmaLayer = terrain.getMagmaLayer();
+		Kernel[] kernels = this.bind(crease, platePlan, false, firstPlate, lastPlate, 0, 0, sizeX, sizeY, sizeX,
+				sizeY);
+		Kernel[] reverseKernels = magmaLayer == null ? null
+				: this.bind(crease, platePlan, true, firstPlate, lastPlate, 0, 0, sizeX, sizeY, sizeX, sizeY);
+		// Subtracting an offset of 0 leaves the magma unchanged
+		this.generate(new Generation(terrain.getLandLayer().tiles, kernels,
+				magmaLayer == null ? null : magmaLayer.tiles, reverseKernels, 0.0d, null, 0.0d, platePlan, 0, 0,
+				sizeX, sizeY, 1, 0, null), sizeY);
+	}
+
+	/**
+	 * Fills the water of the given terrain with the sea level and shifts its magma
+	 * by the crust thickness, after the influence of all plates has been added
+	 * through {@link #stamp(SquareTerrain, Crease, PlatePlan, int, int)}.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 */
+	public void finish(SquareTerrain terrain, double seaLevel, double crustThickness) {
+		if (terrain.getWaterLayer() != null) {
+			for (double[] row : terrain.getWaterLayer().tiles) {
+				Arrays.fill(row, seaLevel);
+			}
+		}
+		if (terrain.getMagmaLayer() != null) {
+			for (double[] row : terrain.getMagmaLayer().tiles) {
+				for (int tileIndexX = 0; tileIndexX < row.length; ++tileIndexX) {
+					row[tileIndexX] -= crustThickness;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates the layers of the given terrain in levels of detail with strides
+	 * from {@link #COARSEST_STRIDE} down to 1, each reusing the tiles of the
+	 * previous ones. After each level, the given listener receives a terrain of
+	 * the same size in which every tile has the value of the closest tile of the
+	 * level above and to the left of it. The last terrain received is the given
+	 * terrain, which is then the same as if it had been generated through
+	 * {@link #generate(SquareTerrain, Crease, PlatePlan, double, double)}.
+	 * 
+	 * The first level visits one tile in {@value #COARSEST_STRIDE} squared, so a
+	 * rough terrain is available long before the whole terrain.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param listener       The listener that receives the terrain after each
+	 *                       level.
+	 */
+	public void generateProgressively(SquareTerrain terrain, Crease crease, PlatePlan platePlan, double seaLevel,
+			double crustThickness, Consumer<? super SquareTerrain> listener) {
+		this.generateProgressively(terrain, crease, platePlan, seaLevel, crustThickness, listener,
+				new GenerationMonitor());
+	}
+
+	/**
+	 * Generates the layers of the given terrain in levels of detail like
+	 * {@link #generateProgressively(SquareTerrain, Crease, PlatePlan, double, double, Consumer)},
+	 * reporting the progress to the given monitor and stopping between plates if
+	 * the monitor is cancelled or its deadline is reached.
+	 * 
+	 * If the generation stops, the level being generated is discarded and the
+	 * terrain received by the listener after the last finished level is returned,
+	 * so a coarse terrain is available even if the whole terrain isn't.
+	 * 
+	 * @param terrain        A terrain.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param listener       The listener that receives the terrain after each
+	 *                       level.
+	 * @param monitor        A monitor that hasn't been used by another
+	 *                       generation.
+	 * @return The given terrain if the generation completed, the terrain of the
+	 *         last finished level if it stopped, or null if it stopped before
+	 *         finishing the first level.
+	 */
+	public SquareTerrain generateProgressively(SquareTerrain terrain, Crease crease, PlatePlan platePlan,
+			double seaLevel, double crustThickness, Consumer<? super SquareTerrain> listener,
+			GenerationMonitor monitor) {
+		int levels = Integer.numberOfTrailingZeros(COARSEST_STRIDE) + 1;
+		monitor.start(platePlan.getNumberOfPlates(),
+				(long) levels * platePlan.getNumberOfPlates() * terrain.getSizeY());
+		SquareTerrain levelTerrain = null;
+		int coarserStride = 0;
+		for (int stride = COARSEST_STRIDE; stride >= 1; stride /= 2) {
+			this.generate(terrain, 0, 0, terrain.getSizeX(), terrain.getSizeY(), crease, platePlan, seaLevel,
+					crustThickness, stride, coarserStride, monitor);
+			if (monitor.getStatus() != GenerationMonitor.Status.RUNNING) {
+				return levelTerrain;
+			}
+			levelTerrain = stride == 1 ? terrain : expand(terrain, stride);
+			listener.accept(levelTerrain);
+			coarserStride = stride;
+		}
+		monitor.complete();
+		return terrain;
+	}
+
+	/**
+	 * Generates the tiles of a level of detail of the layers of the given terrain
+	 * as a window of a bigger terrain of the given size.
+	 * 
+	 * @param terrain        A terrain with the size of the window.
+	 * @param originX        X index of the first tile of the window.
+	 * @param originY        Y index of the first tile of the window.
+	 * @param sizeX          The amount of tiles of the bigger terrain along the x
+	 *                       axis.
+	 * @param sizeY          The amount of tiles of the bigger terrain along the y
+	 *                       axis.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan for the bigger terrain.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param stride         The distance between the rows and columns of the
+	 *                       tiles of the level.
+	 * @param coarserStride  The stride of the previous level, or 0.
+	 * @param monitor        The monitor checked between plates, or null.
+	 * @throws IllegalArgumentException If the window isn't within the bigger
+	 *                                  terrain.
+	 */
+	private void generate(SquareTerrain terrain, int originX, int originY, int sizeX, int sizeY, Crease crease,
+			PlatePlan platePlan, double seaLevel, double crustThickness, int stride, int coarserStride,
+			GenerationMonitor monitor) {
+		this.generate(this.createGeneration(terrain, originX, originY, sizeX, sizeY, crease, platePlan, seaLevel,
+				crustThickness, stride, coarserStride, monitor), terrain.getSizeY());
+	}
+
+	/**
+	 * Binds the given crease to the movement vectors of the given plan whose
+	 * influence reaches the layers of the given terrain, which is a window of a
+	 * bigger terrain of the given size, so the layers can be generated.
+	 * 
+	 * @param terrain        A terrain with the size of the window.
+	 * @param originX        X index of the first tile of the window.
+	 * @param originY        Y index of the first tile of the window.
+	 * @param sizeX          The amount of tiles of the bigger terrain along the x
+	 *                       axis.
+	 * @param sizeY          The amount of tiles of the bigger terrain along the y
+	 *                       axis.
+	 * @param crease         A crease.
+	 * @param platePlan      A plan for the bigger terrain.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param stride         The distance between the rows and columns of the
+	 *                       tiles of the level.
+	 * @param coarserStride  The stride of the previous level, or 0.
+	 * @param monitor        The monitor checked between plates, or null.
+	 * @return The layers of the terrain together with their kernels.
+	 * @throws IllegalArgumentException If the window isn't within the bigger
+	 *                                  terrain.
+	 */
+	private Generation createGeneration(SquareTerrain terrain, int originX, int originY, int sizeX, int sizeY,
+			Crease crease, PlatePlan platePlan, double seaLevel, double crustThickness, int stride,
+			int coarserStride, GenerationMonitor monitor) {
+		int windowSizeX = terrain.getSizeX();
+		int windowSizeY = terrain.getSizeY();
+		if (originX < 0 || originY < 0 || originX > sizeX - windowSizeX || originY > sizeY - windowSizeY) {
+			throw new IllegalArgumentException("The window must be within the terrain.");
+		}
+		SquareTerrainLayer magmaLayer = terrain.getMagmaLayer();
+		SquareTerrainLayer waterLayer = terrain.getWaterLayer();
+		Kernel[] kernels = this.bind(crease, platePlan, false, 0, platePlan.getNumberOfPlates(), originX, originY,
+				windowSizeX, windowSizeY, sizeX, sizeY);
+		// Magma is generated like land but in the opposite direction of the plate
+		// movement
+		Kernel[] reverseKernels = magmaLayer == null ? null
+				: this.bind(crease, platePlan, true, 0, platePlan.getNumberOfPlates(), originX, originY, windowSizeX,
+						windowSizeY, sizeX, sizeY);
+		return new Generation(terrain.getLandLayer().tiles, kernels, magmaLayer == null ? null : magmaLayer.tiles,
+				reverseKernels, crustThickness, waterLayer == null ? null : waterLayer.tiles, seaLevel, platePlan,
+				originX, originY, sizeX, sizeY, stride, coarserStride, monitor);
+	}
+
+	/**
+	 * Generates all rows of the given layers, using multiple threads if this
+	 * stamper has more than one.
+	 * 
+	 * @param generation The layers.
+	 * @param sizeY      The amount of rows.
+	 */
+	private void generate(Generation generation, int sizeY) {
+		this.generate(new Generation[] { generation }, sizeY);
+	}
+
+	/**
+	 * Generates all rows of the layers of the given terrains, which have the same
+	 * amount of rows, using multiple threads if this stamper has more than one.
+	 * 
+	 * @param generations The layers of each terrain.
+	 * @param sizeY       The amount of rows.
+	 */
+	private void generate(Generation[] generations, int sizeY) {
+		if (this.parallelism == 1 || sizeY == 1) {
+			generate(generations, 0, sizeY);
+		} else {
+			// Several bands per thread so threads that finish early can take more work
+			int rowsPerBand = java.lang.Math.max(1, sizeY / (this.parallelism * 4));
+			this.pool.invoke(new BandTask(generations, 0, sizeY, rowsPerBand));
+		}
+	}
+
+	/**
+	 * Binds the given crease to the movement vector of each plate of the given
+	 * range of plates of the given plan whose influence reaches the given window
+	 * of a terrain.
+	 * 
+	 * @param crease      A crease.
+	 * @param platePlan   A plan.
+	 * @param reverse     Whether to bind the crease to the movement vectors in the
+	 *                    opposite direction.
+	 * @param firstPlate  The index of the first plate of the range.
+	 * @param lastPlate   The index after the last plate of the range.
+	 * @param originX     X index of the first tile of the window.
+	 * @param originY     Y index of the first tile of the window.
+	 * @param windowSizeX The amount of tiles of the window along the x axis.
+	 * @param windowSizeY The amount of tiles of the window along the y axis.
+	 * @param sizeX       The amount of tiles of the terrain along the x axis.
+	 * @param sizeY       The amount of tiles of the terrain along the y axis.
+	 * @return The crease bound to the movement vector of each plate, or null for
+	 *         the plates out of the range or whose influence doesn't reach the
+	 *         window.
+	 */
+	private Kernel[] bind(Crease crease, PlatePlan platePlan, boolean reverse, int firstPlate, int lastPlate,
+			int originX, int originY, int windowSizeX, int windowSizeY, int sizeX, int sizeY) {
+		Kernel[] kernels = new Kernel[platePlan.getNumberOfPlates()];
+		for (int plateIndex = firstPlate; plateIndex < lastPlate; ++plateIndex) {
+			int startX = platePlan.getStartX(plateIndex);
+			int startY = platePlan.getStartY(plateIndex);
+			int endX = platePlan.getEndX(plateIndex);
+			int endY = platePlan.getEndY(plateIndex);
+			if (reverse) {
+				int temporary = startX;
+				startX = endX;
+				endX = temporary;
+				temporary = startY;
+				startY = endY;
+				endY = temporary;
+			}
+			double radius = crease.getRadius(startX, startY, endX, endY);
+			if (reaches(endX, radius, originX, originX + windowSizeX, sizeX, this.wrapAroundX)
+					&& reaches(endY, radius, originY, originY + windowSizeY, sizeY, this.wrapAroundY)) {
+				kernels[plateIndex] = this.bind(crease, startX, startY, endX, endY);
+			}
+		}
+		return kernels;
+	}
+
+	/**
+	 * Binds the given crease to a movement vector, through the stamp cache of this
+	 * stamper if it has one.
+	 * 
+	 * @param crease A crease.
+	 * @param startX X index of the starting tile of a movement vector.
+	 * @param startY Y index of the starting tile of a movement vector.
+	 * @param endX   X index of the ending tile of a movement vector.
+	 * @param endY   Y index of the ending tile of a movement vector.
+	 * @return The given crease bound to the given movement vector.
+	 */
+	private Kernel bind(Crease crease, int startX, int startY, int endX, int endY) {
+		if (this.stampCache == null) {
+			return crease.bind(startX, startY, endX, endY);
+		}
+		return this.stampCache.bind(crease, startX, startY, endX, endY);
+	}
+
+	/**
+	 * Adds the influence of a movement vector to the tiles of the given array
+	 * within the given radius of its ending tile and the given range of rows. The
+	 * influence on each tile is calculated as if the tile was displaced by the
+	 * given offsets.
+	 * 
+	 * @param tiles    The tiles of a layer.
+	 * @param kernel   A crease bound to a movement vector.
+	 * @param endX     X index of the ending tile of the movement vector.
+	 * @param endY     Y index of the ending tile of the movement vector.
+	 * @param offsetX  The displacement of the tiles along the x axis.
+	 * @param offsetY  The displacement of the tiles along the y axis.
+	 * @param firstRow The first row to apply the movement vector to.
+	 * @param lastRow  The row after the last row to apply the movement vector to.
+	 * @param scale    The factor the influence is multiplied by.
+	 */
+	private static void stamp(double[][] tiles, Kernel kernel, int endX, int endY, int offsetX, int offsetY,
+			int firstRow, int lastRow, double scale) {
+		double radius = kernel.getRadius();
+		int firstTileIndexY = java.lang.Math.max(firstRow, lowerBound(endY - offsetY, radius));
+		int lastTileIndexY = java.lang.Math.min(lastRow, upperBound(endY - offsetY, radius, tiles.length));
+		int firstTileIndexX = lowerBound(endX - offsetX, radius);
+		int lastTileIndexX = upperBound(endX - offsetX, radius, tiles[0].length);
+		for (int tileIndexY = firstTileIndexY; tileIndexY < lastTileIndexY; ++tileIndexY) {
+			kernel.accumulateRow(tileIndexY + offsetY, firstTileIndexX + offsetX, lastTileIndexX + offsetX,
+					tiles[tileIndexY], firstTileIndexX, scale);
+		}
+	}
+
+	/**
+	 * Adds the influence of a movement vector to the tiles of the given array
+	 * within the given radius of its ending tile and the given range of rows whose
+	 * indices are multiples of the given stride, skipping those whose indices are
+	 * multiples of the given coarser stride. Each tile receives the same
+	 * influence it receives through
+	 * {@link #stamp(double[][], Kernel, int, int, int, int, int, int, double)}.
+	 * 
+	 * @param tiles         The tiles of a layer.
+	 * @param kernel        A crease bound to a movement vector.
+	 * @param endX          X index of the ending tile of the movement vector.
+	 * @param endY          Y index of the ending tile of the movement vector.
+	 * @param offsetX       The displacement of the tiles along the x axis.
+	 * @param offsetY       The displacement of the tiles along the y axis.
+	 * @param firstRow      The first row to apply the movement vector to.
+	 * @param lastRow       The row after the last row to apply the movement vector
+	 *                      to.
+	 * @param stride        The distance between the rows and columns of the tiles.
+	 * @param coarserStride The stride of the tiles that are skipped, or 0.
+	 * @param scale         The factor the influence is multiplied by.
+	 */
+	private static void stampLattice(double[][] tiles, Kernel kernel, int endX, int endY, int offsetX, int offsetY,
+			int firstRow, int lastRow, int stride, int coarserStride, double scale) {
+		double radius = kernel.getRadius();
+		int firstTileIndexY = java.lang.Math.max(firstRow, lowerBound(endY - offsetY, radius));
+		int lastTileIndexY = java.lang.Math.min(lastRow, upperBound(endY - offsetY, radius, tiles.length));
+		int firstTileIndexX = lowerBound(endX - offsetX, radius);
+		int lastTileIndexX = upperBound(endX - offsetX, radius, tiles[0].length);
+		int firstLatticeIndexX = ceilToMultiple(firstTileIndexX, stride);
+		for (int tileIndexY = ceilToMultiple(firstTileIndexY, stride); tileIndexY < lastTileIndexY;
+				tileIndexY += stride) {
+			double[] row = tiles[tileIndexY];
+			if (!isGenerated(0, tileIndexY, coarserStride)) {
+				kernel.accumulateRow(tileIndexY + offsetY, firstLatticeIndexX + offsetX, lastTileIndexX + offsetX,
+						stride, row, firstLatticeIndexX, scale);
+				continue;
+			}
+			// The columns that are multiples of the coarser stride were generated, so
+			// the rest are visited as one progression for each remainder
+			for (int remainder = stride; remainder < coarserStride; remainder += stride) {
+				int firstColumn = firstTileIndexX + java.lang.Math.floorMod(remainder - firstTileIndexX,
+						coarserStride);
+				kernel.accumulateRow(tileIndexY + offsetY, firstColumn + offsetX, lastTileIndexX + offsetX,
+						coarserStride, row, firstColumn, scale);
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Generates the given range of rows of the layers of the given terrains. If
+	 * there are several terrains, each plate is applied to the rows of all of them
+	 * before the next plate.
+	 * 
+	 * @param generations The layers of each terrain.
+	 * @param firstRow    The first row.
+	 * @param lastRow     The row after the last row.
+	 */
+	private static void generate(Generation[] generations, int firstRow, int lastRow) {
+		if (generations.length == 1) {
+			generations[0].generate(firstRow, lastRow);
+			return;
+		}
+		for (int plateIndex = 0; plateIndex < generations[0].kernels.length; ++plateIndex) {
+			for (Generation generation : generations) {
+				generation.stamp(plateIndex, firstRow, lastRow);
+			}
+		}
+		for (Generation generation : generations) {
+			generation.finish(firstRow, lastRow);
+		}
+	}
+
+	/**
+	 * Creates a copy of the given terrain in which every tile has the value of the
+	 * tile above and to the left of it whose indices are multiples of the given
+	 * stride.
+	 * 
+	 * @param terrain A terrain.
+	 * @param stride  A stride.
+	 * @return The expanded copy of the terrain.
+	 */
+	private static SquareTerrain expand(SquareTerrain terrain, int stride) {
+		SquareTerrain expanded = new SquareTerrain(terrain.getSizeX(), terrain.getSizeY(),
+				terrain.getWaterLayer() != null, terrain.getMagmaLayer() != null);
+		expand(terrain.getLandLayer(), expanded.getLandLayer(), stride);
+		if (terrain.getWaterLayer() != null) {
+			expand(terrain.getWaterLayer(), expanded.getWaterLayer(), stride);
+		}
+		if (terrain.getMagmaLayer() != null) {
+			expand(terrain.getMagmaLayer(), expanded.getMagmaLayer(), stride);
+		}
+		return expanded;
+	}
+
+	/**
+	 * Sets every tile of the given destination layer to the value of the tile of
+	 * the given source layer above and to the left of it whose indices are
+	 * multiples of the given stride.
+	 * 
+	 * @param source      A layer.
+	 * @param destination A layer of the same size.
+	 * @param stride      A stride.
+	 */
+	private static void expand(SquareTerrainLayer source, SquareTerrainLayer destination, int stride) {
+		for (int tileIndexY = 0; tileIndexY < source.tiles.length; ++tileIndexY) {
+			double[] sourceRow = source.tiles[tileIndexY - tileIndexY % stride];
+			double[] destinationRow = destination.tiles[tileIndexY];
+			for (int tileIndexX = 0; tileIndexX < sourceRow.length; tileIndexX += stride) {
+				int lastTileIndexX = java.lang.Math.min(tileIndexX + stride, sourceRow.length);
+				Arrays.fill(destinationRow, tileIndexX, lastTileIndexX, sourceRow[tileIndexX]);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the tile with the given indices was generated in a level of
+	 * detail with the given stride.
+	 * 
+	 * @param tileIndexX X index of a tile.
+	 * @param tileIndexY Y index of a tile.
+	 * @param stride     The stride of a level of detail, or 0 if none.
+	 * @return True if the tile was generated, false otherwise.
+	 */
+	static boolean isGenerated(int tileIndexX, int tileIndexY, int stride) {
+		return stride != 0 && tileIndexX % stride == 0 && tileIndexY % stride == 0;
+	}
+
+	/**
+	 * Calculates the lowest multiple of the given stride that isn't lower than the
+	 * given index.
+	 * 
+	 * @param index  A non-negative index.
+	 * @param stride A positive stride.
+	 * @return The lowest multiple of the stride that isn't lower than the index.
+	 */
+	static int ceilToMultiple(int index, int stride) {
+		return (index + stride - 1) / stride * stride;
+	}
+
+	/**
+	 * Calculates the lowest number of times the size of the terrain can be
+	 * subtracted from the given center so the given radius around the result
+	 * still reaches an index in the given range.
+	 * 
+	 * If the terrain doesn't wrap around, only the center itself is used. If the
+	 * radius isn't finite, only the copies next to the terrain are used, since
+	 * the sum over every copy wouldn't be finite either.
+	 * 
+	 * @param center     A center within the terrain.
+	 * @param radius     A radius.
+	 * @param firstIndex The first index of the range.
+	 * @param lastIndex  The index after the last index of the range.
+	 * @param size       The amount of indices of the terrain.
+	 * @param wrapAround Whether the terrain wraps around.
+	 * @return The lowest copy whose influence reaches the range.
+	 */
+	static int firstCopy(int center, double radius, int firstIndex, int lastIndex, int size, boolean wrapAround) {
+		if (!wrapAround) {
+			return 0;
+		}
+		if (!(radius < Double.POSITIVE_INFINITY)) {
+			return -1;
+		}
+		double reach = java.lang.Math.floor(java.lang.Math.max(radius, 0));
+		return (int) java.lang.Math.ceil((center - reach - (lastIndex - 1)) / size);
+	}
+
+	/**
+	 * Calculates the greatest number of times the size of the terrain can be
+	 * subtracted from the given center so the given radius around the result
+	 * still reaches an index in the given range.
+	 * 
+	 * If the terrain doesn't wrap around, only the center itself is used. If the
+	 * radius isn't finite, only the copies next to the terrain are used, since
+	 * the sum over every copy wouldn't be finite either.
+	 * 
+	 * @param center     A center within the terrain.
+	 * @param radius     A radius.
+	 * @param firstIndex The first index of the range.
+	 * @param lastIndex  The index after the last index of the range.
+	 * @param size       The amount of indices of the terrain.
+	 * @param wrapAround Whether the terrain wraps around.
+	 * @return The greatest copy whose influence reaches the range.
+	 */
+	static int lastCopy(int center, double radius, int firstIndex, int lastIndex, int size, boolean wrapAround) {
+		if (!wrapAround) {
+			return 0;
+		}
+		if (!(radius < Double.POSITIVE_INFINITY)) {
+			return 1;
+		}
+		double reach = java.lang.Math.floor(java.lang.Math.max(radius, 0));
+		return (int) java.lang.Math.floor((center + reach - firstIndex) / size);
+	}
+
+	/**
+	 * Checks whether the influence of a movement vector ending at the given center
+	 * with the given radius, or of any of its copies if the terrain wraps around,
+	 * reaches an index in the given range.
+	 * 
+	 * @param center     A center within the terrain.
+	 * @param radius     A radius. If not a number, the whole range is reached.
+	 * @param firstIndex The first index of the range.
+	 * @param lastIndex  The index after the last index of the range.
+	 * @param size       The amount of indices of the terrain.
+	 * @param wrapAround Whether the terrain wraps around.
+	 * @return True if the influence reaches the range, false otherwise.
+	 */
+	static boolean reaches(int center, double radius, int firstIndex, int lastIndex, int size,
+			boolean wrapAround) {
+		if (wrapAround) {
+			return firstCopy(center, radius, firstIndex, lastIndex, size, true) <= lastCopy(center, radius,
+					firstIndex, lastIndex, size, true);
+		}
+		// Comparisons with NaN are always false
+		return !(center + radius < firstIndex) && !(center - radius > lastIndex - 1);
+	}
+
+	/**
+	 * Calculates the first index that is within the given radius of the given
+	 * center, clamped to zero.
+	 * 
+	 * @param center A center.
+	 * @param radius A radius. If not a number, the whole range is used.
+	 * @return The first index that is within the given radius of the given center.
+	 */
+	static int lowerBound(double center, double radius) {
+		double bound = java.lang.Math.ceil(center - radius);
+		// Comparisons with NaN are always false
+		return bound > 0 ? (int) bound : 0;
+	}
+
+	/**
+	 * Calculates the index after the last index that is within the given radius of
+	 * the given center, clamped to the given size.
+	 * 
+	 * @param center A center.
+	 * @param radius A radius. If not a number, the whole range is used.
+	 * @param size   The amount of indices.
+	 * @return The index after the last index that is within the given radius of
+	 *         the given center.
+	 */
+	static int upperBound(double center, double radius, int size) {
+		double bound = java.lang.Math.floor(center + radius) + 1;
+		// Comparisons with NaN are always false
+		return bound < size ? (int) bound : size;
+	}
+
+}
@@ -0,0 +1,365 @@
+/*
+ * StampCache.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import core.Crease;
+import core.Crease.Kernel;
+
+/**
+ * A cache of the influence of movement vectors between tiles on the tiles
+ * around their ending tile. When a movement vector starts and ends at tiles, its
+ * influence on the tiles around its ending tile only depends on the crease and
+ * on the displacement from the starting tile to the ending tile, so movement
+ * vectors with the same displacement share the same stamp.
+ *
+ * The least recently used stamps are discarded when the total amount of tiles
+ * of the stamps in the cache exceeds the capacity of the cache.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper
+ *
+ */
+public class StampCache {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The default capacity of a stamp cache, in tiles.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 22;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The maximum total amount of tiles of the stamps in this cache.
+	 */
+	private final long capacity;
+	/**
+	 * The stamps in this cache, from least to most recently used.
+	 */
+	private final LinkedHashMap<Key, Stamp> stamps;
+	/**
+	 * The total amount of tiles of the stamps in this cache.
+	 */
+	private long size;
+	/**
+	 * The number of times a stamp was found in this cache.
+	 */
+	private long hits;
+	/**
+	 * The number of times a stamp wasn't found in this cache.
+	 */
+	private long misses;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new stamp cache with the default capacity.
+	 */
+	public StampCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Construct a new stamp cache.
+	 * 
+	 * @param capacity The maximum total amount of tiles of the stamps in this
+	 *                 cache.
+	 * @throws IllegalArgumentException If the capacity is negative.
+	 */
+	public StampCache(long capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity can't be negative.");
+		}
+		this.capacity = capacity;
+		this.stamps = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * The key of a stamp, made of a crease and a displacement.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * 
+	 */
+	private static final class Key {
+
+		private final Crease crease;
+		private final int displacementX;
+		private final int displacementY;
+
+		private Key(Crease crease, int displacementX, int displacementY) {
+			this.crease = crease;
+			this.displacementX = displacementX;
+			this.displacementY = displacementY;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) object;
+			// Creases with the same parameters share their stamps
+			return this.crease.equals(key.crease) && this.displacementX == key.displacementX
+					&& this.displacementY == key.displacementY;
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.crease.hashCode() * 31 + this.displacementX) * 31 + this.displacementY;
+		}
+
+	}
+
+	/**
+	 * The influence of a movement vector on the tiles around its ending tile, with
+	 * the ending tile at the center of the stamp.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * 
+	 */
+	private static final class Stamp {
+
+		/**
+		 * The crease bound to a movement vector with the same displacement that ends
+		 * at the point with coordinates 0, 0.
+		 */
+		private final Kernel kernel;
+		/**
+		 * The greatest distance along either axis from the center to a tile of the
+		 * stamp.
+		 */
+		private final int reach;
+		/**
+		 * The amount of tiles along each axis of the stamp.
+		 */
+		private final int side;
+		/**
+		 * The value of each tile of the stamp, row by row.
+		 */
+		private final double[] values;
+
+		private Stamp(Kernel kernel, int reach) {
+			this.kernel = kernel;
+			this.reach = reach;
+			this.side = 2 * reach + 1;
+			this.values = new double[this.side * this.side];
+			for (int relativeY = -reach; relativeY <= reach; ++relativeY) {
+				kernel.accumulateRow(relativeY, -reach, reach + 1, this.values, (relativeY + reach) * this.side, 1.0d);
+			}
+		}
+
+	}
+
+	/**
+	 * A stamp placed at the ending tile of a movement vector.
+	 * 
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * 
+	 */
+	private static final class StampKernel implements Kernel {
+
+		private final Stamp stamp;
+		private final int centerX;
+		private final int centerY;
+
+		private StampKernel(Stamp stamp, int centerX, int centerY) {
+			this.stamp = stamp;
+			this.centerX = centerX;
+			this.centerY = centerY;
+		}
+
+		@Override
+		public double valueAt(double thisX, double thisY) {
+			return this.stamp.kernel.valueAt(thisX - this.centerX, thisY - this.centerY);
+		}
+
+		@Override
+		public double getRadius() {
+			return this.stamp.kernel.getRadius();
+		}
+
+		@Override
+		public void accumulateRow(double thisY, int firstX, int lastX, double[] destination, int destinationOffset,
+				double scale) {
+			double relativeY = thisY - this.centerY;
+			if (relativeY != (int) relativeY) {
+				// Not a row of tiles, so not in the stamp
+				Kernel.super.accumulateRow(thisY, firstX, lastX, destination, destinationOffset, scale);
+				return;
+			}
+			int reach = this.stamp.reach;
+			if (relativeY < -reach || relativeY > reach) {
+				// The influence is zero outside of the stamp
+				return;
+			}
+			// Tiles outside of the stamp are outside of the radius so they're skipped
+			int firstRelativeX = java.lang.Math.max(firstX - this.centerX, -reach);
+			int lastRelativeX = java.lang.Math.min(lastX - this.centerX, reach + 1);
+			double[] values = this.stamp.values;
+			int valueIndex = ((int) relativeY + reach) * this.stamp.side + firstRelativeX + reach;
+			int index = destinationOffset + firstRelativeX + this.centerX - firstX;
+			for (int relativeX = firstRelativeX; relativeX < lastRelativeX; ++relativeX, ++valueIndex, ++index) {
+				destination[index] += values[valueIndex] * scale;
+			}
+		}
+
+		@Override
+		public void accumulateRow(double thisY, int firstX, int lastX, int stride, double[] destination,
+				int destinationOffset, double scale) {
+			double relativeY = thisY - this.centerY;
+			if (relativeY != (int) relativeY) {
+				// Not a row of tiles, so not in the stamp
+				Kernel.super.accumulateRow(thisY, firstX, lastX, stride, destination, destinationOffset, scale);
+				return;
+			}
+			int reach = this.stamp.reach;
+			if (relativeY < -reach || relativeY > reach || firstX >= lastX) {
+				// The influence is zero outside of the stamp
+				return;
+			}
+			// The first point within the stamp, skipping whole strides
+			int firstRelativeX = firstX - this.centerX;
+			if (firstRelativeX < -reach) {
+				firstRelativeX += (-reach - firstRelativeX + stride - 1) / stride * stride;
+			}
+			int lastRelativeX = java.lang.Math.min(lastX - this.centerX, reach + 1);
+			double[] values = this.stamp.values;
+			int valueIndex = ((int) relativeY + reach) * this.stamp.side + firstRelativeX + reach;
+			int index = destinationOffset + firstRelativeX + this.centerX - firstX;
+			for (int relativeX = firstRelativeX; relativeX < lastRelativeX; relativeX += stride, valueIndex += stride,
+					index += stride) {
+				destination[index] += values[valueIndex] * scale;
+			}
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the maximum total amount of tiles of the stamps in this cache.
+	 * 
+	 * @return The maximum total amount of tiles of the stamps in this cache.
+	 */
+	public long getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Get the number of times a stamp was found in this cache.
+	 * 
+	 * @return The number of times a stamp was found in this cache.
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Get the number of times a stamp wasn't found in this cache.
+	 * 
+	 * @return The number of times a stamp wasn't found in this cache.
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Remove all stamps from this cache and reset its counters.
+	 */
+	public synchronized void clear() {
+		this.stamps.clear();
+		this.size = 0;
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	/**
+	 * Binds the given crease to the movement vector starting at the tile with
+	 * indices startX, startY and ending at the tile with indices endX, endY, using
+	 * a stamp from this cache if possible. The values of the resulting kernel on
+	 * tiles are the same as those of the kernel returned by
+	 * {@link core.Crease#bind(double, double, double, double)}.
+	 * 
+	 * If the influence of the movement vector isn't bounded or its stamp would be
+	 * bigger than the capacity of this cache, the crease is bound directly.
+	 * 
+	 * @param crease A crease.
+	 * @param startX X index of the starting tile of a movement vector.
+	 * @param startY Y index of the starting tile of a movement vector.
+	 * @param endX   X index of the ending tile of a movement vector.
+	 * @param endY   Y index of the ending tile of a movement vector.
+	 * @return The given crease bound to the given movement vector.
+	 */
+	public synchronized Kernel bind(Crease crease, int startX, int startY, int endX, int endY) {
+		int displacementX = endX - startX;
+		int displacementY = endY - startY;
+		Key key = new Key(crease, displacementX, displacementY);
+		Stamp stamp = this.stamps.get(key);
+		if (stamp != null) {
+			++this.hits;
+			return new StampKernel(stamp, endX, endY);
+		}
+		++this.misses;
+		// The influence only depends on the displacement, so the stamp is made with
+		// the movement vector moved so it ends at 0, 0
+		Kernel kernel = crease.bind(-displacementX, -displacementY, 0, 0);
+		double radius = kernel.getRadius();
+		// One more tile than the radius to cover any rounding in the bounds
+		double reach = java.lang.Math.max(java.lang.Math.floor(radius) + 1, 0);
+		double stampSize = (2 * reach + 1) * (2 * reach + 1);
+		// Comparisons with NaN are always false
+		if (!(stampSize <= this.capacity)) {
+			return crease.bind(startX, startY, endX, endY);
+		}
+		stamp = new Stamp(kernel, (int) reach);
+		this.stamps.put(key, stamp);
+		this.size += stamp.values.length;
+		// Discard the least recently used stamps
+		Iterator<Map.Entry<Key, Stamp>> iterator = this.stamps.entrySet().iterator();
+		while (this.size > this.capacity) {
+			this.size -= iterator.next().getValue().values.length;
+			iterator.remove();
+		}
+		return new StampKernel(stamp, endX, endY);
+	}
+
+}
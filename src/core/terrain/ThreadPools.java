@@ -0,0 +1,64 @@
+/*
+ * ThreadPools.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package core.terrain;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The pools of threads shared by the engines, one for each number of threads.
+ *
+ * The engines are created for each generation, so if each engine had its own
+ * pool, its threads would be created again by every generation. The pools are
+ * never shut down, since their threads end by themselves when they're idle.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see java.util.concurrent.ForkJoinPool
+ *
+ */
+final class ThreadPools {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The pools created so far, by their number of threads.
+	 */
+	private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Get the pool with the given number of threads, creating it if this is the
+	 * first time it's needed.
+	 * 
+	 * @param parallelism The number of threads of the pool.
+	 * @return The pool with the given number of threads.
+	 */
+	static ForkJoinPool get(int parallelism) {
+		return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+ * BatchGeneration.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import core.Crease;
+import core.Terrain;
+import random.Xorshift64StarGenerator;
+
+/**
+ * A batch of terrains generated by a terrain configurer with the same
+ * parameters and crease and different seeds, each saved to its own file. The
+ * terrains are generated at once by a fixed number of threads, each of which
+ * takes the next seed as soon as it finishes the previous one.
+ *
+ * The crease is shared by all terrains, and the terrains are generated reusing
+ * the tiles of the terrains already saved, so at most one terrain per thread is
+ * allocated however many terrains are generated. Each terrain is the same as
+ * the terrain generated by the configurer with the same seed on its own.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @param <T> The type of terrain generated.
+ * @see io.BatchTerrainConfigurer#generate(core.PlatePlan, Crease, Terrain)
+ *
+ */
+public class BatchGeneration<T extends Terrain<?>> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The size of the buffers used to write terrain files.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The configurer whose parameters the terrains are generated with.
+	 */
+	private final BatchTerrainConfigurer<T> configurer;
+	/**
+	 * The crease the terrains are generated with.
+	 */
+	private final Crease crease;
+	/**
+	 * The format the terrains are written in.
+	 */
+	private final String formatName;
+	/**
+	 * The directory the terrains are saved to.
+	 */
+	private final File directory;
+	/**
+	 * The number of threads that generate terrains at once.
+	 */
+	private final int threads;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new batch generation. The parameters of the configurer must not
+	 * change while the batch is being generated.
+	 * 
+	 * @param configurer The configurer whose parameters the terrains are generated
+	 *                   with.
+	 * @param crease     The crease the terrains are generated with.
+	 * @param formatName The format the terrains are written in. Must be in the list
+	 *                   returned by the method getFormatNames() of the configurer.
+	 * @param directory  The directory the terrains are saved to.
+	 * @param threads    The number of threads that generate terrains at once.
+	 * @throws IllegalArgumentException If the format isn't supported by the
+	 *                                  configurer or the number of threads is lower
+	 *                                  than 1.
+	 */
+	public BatchGeneration(BatchTerrainConfigurer<T> configurer, Crease crease, String formatName, File directory,
+			int threads) {
+		if (!Arrays.asList(configurer.getFormatNames()).contains(formatName)) {
+			throw new IllegalArgumentException("The format must be supported by the configurer.");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1.");
+		}
+		this.configurer = configurer;
+		this.crease = crease;
+		this.formatName = formatName;
+		this.directory = directory;
+		this.threads = threads;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * The times taken by the generation of a batch.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	public static final class Summary {
+
+		/**
+		 * The nanoseconds taken to generate and save each terrain, in ascending order.
+		 */
+		private final long[] latencies;
+		/**
+		 * The nanoseconds taken to generate and save the whole batch.
+		 */
+		private final long elapsedTime;
+
+		private Summary(long[] latencies, long elapsedTime) {
+			this.latencies = latencies;
+			this.elapsedTime = elapsedTime;
+			Arrays.sort(this.latencies);
+		}
+
+		/**
+		 * Get the number of terrains generated.
+		 * 
+		 * @return The number of terrains generated.
+		 */
+		public int getTerrains() {
+			return this.latencies.length;
+		}
+
+		/**
+		 * Get the nanoseconds taken to generate and save the whole batch.
+		 * 
+		 * @return The nanoseconds taken to generate and save the whole batch.
+		 */
+		public long getElapsedTime() {
+			return this.elapsedTime;
+		}
+
+		/**
+		 * Get the number of terrains generated and saved per minute.
+		 * 
+		 * @return The number of terrains generated and saved per minute.
+		 */
+		public double getTerrainsPerMinute() {
+			return this.latencies.length * 60.0e9d / java.lang.Math.max(1L, this.elapsedTime);
+		}
+
+		/**
+		 * Get the nanoseconds within which the given fraction of the terrains were
+		 * generated and saved, so 0.5 gives the median and 0.99 the 99th percentile.
+		 * 
+		 * @param fraction A fraction of the terrains between 0 and 1.
+		 * @return The lowest time taken to generate and save a terrain that isn't
+		 *         exceeded by the given fraction of the terrains.
+		 * @throws IllegalArgumentException If the fraction isn't between 0 and 1.
+		 */
+		public long getLatency(double fraction) {
+			if (!(fraction >= 0.0d && fraction <= 1.0d)) {
+				throw new IllegalArgumentException("The fraction must be between 0 and 1.");
+			}
+			int rank = (int) java.lang.Math.ceil(fraction * this.latencies.length);
+			return this.latencies[java.lang.Math.max(0, rank - 1)];
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of threads that generate terrains at once.
+	 * 
+	 * @return The number of threads that generate terrains at once.
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * Get the file the terrain with the given seed is saved to.
+	 * 
+	 * @param seed A seed.
+	 * @return The file the terrain with the given seed is saved to.
+	 */
+	public File getFile(long seed) {
+		return new File(this.directory, "terrain-" + seed + "." + this.formatName.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Generates a terrain for each of the given seeds and saves it to its file,
+	 * creating the directory if it doesn't exist. If a terrain can't be generated
+	 * or saved, the terrains still being generated are stopped and the exception is
+	 * thrown; the terrains already saved are kept.
+	 * 
+	 * @param seeds The seeds of the terrains.
+	 * @return The times taken by the generation.
+	 * @throws IllegalArgumentException If there are no seeds or a seed is repeated.
+	 * @throws IOException              If the directory can't be created or a
+	 *                                  terrain can't be saved.
+	 * @throws InterruptedException     If the thread is interrupted while waiting
+	 *                                  for the terrains.
+	 */
+	public Summary run(long[] seeds) throws IOException, InterruptedException {
+		if (seeds.length == 0) {
+			throw new IllegalArgumentException("There must be at least one seed.");
+		}
+		Set<Long> distinctSeeds = new HashSet<>();
+		for (long seed : seeds) {
+			// Terrains with the same seed would be written to the same file at once
+			if (!distinctSeeds.add(seed)) {
+				throw new IllegalArgumentException("The seeds must be different.");
+			}
+		}
+		Files.createDirectories(this.directory.toPath());
+		Queue<T> buffers = new ConcurrentLinkedQueue<>();
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+		try {
+			long startTime = System.nanoTime();
+			List<Future<Long>> futures = new ArrayList<>(seeds.length);
+			for (long seed : seeds) {
+				futures.add(pool.submit(() -> this.generate(seed, buffers)));
+			}
+			long[] latencies = new long[seeds.length];
+			for (int seedIndex = 0; seedIndex < seeds.length; ++seedIndex) {
+				try {
+					latencies[seedIndex] = futures.get(seedIndex).get();
+				} catch (ExecutionException exception) {
+					Throwable cause = exception.getCause();
+					if (cause instanceof UncheckedIOException) {
+						throw ((UncheckedIOException) cause).getCause();
+					}
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw (Error) cause;
+				}
+			}
+			return new Summary(latencies, System.nanoTime() - startTime);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Generates the terrain with the given seed and saves it to its file, reusing
+	 * the tiles of a terrain of the given queue if any and returning the terrain to
+	 * the queue once saved. The terrain is written to a temporary file first and
+	 * then moved to its file, so a file is never left half written.
+	 * 
+	 * @param seed    A seed.
+	 * @param buffers The terrains whose tiles can be reused.
+	 * @return The nanoseconds taken to generate and save the terrain.
+	 * @throws UncheckedIOException If the terrain can't be saved.
+	 */
+	private long generate(long seed, Queue<T> buffers) {
+		long startTime = System.nanoTime();
+		T terrain = this.configurer.generate(this.configurer.plan(new Xorshift64StarGenerator(seed)), this.crease,
+				buffers.poll());
+		terrain.setSeed(seed);
+		File file = this.getFile(seed);
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try {
+			try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE)) {
+				this.configurer.exportTerrain(terrain, this.formatName, output);
+			}
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		buffers.add(terrain);
+		return System.nanoTime() - startTime;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Parses a list of seeds, given either as a range of seeds from the first to
+	 * the last, both included, separated by two dots, such as "1..100", or as a
+	 * list of seeds separated by commas, such as "3,14,15".
+	 * 
+	 * @param seeds A range or list of seeds.
+	 * @return The seeds.
+	 * @throws IllegalArgumentException If the seeds can't be parsed or the range is
+	 *                                  empty or too big.
+	 */
+	public static long[] parseSeeds(String seeds) {
+		int separatorIndex = seeds.indexOf("..");
+		if (separatorIndex == -1) {
+			String[] values = seeds.split(",");
+			long[] parsedSeeds = new long[values.length];
+			for (int seedIndex = 0; seedIndex < values.length; ++seedIndex) {
+				parsedSeeds[seedIndex] = Long.parseLong(values[seedIndex].trim());
+			}
+			return parsedSeeds;
+		}
+		long firstSeed = Long.parseLong(seeds.substring(0, separatorIndex).trim());
+		long lastSeed = Long.parseLong(seeds.substring(separatorIndex + 2).trim());
+		// The difference between the seeds is negative if it overflows
+		if (lastSeed < firstSeed || lastSeed - firstSeed < 0 || lastSeed - firstSeed >= Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("The range of seeds must be neither empty nor too big.");
+		}
+		long[] parsedSeeds = new long[(int) (lastSeed - firstSeed + 1)];
+		for (int seedIndex = 0; seedIndex < parsedSeeds.length; ++seedIndex) {
+			parsedSeeds[seedIndex] = firstSeed + seedIndex;
+		}
+		return parsedSeeds;
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * BatchTerrainConfigurer.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.Crease;
+import core.PlatePlan;
+import core.Terrain;
+import random.RandomGenerator;
+
+/**
+ * A terrain configurer whose terrains can be generated and written apart from
+ * the terrain kept by the configurer, so several terrains can be generated at
+ * once from different threads with the same parameters.
+ *
+ * The methods that make plans and list formats are those of
+ * {@link io.TerrainConfigurer}, which every implementation extends.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @param <T> The type of terrain handled by this configurer.
+ * @see io.TerrainConfigurer
+ * @see io.BatchGeneration
+ *
+ */
+public interface BatchTerrainConfigurer<T extends Terrain<?>> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Choose the movement vectors of the plates of a terrain using a random
+	 * generator, as in {@link io.TerrainConfigurer#plan(RandomGenerator)}.
+	 * 
+	 * @param randomGenerator A random generator.
+	 * @return A plan made using the given random generator.
+	 */
+	public PlatePlan plan(RandomGenerator randomGenerator);
+
+	/**
+	 * Choose the movement vectors of the plates of a terrain using the current
+	 * seed, as in {@link io.TerrainConfigurer#plan()}.
+	 * 
+	 * @return A plan made using the current seed.
+	 */
+	public PlatePlan plan();
+
+	/**
+	 * Get the file formats terrains can be written in, as in
+	 * {@link io.TerrainConfigurer#getFormatNames()}.
+	 * 
+	 * @return The names of the file formats.
+	 */
+	public String[] getFormatNames();
+
+	/**
+	 * Generate a terrain by applying the movement vectors of a plan using a crease
+	 * like {@link io.TerrainConfigurer#generate(PlatePlan, Crease)}, reusing the
+	 * tiles of the given terrain if it has the size and layers of the terrain
+	 * generated, so terrains generated one after another don't allocate new tiles
+	 * each time. The terrain isn't kept by this configurer, so several terrains can
+	 * be generated at once from different threads as long as the parameters of this
+	 * configurer don't change.
+	 * 
+	 * @param platePlan A plan made by this configurer with its current parameters.
+	 * @param crease    A crease.
+	 * @param buffer    A terrain whose tiles can be overwritten, or null.
+	 * @return The given terrain if its tiles were reused, or a new terrain
+	 *         otherwise, generated using the given plan and crease.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer.
+	 */
+	public T generate(PlatePlan platePlan, Crease crease, T buffer);
+
+	/**
+	 * Generate a terrain for each of the given creases by applying the movement
+	 * vectors of the same plan, so the plan is made once for all of them. Like
+	 * {@link #generate(PlatePlan, Crease, Terrain)}, the terrains aren't kept by
+	 * this configurer.
+	 * 
+	 * By default, each terrain is generated on its own.
+	 * 
+	 * @param platePlan A plan made by this configurer with its current parameters.
+	 * @param creases   The creases.
+	 * @return The terrain generated with each crease, in the same order.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer.
+	 */
+	public default List<T> generateEnsemble(PlatePlan platePlan, Crease... creases) {
+		List<T> terrains = new ArrayList<>(creases.length);
+		for (Crease crease : creases) {
+			terrains.add(this.generate(platePlan, crease, null));
+		}
+		return terrains;
+	}
+
+	/**
+	 * Writes the given terrain to the given output stream using the given format,
+	 * without changing the terrain kept by this configurer.
+	 * 
+	 * @param terrain    A terrain.
+	 * @param formatName A file format. Must be in the list returned by the method
+	 *                   getFormatNames().
+	 * @param output     An output stream.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public void exportTerrain(T terrain, String formatName, OutputStream output) throws IOException;
+
+}
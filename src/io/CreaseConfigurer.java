@@ -21,15 +21,20 @@
 
 package io;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
 import core.Crease;
 import parameter.parameter.Configurer;
+import parameter.parameter.Parameter;
 
 /**
  * Configurer which handles instancing of crease functions and the parameters
  * related to the instancing of crease functions.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.3
  * @param <C> The type of crease handled by this configurer.
  * @see core.Crease
@@ -76,4 +81,41 @@ public abstract class CreaseConfigurer<C extends Crease> extends Configurer {
 	 */
 	public abstract C generate();
 
+	/**
+	 * Create a stage of a parameter sweep whose result is the crease generated
+	 * with the parameters of this configurer.
+	 * 
+	 * @return A stage whose result is a crease.
+	 */
+	public ParameterSweep.Stage<C> createStage() {
+		return new ParameterSweep.Stage<C>() {
+
+			@Override
+			protected List<Object> getParameters() {
+				return CreaseConfigurer.this.getCreaseParameters();
+			}
+
+			@Override
+			protected Function<List<Object>, C> prepare(List<Object> parameters) {
+				C crease = CreaseConfigurer.this.generate();
+				return inputs -> crease;
+			}
+
+		};
+	}
+
+	/**
+	 * Get the current values of the parameters of this configurer. Creases
+	 * generated with equal values are the same.
+	 * 
+	 * @return The current values of the parameters of this configurer.
+	 */
+	protected List<Object> getCreaseParameters() {
+		List<Object> creaseParameters = new ArrayList<>(this.getParameters().size());
+		for (Parameter<?> parameter : this.getParameters()) {
+			creaseParameters.add(parameter.getCurrentValue());
+		}
+		return creaseParameters;
+	}
+
 }
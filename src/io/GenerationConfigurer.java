@@ -21,12 +21,18 @@
 
 package io;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import core.Crease;
 import io.crease.ConeConfigurer;
 import io.crease.DiamondConfigurer;
 import io.crease.PyramidConfigurer;
 import io.crease.SmoothStepConfigurer;
 import io.crease.SmootherStepConfigurer;
 import io.crease.SmoothestStepConfigurer;
+import io.terrain.InfiniteSquareTerrainConfigurer;
 import io.terrain.IrregularSquareTerrainConfigurer;
 import io.terrain.SquareTerrainConfigurer;
 import parameter.parameter.Configurer;
@@ -39,7 +45,7 @@ import parameter.parameter.OptionParameter.InternationalizedOption;
  * configurer.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.3
  * @see io.CreaseConfigurer
  * @see io.TerrainConfigurer
@@ -76,6 +82,8 @@ public class GenerationConfigurer extends Configurer {
 				new SquareTerrainConfigurer("terrain.type.square")));
 		this.terrainType.addOption(new InternationalizedOption<TerrainConfigurer<?>>("terrain.type.square.irregular",
 				new IrregularSquareTerrainConfigurer("terrain.type.square.irregular")));
+		this.terrainType.addOption(new InternationalizedOption<TerrainConfigurer<?>>("terrain.type.square.infinite",
+				new InfiniteSquareTerrainConfigurer("terrain.type.square.infinite")));
 		// Instance crease type parameter
 		this.creaseType = new OptionParameter<>("crease.type");
 		// Instance crease type parameter options
@@ -114,4 +122,32 @@ public class GenerationConfigurer extends Configurer {
 		return this.creaseType;
 	}
 
+	/**
+	 * Create a stage of a parameter sweep whose result is the crease generated by
+	 * the type of crease selected, so the type of crease can be swept along with
+	 * the parameters of each type.
+	 * 
+	 * @return A stage whose result is a crease.
+	 */
+	public ParameterSweep.Stage<Crease> createCreaseStage() {
+		return new ParameterSweep.Stage<Crease>() {
+
+			@Override
+			protected List<Object> getParameters() {
+				CreaseConfigurer<?> creaseConfigurer = GenerationConfigurer.this.creaseType.getCurrentValue();
+				List<Object> parameters = new ArrayList<>();
+				parameters.add(creaseConfigurer);
+				parameters.addAll(creaseConfigurer.getCreaseParameters());
+				return parameters;
+			}
+
+			@Override
+			protected Function<List<Object>, Crease> prepare(List<Object> parameters) {
+				Crease crease = ((CreaseConfigurer<?>) parameters.get(0)).generate();
+				return inputs -> crease;
+			}
+
+		};
+	}
+
 }
@@ -0,0 +1,428 @@
+/*
+ * ParameterSweep.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import parameter.parameter.Parameter;
+
+/**
+ * A sweep over every combination of values of some parameters, each of which is
+ * a cell whose result is computed by a graph of stages, such as making the
+ * plan, stamping it, finishing the layers and drawing the terrain.
+ *
+ * Each stage reads some parameters and the results of the stages it takes as
+ * inputs, so its result is reused by every cell with the same values of those
+ * parameters and the same results of its inputs. Changing a parameter only read
+ * by the last stages never repeats the first ones, and the cells whose stages
+ * don't depend on each other are computed at once by a fixed number of threads.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see io.TerrainConfigurer#createPlanStage()
+ *
+ */
+public class ParameterSweep {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The number of threads that compute stages at once.
+	 */
+	private final int threads;
+	/**
+	 * The parameters swept, one for each axis.
+	 */
+	private final List<Parameter<?>> parameters;
+	/**
+	 * The values each parameter takes, one list for each axis.
+	 */
+	private final List<List<?>> values;
+	/**
+	 * The number of results computed by each stage in the last run.
+	 */
+	private final Map<Stage<?>, Integer> computations;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new sweep without axes, which has a single cell with the current
+	 * values of the parameters.
+	 * 
+	 * @param threads The number of threads that compute stages at once.
+	 * @throws IllegalArgumentException If the number of threads is lower than 1.
+	 */
+	public ParameterSweep(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1.");
+		}
+		this.threads = threads;
+		this.parameters = new ArrayList<>();
+		this.values = new ArrayList<>();
+		this.computations = new IdentityHashMap<>();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Nested classes
+
+	/**
+	 * A step of the computation of the result of a cell, which reads some
+	 * parameters and the results of other stages.
+	 *
+	 * The parameters are only read by {@link #getParameters()} and
+	 * {@link #prepare(List)}, which are called by the thread running the sweep
+	 * while the parameters have the values of a cell. The computation returned by
+	 * the latter runs later on another thread, so it must depend only on the values
+	 * read and the results of the inputs.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * @param <R> The type of the result of the stage.
+	 *
+	 */
+	public static abstract class Stage<R> {
+
+		/**
+		 * The stages whose results this stage takes.
+		 */
+		private final List<Stage<?>> inputs;
+
+		/**
+		 * Construct a new stage that takes the results of the given stages.
+		 * 
+		 * @param inputs The stages whose results this stage takes.
+		 */
+		protected Stage(Stage<?>... inputs) {
+			this.inputs = Collections.unmodifiableList(Arrays.asList(inputs.clone()));
+		}
+
+		/**
+		 * Get the stages whose results this stage takes.
+		 * 
+		 * @return The stages whose results this stage takes.
+		 */
+		public List<Stage<?>> getInputs() {
+			return this.inputs;
+		}
+
+		/**
+		 * Get the current values of the parameters this stage reads. Stages with the
+		 * same inputs and equal values have the same result.
+		 * 
+		 * @return The current values of the parameters this stage reads.
+		 */
+		protected abstract List<Object> getParameters();
+
+		/**
+		 * Prepare the computation of the result of this stage with the given values of
+		 * its parameters.
+		 * 
+		 * @param parameters The values returned by {@link #getParameters()}.
+		 * @return A computation that takes the results of the inputs, in the same
+		 *         order, and returns the result of this stage.
+		 */
+		protected abstract Function<List<Object>, R> prepare(List<Object> parameters);
+
+	}
+
+	/**
+	 * A combination of values of the parameters swept and its result.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 * @param <R> The type of the result.
+	 *
+	 */
+	public static final class Cell<R> {
+
+		/**
+		 * The value of each parameter swept, in the order of the axes.
+		 */
+		private final List<Object> values;
+		/**
+		 * The result of the cell.
+		 */
+		private final R result;
+
+		private Cell(List<Object> values, R result) {
+			this.values = values;
+			this.result = result;
+		}
+
+		/**
+		 * Get the value of each parameter swept, in the order of the axes.
+		 * 
+		 * @return The value of each parameter swept.
+		 */
+		public List<Object> getValues() {
+			return this.values;
+		}
+
+		/**
+		 * Get the result of the cell, which may be shared with other cells and must not
+		 * be modified.
+		 * 
+		 * @return The result of the cell.
+		 */
+		public R getResult() {
+			return this.result;
+		}
+
+	}
+
+	/**
+	 * The result submitted by a stage for a cell and the key it's reused by.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	private static final class Result {
+
+		/**
+		 * The keys of the inputs followed by the values of the parameters of the stage.
+		 */
+		private final List<Object> key;
+		/**
+		 * The result of the stage.
+		 */
+		private final CompletableFuture<?> result;
+
+		private Result(List<Object> key, CompletableFuture<?> result) {
+			this.key = key;
+			this.result = result;
+		}
+
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the number of threads that compute stages at once.
+	 * 
+	 * @return The number of threads that compute stages at once.
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * Adds an axis along which the given parameter takes each of the given values,
+	 * so the number of cells is multiplied by the number of values.
+	 * 
+	 * @param <V>       The type of the values of the parameter.
+	 * @param parameter A parameter.
+	 * @param values    The values the parameter takes.
+	 * @throws IllegalArgumentException If there are no values or the parameter is
+	 *                                  already swept.
+	 */
+	public <V> void addAxis(Parameter<V> parameter, List<? extends V> values) {
+		if (values.isEmpty()) {
+			throw new IllegalArgumentException("There must be at least one value.");
+		}
+		for (Parameter<?> sweptParameter : this.parameters) {
+			if (sweptParameter == parameter) {
+				throw new IllegalArgumentException("The parameter is already swept.");
+			}
+		}
+		this.parameters.add(parameter);
+		this.values.add(new ArrayList<>(values));
+	}
+
+	/**
+	 * Get the number of cells, which is the product of the number of values of each
+	 * axis.
+	 * 
+	 * @return The number of cells.
+	 */
+	public int getCells() {
+		int cells = 1;
+		for (List<?> axisValues : this.values) {
+			cells = java.lang.Math.multiplyExact(cells, axisValues.size());
+		}
+		return cells;
+	}
+
+	/**
+	 * Get the number of results the given stage computed in the last run, which is
+	 * lower than the number of cells if some cells reused them.
+	 * 
+	 * @param stage A stage.
+	 * @return The number of results computed by the stage in the last run.
+	 */
+	public int getComputations(Stage<?> stage) {
+		return this.computations.getOrDefault(stage, 0);
+	}
+
+	/**
+	 * Computes the result of the given stage for each cell. The cells are visited
+	 * with the values of the last axis changing first. The parameters swept are set
+	 * to the values of each cell in turn, so no one else must change or read them
+	 * during the run, and they get their previous values back once the run ends. If
+	 * a stage can't be computed, the stages still being computed are stopped and
+	 * the exception is thrown.
+	 * 
+	 * @param <R>   The type of the result.
+	 * @param stage The stage whose result is computed.
+	 * @return The cells with their results, in the order they're visited.
+	 * @throws InterruptedException If the thread is interrupted while waiting for
+	 *                              the results.
+	 */
+	public <R> List<Cell<R>> run(Stage<R> stage) throws InterruptedException {
+		int cells = this.getCells();
+		this.computations.clear();
+		List<Object> previousValues = new ArrayList<>(this.parameters.size());
+		for (Parameter<?> parameter : this.parameters) {
+			previousValues.add(parameter.getCurrentValue());
+		}
+		Map<Stage<?>, Map<List<Object>, CompletableFuture<?>>> results = new IdentityHashMap<>();
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+		try {
+			List<List<Object>> cellValues = new ArrayList<>(cells);
+			List<CompletableFuture<?>> futures = new ArrayList<>(cells);
+			for (int cellIndex = 0; cellIndex < cells; ++cellIndex) {
+				List<Object> values = this.setValues(cellIndex);
+				cellValues.add(Collections.unmodifiableList(values));
+				futures.add(this.submit(stage, pool, results, new IdentityHashMap<>()).result);
+			}
+			List<Cell<R>> sweep = new ArrayList<>(cells);
+			for (int cellIndex = 0; cellIndex < cells; ++cellIndex) {
+				try {
+					@SuppressWarnings("unchecked")
+					R result = (R) futures.get(cellIndex).get();
+					sweep.add(new Cell<>(cellValues.get(cellIndex), result));
+				} catch (ExecutionException exception) {
+					Throwable cause = exception.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw (Error) cause;
+				}
+			}
+			return sweep;
+		} finally {
+			pool.shutdownNow();
+			for (int axisIndex = 0; axisIndex < this.parameters.size(); ++axisIndex) {
+				setValue(this.parameters.get(axisIndex), previousValues.get(axisIndex));
+			}
+		}
+	}
+
+	/**
+	 * Sets the parameters swept to the values of the given cell.
+	 * 
+	 * @param cellIndex The index of a cell, in the order cells are visited.
+	 * @return The value of each parameter swept.
+	 */
+	private List<Object> setValues(int cellIndex) {
+		Object[] values = new Object[this.parameters.size()];
+		for (int axisIndex = this.parameters.size() - 1; axisIndex >= 0; --axisIndex) {
+			List<?> axisValues = this.values.get(axisIndex);
+			values[axisIndex] = axisValues.get(cellIndex % axisValues.size());
+			cellIndex /= axisValues.size();
+			setValue(this.parameters.get(axisIndex), values[axisIndex]);
+		}
+		return Arrays.asList(values);
+	}
+
+	/**
+	 * Submits the computation of the given stage and its inputs for the current
+	 * values of the parameters, unless a result with the same key was already
+	 * submitted in this run.
+	 * 
+	 * @param stage   A stage.
+	 * @param pool    The threads that compute the stages.
+	 * @param results The results submitted in this run by each stage, by key.
+	 * @param keys    The results of the stages already visited in this cell.
+	 * @return The key and result of the stage.
+	 */
+	private Result submit(Stage<?> stage, ExecutorService pool,
+			Map<Stage<?>, Map<List<Object>, CompletableFuture<?>>> results, Map<Stage<?>, Result> keys) {
+		Result visited = keys.get(stage);
+		if (visited != null) {
+			return visited;
+		}
+		List<Stage<?>> inputs = stage.getInputs();
+		List<Object> key = new ArrayList<>(inputs.size() + 1);
+		CompletableFuture<?>[] inputResults = new CompletableFuture<?>[inputs.size()];
+		for (int inputIndex = 0; inputIndex < inputs.size(); ++inputIndex) {
+			Result input = this.submit(inputs.get(inputIndex), pool, results, keys);
+			key.add(input.key);
+			inputResults[inputIndex] = input.result;
+		}
+		List<Object> parameters = stage.getParameters();
+		key.add(parameters);
+		Map<List<Object>, CompletableFuture<?>> stageResults = results.computeIfAbsent(stage,
+				ignored -> new HashMap<>());
+		CompletableFuture<?> result = stageResults.get(key);
+		if (result == null) {
+			Function<List<Object>, ?> computation = stage.prepare(parameters);
+			// The stage starts as soon as the last of its inputs is done
+			result = CompletableFuture.allOf(inputResults).thenApplyAsync(ignored -> {
+				List<Object> inputValues = new ArrayList<>(inputResults.length);
+				for (CompletableFuture<?> inputResult : inputResults) {
+					inputValues.add(inputResult.join());
+				}
+				return computation.apply(inputValues);
+			}, pool);
+			stageResults.put(key, result);
+			this.computations.merge(stage, 1, Integer::sum);
+		}
+		Result submitted = new Result(key, result);
+		keys.put(stage, submitted);
+		return submitted;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Sets the given parameter to the given value.
+	 * 
+	 * @param <V>       The type of the values of the parameter.
+	 * @param parameter A parameter.
+	 * @param value     A value taken by the parameter.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <V> void setValue(Parameter<V> parameter, Object value) {
+		parameter.setCurrentValue((V) value);
+	}
+
+}
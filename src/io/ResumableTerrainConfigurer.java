@@ -0,0 +1,64 @@
+/*
+ * ResumableTerrainConfigurer.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io;
+
+import java.io.File;
+import java.io.IOException;
+
+import core.Crease;
+import core.Terrain;
+
+/**
+ * A terrain configurer whose terrains can be saved partway through their
+ * generation, so a generation started with checkpoints through
+ * {@link io.TerrainConfigurer#generate(Crease, int, File)} can be continued
+ * after the program is stopped.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @param <T> The type of terrain handled by this configurer.
+ * @see io.TerrainConfigurer
+ * @see io.terrain.TerrainCheckpoint
+ *
+ */
+public interface ResumableTerrainConfigurer<T extends Terrain<?>> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Continue a generation started through
+	 * {@link io.TerrainConfigurer#generate(Crease, int, File)} from the checkpoint
+	 * saved in the given file, saving further checkpoints to the same file. The
+	 * generation is continued with the crease saved in the checkpoint, so the
+	 * terrain is the same as if the generation hadn't been stopped.
+	 * 
+	 * @param checkpointInterval The number of plates between checkpoints.
+	 * @param checkpointFile     The file the last checkpoint was saved to.
+	 * @return The generated terrain.
+	 * @throws IOException If the checkpoint can't be loaded or a checkpoint can't
+	 *                     be saved.
+	 */
+	public T resume(int checkpointInterval, File checkpointFile) throws IOException;
+
+}
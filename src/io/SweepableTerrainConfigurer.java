@@ -0,0 +1,82 @@
+/*
+ * SweepableTerrainConfigurer.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io;
+
+import java.awt.image.RenderedImage;
+
+import core.Crease;
+import core.PlatePlan;
+import core.Terrain;
+
+/**
+ * A terrain configurer whose terrains can be generated in the stages of a
+ * parameter sweep, so the cells of the sweep that only differ in the
+ * parameters of a later stage share the results of the earlier ones. The first
+ * stage is made by {@link io.TerrainConfigurer#createPlanStage()}.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @param <T> The type of terrain handled by this configurer.
+ * @see io.TerrainConfigurer
+ * @see io.ParameterSweep
+ *
+ */
+public interface SweepableTerrainConfigurer<T extends Terrain<?>> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Create a stage of a parameter sweep whose result is the terrain stamped with
+	 * the results of the given stages, before the layers that depend on the post
+	 * pass are finished, which depends on the parameters the stamping depends on.
+	 * 
+	 * @param planStage   A stage whose result is a plan made by this configurer.
+	 * @param creaseStage A stage whose result is a crease.
+	 * @return A stage whose result is a stamped terrain.
+	 */
+	public ParameterSweep.Stage<T> createStampingStage(ParameterSweep.Stage<PlatePlan> planStage,
+			ParameterSweep.Stage<? extends Crease> creaseStage);
+
+	/**
+	 * Create a stage of a parameter sweep whose result is the terrain of the given
+	 * stage with its layers finished, which depends on the sea level and the crust
+	 * thickness but not on the plan or the crease.
+	 * 
+	 * @param stampingStage A stage made by
+	 *                      {@link #createStampingStage(ParameterSweep.Stage, ParameterSweep.Stage)}.
+	 * @return A stage whose result is a terrain.
+	 */
+	public ParameterSweep.Stage<T> createPostPassStage(ParameterSweep.Stage<T> stampingStage);
+
+	/**
+	 * Create a stage of a parameter sweep whose result is an image of the terrain
+	 * of the given stage, like the image made by
+	 * {@link io.TerrainConfigurer#toImage()}.
+	 * 
+	 * @param terrainStage A stage whose result is a terrain.
+	 * @return A stage whose result is an image.
+	 */
+	public ParameterSweep.Stage<RenderedImage> createRenderStage(ParameterSweep.Stage<T> terrainStage);
+
+}
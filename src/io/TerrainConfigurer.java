@@ -22,22 +22,30 @@
 package io;
 
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import core.Crease;
+import core.GenerationMonitor;
+import core.PlatePlan;
 import core.Terrain;
 import parameter.parameter.Configurer;
 import parameter.parameter.LongParameter;
 import random.RandomGenerator;
+import random.Xorshift64StarGenerator;
 
 /**
  * Configurer which handles terrain generation, import, export, display and the
  * handling of parameters related to terrain generation.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.3
  * @param <T> The type of terrain handled by this configurer.
  * @see core.Terrain
@@ -59,6 +67,19 @@ public abstract class TerrainConfigurer<T extends Terrain<?>> extends Configurer
 
 	private final LongParameter seed;
 	protected T terrain;
+	protected PlatePlan platePlan;
+	/**
+	 * The seed the cached plan was made with.
+	 */
+	private long cachedPlanSeed;
+	/**
+	 * The values of the parameters the cached plan was made with.
+	 */
+	private List<Object> cachedPlanParameters;
+	/**
+	 * The last plan made from the seed parameter, or null.
+	 */
+	private PlatePlan cachedPlan;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Constructors
@@ -95,17 +116,326 @@ public abstract class TerrainConfigurer<T extends Terrain<?>> extends Configurer
 		return terrain;
 	}
 
+	/**
+	 * Get the plan used to generate the terrain generated by this configurer if a
+	 * terrain has been generated.
+	 * 
+	 * @return A plan, or null if no terrain has been generated.
+	 */
+	public PlatePlan getPlatePlan() {
+		return platePlan;
+	}
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Instance methods
 
 	/**
-	 * Generate a terrain using a random generator and a crease.
+	 * Generate a terrain using the current seed and a crease. This is equivalent
+	 * to generating a terrain using the given crease and the plan returned by
+	 * {@link #plan()}, so generating terrains with the same seed and parameters
+	 * and different creases only makes the plan once.
+	 * 
+	 * @param crease A crease.
+	 * @return A terrain generated using the current seed and the given crease.
+	 */
+	public T generate(Crease crease) {
+		return this.generate(this.plan(), crease);
+	}
+
+	/**
+	 * Generate a terrain using the current seed and a crease like
+	 * {@link #generate(Crease)}, stopping if the given monitor is cancelled or its
+	 * deadline is reached. The monitor tells the progress of the generation and
+	 * whether the returned terrain is complete.
+	 * 
+	 * @param crease  A crease.
+	 * @param monitor A monitor that hasn't been used by another generation.
+	 * @return A terrain generated using the current seed and the given crease,
+	 *         which is only partially generated if the generation stopped.
+	 */
+	public T generate(Crease crease, GenerationMonitor monitor) {
+		return this.generate(this.plan(), crease, monitor);
+	}
+
+	/**
+	 * Generate a terrain using the current seed and a crease, saving a checkpoint
+	 * to the given file after every given number of plates, so the generation can
+	 * be continued through
+	 * {@link ResumableTerrainConfigurer#resume(int, File)} if the program is
+	 * stopped. The file is deleted once the terrain is generated.
+	 * 
+	 * Configurers that aren't {@link ResumableTerrainConfigurer resumable}
+	 * generate the terrain without checkpoints.
+	 * 
+	 * @param crease             A crease.
+	 * @param checkpointInterval The number of plates between checkpoints.
+	 * @param checkpointFile     The file checkpoints are saved to.
+	 * @return A terrain generated using the current seed and the given crease.
+	 * @throws IOException If a checkpoint can't be saved.
+	 */
+	public T generate(Crease crease, int checkpointInterval, File checkpointFile) throws IOException {
+		return this.generate(crease);
+	}
+
+	/**
+	 * Generate a terrain using the current seed and a crease, split into sections
+	 * generated by the given number of worker processes on this machine. The
+	 * workers save the sections to the given directory, and the sections are
+	 * merged into the terrain and deleted once every worker has finished. The
+	 * terrain is the same as if it had been generated by this process.
+	 * 
+	 * Configurers whose terrains can't be split into sections generate the
+	 * terrain in this process.
+	 * 
+	 * @param crease    A crease.
+	 * @param workers   The number of worker processes.
+	 * @param directory The directory the sections are saved to.
+	 * @return A terrain generated using the current seed and the given crease.
+	 * @throws IOException If a worker can't be started or fails, or the sections
+	 *                     can't be merged.
+	 */
+	public T distribute(Crease crease, int workers, File directory) throws IOException {
+		return this.generate(crease);
+	}
+
+	/**
+	 * Generate a terrain using a random generator and a crease. This is equivalent
+	 * to generating a terrain using the given crease and a plan made with the given
+	 * random generator.
 	 * 
 	 * @param randomGenerator A random generator.
 	 * @param crease          A crease.
 	 * @return A terrain generated using the given random generator and crease.
 	 */
-	public abstract T generate(RandomGenerator randomGenerator, Crease crease);
+	public T generate(RandomGenerator randomGenerator, Crease crease) {
+		return this.generate(this.plan(randomGenerator), crease);
+	}
+
+	/**
+	 * Generate a region of a terrain using a random generator and a crease. This
+	 * is equivalent to generating a region of a terrain using the given crease and
+	 * a plan made with the given random generator.
+	 * 
+	 * @param randomGenerator A random generator.
+	 * @param crease          A crease.
+	 * @param regionX         X index of the first tile of the region.
+	 * @param regionY         Y index of the first tile of the region.
+	 * @param regionSizeX     The amount of tiles of the region along the x axis.
+	 * @param regionSizeY     The amount of tiles of the region along the y axis.
+	 * @return A region of a terrain generated using the given random generator
+	 *         and crease.
+	 */
+	public T generate(RandomGenerator randomGenerator, Crease crease, int regionX, int regionY, int regionSizeX,
+			int regionSizeY) {
+		return this.generate(this.plan(randomGenerator), crease, regionX, regionY, regionSizeX, regionSizeY);
+	}
+
+	/**
+	 * Generate a terrain progressively using a random generator and a crease. This
+	 * is equivalent to generating a terrain progressively using the given crease
+	 * and a plan made with the given random generator.
+	 * 
+	 * @param randomGenerator A random generator.
+	 * @param crease          A crease.
+	 * @param listener        The listener that receives the terrain after each
+	 *                        level of detail.
+	 * @return A terrain generated using the given random generator and crease.
+	 */
+	public T generateProgressively(RandomGenerator randomGenerator, Crease crease, Consumer<? super T> listener) {
+		return this.generateProgressively(this.plan(randomGenerator), crease, listener);
+	}
+
+	/**
+	 * Choose the movement vectors of the plates of a terrain using a random
+	 * generator. The plan depends on the current parameters of this configurer but
+	 * not on the crease, so it can be reused to generate terrains with different
+	 * creases.
+	 * 
+	 * @param randomGenerator A random generator.
+	 * @return A plan made using the given random generator.
+	 */
+	public abstract PlatePlan plan(RandomGenerator randomGenerator);
+
+	/**
+	 * Choose the movement vectors of the plates of a terrain using a random
+	 * generator started with the current seed. The plan is kept and returned again
+	 * while the seed and the parameters the plan depends on don't change, so the
+	 * plan is only made again when it would be different. The plan returned is
+	 * shared and must not be modified.
+	 * 
+	 * @return A plan made using the current seed.
+	 */
+	public synchronized PlatePlan plan() {
+		long seed = this.seed.getCurrentValue().getValue();
+		List<Object> planParameters = this.getPlanParameters();
+		if (this.cachedPlan == null || this.cachedPlanSeed != seed
+				|| !this.cachedPlanParameters.equals(planParameters)) {
+			this.cachedPlan = this.plan(new Xorshift64StarGenerator(seed));
+			this.cachedPlanSeed = seed;
+			this.cachedPlanParameters = planParameters;
+		}
+		return this.cachedPlan;
+	}
+
+	/**
+	 * Get the current values of the parameters of this configurer that the plan
+	 * depends on, besides the seed. Plans made with the same seed and equal values
+	 * are the same.
+	 * 
+	 * @return The current values of the parameters the plan depends on.
+	 */
+	protected abstract List<Object> getPlanParameters();
+
+	/**
+	 * Generate a terrain by applying the movement vectors of a plan using a crease.
+	 * 
+	 * @param platePlan A plan made by this configurer with its current
+	 *                  parameters.
+	 * @param crease    A crease.
+	 * @return A terrain generated using the given plan and crease.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer.
+	 */
+	public abstract T generate(PlatePlan platePlan, Crease crease);
+
+	/**
+	 * Generate a terrain by applying the movement vectors of a plan using a crease
+	 * like {@link #generate(PlatePlan, Crease)}, stopping if the given monitor is
+	 * cancelled or its deadline is reached. If the generation stops, the partially
+	 * generated terrain is returned and kept by this configurer, and the state of
+	 * the monitor tells why the terrain is partial.
+	 * 
+	 * By default, the terrain is generated at once and the monitor is only marked
+	 * as completed.
+	 * 
+	 * @param platePlan A plan made by this configurer with its current
+	 *                  parameters.
+	 * @param crease    A crease.
+	 * @param monitor   A monitor that hasn't been used by another generation.
+	 * @return A terrain generated using the given plan and crease, which is only
+	 *         partially generated if the generation stopped.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer.
+	 */
+	public T generate(PlatePlan platePlan, Crease crease, GenerationMonitor monitor) {
+		monitor.start(platePlan.getNumberOfPlates(), 1L);
+		T terrain = this.generate(platePlan, crease);
+		monitor.complete();
+		return terrain;
+	}
+
+	/**
+	 * Create a stage of a parameter sweep whose result is the plan made with the
+	 * current seed, which depends on the seed and the parameters the plan depends
+	 * on. The plan is made as soon as a cell needs it, on the thread running the
+	 * sweep, since making it takes much less than stamping it. The later stages
+	 * are made by configurers that are {@link SweepableTerrainConfigurer
+	 * sweepable}.
+	 * 
+	 * @return A stage whose result is a plan.
+	 */
+	public ParameterSweep.Stage<PlatePlan> createPlanStage() {
+		return new ParameterSweep.Stage<PlatePlan>() {
+
+			@Override
+			protected List<Object> getParameters() {
+				List<Object> parameters = new ArrayList<>();
+				parameters.add(TerrainConfigurer.this.seed.getCurrentValue().getValue());
+				parameters.addAll(TerrainConfigurer.this.getPlanParameters());
+				return parameters;
+			}
+
+			@Override
+			protected Function<List<Object>, PlatePlan> prepare(List<Object> parameters) {
+				PlatePlan platePlan = TerrainConfigurer.this.plan(new Xorshift64StarGenerator((Long) parameters.get(0)));
+				return inputs -> platePlan;
+			}
+
+		};
+	}
+
+	/**
+	 * Generate a terrain by applying the movement vectors of a plan using a
+	 * crease, in levels of detail of increasing resolution. After each level, the
+	 * given listener receives a terrain of the final size approximated from the
+	 * tiles generated so far, so a rough terrain can be shown long before the
+	 * whole terrain is generated. The last terrain received is the same as the
+	 * terrain generated by stamping with the same plan and crease, and is
+	 * returned.
+	 * 
+	 * By default, the terrain is generated at once and received by the listener
+	 * as a single level.
+	 * 
+	 * @param platePlan A plan made by this configurer with its current
+	 *                  parameters.
+	 * @param crease    A crease.
+	 * @param listener  The listener that receives the terrain after each level of
+	 *                  detail.
+	 * @return A terrain generated using the given plan and crease.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer.
+	 */
+	public T generateProgressively(PlatePlan platePlan, Crease crease, Consumer<? super T> listener) {
+		T terrain = this.generate(platePlan, crease);
+		listener.accept(terrain);
+		return terrain;
+	}
+
+	/**
+	 * Generate a terrain in levels of detail like
+	 * {@link #generateProgressively(PlatePlan, Crease, Consumer)}, stopping if the
+	 * given monitor is cancelled or its deadline is reached. If the generation
+	 * stops, the terrain of the last level of detail finished is returned and kept
+	 * by this configurer, and the state of the monitor tells why the terrain is
+	 * partial.
+	 * 
+	 * By default, the terrain is generated at once and the monitor is only marked
+	 * as completed.
+	 * 
+	 * @param platePlan A plan made by this configurer with its current
+	 *                  parameters.
+	 * @param crease    A crease.
+	 * @param listener  The listener that receives the terrain after each level of
+	 *                  detail.
+	 * @param monitor   A monitor that hasn't been used by another generation.
+	 * @return A terrain generated using the given plan and crease, a coarse
+	 *         terrain if the generation stopped, or null if the generation stopped
+	 *         before the first level of detail was finished.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer.
+	 */
+	public T generateProgressively(PlatePlan platePlan, Crease crease, Consumer<? super T> listener,
+			GenerationMonitor monitor) {
+		monitor.start(platePlan.getNumberOfPlates(), 1L);
+		T terrain = this.generateProgressively(platePlan, crease, listener);
+		monitor.complete();
+		return terrain;
+	}
+
+	/**
+	 * Generate a region of a terrain by applying the movement vectors of a plan
+	 * using a crease. The plan is made for the whole terrain, but only the plates
+	 * whose influence reaches the region are applied, and only the tiles of the
+	 * region are stored, so the cost depends on the size of the region instead of
+	 * the size of the terrain.
+	 * 
+	 * The tiles of the region are the same as the tiles in the same region of the
+	 * terrain generated by stamping with the same plan and crease.
+	 * 
+	 * @param platePlan   A plan made by this configurer with its current
+	 *                    parameters.
+	 * @param crease      A crease.
+	 * @param regionX     X index of the first tile of the region.
+	 * @param regionY     Y index of the first tile of the region.
+	 * @param regionSizeX The amount of tiles of the region along the x axis.
+	 * @param regionSizeY The amount of tiles of the region along the y axis.
+	 * @return A region of a terrain generated using the given plan and crease.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer or the
+	 *                                  region isn't within the terrain.
+	 */
+	public abstract T generate(PlatePlan platePlan, Crease crease, int regionX, int regionY, int regionSizeX,
+			int regionSizeY);
 
 	/**
 	 * Render the generated terrain as an image.
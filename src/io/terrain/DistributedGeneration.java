@@ -0,0 +1,605 @@
+/*
+ * DistributedGeneration.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.terrain;
+
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+import core.Crease;
+import core.PlatePlan;
+import core.terrain.SquareTerrain;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+import core.terrain.SquareTerrainStamper;
+import core.terrain.StampCache;
+
+/**
+ * A generation of a square terrain split into rectangular sections generated by
+ * separate worker processes, so terrains too big for a single process can be
+ * generated by several processes on one machine or on several machines sharing
+ * a file system.
+ *
+ * The coordinator makes the plan once and saves it to a job file in a directory
+ * along with the crease and the parameters of the terrain. Each worker loads
+ * the job and generates its share of the sections as windows of the whole
+ * terrain. A window only stamps the plates whose footprint reaches it,
+ * including the copies of the plates if the terrain wraps around, so the
+ * sections don't overlap and each of them is the same as the same part of the
+ * terrain generated at once. Each section is saved to its own file, so the
+ * sections can be read one at a time or merged into the whole terrain once
+ * every worker has finished.
+ *
+ * The sections are dealt to the workers in row major order, and a worker skips
+ * the sections whose file already exists, so a worker that failed can be run
+ * again to generate only its missing sections.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper#generate(SquareTerrain, int, int, int, int, Crease, PlatePlan,
+ *      double, double)
+ *
+ */
+public class DistributedGeneration {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The name of the job file within the directory of a generation.
+	 */
+	public static final String JOB_FILE_NAME = "job.dat";
+	/**
+	 * The amount of tiles along each axis of the sections generated by each worker
+	 * if no other size is given.
+	 */
+	public static final int DEFAULT_SECTION_SIZE = 1024;
+	/**
+	 * The first bytes of a job file.
+	 */
+	private static final int JOB_MAGIC_NUMBER = 0x54544A42;
+	/**
+	 * The first bytes of a section file.
+	 */
+	private static final int SECTION_MAGIC_NUMBER = 0x54545453;
+	/**
+	 * The version of the format of job and section files.
+	 */
+	private static final int FORMAT_VERSION = 1;
+	/**
+	 * The size of the buffers used to read and write job and section files.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+	/**
+	 * The filter of the classes that can be read from a job file or a checkpoint
+	 * file.
+	 */
+	static final ObjectInputFilter CREASE_FILTER = ObjectInputFilter.Config.createFilter("core.**;!*");
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The directory of the job and section files.
+	 */
+	private final File directory;
+	/**
+	 * The seed the plan was made with.
+	 */
+	private final long seed;
+	/**
+	 * The amount of tiles of the terrain along the x axis.
+	 */
+	private final int sizeX;
+	/**
+	 * The amount of tiles of the terrain along the y axis.
+	 */
+	private final int sizeY;
+	/**
+	 * Whether the terrain has water.
+	 */
+	private final boolean hasWater;
+	/**
+	 * Whether the terrain has magma.
+	 */
+	private final boolean hasMagma;
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The sea level, used if the terrain has water.
+	 */
+	private final double seaLevel;
+	/**
+	 * The crust thickness, used if the terrain has magma.
+	 */
+	private final double crustThickness;
+	/**
+	 * The plan of the terrain.
+	 */
+	private final PlatePlan platePlan;
+	/**
+	 * The crease of the terrain.
+	 */
+	private final Crease crease;
+	/**
+	 * The amount of tiles along each axis of the sections generated by each worker.
+	 */
+	private final int sectionSize;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Create a new generation of a terrain in sections.
+	 * 
+	 * @param directory      The directory of the job and section files.
+	 * @param seed           The seed the plan was made with.
+	 * @param sizeX          The amount of tiles of the terrain along the x axis.
+	 * @param sizeY          The amount of tiles of the terrain along the y axis.
+	 * @param hasWater       Whether the terrain has water.
+	 * @param hasMagma       Whether the terrain has magma.
+	 * @param wrapAroundX    Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY    Whether the terrain wraps around along the y axis.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param platePlan      The plan of the terrain.
+	 * @param crease         The crease of the terrain.
+	 * @param sectionSize    The amount of tiles along each axis of the sections
+	 *                       generated by each worker.
+	 * @throws IllegalArgumentException If the size of the terrain or of the
+	 *                                  sections is lower than 1 or the plan doesn't
+	 *                                  fit the size of the terrain.
+	 */
+	public DistributedGeneration(File directory, long seed, int sizeX, int sizeY, boolean hasWater, boolean hasMagma,
+			boolean wrapAroundX, boolean wrapAroundY, double seaLevel, double crustThickness, PlatePlan platePlan,
+			Crease crease, int sectionSize) {
+		if (sizeX < 1 || sizeY < 1) {
+			throw new IllegalArgumentException("The size of the terrain must be at least 1.");
+		}
+		if (sectionSize < 1) {
+			throw new IllegalArgumentException("The size of the sections must be at least 1.");
+		}
+		if (!platePlan.isWithin(sizeX, sizeY)) {
+			throw new IllegalArgumentException("The plan doesn't fit the size of the terrain.");
+		}
+		this.directory = directory;
+		this.seed = seed;
+		this.sizeX = sizeX;
+		this.sizeY = sizeY;
+		this.hasWater = hasWater;
+		this.hasMagma = hasMagma;
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.seaLevel = seaLevel;
+		this.crustThickness = crustThickness;
+		this.platePlan = platePlan;
+		this.crease = crease;
+		this.sectionSize = sectionSize;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Loads the generation whose job file is in the given directory.
+	 * 
+	 * @param directory A directory the job of a generation was saved to by
+	 *                  {@link #save()}.
+	 * @return The generation saved in the directory.
+	 * @throws IOException If the job file can't be read or isn't a job.
+	 */
+	public static DistributedGeneration load(File directory) throws IOException {
+		try (ObjectInputStream input = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(new File(directory, JOB_FILE_NAME)), BUFFER_SIZE))) {
+			// Only creases are read as objects, so a job can't create anything else
+			input.setObjectInputFilter(CREASE_FILTER);
+			if (input.readInt() != JOB_MAGIC_NUMBER || input.readInt() != FORMAT_VERSION) {
+				throw new IOException("The file isn't a job.");
+			}
+			long seed = input.readLong();
+			int sizeX = input.readInt();
+			int sizeY = input.readInt();
+			boolean hasWater = input.readBoolean();
+			boolean hasMagma = input.readBoolean();
+			boolean wrapAroundX = input.readBoolean();
+			boolean wrapAroundY = input.readBoolean();
+			double seaLevel = input.readDouble();
+			double crustThickness = input.readDouble();
+			int sectionSize = input.readInt();
+			int numberOfPlates = input.readInt();
+			if (numberOfPlates < 0) {
+				throw new IOException("The file isn't a job.");
+			}
+			PlatePlan platePlan = new PlatePlan(numberOfPlates);
+			for (int plateIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+				platePlan.setMovement(plateIndex, input.readInt(), input.readInt(), input.readInt(),
+						input.readInt());
+			}
+			Crease crease = (Crease) input.readObject();
+			return new DistributedGeneration(directory, seed, sizeX, sizeY, hasWater, hasMagma, wrapAroundX,
+					wrapAroundY, seaLevel, crustThickness, platePlan, crease, sectionSize);
+		} catch (ClassNotFoundException | ClassCastException | IllegalArgumentException exception) {
+			throw new IOException("The file isn't a job.", exception);
+		}
+	}
+
+	/**
+	 * Copies the tiles of the given layer to the given layer, starting at the given
+	 * indices.
+	 * 
+	 * @param source      The layer of a section.
+	 * @param destination The layer of the whole terrain.
+	 * @param originX     X index of the first tile of the source in the
+	 *                    destination.
+	 * @param originY     Y index of the first tile of the source in the
+	 *                    destination.
+	 */
+	private static void copy(SquareTerrainLayer source, SquareTerrainLayer destination, int originX, int originY) {
+		for (int tileIndexY = 0; tileIndexY < source.getSizeY(); ++tileIndexY) {
+			for (int tileIndexX = 0; tileIndexX < source.getSizeX(); ++tileIndexX) {
+				destination.setTile(originX + tileIndexX, originY + tileIndexY,
+						source.getTile(tileIndexX, tileIndexY));
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the directory of the job and section files.
+	 * 
+	 * @return The directory of the job and section files.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Get the plan of the terrain.
+	 * 
+	 * @return The plan of the terrain.
+	 */
+	public PlatePlan getPlatePlan() {
+		return this.platePlan;
+	}
+
+	/**
+	 * Get the amount of sections generated by the workers along the x axis.
+	 * 
+	 * @return The amount of sections generated by the workers along the x axis.
+	 */
+	public int getSectionsX() {
+		return (this.sizeX + this.sectionSize - 1) / this.sectionSize;
+	}
+
+	/**
+	 * Get the amount of sections generated by the workers along the y axis.
+	 * 
+	 * @return The amount of sections generated by the workers along the y axis.
+	 */
+	public int getSectionsY() {
+		return (this.sizeY + this.sectionSize - 1) / this.sectionSize;
+	}
+
+	/**
+	 * Get the part of the terrain covered by the section generated by the workers
+	 * at the given indices. The sections at the end of each axis are smaller if the
+	 * size of the terrain isn't a multiple of the size of the sections.
+	 * 
+	 * @param sectionX The index of the section along the x axis.
+	 * @param sectionY The index of the section along the y axis.
+	 * @return The part of the terrain covered by the section.
+	 * @throws IndexOutOfBoundsException If there's no section at the given indices.
+	 */
+	public Rectangle getSection(int sectionX, int sectionY) {
+		int originX = Objects.checkIndex(sectionX, this.getSectionsX()) * this.sectionSize;
+		int originY = Objects.checkIndex(sectionY, this.getSectionsY()) * this.sectionSize;
+		return new Rectangle(originX, originY, java.lang.Math.min(this.sectionSize, this.sizeX - originX),
+				java.lang.Math.min(this.sectionSize, this.sizeY - originY));
+	}
+
+	/**
+	 * Get the file the section at the given indices is saved to.
+	 * 
+	 * @param sectionX The index of the section along the x axis.
+	 * @param sectionY The index of the section along the y axis.
+	 * @return The file of the section.
+	 */
+	public File getSectionFile(int sectionX, int sectionY) {
+		return new File(this.directory, "section-" + sectionX + "-" + sectionY + ".dat");
+	}
+
+	/**
+	 * Get the file the output of the given worker is written to.
+	 * 
+	 * @param worker The index of a worker.
+	 * @return The log file of the worker.
+	 */
+	public File getLogFile(int worker) {
+		return new File(this.directory, "worker-" + worker + ".log");
+	}
+
+	/**
+	 * Saves the job of this generation to the job file in its directory, creating
+	 * the directory if it doesn't exist. The sections of the job saved before to
+	 * the directory are deleted, so they aren't taken for sections of this job.
+	 * 
+	 * @throws IOException If the job file can't be written or the sections of the
+	 *                     previous job can't be deleted.
+	 */
+	public void save() throws IOException {
+		Files.createDirectories(this.directory.toPath());
+		this.delete("section-", ".dat");
+		File file = new File(this.directory, JOB_FILE_NAME);
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try (ObjectOutputStream output = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE))) {
+			output.writeInt(JOB_MAGIC_NUMBER);
+			output.writeInt(FORMAT_VERSION);
+			output.writeLong(this.seed);
+			output.writeInt(this.sizeX);
+			output.writeInt(this.sizeY);
+			output.writeBoolean(this.hasWater);
+			output.writeBoolean(this.hasMagma);
+			output.writeBoolean(this.wrapAroundX);
+			output.writeBoolean(this.wrapAroundY);
+			output.writeDouble(this.seaLevel);
+			output.writeDouble(this.crustThickness);
+			output.writeInt(this.sectionSize);
+			output.writeInt(this.platePlan.getNumberOfPlates());
+			for (int plateIndex = 0; plateIndex < this.platePlan.getNumberOfPlates(); ++plateIndex) {
+				output.writeInt(this.platePlan.getStartX(plateIndex));
+				output.writeInt(this.platePlan.getStartY(plateIndex));
+				output.writeInt(this.platePlan.getEndX(plateIndex));
+				output.writeInt(this.platePlan.getEndY(plateIndex));
+			}
+			output.writeObject(this.crease);
+		}
+		Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Deletes the job, section and log files of this generation once its terrain is
+	 * no longer needed.
+	 * 
+	 * @throws IOException If a file can't be deleted.
+	 */
+	public void delete() throws IOException {
+		this.delete("section-", ".dat");
+		this.delete("worker-", ".log");
+		Files.deleteIfExists(new File(this.directory, JOB_FILE_NAME).toPath());
+	}
+
+	/**
+	 * Deletes the files of the directory of this generation whose name has the
+	 * given prefix and suffix.
+	 * 
+	 * @param prefix The start of the names of the files.
+	 * @param suffix The end of the names of the files.
+	 * @throws IOException If a file can't be deleted.
+	 */
+	private void delete(String prefix, String suffix) throws IOException {
+		File[] files = this.directory.listFiles((directory, name) -> name.startsWith(prefix) && name.endsWith(suffix));
+		if (files != null) {
+			for (File file : files) {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+	}
+
+	/**
+	 * Saves the job of this generation and generates its sections with the given
+	 * number of worker processes running on this machine, waiting for all of them
+	 * to finish. The workers run this software in the worker mode with the same
+	 * class path and working directory as this process.
+	 * 
+	 * @param workers The number of worker processes.
+	 * @throws IllegalArgumentException If the number of workers is lower than 1.
+	 * @throws IOException              If the job can't be saved, a worker can't be
+	 *                                  started or a worker fails.
+	 * @throws InterruptedIOException   If this thread is interrupted while waiting
+	 *                                  for the workers, which are then stopped.
+	 */
+	public void run(int workers) throws IOException {
+		if (workers < 1) {
+			throw new IllegalArgumentException("The number of workers must be at least 1.");
+		}
+		this.save();
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		Process[] processes = new Process[workers];
+		try {
+			for (int worker = 0; worker < workers; ++worker) {
+				ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						"main.Main", "worker", this.directory.getPath(), Integer.toString(worker),
+						Integer.toString(workers));
+				builder.redirectErrorStream(true);
+				builder.redirectOutput(this.getLogFile(worker));
+				processes[worker] = builder.start();
+			}
+			int failedWorker = -1;
+			for (int worker = 0; worker < workers; ++worker) {
+				if (processes[worker].waitFor() != 0 && failedWorker == -1) {
+					failedWorker = worker;
+				}
+			}
+			if (failedWorker != -1) {
+				throw new IOException(
+						"The worker " + failedWorker + " failed, see " + this.getLogFile(failedWorker) + ".");
+			}
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The generation was interrupted.");
+		} finally {
+			// Workers still running when the generation fails or is interrupted are stopped
+			for (Process process : processes) {
+				if (process != null) {
+					process.destroy();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates the share of the sections of the given worker that haven't been
+	 * generated yet and saves each of them to its file. The sections of a
+	 * generation are dealt to its workers in row major order.
+	 * 
+	 * @param worker  The index of the worker.
+	 * @param workers The number of workers.
+	 * @throws IllegalArgumentException If the number of workers is lower than 1 or
+	 *                                  the index of the worker isn't lower than the
+	 *                                  number of workers.
+	 * @throws IOException              If a section can't be saved.
+	 */
+	public void generate(int worker, int workers) throws IOException {
+		if (workers < 1 || worker < 0 || worker >= workers) {
+			throw new IllegalArgumentException("The index of the worker must be lower than the number of workers.");
+		}
+		SquareTerrainStamper stamper = TerrainUtil.createStamper(this.wrapAroundX, this.wrapAroundY,
+				new StampCache());
+		int sectionsX = this.getSectionsX();
+		int numberOfSections = sectionsX * this.getSectionsY();
+		for (int sectionIndex = worker; sectionIndex < numberOfSections; sectionIndex += workers) {
+			int sectionX = sectionIndex % sectionsX;
+			int sectionY = sectionIndex / sectionsX;
+			if (!this.getSectionFile(sectionX, sectionY).exists()) {
+				this.generate(sectionX, sectionY, stamper);
+			}
+		}
+	}
+
+	/**
+	 * Generates the section at the given indices and saves it to its file. The
+	 * section is written to a temporary file first and then moved to its file, so
+	 * the file of a section only exists once the section is complete.
+	 * 
+	 * @param sectionX The index of the section along the x axis.
+	 * @param sectionY The index of the section along the y axis.
+	 * @param stamper  A stamper that wraps around like the terrain.
+	 * @throws IOException If the section can't be saved.
+	 */
+	private void generate(int sectionX, int sectionY, SquareTerrainStamper stamper) throws IOException {
+		Rectangle bounds = this.getSection(sectionX, sectionY);
+		SquareTerrain section = new SquareTerrain(bounds.width, bounds.height, this.hasWater, this.hasMagma);
+		stamper.generate(section, bounds.x, bounds.y, this.sizeX, this.sizeY, this.crease, this.platePlan,
+				this.seaLevel, this.crustThickness);
+		File file = this.getSectionFile(sectionX, sectionY);
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE))) {
+			output.writeInt(SECTION_MAGIC_NUMBER);
+			output.writeInt(FORMAT_VERSION);
+			output.writeInt(bounds.x);
+			output.writeInt(bounds.y);
+			output.writeInt(bounds.width);
+			output.writeInt(bounds.height);
+			TerrainCheckpoint.write(output, section.getLandLayer());
+			if (this.hasWater) {
+				TerrainCheckpoint.write(output, section.getWaterLayer());
+			}
+			if (this.hasMagma) {
+				TerrainCheckpoint.write(output, section.getMagmaLayer());
+			}
+		}
+		Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the section at the given indices from its file.
+	 * 
+	 * @param sectionX The index of the section along the x axis.
+	 * @param sectionY The index of the section along the y axis.
+	 * @return The section, as a terrain the size of the section.
+	 * @throws IndexOutOfBoundsException If there's no section at the given indices.
+	 * @throws IOException               If the file of the section can't be read or
+	 *                                   isn't the section.
+	 */
+	public SquareTerrain readSection(int sectionX, int sectionY) throws IOException {
+		Rectangle bounds = this.getSection(sectionX, sectionY);
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(this.getSectionFile(sectionX, sectionY)), BUFFER_SIZE))) {
+			if (input.readInt() != SECTION_MAGIC_NUMBER || input.readInt() != FORMAT_VERSION
+					|| input.readInt() != bounds.x || input.readInt() != bounds.y || input.readInt() != bounds.width
+					|| input.readInt() != bounds.height) {
+				throw new IOException("The file isn't the section.");
+			}
+			SquareTerrain section = new SquareTerrain(bounds.width, bounds.height, this.hasWater, this.hasMagma);
+			TerrainCheckpoint.read(input, section.getLandLayer());
+			if (this.hasWater) {
+				TerrainCheckpoint.read(input, section.getWaterLayer());
+			}
+			if (this.hasMagma) {
+				TerrainCheckpoint.read(input, section.getMagmaLayer());
+			}
+			section.setSeed(this.seed);
+			return section;
+		}
+	}
+
+	/**
+	 * Merges the sections generated by the workers into the whole terrain.
+	 * 
+	 * @return The terrain.
+	 * @throws IOException If the file of a section can't be read.
+	 */
+	public SquareTerrain merge() throws IOException {
+		SquareTerrain terrain = new SquareTerrain(this.sizeX, this.sizeY, this.hasWater, this.hasMagma);
+		for (int sectionY = 0; sectionY < this.getSectionsY(); ++sectionY) {
+			for (int sectionX = 0; sectionX < this.getSectionsX(); ++sectionX) {
+				Rectangle bounds = this.getSection(sectionX, sectionY);
+				SquareTerrain section = this.readSection(sectionX, sectionY);
+				copy(section.getLandLayer(), terrain.getLandLayer(), bounds.x, bounds.y);
+				if (this.hasWater) {
+					copy(section.getWaterLayer(), terrain.getWaterLayer(), bounds.x, bounds.y);
+				}
+				if (this.hasMagma) {
+					copy(section.getMagmaLayer(), terrain.getMagmaLayer(), bounds.x, bounds.y);
+				}
+			}
+		}
+		terrain.setSeed(this.seed);
+		return terrain;
+	}
+
+}
@@ -0,0 +1,458 @@
+/*
+ * InfiniteSquareTerrainConfigurer.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.terrain;
+
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import core.Crease;
+import core.PlatePlan;
+import core.terrain.SquareTerrain;
+import core.terrain.SquareTerrainStamper;
+import core.terrain.StampCache;
+import io.TerrainConfigurer;
+import io.terrain.TerrainUtil.MagmaParameters;
+import io.terrain.TerrainUtil.WaterParameters;
+import parameter.i18n.InternationalizedString;
+import parameter.parameter.IntegerParameter;
+import random.RandomGenerator;
+import random.SplitMix64Generator;
+
+/**
+ * A configurer that handles infinite square terrains with square tectonic
+ * plates, generated in square chunks.
+ *
+ * The movement vector of each plate is chosen by a random generator started
+ * with a hash of the seed of the world and the indices of the plate, so it
+ * doesn't depend on any other plate. A chunk is generated by applying the
+ * movement vectors of the plates within a given number of plates of the chunk,
+ * which makes it possible to generate any chunk on its own, in any order.
+ *
+ * The tiles of neighboring chunks fit together as long as the influence of the
+ * movement vectors doesn't reach further than the plates applied to each chunk.
+ * The radius of the influence is assumed to grow with the length of the
+ * movement vector, so the longest movement vectors within a plate are used to
+ * check it.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see io.TerrainConfigurer
+ * @see core.terrain.SquareTerrain
+ * @see random.SplitMix64Generator
+ *
+ */
+public class InfiniteSquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain> {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	private static final InternationalizedString ERROR_NO_TERRAIN = new InternationalizedString(
+			"console.command.error.noTerrain");
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The cache of stamps used to generate chunks, shared by all chunks generated
+	 * by this configurer.
+	 */
+	private final StampCache stampCache = new StampCache();
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Parameters
+
+	private final IntegerParameter plateSize;
+	private final IntegerParameter chunkSize;
+	private final IntegerParameter chunkX;
+	private final IntegerParameter chunkY;
+	private final IntegerParameter plateReach;
+	private final WaterParameters waterParameters;
+	private final MagmaParameters magmaParameters;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Accessors
+
+	/**
+	 * Get the parameter that represents the plate size.
+	 * 
+	 * @return The parameter that represents the plate size.
+	 */
+	public IntegerParameter getPlateSize() {
+		return this.plateSize;
+	}
+
+	/**
+	 * Get the parameter that represents the chunk size.
+	 * 
+	 * @return The parameter that represents the chunk size.
+	 */
+	public IntegerParameter getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * Get the parameter that represents the x index of the generated chunk.
+	 * 
+	 * @return The parameter that represents the x index of the generated chunk.
+	 */
+	public IntegerParameter getChunkX() {
+		return this.chunkX;
+	}
+
+	/**
+	 * Get the parameter that represents the y index of the generated chunk.
+	 * 
+	 * @return The parameter that represents the y index of the generated chunk.
+	 */
+	public IntegerParameter getChunkY() {
+		return this.chunkY;
+	}
+
+	/**
+	 * Get the parameter that represents the number of plates around a chunk whose
+	 * movement vectors are applied to it.
+	 * 
+	 * @return The parameter that represents the number of plates around a chunk
+	 *         whose movement vectors are applied to it.
+	 */
+	public IntegerParameter getPlateReach() {
+		return this.plateReach;
+	}
+
+	/**
+	 * Get the optional parameter that contains the parameters related to water
+	 * generation.
+	 * 
+	 * @return The optional parameter that contains the parameters related to water
+	 *         generation.
+	 */
+	public WaterParameters getWaterParameters() {
+		return this.waterParameters;
+	}
+
+	/**
+	 * Get the optional parameter that contains the parameters related to magma
+	 * generation.
+	 * 
+	 * @return The optional parameter that contains the parameters related to magma
+	 *         generation.
+	 */
+	public MagmaParameters getMagmaParameters() {
+		return this.magmaParameters;
+	}
+
+	/**
+	 * Get the cache of stamps used to generate chunks.
+	 * 
+	 * @return The cache of stamps used to generate chunks.
+	 */
+	public StampCache getStampCache() {
+		return this.stampCache;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+
+	/**
+	 * Construct a new infinite square terrain configurer with default parameters.
+	 * 
+	 * @param nameKey The internationalization key for the name of the configurer.
+	 */
+	public InfiniteSquareTerrainConfigurer(String nameKey) {
+		super(nameKey);
+		this.plateSize = new IntegerParameter("terrain.plateSize", 16, 2, 1 << 15, false);
+		this.getParameters().add(this.plateSize);
+		this.chunkSize = new IntegerParameter("terrain.chunkSize", 256, 1, 1 << 15, false);
+		this.getParameters().add(this.chunkSize);
+		this.chunkX = new IntegerParameter("terrain.chunkX", 0, -(1 << 30), 1 << 30, false);
+		this.getParameters().add(this.chunkX);
+		this.chunkY = new IntegerParameter("terrain.chunkY", 0, -(1 << 30), 1 << 30, false);
+		this.getParameters().add(this.chunkY);
+		this.plateReach = new IntegerParameter("terrain.plateReach", 4, 0, 1 << 10, false);
+		this.getParameters().add(this.plateReach);
+		this.waterParameters = new WaterParameters();
+		this.getOptionalParameters().add(this.waterParameters);
+		this.magmaParameters = new MagmaParameters();
+		this.getOptionalParameters().add(this.magmaParameters);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Choose the movement vectors of the plates applied to the chunk given by the
+	 * current parameters of this configurer. The seed of the world is the first
+	 * number generated by the given random generator.
+	 * 
+	 * @param randomGenerator A random generator.
+	 * @return A plan made using the given random generator.
+	 */
+	@Override
+	public PlatePlan plan(RandomGenerator randomGenerator) {
+		return this.plan(randomGenerator.generateLong(), this.chunkX.getCurrentValue().getValue(),
+				this.chunkY.getCurrentValue().getValue());
+	}
+
+	@Override
+	protected List<Object> getPlanParameters() {
+		return Arrays.asList(this.plateSize.getCurrentValue().getValue(), this.chunkSize.getCurrentValue().getValue(),
+				this.chunkX.getCurrentValue().getValue(), this.chunkY.getCurrentValue().getValue(),
+				this.plateReach.getCurrentValue().getValue());
+	}
+
+	/**
+	 * Choose the movement vectors of the plates applied to the chunk with the
+	 * given indices. The plan uses indices relative to the first tile of the first
+	 * plate applied to the chunk.
+	 * 
+	 * @param worldSeed The seed of the world.
+	 * @param chunkX    The x index of a chunk.
+	 * @param chunkY    The y index of a chunk.
+	 * @return The plan of the plates applied to the chunk.
+	 */
+	public PlatePlan plan(long worldSeed, long chunkX, long chunkY) {
+		int plateSize = this.plateSize.getCurrentValue().getValue();
+		int chunkSize = this.chunkSize.getCurrentValue().getValue();
+		int plateReach = this.plateReach.getCurrentValue().getValue();
+		long firstPlateIndexX = firstPlateIndex(chunkX, chunkSize, plateSize, plateReach);
+		long firstPlateIndexY = firstPlateIndex(chunkY, chunkSize, plateSize, plateReach);
+		int numberOfPlatesX = numberOfPlates(chunkX, chunkSize, plateSize, plateReach);
+		int numberOfPlatesY = numberOfPlates(chunkY, chunkSize, plateSize, plateReach);
+		int centerTileIndex = plateSize / 2;
+		PlatePlan platePlan = new PlatePlan(numberOfPlatesX * numberOfPlatesY);
+
+		// for all plates
+		for (int plateIndexY = 0, plateIndex = 0; plateIndexY < numberOfPlatesY; ++plateIndexY) {
+			for (int plateIndexX = 0; plateIndexX < numberOfPlatesX; ++plateIndexX, ++plateIndex) {
+
+				int startTileIndexY = plateIndexY * plateSize + centerTileIndex;
+				int startTileIndexX = plateIndexX * plateSize + centerTileIndex;
+
+				// choose end tile with a generator that only depends on the plate
+				RandomGenerator randomGenerator = new SplitMix64Generator(worldSeed, firstPlateIndexX + plateIndexX,
+						firstPlateIndexY + plateIndexY);
+				int endTileIndexY = (int) randomGenerator.generateLong(plateIndexY * plateSize,
+						(plateIndexY + 1) * plateSize);
+				int endTileIndexX = (int) randomGenerator.generateLong(plateIndexX * plateSize,
+						(plateIndexX + 1) * plateSize);
+
+				platePlan.setMovement(plateIndex, startTileIndexX, startTileIndexY, endTileIndexX, endTileIndexY);
+
+			}
+		}
+
+		return platePlan;
+	}
+
+	@Override
+	public SquareTerrain generate(PlatePlan platePlan, Crease crease) {
+		int chunkSize = this.chunkSize.getCurrentValue().getValue();
+		return this.generate(platePlan, crease, 0, 0, chunkSize, chunkSize);
+	}
+
+	/**
+	 * Generate a region of the chunk given by the current parameters of this
+	 * configurer. The indices of the region are relative to the first tile of the
+	 * chunk.
+	 */
+	@Override
+	public SquareTerrain generate(PlatePlan platePlan, Crease crease, int regionX, int regionY, int regionSizeX,
+			int regionSizeY) {
+		SquareTerrain terrain = this.generate(platePlan, crease, this.chunkX.getCurrentValue().getValue(),
+				this.chunkY.getCurrentValue().getValue(), regionX, regionY, regionSizeX, regionSizeY);
+		this.platePlan = platePlan;
+		return this.terrain = terrain;
+	}
+
+	/**
+	 * Generate the chunk with the given indices of the world with the given seed.
+	 * The chunk doesn't become the terrain of this configurer, so chunks can be
+	 * generated by several threads at once.
+	 * 
+	 * @param worldSeed The seed of the world.
+	 * @param crease    A crease.
+	 * @param chunkX    The x index of a chunk.
+	 * @param chunkY    The y index of a chunk.
+	 * @return The chunk.
+	 * @throws IllegalArgumentException If the influence of the crease reaches
+	 *                                  further than the plates applied to the
+	 *                                  chunk.
+	 */
+	public SquareTerrain generateChunk(long worldSeed, Crease crease, long chunkX, long chunkY) {
+		int chunkSize = this.chunkSize.getCurrentValue().getValue();
+		return this.generate(this.plan(worldSeed, chunkX, chunkY), crease, chunkX, chunkY, 0, 0, chunkSize,
+				chunkSize);
+	}
+
+	/**
+	 * Generate a region of the chunk with the given indices by applying the
+	 * movement vectors of a plan made for that chunk.
+	 * 
+	 * @param platePlan   A plan made by this configurer for the chunk.
+	 * @param crease      A crease.
+	 * @param chunkX      The x index of a chunk.
+	 * @param chunkY      The y index of a chunk.
+	 * @param regionX     X index of the first tile of the region within the chunk.
+	 * @param regionY     Y index of the first tile of the region within the chunk.
+	 * @param regionSizeX The amount of tiles of the region along the x axis.
+	 * @param regionSizeY The amount of tiles of the region along the y axis.
+	 * @return A region of the chunk.
+	 * @throws IllegalArgumentException If the plan doesn't fit the chunk, the
+	 *                                  region isn't within the chunk or the
+	 *                                  influence of the crease reaches further
+	 *                                  than the plates applied to the chunk.
+	 */
+	private SquareTerrain generate(PlatePlan platePlan, Crease crease, long chunkX, long chunkY, int regionX,
+			int regionY, int regionSizeX, int regionSizeY) {
+		int plateSize = this.plateSize.getCurrentValue().getValue();
+		int chunkSize = this.chunkSize.getCurrentValue().getValue();
+		int plateReach = this.plateReach.getCurrentValue().getValue();
+		int numberOfPlatesX = numberOfPlates(chunkX, chunkSize, plateSize, plateReach);
+		int numberOfPlatesY = numberOfPlates(chunkY, chunkSize, plateSize, plateReach);
+		int plannedSizeX = numberOfPlatesX * plateSize;
+		int plannedSizeY = numberOfPlatesY * plateSize;
+		if (platePlan.getNumberOfPlates() != numberOfPlatesX * numberOfPlatesY
+				|| !platePlan.isWithin(plannedSizeX, plannedSizeY)) {
+			throw new IllegalArgumentException("The plan doesn't fit the size of the terrain.");
+		}
+		if (regionSizeX < 1 || regionSizeY < 1 || regionX < 0 || regionY < 0 || regionX > chunkSize - regionSizeX
+				|| regionY > chunkSize - regionSizeY) {
+			throw new IllegalArgumentException("The region doesn't fit the size of the terrain.");
+		}
+		// Tiles further than the reach from the first tile of the chunk are never
+		// within the planned plates
+		// Comparisons with NaN are always false
+		if (!(maximumRadius(crease, plateSize) < (double) plateReach * plateSize + 1)) {
+			throw new IllegalArgumentException("The crease reaches further than the plates applied to the chunk.");
+		}
+		boolean hasWater = this.waterParameters.getDeterminer().getCurrentValue();
+		boolean hasMagma = this.magmaParameters.getDeterminer().getCurrentValue();
+		SquareTerrain terrain = new SquareTerrain(regionSizeX, regionSizeY, hasWater, hasMagma);
+		SquareTerrainStamper stamper = TerrainUtil.createStamper(false, false, this.stampCache);
+		// The first tile of the chunk relative to the first tile of the planned plates
+		int chunkOriginX = (int) (chunkX * chunkSize
+				- firstPlateIndex(chunkX, chunkSize, plateSize, plateReach) * plateSize);
+		int chunkOriginY = (int) (chunkY * chunkSize
+				- firstPlateIndex(chunkY, chunkSize, plateSize, plateReach) * plateSize);
+
+		// set land, magma shifted according to crust thickness, and water
+		double seaLevel = hasWater ? (double) this.waterParameters.getSeaLevel().getCurrentValue().getValue() : 0.0d;
+		double crustThickness = hasMagma
+				? (double) this.magmaParameters.getCrustThickness().getCurrentValue().getValue()
+				: 0.0d;
+		stamper.generate(terrain, chunkOriginX + regionX, chunkOriginY + regionY, plannedSizeX, plannedSizeY, crease,
+				platePlan, seaLevel, crustThickness);
+
+		return terrain;
+	}
+
+	@Override
+	public RenderedImage toImage() {
+		if (terrain == null) {
+			throw new NullPointerException(ERROR_NO_TERRAIN.getValue());
+		}
+		return TerrainUtil.toImage(this.terrain);
+	}
+
+	@Override
+	public String[] getFormatNames() {
+		return new String[] { "csv", "CSV" };
+	}
+
+	@Override
+	public void importTerrain(String formatName, InputStream input) throws IOException {
+		SquareTerrain terrain = TerrainUtil.importTerrain(formatName, input);
+		if (terrain != null) {
+			this.terrain = terrain;
+		}
+	}
+
+	@Override
+	public void exportTerrain(String formatName, OutputStream output) throws IOException {
+		if (terrain == null) {
+			throw new NullPointerException(ERROR_NO_TERRAIN.getValue());
+		}
+		TerrainUtil.exportTerrain(this.terrain, formatName, output);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Calculates the index along an axis of the first plate applied to a chunk.
+	 * 
+	 * @param chunkIndex The index of the chunk along the axis.
+	 * @param chunkSize  The chunk size.
+	 * @param plateSize  The plate size.
+	 * @param plateReach The number of plates around a chunk applied to it.
+	 * @return The index of the first plate applied to the chunk.
+	 */
+	private static long firstPlateIndex(long chunkIndex, int chunkSize, int plateSize, int plateReach) {
+		return java.lang.Math.floorDiv(chunkIndex * chunkSize, plateSize) - plateReach;
+	}
+
+	/**
+	 * Calculates the number of plates along an axis applied to a chunk.
+	 * 
+	 * @param chunkIndex The index of the chunk along the axis.
+	 * @param chunkSize  The chunk size.
+	 * @param plateSize  The plate size.
+	 * @param plateReach The number of plates around a chunk applied to it.
+	 * @return The number of plates applied to the chunk.
+	 */
+	private static int numberOfPlates(long chunkIndex, int chunkSize, int plateSize, int plateReach) {
+		long lastPlateIndex = java.lang.Math.floorDiv(chunkIndex * chunkSize + chunkSize - 1, plateSize)
+				+ plateReach;
+		return (int) (lastPlateIndex - firstPlateIndex(chunkIndex, chunkSize, plateSize, plateReach) + 1);
+	}
+
+	/**
+	 * Calculates the greatest radius of the influence of the movement vectors of a
+	 * plate in either direction, assuming the radius grows with the length of the
+	 * movement vector.
+	 * 
+	 * @param crease    A crease.
+	 * @param plateSize The plate size.
+	 * @return The greatest radius of the influence of the movement vectors of a
+	 *         plate.
+	 */
+	private static double maximumRadius(Crease crease, int plateSize) {
+		int centerTileIndex = plateSize / 2;
+		double maximumRadius = 0.0d;
+		// The longest movement vectors end at the corners of the plate
+		for (int endTileIndexY = 0; endTileIndexY < plateSize; endTileIndexY += plateSize - 1) {
+			for (int endTileIndexX = 0; endTileIndexX < plateSize; endTileIndexX += plateSize - 1) {
+				maximumRadius = java.lang.Math.max(maximumRadius,
+						crease.getRadius(centerTileIndex, centerTileIndex, endTileIndexX, endTileIndexY));
+				maximumRadius = java.lang.Math.max(maximumRadius,
+						crease.getRadius(endTileIndexX, endTileIndexY, centerTileIndex, centerTileIndex));
+			}
+		}
+		return maximumRadius;
+	}
+
+}
@@ -21,19 +21,34 @@
 
 package io.terrain;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 
 import core.Crease;
+import core.GenerationMonitor;
+import core.PlatePlan;
+import core.terrain.LazySquareTerrain;
 import core.terrain.SquareTerrain;
 import core.terrain.SquareTerrain.SquareTerrainLayer;
+import core.terrain.SquareTerrainEditor;
+import core.terrain.SquareTerrainEngine;
+import core.terrain.SquareTerrainStamper;
+import core.terrain.StampCache;
+import io.BatchTerrainConfigurer;
+import io.ParameterSweep;
+import io.ResumableTerrainConfigurer;
+import io.SweepableTerrainConfigurer;
 import io.TerrainConfigurer;
 import io.terrain.TerrainUtil.MagmaParameters;
+import io.terrain.TerrainUtil.TerrainSettings;
 import io.terrain.TerrainUtil.WaterParameters;
 import parameter.i18n.InternationalizedString;
 import parameter.parameter.IntegerParameter;
@@ -45,21 +60,38 @@ import random.RandomGenerator;
  * A configurer that handles square terrains with square tectonic plates.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.4
+ * @version 0.5
  * @since 0.1
  * @see io.TerrainConfigurer
  * @see core.terrain.SquareTerrain
  *
  */
-public class SquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain> {
+public class SquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain>
+		implements BatchTerrainConfigurer<SquareTerrain>, ResumableTerrainConfigurer<SquareTerrain>,
+		SweepableTerrainConfigurer<SquareTerrain> {
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Class fields
 
 	private static final InternationalizedString ERROR_NO_TERRAIN = new InternationalizedString(
 			"console.command.error.noTerrain");
-	private static final InternationalizedString TERRAIN_EXCEPTION_FORMAT = new InternationalizedString(
-			"terrain.exception.format");
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The cache of stamps used to generate terrains, shared by all terrains
+	 * generated by this configurer.
+	 */
+	private final StampCache stampCache = new StampCache();
+	/**
+	 * The lowest value of the tiles of the last image made by this configurer.
+	 */
+	private double lowestTile;
+	/**
+	 * The highest value of the tiles of the last image made by this configurer.
+	 */
+	private double highestTile;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Parameters
@@ -146,6 +178,15 @@ public class SquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain> {
 		return this.magmaParameters;
 	}
 
+	/**
+	 * Get the cache of stamps used to generate terrains.
+	 * 
+	 * @return The cache of stamps used to generate terrains.
+	 */
+	public StampCache getStampCache() {
+		return this.stampCache;
+	}
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Constructors
 
@@ -176,24 +217,18 @@ public class SquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain> {
 	// Instance methods
 
 	@Override
-	public SquareTerrain generate(RandomGenerator randomGenerator, Crease crease) {
+	public PlatePlan plan(RandomGenerator randomGenerator) {
 		int numberOfPlatesX = this.numberOfPlatesX.getCurrentValue().getValue();
 		int numberOfPlatesY = this.numberOfPlatesY.getCurrentValue().getValue();
 		int plateSizeY = this.plateSize.getCurrentValue().getValue();
 		int plateSizeX = this.plateSize.getCurrentValue().getValue();
 		int centerTileIndexY = plateSizeY / 2;
 		int centerTileIndexX = plateSizeX / 2;
-		int terrainSizeY = plateSizeY * numberOfPlatesY;
-		int terrainSizeX = plateSizeX * numberOfPlatesX;
-		boolean wrapAroundX = this.wrapAroundX.getCurrentValue();
-		boolean wrapAroundY = this.wrapAroundY.getCurrentValue();
-		boolean hasWater = this.waterParameters.getDeterminer().getCurrentValue();
-		boolean hasMagma = this.magmaParameters.getDeterminer().getCurrentValue();
-		SquareTerrain terrain = new SquareTerrain(terrainSizeX, terrainSizeY, hasWater, hasMagma);
+		PlatePlan platePlan = new PlatePlan(numberOfPlatesX * numberOfPlatesY);
 
 		// for all plates
-		for (int plateIndexY = 0; plateIndexY < numberOfPlatesY; ++plateIndexY) {
-			for (int plateIndexX = 0; plateIndexX < numberOfPlatesX; ++plateIndexX) {
+		for (int plateIndexY = 0, plateIndex = 0; plateIndexY < numberOfPlatesY; ++plateIndexY) {
+			for (int plateIndexX = 0; plateIndexX < numberOfPlatesX; ++plateIndexX, ++plateIndex) {
 
 				int startTileIndexY = plateIndexY * plateSizeY + centerTileIndexY;
 				int startTileIndexX = plateIndexX * plateSizeX + centerTileIndexX;
@@ -204,140 +239,352 @@ public class SquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain> {
 				int endTileIndexX = (int) randomGenerator.generateLong(plateIndexX * plateSizeX,
 						(plateIndexX + 1) * plateSizeX);
 
-				for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-					for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-
-						// set land
-						double land = terrain.getLandLayer().getTile(tileIndexX, tileIndexY);
-						land += crease.valueAt(startTileIndexX, startTileIndexY, endTileIndexX, endTileIndexY,
-								tileIndexX, tileIndexY);
-						if (wrapAroundY) {
-							land += crease.valueAt(startTileIndexX, startTileIndexY, endTileIndexX, endTileIndexY,
-									tileIndexX, tileIndexY - terrainSizeY);
-							land += crease.valueAt(startTileIndexX, startTileIndexY, endTileIndexX, endTileIndexY,
-									tileIndexX, tileIndexY + terrainSizeY);
-						}
-						if (wrapAroundX) {
-							land += crease.valueAt(startTileIndexX, startTileIndexY, endTileIndexX, endTileIndexY,
-									tileIndexX - terrainSizeX, tileIndexY);
-							land += crease.valueAt(startTileIndexX, startTileIndexY, endTileIndexX, endTileIndexY,
-									tileIndexX + terrainSizeX, tileIndexY);
-						}
-						terrain.getLandLayer().setTile(tileIndexX, tileIndexY, land);
-
-						// set magma
-						if (terrain.getMagmaLayer() != null) {
-							double magma = terrain.getMagmaLayer().getTile(tileIndexX, tileIndexY);
-							// magma is generated like land
-							// but in the opposite direction of the plate movement
-							magma += crease.valueAt(endTileIndexX, endTileIndexY, startTileIndexX, startTileIndexY,
-									tileIndexX, tileIndexY);
-							if (wrapAroundY) {
-								magma += crease.valueAt(endTileIndexX, endTileIndexY, startTileIndexX, startTileIndexY,
-										tileIndexX, tileIndexY - terrainSizeY);
-								magma += crease.valueAt(endTileIndexX, endTileIndexY, startTileIndexX, startTileIndexY,
-										tileIndexX, tileIndexY + terrainSizeY);
-							}
-							if (wrapAroundX) {
-								magma += crease.valueAt(endTileIndexX, endTileIndexY, startTileIndexX, startTileIndexY,
-										tileIndexX - terrainSizeX, tileIndexY);
-								magma += crease.valueAt(endTileIndexX, endTileIndexY, startTileIndexX, startTileIndexY,
-										tileIndexX + terrainSizeX, tileIndexY);
-							}
-							terrain.getMagmaLayer().setTile(tileIndexX, tileIndexY, magma);
-						}
-
-					}
-				}
+				platePlan.setMovement(plateIndex, startTileIndexX, startTileIndexY, endTileIndexX, endTileIndexY);
 
 			}
 		}
 
-		// for all tiles
-		for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-			for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+		return platePlan;
+	}
 
-				// set water
-				if (terrain.getWaterLayer() != null) {
-					double seaLevel = (double) this.waterParameters.getSeaLevel().getCurrentValue().getValue();
-					terrain.getWaterLayer().setTile(tileIndexX, tileIndexY, seaLevel);
-				}
+	@Override
+	protected List<Object> getPlanParameters() {
+		return Arrays.asList(this.plateSize.getCurrentValue().getValue(),
+				this.numberOfPlatesX.getCurrentValue().getValue(), this.numberOfPlatesY.getCurrentValue().getValue());
+	}
 
-				// shift magma according to crust thickness
-				if (terrain.getMagmaLayer() != null) {
-					double crustThickness = (double) this.magmaParameters.getCrustThickness().getCurrentValue()
-							.getValue();
-					double magma = terrain.getMagmaLayer().getTile(tileIndexX, tileIndexY);
-					terrain.getMagmaLayer().setTile(tileIndexX, tileIndexY, magma - crustThickness);
-				}
+	/**
+	 * Reads the current values of the parameters of the terrain.
+	 * 
+	 * @return The settings of a generation with the current parameters.
+	 */
+	private TerrainSettings readSettings() {
+		int plateSize = this.plateSize.getCurrentValue().getValue();
+		return new TerrainSettings(plateSize * this.numberOfPlatesX.getCurrentValue().getValue(),
+				plateSize * this.numberOfPlatesY.getCurrentValue().getValue(), this.wrapAroundX, this.wrapAroundY,
+				this.waterParameters, this.magmaParameters);
+	}
 
-			}
+	@Override
+	public SquareTerrain generate(PlatePlan platePlan, Crease crease) {
+		SquareTerrain terrain = this.generate(platePlan, crease, null, null);
+		this.platePlan = platePlan;
+		return this.terrain = terrain;
+	}
+
+	@Override
+	public SquareTerrain generate(PlatePlan platePlan, Crease crease, GenerationMonitor monitor) {
+		SquareTerrain terrain = this.generate(platePlan, crease, null, monitor);
+		// A partial terrain can't be edited as if it was generated whole from the plan
+		this.platePlan = monitor.getStatus() == GenerationMonitor.Status.COMPLETED ? platePlan : null;
+		return this.terrain = terrain;
+	}
+
+	@Override
+	public SquareTerrain generate(PlatePlan platePlan, Crease crease, SquareTerrain buffer) {
+		return this.generate(platePlan, crease, buffer, null);
+	}
+
+	/**
+	 * Generate a terrain by applying the movement vectors of a plan using a crease
+	 * with the engine chosen by the configuration.
+	 * 
+	 * @param platePlan A plan made by this configurer with its current
+	 *                  parameters.
+	 * @param crease    A crease.
+	 * @param buffer    A terrain whose tiles can be overwritten, or null.
+	 * @param monitor   A monitor that hasn't been used by another generation, or
+	 *                  null.
+	 * @return The given terrain if its tiles were reused, or a new terrain
+	 *         otherwise, generated using the given plan and crease.
+	 * @throws IllegalArgumentException If the plan doesn't fit the current
+	 *                                  parameters of this configurer.
+	 */
+	private SquareTerrain generate(PlatePlan platePlan, Crease crease, SquareTerrain buffer,
+			GenerationMonitor monitor) {
+
+		TerrainSettings settings = this.readSettings();
+		settings.checkPlan(platePlan);
+		SquareTerrain terrain = settings.createTerrain(buffer);
+		SquareTerrainEngine engine = settings.createEngine(crease, platePlan, this.stampCache);
+		if (monitor == null) {
+			engine.generate(terrain, crease, platePlan, settings.getSeaLevel(), settings.getCrustThickness());
+		} else {
+			engine.generate(terrain, crease, platePlan, settings.getSeaLevel(), settings.getCrustThickness(),
+					monitor);
+		}
+		return terrain;
+	}
+
+	@Override
+	public List<SquareTerrain> generateEnsemble(PlatePlan platePlan, Crease... creases) {
+
+		TerrainSettings settings = this.readSettings();
+		settings.checkPlan(platePlan);
+		SquareTerrain[] terrains = new SquareTerrain[creases.length];
+		for (int terrainIndex = 0; terrainIndex < terrains.length; ++terrainIndex) {
+			terrains[terrainIndex] = settings.createTerrain(null);
 		}
+		if (terrains.length > 0) {
+			settings.createStamper(this.stampCache).generate(terrains, creases, platePlan, settings.getSeaLevel(),
+					settings.getCrustThickness());
+		}
+		return Arrays.asList(terrains);
+	}
+
+	@Override
+	public ParameterSweep.Stage<SquareTerrain> createStampingStage(ParameterSweep.Stage<PlatePlan> planStage,
+			ParameterSweep.Stage<? extends Crease> creaseStage) {
+		return TerrainUtil.createStampingStage(planStage, creaseStage,
+				() -> this.plateSize.getCurrentValue().getValue() * this.numberOfPlatesX.getCurrentValue().getValue(),
+				() -> this.plateSize.getCurrentValue().getValue() * this.numberOfPlatesY.getCurrentValue().getValue(),
+				this.wrapAroundX, this.wrapAroundY, this.magmaParameters, this.stampCache);
+	}
 
+	@Override
+	public ParameterSweep.Stage<SquareTerrain> createPostPassStage(ParameterSweep.Stage<SquareTerrain> stampingStage) {
+		return TerrainUtil.createPostPassStage(stampingStage, this.waterParameters, this.magmaParameters);
+	}
+
+	@Override
+	public ParameterSweep.Stage<RenderedImage> createRenderStage(ParameterSweep.Stage<SquareTerrain> terrainStage) {
+		return TerrainUtil.createRenderStage(terrainStage);
+	}
+
+	@Override
+	public SquareTerrain generateProgressively(PlatePlan platePlan, Crease crease,
+			Consumer<? super SquareTerrain> listener) {
+
+		TerrainSettings settings = this.readSettings();
+		settings.checkPlan(platePlan);
+		SquareTerrain terrain = settings.createTerrain(null);
+		// Only stamping can generate a level of detail
+		SquareTerrainStamper stamper = settings.createStamper(this.stampCache);
+		stamper.generateProgressively(terrain, crease, platePlan, settings.getSeaLevel(),
+				settings.getCrustThickness(), listener);
+
+		this.platePlan = platePlan;
 		return this.terrain = terrain;
 	}
 
+	@Override
+	public SquareTerrain generateProgressively(PlatePlan platePlan, Crease crease,
+			Consumer<? super SquareTerrain> listener, GenerationMonitor monitor) {
+
+		TerrainSettings settings = this.readSettings();
+		settings.checkPlan(platePlan);
+		SquareTerrain terrain = settings.createTerrain(null);
+		// Only stamping can generate a level of detail
+		SquareTerrainStamper stamper = settings.createStamper(this.stampCache);
+		SquareTerrain generated = stamper.generateProgressively(terrain, crease, platePlan, settings.getSeaLevel(),
+				settings.getCrustThickness(), listener, monitor);
+		if (generated == null) {
+			return null;
+		}
+
+		// A coarse terrain can't be edited as if it was generated whole from the plan
+		this.platePlan = generated == terrain ? platePlan : null;
+		return this.terrain = generated;
+	}
+
+	@Override
+	public SquareTerrain generate(PlatePlan platePlan, Crease crease, int regionX, int regionY, int regionSizeX,
+			int regionSizeY) {
+
+		TerrainSettings settings = this.readSettings();
+		settings.checkPlan(platePlan);
+		int terrainSizeX = settings.getSizeX();
+		int terrainSizeY = settings.getSizeY();
+		if (regionSizeX < 1 || regionSizeY < 1 || regionX < 0 || regionY < 0 || regionX > terrainSizeX - regionSizeX
+				|| regionY > terrainSizeY - regionSizeY) {
+			throw new IllegalArgumentException("The region doesn't fit the size of the terrain.");
+		}
+		SquareTerrain terrain = new SquareTerrain(regionSizeX, regionSizeY, settings.hasWater(), settings.hasMagma());
+		// Only stamping can skip the plates that don't reach the region
+		SquareTerrainStamper stamper = settings.createStamper(this.stampCache);
+		stamper.generate(terrain, regionX, regionY, terrainSizeX, terrainSizeY, crease, platePlan,
+				settings.getSeaLevel(), settings.getCrustThickness());
+
+		this.platePlan = platePlan;
+		return this.terrain = terrain;
+	}
+
+	@Override
+	public SquareTerrain generate(Crease crease, int checkpointInterval, File checkpointFile) throws IOException {
+
+		PlatePlan platePlan = this.plan();
+		TerrainSettings settings = this.readSettings();
+		settings.checkPlan(platePlan);
+		TerrainCheckpoint checkpoint = new TerrainCheckpoint(this.getSeed().getCurrentValue().getValue(),
+				settings.createTerrain(null), settings.isWrapAroundX(), settings.isWrapAroundY(),
+				settings.getSeaLevel(), settings.getCrustThickness(), platePlan, crease);
+		return this.resume(checkpoint, checkpointInterval, checkpointFile);
+	}
+
+	@Override
+	public SquareTerrain resume(int checkpointInterval, File checkpointFile) throws IOException {
+		return this.resume(TerrainCheckpoint.load(checkpointFile), checkpointInterval, checkpointFile);
+	}
+
+	@Override
+	public SquareTerrain distribute(Crease crease, int workers, File directory) throws IOException {
+
+		PlatePlan platePlan = this.plan();
+		TerrainSettings settings = this.readSettings();
+		DistributedGeneration generation = new DistributedGeneration(directory,
+				this.getSeed().getCurrentValue().getValue(), settings.getSizeX(), settings.getSizeY(),
+				settings.hasWater(), settings.hasMagma(), settings.isWrapAroundX(), settings.isWrapAroundY(),
+				settings.getSeaLevel(), settings.getCrustThickness(), platePlan, crease,
+				DistributedGeneration.DEFAULT_SECTION_SIZE);
+		generation.run(workers);
+		SquareTerrain terrain = generation.merge();
+		generation.delete();
+
+		this.platePlan = platePlan;
+		return this.terrain = terrain;
+	}
+
+	/**
+	 * Continues a generation from the given checkpoint and keeps the terrain.
+	 * 
+	 * @param checkpoint         A checkpoint.
+	 * @param checkpointInterval The number of plates between checkpoints.
+	 * @param checkpointFile     The file checkpoints are saved to.
+	 * @return The generated terrain.
+	 * @throws IOException If a checkpoint can't be saved.
+	 */
+	private SquareTerrain resume(TerrainCheckpoint checkpoint, int checkpointInterval, File checkpointFile)
+			throws IOException {
+		// Only stamping can add the influence of a range of plates
+		SquareTerrainStamper stamper = TerrainUtil.createStamper(checkpoint.isWrapAroundX(),
+				checkpoint.isWrapAroundY(), this.stampCache);
+		SquareTerrain terrain = checkpoint.generate(stamper, checkpointInterval, checkpointFile);
+
+		this.platePlan = checkpoint.getPlatePlan();
+		return this.terrain = terrain;
+	}
+
+	/**
+	 * Creates a terrain with the current parameters whose tiles are calculated
+	 * from the given plan when they're asked for. The terrain isn't kept by this
+	 * configurer.
+	 * 
+	 * @param platePlan A plan.
+	 * @param crease    A crease.
+	 * @return A lazy terrain.
+	 * @throws IllegalArgumentException If the plan doesn't fit the size of the
+	 *                                  terrain.
+	 */
+	public LazySquareTerrain generateLazily(PlatePlan platePlan, Crease crease) {
+
+		TerrainSettings settings = this.readSettings();
+		settings.checkPlan(platePlan);
+		return new LazySquareTerrain(settings.getSizeX(), settings.getSizeY(), settings.isWrapAroundX(),
+				settings.isWrapAroundY(), settings.hasWater(), settings.hasMagma(), crease, platePlan,
+				settings.getSeaLevel(), settings.getCrustThickness());
+	}
+
+	/**
+	 * Creates an editor of the terrain generated by this configurer, which edits
+	 * a copy of its plan with the given crease. The copy becomes the plan of this
+	 * configurer, so the plan shared by this configurer isn't modified.
+	 * 
+	 * @param crease The crease the terrain was generated with.
+	 * @return An editor of the terrain.
+	 * @throws NullPointerException  If there's no terrain.
+	 * @throws IllegalStateException If the terrain wasn't generated whole from a
+	 *                               plan with the current parameters.
+	 */
+	public SquareTerrainEditor edit(Crease crease) {
+
+		if (terrain == null) {
+			throw new NullPointerException(ERROR_NO_TERRAIN.getValue());
+		}
+		TerrainSettings settings = this.readSettings();
+		if (platePlan == null || terrain.getSizeX() != settings.getSizeX()
+				|| terrain.getSizeY() != settings.getSizeY()) {
+			throw new IllegalStateException("The terrain wasn't generated whole from a plan.");
+		}
+		this.platePlan = new PlatePlan(platePlan);
+		return new SquareTerrainEditor(terrain, this.platePlan, crease, settings.isWrapAroundX(),
+				settings.isWrapAroundY(), this.stampCache);
+	}
+
 	@Override
 	public RenderedImage toImage() {
 		if (terrain == null) {
 			throw new NullPointerException(ERROR_NO_TERRAIN.getValue());
 		}
+		double[] range = TerrainUtil.findRange(terrain);
+		this.lowestTile = range[0];
+		this.highestTile = range[1];
 		int terrainSizeY = terrain.getSizeY();
 		int terrainSizeX = terrain.getSizeX();
+		final BufferedImage bufferedImage = new BufferedImage(terrainSizeX, terrainSizeY, BufferedImage.TYPE_INT_ARGB);
+		TerrainUtil.draw(terrain, bufferedImage, 0, 0, terrainSizeX, terrainSizeY, this.lowestTile, this.highestTile);
+		return bufferedImage;
+	}
 
-		// The tile with the highest value
-		double highestTile = Double.NEGATIVE_INFINITY;
-		// The tile with the lowest value
-		double lowestTile = Double.POSITIVE_INFINITY;
-
-		for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-			for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-				double land = terrain.getLandLayer().getTile(tileIndexX, tileIndexY);
-				if (land > highestTile) {
-					highestTile = land;
-				} else if (land < lowestTile) {
-					lowestTile = land;
-				}
-				if (terrain.getWaterLayer() != null) {
-					double water = terrain.getWaterLayer().getTile(tileIndexX, tileIndexY);
-					if (water > highestTile) {
-						highestTile = water;
-					} else if (water < lowestTile) {
-						lowestTile = water;
-					}
-				}
-				if (terrain.getMagmaLayer() != null) {
-					double magma = terrain.getMagmaLayer().getTile(tileIndexX, tileIndexY);
-					if (magma > highestTile) {
-						highestTile = magma;
-					} else if (magma < lowestTile) {
-						lowestTile = magma;
-					}
+	/**
+	 * Draws again the given region of an image made by {@link #toImage()} after
+	 * the terrain has been edited, using the same range of values as the rest of
+	 * the image. If a tile of the region is out of that range, the whole image is
+	 * drawn again with a new range.
+	 * 
+	 * @param image  An image of the terrain made by {@link #toImage()}.
+	 * @param region The region of the image to draw again.
+	 * @return The region of the image that was drawn again.
+	 * @throws NullPointerException     If there's no terrain.
+	 * @throws IllegalArgumentException If the image doesn't have the size of the
+	 *                                  terrain.
+	 */
+	public Rectangle toImage(BufferedImage image, Rectangle region) {
+		if (terrain == null) {
+			throw new NullPointerException(ERROR_NO_TERRAIN.getValue());
+		}
+		int terrainSizeY = terrain.getSizeY();
+		int terrainSizeX = terrain.getSizeX();
+		if (image.getWidth() != terrainSizeX || image.getHeight() != terrainSizeY) {
+			throw new IllegalArgumentException("The image doesn't have the size of the terrain.");
+		}
+		Rectangle bounds = new Rectangle(0, 0, terrainSizeX, terrainSizeY);
+		region = region.intersection(bounds);
+		if (region.isEmpty()) {
+			return new Rectangle();
+		}
+		for (int tileIndexY = region.y; tileIndexY < region.y + region.height; ++tileIndexY) {
+			for (int tileIndexX = region.x; tileIndexX < region.x + region.width; ++tileIndexX) {
+				if (!this.isInRange(terrain.getLandLayer(), tileIndexX, tileIndexY)
+						|| !this.isInRange(terrain.getWaterLayer(), tileIndexX, tileIndexY)
+						|| !this.isInRange(terrain.getMagmaLayer(), tileIndexX, tileIndexY)) {
+					// The colors of the rest of the image depend on the range
+					BufferedImage bufferedImage = (BufferedImage) this.toImage();
+					image.setData(bufferedImage.getRaster());
+					return bounds;
 				}
 			}
 		}
+		TerrainUtil.draw(terrain, image, region.x, region.y, region.x + region.width, region.y + region.height,
+				this.lowestTile, this.highestTile);
+		return region;
+	}
 
-		final BufferedImage bufferedImage = new BufferedImage(terrainSizeX, terrainSizeY, BufferedImage.TYPE_INT_ARGB);
-		for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-			for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-				double land = terrain.getLandLayer().getTile(tileIndexX, tileIndexY);
-				double water;
-				if (terrain.getWaterLayer() == null) {
-					water = Double.NEGATIVE_INFINITY;
-				} else {
-					water = terrain.getWaterLayer().getTile(tileIndexX, tileIndexY);
-				}
-				double magma;
-				if (terrain.getMagmaLayer() == null) {
-					magma = Double.NEGATIVE_INFINITY;
-				} else {
-					magma = terrain.getMagmaLayer().getTile(tileIndexX, tileIndexY);
-				}
-				int color = TileUtil.tileToColor(land, water, magma, lowestTile, highestTile);
-				bufferedImage.setRGB(tileIndexX, tileIndexY, color);
-			}
+	/**
+	 * Checks whether the value of the given tile of the given layer is within the
+	 * range of values of the last image made by this configurer.
+	 * 
+	 * @param layer      A layer, or null.
+	 * @param tileIndexX The index of a tile along the x axis.
+	 * @param tileIndexY The index of a tile along the y axis.
+	 * @return True if the layer is null or the value of the tile is within the
+	 *         range, false otherwise.
+	 */
+	private boolean isInRange(SquareTerrainLayer layer, int tileIndexX, int tileIndexY) {
+		if (layer == null) {
+			return true;
 		}
-		return bufferedImage;
+		double tile = layer.getTile(tileIndexX, tileIndexY);
+		return tile >= this.lowestTile && tile <= this.highestTile;
 	}
 
 	@Override
@@ -347,89 +594,9 @@ public class SquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain> {
 
 	@Override
 	public void importTerrain(String formatName, InputStream input) throws IOException {
-		switch (formatName) {
-		case "csv":
-		case "CSV":
-			Scanner scanner = new Scanner(input).useDelimiter("\n\n");
-			try {
-
-				int terrainSizeY;
-				int terrainSizeX;
-
-				// land layer
-				if (scanner.hasNext()) {
-					String result = scanner.next();
-					String[] lines = result.split("\n");
-					String[][] values = new String[lines.length][];
-					for (int i = 0; i < lines.length; ++i) {
-						values[i] = lines[i].split(",");
-					}
-					this.terrain = new SquareTerrain(values[0].length, values.length, false, false);
-					terrainSizeY = terrain.getSizeY();
-					terrainSizeX = terrain.getSizeX();
-					for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-						for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-							double tile = Double.parseDouble(values[tileIndexY][tileIndexX]);
-							terrain.getLandLayer().setTile(tileIndexX, tileIndexY, tile);
-						}
-					}
-				} else {
-					throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
-				}
-
-				// water layer
-				if (scanner.hasNext()) {
-					String result = scanner.next();
-					if (result.equals("-")) {
-						// No water layer
-					} else {
-						String[] lines = result.split("\n");
-						String[][] values = new String[lines.length][];
-						for (int i = 0; i < lines.length; ++i) {
-							values[i] = lines[i].split(",");
-						}
-						if (terrainSizeY != terrain.getSizeY() || terrainSizeX != terrain.getSizeX()) {
-							throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
-						}
-						terrain.setWaterLayer(new SquareTerrainLayer(terrainSizeX, terrainSizeY));
-						for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-							for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-								System.out.println(tileIndexX);
-								System.out.println(tileIndexY);
-								double tile = Double.parseDouble(values[tileIndexY][tileIndexX]);
-								terrain.getWaterLayer().setTile(tileIndexX, tileIndexY, tile);
-							}
-						}
-					}
-				}
-
-				// magma layer
-				if (scanner.hasNext()) {
-					String result = scanner.next();
-					if (result.equals("-")) {
-						// No magma layer
-					} else {
-						String[] lines = result.split("\n");
-						String[][] values = new String[lines.length][];
-						for (int i = 0; i < lines.length; ++i) {
-							values[i] = lines[i].split(",");
-						}
-						if (terrainSizeY != terrain.getSizeY() || terrainSizeX != terrain.getSizeX()) {
-							throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
-						}
-						terrain.setMagmaLayer(new SquareTerrainLayer(terrainSizeX, terrainSizeY));
-						for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-							for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-								double tile = Double.parseDouble(values[tileIndexY][tileIndexX]);
-								terrain.getMagmaLayer().setTile(tileIndexX, tileIndexY, tile);
-							}
-						}
-					}
-				}
-
-			} catch (Exception exception) {
-				throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
-			}
+		SquareTerrain terrain = TerrainUtil.importTerrain(formatName, input);
+		if (terrain != null) {
+			this.terrain = terrain;
 		}
 	}
 
@@ -438,57 +605,12 @@ public class SquareTerrainConfigurer extends TerrainConfigurer<SquareTerrain> {
 		if (terrain == null) {
 			throw new NullPointerException(ERROR_NO_TERRAIN.getValue());
 		}
-		switch (formatName) {
-		case "csv":
-		case "CSV":
-			OutputStreamWriter writer = new OutputStreamWriter(output);
-			int terrainSizeY = terrain.getSizeY();
-			int terrainSizeX = terrain.getSizeX();
-
-			// land layer
-			for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-				for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-					double tile = terrain.getLandLayer().getTile(tileIndexX, tileIndexY);
-					writer.write(Double.toString(tile));
-					writer.write(",");
-				}
-				writer.write("\n");
-			}
-			writer.write("\n");
-
-			// water layer
-			if (terrain.getWaterLayer() == null) {
-				writer.write("-\n");
-			} else {
-				for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-					for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-						double tile = terrain.getWaterLayer().getTile(tileIndexX, tileIndexY);
-						writer.write(Double.toString(tile));
-						writer.write(",");
-					}
-					writer.write("\n");
-				}
-			}
-			writer.write("\n");
-
-			// magma layer
-			if (terrain.getMagmaLayer() == null) {
-				writer.write("-\n");
-			} else {
-				for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
-					for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
-						double tile = terrain.getMagmaLayer().getTile(tileIndexX, tileIndexY);
-						writer.write(Double.toString(tile));
-						writer.write(",");
-					}
-					writer.write("\n");
-				}
-			}
-			writer.write("\n");
+		TerrainUtil.exportTerrain(this.terrain, formatName, output);
+	}
 
-			// It is needed to flush the stream, otherwise the data may be cut off
-			writer.flush();
-		}
+	@Override
+	public void exportTerrain(SquareTerrain terrain, String formatName, OutputStream output) throws IOException {
+		TerrainUtil.exportTerrain(terrain, formatName, output);
 	}
 
 }
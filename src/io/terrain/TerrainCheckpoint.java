@@ -0,0 +1,406 @@
+/*
+ * TerrainCheckpoint.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.terrain;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import core.Crease;
+import core.PlatePlan;
+import core.terrain.SquareTerrain;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+import core.terrain.SquareTerrainStamper;
+
+/**
+ * The state of a square terrain partway through its generation, which can be
+ * saved to a file and loaded again to continue the generation after the program
+ * is stopped.
+ *
+ * A checkpoint contains the plan, the number of plates whose influence has been
+ * added so far and the land and magma accumulated from them, along with the
+ * parameters needed to finish the terrain. The random generator is only used to
+ * make the plan before any plate is applied, so the plan is saved instead of
+ * the state of the generator. The crease is saved too, so a generation is always
+ * continued with the crease it was started with.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.terrain.SquareTerrainStamper#stamp(SquareTerrain, Crease, PlatePlan, int, int)
+ *
+ */
+public class TerrainCheckpoint {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The first bytes of a checkpoint file.
+	 */
+	private static final int MAGIC_NUMBER = 0x54544350;
+	/**
+	 * The version of the format of checkpoint files.
+	 */
+	private static final int FORMAT_VERSION = 2;
+	/**
+	 * The size of the buffers used to read and write checkpoint files.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The seed the plan was made with.
+	 */
+	private final long seed;
+	/**
+	 * The terrain being generated.
+	 */
+	private final SquareTerrain terrain;
+	/**
+	 * Whether the terrain wraps around along the x axis.
+	 */
+	private final boolean wrapAroundX;
+	/**
+	 * Whether the terrain wraps around along the y axis.
+	 */
+	private final boolean wrapAroundY;
+	/**
+	 * The sea level, used if the terrain has water.
+	 */
+	private final double seaLevel;
+	/**
+	 * The crust thickness, used if the terrain has magma.
+	 */
+	private final double crustThickness;
+	/**
+	 * The plan the terrain is generated from.
+	 */
+	private final PlatePlan platePlan;
+	/**
+	 * The crease the terrain is generated with.
+	 */
+	private final Crease crease;
+	/**
+	 * The number of plates of the plan whose influence has been added to the
+	 * terrain.
+	 */
+	private int appliedPlates;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Create a new checkpoint of a terrain whose generation hasn't started yet.
+	 * 
+	 * @param seed           The seed the plan was made with.
+	 * @param terrain        A terrain whose tiles are all 0.
+	 * @param wrapAroundX    Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY    Whether the terrain wraps around along the y axis.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param platePlan      The plan the terrain is generated from.
+	 * @param crease         The crease the terrain is generated with.
+	 * @throws IllegalArgumentException If the plan doesn't fit the size of the
+	 *                                  terrain.
+	 */
+	public TerrainCheckpoint(long seed, SquareTerrain terrain, boolean wrapAroundX, boolean wrapAroundY,
+			double seaLevel, double crustThickness, PlatePlan platePlan, Crease crease) {
+		this(seed, terrain, wrapAroundX, wrapAroundY, seaLevel, crustThickness, platePlan, crease, 0);
+	}
+
+	/**
+	 * Create a new checkpoint of a terrain with the influence of the given number
+	 * of plates of its plan already added.
+	 * 
+	 * @param seed           The seed the plan was made with.
+	 * @param terrain        A terrain.
+	 * @param wrapAroundX    Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY    Whether the terrain wraps around along the y axis.
+	 * @param seaLevel       The sea level, used if the terrain has water.
+	 * @param crustThickness The crust thickness, used if the terrain has magma.
+	 * @param platePlan      The plan the terrain is generated from.
+	 * @param crease         The crease the terrain is generated with.
+	 * @param appliedPlates  The number of plates whose influence has been added.
+	 * @throws IllegalArgumentException If the plan doesn't fit the size of the
+	 *                                  terrain or the number of plates applied
+	 *                                  isn't within the plates of the plan.
+	 */
+	public TerrainCheckpoint(long seed, SquareTerrain terrain, boolean wrapAroundX, boolean wrapAroundY,
+			double seaLevel, double crustThickness, PlatePlan platePlan, Crease crease, int appliedPlates) {
+		if (!platePlan.isWithin(terrain.getSizeX(), terrain.getSizeY())) {
+			throw new IllegalArgumentException("The plan doesn't fit the size of the terrain.");
+		}
+		if (appliedPlates < 0 || appliedPlates > platePlan.getNumberOfPlates()) {
+			throw new IllegalArgumentException("The number of plates applied must be within the plan.");
+		}
+		this.seed = seed;
+		this.terrain = terrain;
+		this.wrapAroundX = wrapAroundX;
+		this.wrapAroundY = wrapAroundY;
+		this.seaLevel = seaLevel;
+		this.crustThickness = crustThickness;
+		this.platePlan = platePlan;
+		this.crease = crease;
+		this.appliedPlates = appliedPlates;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Loads a checkpoint from the given file.
+	 * 
+	 * @param file A file saved by {@link #save(File)}.
+	 * @return The checkpoint saved in the file.
+	 * @throws IOException If the file can't be read or isn't a checkpoint.
+	 */
+	public static TerrainCheckpoint load(File file) throws IOException {
+		try (ObjectInputStream input = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+			// Only creases are read as objects, so a checkpoint can't create anything
+			// else
+			input.setObjectInputFilter(DistributedGeneration.CREASE_FILTER);
+			if (input.readInt() != MAGIC_NUMBER || input.readInt() != FORMAT_VERSION) {
+				throw new IOException("The file isn't a checkpoint.");
+			}
+			long seed = input.readLong();
+			int sizeX = input.readInt();
+			int sizeY = input.readInt();
+			boolean wrapAroundX = input.readBoolean();
+			boolean wrapAroundY = input.readBoolean();
+			boolean hasWater = input.readBoolean();
+			boolean hasMagma = input.readBoolean();
+			double seaLevel = input.readDouble();
+			double crustThickness = input.readDouble();
+			int numberOfPlates = input.readInt();
+			if (sizeX < 1 || sizeY < 1 || numberOfPlates < 0) {
+				throw new IOException("The file isn't a checkpoint.");
+			}
+			PlatePlan platePlan = new PlatePlan(numberOfPlates);
+			for (int plateIndex = 0; plateIndex < numberOfPlates; ++plateIndex) {
+				platePlan.setMovement(plateIndex, input.readInt(), input.readInt(), input.readInt(),
+						input.readInt());
+			}
+			Crease crease = (Crease) input.readObject();
+			int appliedPlates = input.readInt();
+			SquareTerrain terrain = new SquareTerrain(sizeX, sizeY, hasWater, hasMagma);
+			read(input, terrain.getLandLayer());
+			if (hasMagma) {
+				read(input, terrain.getMagmaLayer());
+			}
+			return new TerrainCheckpoint(seed, terrain, wrapAroundX, wrapAroundY, seaLevel, crustThickness, platePlan,
+					crease, appliedPlates);
+		} catch (StreamCorruptedException | ClassNotFoundException | ClassCastException
+				| IllegalArgumentException exception) {
+			throw new IOException("The file isn't a checkpoint.", exception);
+		}
+	}
+
+	/**
+	 * Reads the tiles of the given layer in row major order.
+	 * 
+	 * @param input An input.
+	 * @param layer A layer.
+	 * @throws IOException If the input can't be read.
+	 */
+	static void read(DataInput input, SquareTerrainLayer layer) throws IOException {
+		for (int tileIndexY = 0; tileIndexY < layer.getSizeY(); ++tileIndexY) {
+			for (int tileIndexX = 0; tileIndexX < layer.getSizeX(); ++tileIndexX) {
+				layer.setTile(tileIndexX, tileIndexY, input.readDouble());
+			}
+		}
+	}
+
+	/**
+	 * Writes the tiles of the given layer in row major order.
+	 * 
+	 * @param output An output.
+	 * @param layer  A layer.
+	 * @throws IOException If the output can't be written.
+	 */
+	static void write(DataOutput output, SquareTerrainLayer layer) throws IOException {
+		for (int tileIndexY = 0; tileIndexY < layer.getSizeY(); ++tileIndexY) {
+			for (int tileIndexX = 0; tileIndexX < layer.getSizeX(); ++tileIndexX) {
+				output.writeDouble(layer.getTile(tileIndexX, tileIndexY));
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the seed the plan was made with.
+	 * 
+	 * @return The seed the plan was made with.
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Get the terrain being generated.
+	 * 
+	 * @return The terrain being generated.
+	 */
+	public SquareTerrain getTerrain() {
+		return this.terrain;
+	}
+
+	/**
+	 * Get whether the terrain wraps around along the x axis.
+	 * 
+	 * @return Whether the terrain wraps around along the x axis.
+	 */
+	public boolean isWrapAroundX() {
+		return this.wrapAroundX;
+	}
+
+	/**
+	 * Get whether the terrain wraps around along the y axis.
+	 * 
+	 * @return Whether the terrain wraps around along the y axis.
+	 */
+	public boolean isWrapAroundY() {
+		return this.wrapAroundY;
+	}
+
+	/**
+	 * Get the plan the terrain is generated from.
+	 * 
+	 * @return The plan the terrain is generated from.
+	 */
+	public PlatePlan getPlatePlan() {
+		return this.platePlan;
+	}
+
+	/**
+	 * Get the crease the terrain is generated with.
+	 * 
+	 * @return The crease the terrain is generated with.
+	 */
+	public Crease getCrease() {
+		return this.crease;
+	}
+
+	/**
+	 * Get the number of plates of the plan whose influence has been added to the
+	 * terrain.
+	 * 
+	 * @return The number of plates applied.
+	 */
+	public int getAppliedPlates() {
+		return this.appliedPlates;
+	}
+
+	/**
+	 * Continues the generation of the terrain from this checkpoint, saving this
+	 * checkpoint to the given file after every given number of plates. The file is
+	 * deleted once the terrain is finished.
+	 * 
+	 * The terrain is the same as if it had been generated at once by the stamping
+	 * engine, regardless of the number of plates between checkpoints and of how
+	 * many times the generation is stopped and continued.
+	 * 
+	 * @param stamper            A stamper that wraps around like the terrain.
+	 * @param checkpointInterval The number of plates between checkpoints.
+	 * @param file               The file checkpoints are saved to.
+	 * @return The finished terrain.
+	 * @throws IllegalArgumentException If the number of plates between
+	 *                                  checkpoints is lower than 1.
+	 * @throws IOException              If a checkpoint can't be saved.
+	 */
+	public SquareTerrain generate(SquareTerrainStamper stamper, int checkpointInterval, File file)
+			throws IOException {
+		if (checkpointInterval < 1) {
+			throw new IllegalArgumentException("The number of plates between checkpoints must be at least 1.");
+		}
+		int numberOfPlates = this.platePlan.getNumberOfPlates();
+		while (this.appliedPlates < numberOfPlates) {
+			int lastPlate = (int) java.lang.Math.min(numberOfPlates, (long) this.appliedPlates + checkpointInterval);
+			stamper.stamp(this.terrain, this.crease, this.platePlan, this.appliedPlates, lastPlate);
+			this.appliedPlates = lastPlate;
+			if (this.appliedPlates < numberOfPlates) {
+				this.save(file);
+			}
+		}
+		stamper.finish(this.terrain, this.seaLevel, this.crustThickness);
+		this.terrain.setSeed(this.seed);
+		Files.deleteIfExists(file.toPath());
+		return this.terrain;
+	}
+
+	/**
+	 * Saves this checkpoint to the given file. The checkpoint is written to a
+	 * temporary file first and then moved over the given file, so the file keeps
+	 * the previous checkpoint if the program is stopped while saving.
+	 * 
+	 * @param file A file.
+	 * @throws IOException If the file can't be written.
+	 */
+	public void save(File file) throws IOException {
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try (ObjectOutputStream output = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE))) {
+			output.writeInt(MAGIC_NUMBER);
+			output.writeInt(FORMAT_VERSION);
+			output.writeLong(this.seed);
+			output.writeInt(this.terrain.getSizeX());
+			output.writeInt(this.terrain.getSizeY());
+			output.writeBoolean(this.wrapAroundX);
+			output.writeBoolean(this.wrapAroundY);
+			output.writeBoolean(this.terrain.getWaterLayer() != null);
+			output.writeBoolean(this.terrain.getMagmaLayer() != null);
+			output.writeDouble(this.seaLevel);
+			output.writeDouble(this.crustThickness);
+			output.writeInt(this.platePlan.getNumberOfPlates());
+			for (int plateIndex = 0; plateIndex < this.platePlan.getNumberOfPlates(); ++plateIndex) {
+				output.writeInt(this.platePlan.getStartX(plateIndex));
+				output.writeInt(this.platePlan.getStartY(plateIndex));
+				output.writeInt(this.platePlan.getEndX(plateIndex));
+				output.writeInt(this.platePlan.getEndY(plateIndex));
+			}
+			output.writeObject(this.crease);
+			output.writeInt(this.appliedPlates);
+			write(output, this.terrain.getLandLayer());
+			if (this.terrain.getMagmaLayer() != null) {
+				write(output, this.terrain.getMagmaLayer());
+			}
+		}
+		Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
@@ -21,7 +21,35 @@
 
 package io.terrain;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+
+import core.Crease;
+import core.PlatePlan;
+import core.terrain.SquareTerrain;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+import core.terrain.SquareTerrainConvolver;
+import core.terrain.SquareTerrainEngine;
+import core.terrain.SquareTerrainEngineSelector;
+import core.terrain.SquareTerrainFixedPointStamper;
+import core.terrain.SquareTerrainStamper;
+import core.terrain.StampCache;
+import io.ParameterSweep.Stage;
+import parameter.configuration.ConfigurationConfigurer;
+import parameter.i18n.InternationalizedString;
 import parameter.parameter.IntegerParameter;
+import parameter.parameter.OptionParameter;
 import parameter.parameter.OptionalParameter;
 import parameter.parameter.ParameterUtil;
 
@@ -29,13 +57,23 @@ import parameter.parameter.ParameterUtil;
  * Utilities related to terrain.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.3
  * @see io.TerrainConfigurer
  *
  */
 public class TerrainUtil {
 
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The logger the engines set by the configuration are logged to.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(TerrainUtil.class.getName());
+	private static final InternationalizedString TERRAIN_EXCEPTION_FORMAT = new InternationalizedString(
+			"terrain.exception.format");
+
 	////////////////////////////////////////////////////////////////////////////////
 	// Nested classes
 
@@ -121,4 +159,583 @@ public class TerrainUtil {
 
 	}
 
+	/**
+	 * The values of the parameters of a square terrain configurer that a
+	 * generation depends on, read once when the generation starts.
+	 *
+	 * @author Javier Centeno Vega <jacenve@telefonica.net>
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 */
+	public static final class TerrainSettings {
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance fields
+
+		private final int sizeX;
+		private final int sizeY;
+		private final boolean wrapAroundX;
+		private final boolean wrapAroundY;
+		private final boolean hasWater;
+		private final boolean hasMagma;
+		/**
+		 * The sea level, or 0 if the terrain has no water.
+		 */
+		private final double seaLevel;
+		/**
+		 * The crust thickness, or 0 if the terrain has no magma.
+		 */
+		private final double crustThickness;
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance initializers
+
+		/**
+		 * Reads the current values of the given parameters.
+		 * 
+		 * @param sizeX           The amount of tiles of the terrain along the x axis.
+		 * @param sizeY           The amount of tiles of the terrain along the y axis.
+		 * @param wrapAroundX     Whether the terrain wraps around along the x axis.
+		 * @param wrapAroundY     Whether the terrain wraps around along the y axis.
+		 * @param waterParameters The parameters of the water of the terrain.
+		 * @param magmaParameters The parameters of the magma of the terrain.
+		 */
+		public TerrainSettings(int sizeX, int sizeY, OptionParameter<Boolean> wrapAroundX,
+				OptionParameter<Boolean> wrapAroundY, WaterParameters waterParameters,
+				MagmaParameters magmaParameters) {
+			this.sizeX = sizeX;
+			this.sizeY = sizeY;
+			this.wrapAroundX = wrapAroundX.getCurrentValue();
+			this.wrapAroundY = wrapAroundY.getCurrentValue();
+			this.hasWater = waterParameters.getDeterminer().getCurrentValue();
+			this.hasMagma = magmaParameters.getDeterminer().getCurrentValue();
+			this.seaLevel = this.hasWater ? (double) waterParameters.getSeaLevel().getCurrentValue().getValue()
+					: 0.0d;
+			this.crustThickness = this.hasMagma
+					? (double) magmaParameters.getCrustThickness().getCurrentValue().getValue()
+					: 0.0d;
+		}
+
+		////////////////////////////////////////////////////////////////////////////////
+		// Instance methods
+
+		public int getSizeX() {
+			return this.sizeX;
+		}
+
+		public int getSizeY() {
+			return this.sizeY;
+		}
+
+		public boolean isWrapAroundX() {
+			return this.wrapAroundX;
+		}
+
+		public boolean isWrapAroundY() {
+			return this.wrapAroundY;
+		}
+
+		public boolean hasWater() {
+			return this.hasWater;
+		}
+
+		public boolean hasMagma() {
+			return this.hasMagma;
+		}
+
+		public double getSeaLevel() {
+			return this.seaLevel;
+		}
+
+		public double getCrustThickness() {
+			return this.crustThickness;
+		}
+
+		/**
+		 * Checks that the given plan fits the size of the terrain.
+		 * 
+		 * @param platePlan A plan.
+		 * @throws IllegalArgumentException If the plan doesn't fit the size of the
+		 *                                  terrain.
+		 */
+		public void checkPlan(PlatePlan platePlan) {
+			if (!platePlan.isWithin(this.sizeX, this.sizeY)) {
+				throw new IllegalArgumentException("The plan doesn't fit the size of the terrain.");
+			}
+		}
+
+		/**
+		 * Get a terrain with the size and layers of these settings and all its tiles
+		 * set to zero, reusing the given terrain if it has that size and those
+		 * layers.
+		 * 
+		 * @param buffer A terrain whose tiles can be overwritten, or null.
+		 * @return The given terrain cleared if it fits, or a new terrain otherwise.
+		 */
+		public SquareTerrain createTerrain(SquareTerrain buffer) {
+			return TerrainUtil.createTerrain(buffer, this.sizeX, this.sizeY, this.hasWater, this.hasMagma);
+		}
+
+		/**
+		 * Creates the engine set by the configuration for a terrain with these
+		 * settings, as in
+		 * {@link TerrainUtil#createEngine(int, int, boolean, boolean, Crease, PlatePlan, StampCache)}.
+		 * 
+		 * @param crease     The crease used to generate the terrain.
+		 * @param platePlan  The plan used to generate the terrain.
+		 * @param stampCache The stamp cache used when stamping, or null.
+		 * @return The engine used to generate the layers of the terrain.
+		 */
+		public SquareTerrainEngine createEngine(Crease crease, PlatePlan platePlan, StampCache stampCache) {
+			return TerrainUtil.createEngine(this.sizeX, this.sizeY, this.wrapAroundX, this.wrapAroundY, crease,
+					platePlan, stampCache);
+		}
+
+		/**
+		 * Creates a stamping engine for a terrain with these settings, as in
+		 * {@link TerrainUtil#createStamper(boolean, boolean, StampCache)}.
+		 * 
+		 * @param stampCache The stamp cache used when stamping, or null.
+		 * @return A stamping engine.
+		 */
+		public SquareTerrainStamper createStamper(StampCache stampCache) {
+			return TerrainUtil.createStamper(this.wrapAroundX, this.wrapAroundY, stampCache);
+		}
+
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Creates the engine used to generate the layers of a square terrain, as given
+	 * by the configuration. If the configuration asks for an automatic choice, the
+	 * engine with the lowest estimated cost is chosen, among the engines whose
+	 * result is the same as stamping unless approximate engines are allowed. If
+	 * the configuration doesn't name an engine, the terrain is stamped.
+	 * 
+	 * @param sizeX       The amount of tiles of the terrain along the x axis.
+	 * @param sizeY       The amount of tiles of the terrain along the y axis.
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param crease      The crease used to generate the terrain.
+	 * @param platePlan   The plan used to generate the terrain.
+	 * @param stampCache  The stamp cache used when stamping, or null.
+	 * @return The engine used to generate the layers of a square terrain.
+	 */
+	public static SquareTerrainEngine createEngine(int sizeX, int sizeY, boolean wrapAroundX, boolean wrapAroundY,
+			Crease crease, PlatePlan platePlan, StampCache stampCache) {
+		ConfigurationConfigurer configuration = ConfigurationConfigurer.getConfiguration();
+		int parallelism = configuration.getParallelismParameter().getCurrentValue().getValue();
+		String engine = configuration.getEngineParameter().getCurrentValue();
+		if ("convolution".equals(engine)) {
+			LOGGER.info("Using convolution engine set by the configuration");
+			return new SquareTerrainConvolver(wrapAroundX, wrapAroundY, parallelism);
+		}
+		if ("fixed".equals(engine)) {
+			LOGGER.info("Using fixed point stamping engine set by the configuration");
+			return new SquareTerrainFixedPointStamper(wrapAroundX, wrapAroundY, parallelism,
+					SquareTerrainFixedPointStamper.DEFAULT_SCALE, stampCache);
+		}
+		if ("automatic".equals(engine) || "approximate".equals(engine)) {
+			return new SquareTerrainEngineSelector(wrapAroundX, wrapAroundY, parallelism, stampCache,
+					"approximate".equals(engine)).select(sizeX, sizeY, crease, platePlan);
+		}
+		LOGGER.info("Using stamping engine set by the configuration");
+		return new SquareTerrainStamper(wrapAroundX, wrapAroundY, parallelism, stampCache);
+	}
+
+	/**
+	 * Creates a stamping engine using the number of threads given by the
+	 * configuration, used to generate the regions of a square terrain.
+	 * 
+	 * @param wrapAroundX Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY Whether the terrain wraps around along the y axis.
+	 * @param stampCache  The stamp cache used when stamping, or null.
+	 * @return A stamping engine.
+	 */
+	public static SquareTerrainStamper createStamper(boolean wrapAroundX, boolean wrapAroundY,
+			StampCache stampCache) {
+		int parallelism = ConfigurationConfigurer.getConfiguration().getParallelismParameter().getCurrentValue()
+				.getValue();
+		return new SquareTerrainStamper(wrapAroundX, wrapAroundY, parallelism, stampCache);
+	}
+
+	/**
+	 * Get a square terrain of the given size and layers with all its tiles set to
+	 * zero, reusing the given terrain if it has that size and those layers.
+	 * 
+	 * @param buffer   A terrain whose tiles can be overwritten, or null.
+	 * @param sizeX    The amount of tiles along the x axis.
+	 * @param sizeY    The amount of tiles along the y axis.
+	 * @param hasWater Whether the terrain has water.
+	 * @param hasMagma Whether the terrain has magma.
+	 * @return The given terrain cleared if it fits, or a new terrain otherwise.
+	 */
+	public static SquareTerrain createTerrain(SquareTerrain buffer, int sizeX, int sizeY, boolean hasWater,
+			boolean hasMagma) {
+		if (buffer == null || buffer.getSizeX() != sizeX || buffer.getSizeY() != sizeY
+				|| (buffer.getWaterLayer() != null) != hasWater || (buffer.getMagmaLayer() != null) != hasMagma) {
+			return new SquareTerrain(sizeX, sizeY, hasWater, hasMagma);
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Reads a square terrain from the given input stream using the given format.
+	 * 
+	 * @param formatName A file format, "csv" or "CSV".
+	 * @param input      An input stream.
+	 * @return The terrain read, or null if the format isn't supported.
+	 * @throws IOException If an I/O error occurs or the input doesn't have the
+	 *                     given format.
+	 */
+	public static SquareTerrain importTerrain(String formatName, InputStream input) throws IOException {
+		switch (formatName) {
+		case "csv":
+		case "CSV":
+			Scanner scanner = new Scanner(input).useDelimiter("\n\n");
+			try {
+
+				SquareTerrain terrain;
+				int terrainSizeY;
+				int terrainSizeX;
+
+				// land layer
+				if (scanner.hasNext()) {
+					String result = scanner.next();
+					String[] lines = result.split("\n");
+					String[][] values = new String[lines.length][];
+					for (int i = 0; i < lines.length; ++i) {
+						values[i] = lines[i].split(",");
+					}
+					terrain = new SquareTerrain(values[0].length, values.length, false, false);
+					terrainSizeY = terrain.getSizeY();
+					terrainSizeX = terrain.getSizeX();
+					for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
+						for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+							double tile = Double.parseDouble(values[tileIndexY][tileIndexX]);
+							terrain.getLandLayer().setTile(tileIndexX, tileIndexY, tile);
+						}
+					}
+				} else {
+					throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
+				}
+
+				// water layer
+				if (scanner.hasNext()) {
+					String result = scanner.next();
+					if (result.equals("-")) {
+						// No water layer
+					} else {
+						String[] lines = result.split("\n");
+						String[][] values = new String[lines.length][];
+						for (int i = 0; i < lines.length; ++i) {
+							values[i] = lines[i].split(",");
+						}
+						if (terrainSizeY != terrain.getSizeY() || terrainSizeX != terrain.getSizeX()) {
+							throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
+						}
+						terrain.setWaterLayer(new SquareTerrainLayer(terrainSizeX, terrainSizeY));
+						for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
+							for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+								double tile = Double.parseDouble(values[tileIndexY][tileIndexX]);
+								terrain.getWaterLayer().setTile(tileIndexX, tileIndexY, tile);
+							}
+						}
+					}
+				}
+
+				// magma layer
+				if (scanner.hasNext()) {
+					String result = scanner.next();
+					if (result.equals("-")) {
+						// No magma layer
+					} else {
+						String[] lines = result.split("\n");
+						String[][] values = new String[lines.length][];
+						for (int i = 0; i < lines.length; ++i) {
+							values[i] = lines[i].split(",");
+						}
+						if (terrainSizeY != terrain.getSizeY() || terrainSizeX != terrain.getSizeX()) {
+							throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
+						}
+						terrain.setMagmaLayer(new SquareTerrainLayer(terrainSizeX, terrainSizeY));
+						for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
+							for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+								double tile = Double.parseDouble(values[tileIndexY][tileIndexX]);
+								terrain.getMagmaLayer().setTile(tileIndexX, tileIndexY, tile);
+							}
+						}
+					}
+				}
+
+				return terrain;
+			} catch (Exception exception) {
+				throw new TerrainFormatException(TERRAIN_EXCEPTION_FORMAT.getValue());
+			}
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the given square terrain to the given output stream using the given
+	 * format.
+	 * 
+	 * @param terrain    A terrain.
+	 * @param formatName A file format, "csv" or "CSV".
+	 * @param output     An output stream.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public static void exportTerrain(SquareTerrain terrain, String formatName, OutputStream output)
+			throws IOException {
+		switch (formatName) {
+		case "csv":
+		case "CSV":
+			OutputStreamWriter writer = new OutputStreamWriter(output);
+			int terrainSizeY = terrain.getSizeY();
+			int terrainSizeX = terrain.getSizeX();
+
+			// land layer
+			for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
+				for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+					double tile = terrain.getLandLayer().getTile(tileIndexX, tileIndexY);
+					writer.write(Double.toString(tile));
+					writer.write(",");
+				}
+				writer.write("\n");
+			}
+			writer.write("\n");
+
+			// water layer
+			if (terrain.getWaterLayer() == null) {
+				writer.write("-\n");
+			} else {
+				for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
+					for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+						double tile = terrain.getWaterLayer().getTile(tileIndexX, tileIndexY);
+						writer.write(Double.toString(tile));
+						writer.write(",");
+					}
+					writer.write("\n");
+				}
+			}
+			writer.write("\n");
+
+			// magma layer
+			if (terrain.getMagmaLayer() == null) {
+				writer.write("-\n");
+			} else {
+				for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
+					for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+						double tile = terrain.getMagmaLayer().getTile(tileIndexX, tileIndexY);
+						writer.write(Double.toString(tile));
+						writer.write(",");
+					}
+					writer.write("\n");
+				}
+			}
+			writer.write("\n");
+
+			// It is needed to flush the stream, otherwise the data may be cut off
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Draws the given square terrain, coloring each tile by its layers within the
+	 * range of values of all tiles and layers of the terrain.
+	 * 
+	 * @param terrain A terrain.
+	 * @return An image of the size of the terrain.
+	 */
+	public static RenderedImage toImage(SquareTerrain terrain) {
+		double[] range = findRange(terrain);
+		BufferedImage image = new BufferedImage(terrain.getSizeX(), terrain.getSizeY(), BufferedImage.TYPE_INT_ARGB);
+		draw(terrain, image, 0, 0, terrain.getSizeX(), terrain.getSizeY(), range[0], range[1]);
+		return image;
+	}
+
+	/**
+	 * Finds the range of values of all tiles and layers of the given square
+	 * terrain.
+	 * 
+	 * @param terrain A terrain.
+	 * @return An array with the lowest value followed by the highest value.
+	 */
+	public static double[] findRange(SquareTerrain terrain) {
+		int terrainSizeY = terrain.getSizeY();
+		int terrainSizeX = terrain.getSizeX();
+		SquareTerrainLayer[] layers = { terrain.getLandLayer(), terrain.getWaterLayer(), terrain.getMagmaLayer() };
+		double lowestTile = Double.POSITIVE_INFINITY;
+		double highestTile = Double.NEGATIVE_INFINITY;
+		for (SquareTerrainLayer layer : layers) {
+			if (layer == null) {
+				continue;
+			}
+			for (int tileIndexY = 0; tileIndexY < terrainSizeY; ++tileIndexY) {
+				for (int tileIndexX = 0; tileIndexX < terrainSizeX; ++tileIndexX) {
+					double tile = layer.getTile(tileIndexX, tileIndexY);
+					lowestTile = java.lang.Math.min(lowestTile, tile);
+					highestTile = java.lang.Math.max(highestTile, tile);
+				}
+			}
+		}
+		return new double[] { lowestTile, highestTile };
+	}
+
+	/**
+	 * Draws the tiles of the given square terrain within the given range of
+	 * indices on the given image, coloring each tile by its layers within the
+	 * given range of values.
+	 * 
+	 * @param terrain     A terrain.
+	 * @param image       An image of the size of the terrain.
+	 * @param firstX      The first index along the x axis.
+	 * @param firstY      The first index along the y axis.
+	 * @param lastX       The index after the last index along the x axis.
+	 * @param lastY       The index after the last index along the y axis.
+	 * @param lowestTile  The lowest value of the range.
+	 * @param highestTile The highest value of the range.
+	 */
+	public static void draw(SquareTerrain terrain, BufferedImage image, int firstX, int firstY, int lastX, int lastY,
+			double lowestTile, double highestTile) {
+		SquareTerrainLayer landLayer = terrain.getLandLayer();
+		SquareTerrainLayer waterLayer = terrain.getWaterLayer();
+		SquareTerrainLayer magmaLayer = terrain.getMagmaLayer();
+		for (int tileIndexY = firstY; tileIndexY < lastY; ++tileIndexY) {
+			for (int tileIndexX = firstX; tileIndexX < lastX; ++tileIndexX) {
+				double land = landLayer.getTile(tileIndexX, tileIndexY);
+				double water = waterLayer == null ? Double.NEGATIVE_INFINITY
+						: waterLayer.getTile(tileIndexX, tileIndexY);
+				double magma = magmaLayer == null ? Double.NEGATIVE_INFINITY
+						: magmaLayer.getTile(tileIndexX, tileIndexY);
+				image.setRGB(tileIndexX, tileIndexY, TileUtil.tileToColor(land, water, magma, lowestTile, highestTile));
+			}
+		}
+	}
+
+	/**
+	 * Creates a stage of a parameter sweep whose result is a square terrain
+	 * stamped with one thread, since the cells of the sweep already run at once,
+	 * and with its magma not yet shifted by the crust thickness.
+	 * 
+	 * @param planStage       A stage whose result is a plan.
+	 * @param creaseStage     A stage whose result is a crease.
+	 * @param sizeX           Gets the current amount of tiles along the x axis.
+	 * @param sizeY           Gets the current amount of tiles along the y axis.
+	 * @param wrapAroundX     Whether the terrain wraps around along the x axis.
+	 * @param wrapAroundY     Whether the terrain wraps around along the y axis.
+	 * @param magmaParameters The parameters related to magma.
+	 * @param stampCache      The stamp cache used when stamping, or null.
+	 * @return A stage whose result is a stamped terrain.
+	 * @see io.SweepableTerrainConfigurer#createStampingStage(Stage, Stage)
+	 */
+	public static Stage<SquareTerrain> createStampingStage(Stage<PlatePlan> planStage,
+			Stage<? extends Crease> creaseStage, IntSupplier sizeX, IntSupplier sizeY,
+			OptionParameter<Boolean> wrapAroundX, OptionParameter<Boolean> wrapAroundY,
+			MagmaParameters magmaParameters, StampCache stampCache) {
+		return new Stage<SquareTerrain>(planStage, creaseStage) {
+
+			@Override
+			protected List<Object> getParameters() {
+				return Arrays.asList(sizeX.getAsInt(), sizeY.getAsInt(), wrapAroundX.getCurrentValue(),
+						wrapAroundY.getCurrentValue(), magmaParameters.getDeterminer().getCurrentValue());
+			}
+
+			@Override
+			protected Function<List<Object>, SquareTerrain> prepare(List<Object> parameters) {
+				int terrainSizeX = (Integer) parameters.get(0);
+				int terrainSizeY = (Integer) parameters.get(1);
+				boolean hasMagma = (Boolean) parameters.get(4);
+				SquareTerrainStamper stamper = new SquareTerrainStamper((Boolean) parameters.get(2),
+						(Boolean) parameters.get(3), 1, stampCache);
+				return inputs -> {
+					PlatePlan platePlan = (PlatePlan) inputs.get(0);
+					if (!platePlan.isWithin(terrainSizeX, terrainSizeY)) {
+						throw new IllegalArgumentException("The plan doesn't fit the size of the terrain.");
+					}
+					SquareTerrain terrain = new SquareTerrain(terrainSizeX, terrainSizeY, false, hasMagma);
+					stamper.generate(terrain, (Crease) inputs.get(1), platePlan, 0.0d, 0.0d);
+					return terrain;
+				};
+			}
+
+		};
+	}
+
+	/**
+	 * Creates a stage of a parameter sweep whose result is the square terrain of
+	 * the given stage with its water filled with the sea level and its magma
+	 * shifted by the crust thickness. The land layer is shared with the terrain of
+	 * the given stage.
+	 * 
+	 * @param stampingStage   A stage whose result is a stamped terrain.
+	 * @param waterParameters The parameters related to water.
+	 * @param magmaParameters The parameters related to magma.
+	 * @return A stage whose result is a terrain.
+	 * @see io.SweepableTerrainConfigurer#createPostPassStage(Stage)
+	 */
+	public static Stage<SquareTerrain> createPostPassStage(Stage<SquareTerrain> stampingStage,
+			WaterParameters waterParameters, MagmaParameters magmaParameters) {
+		return new Stage<SquareTerrain>(stampingStage) {
+
+			@Override
+			protected List<Object> getParameters() {
+				// Parameters of layers the terrain doesn't have don't change the result
+				boolean hasWater = waterParameters.getDeterminer().getCurrentValue();
+				boolean hasMagma = magmaParameters.getDeterminer().getCurrentValue();
+				return Arrays.asList(hasWater ? waterParameters.getSeaLevel().getCurrentValue().getValue() : null,
+						hasMagma ? magmaParameters.getCrustThickness().getCurrentValue().getValue() : null);
+			}
+
+			@Override
+			protected Function<List<Object>, SquareTerrain> prepare(List<Object> parameters) {
+				boolean hasWater = parameters.get(0) != null;
+				double seaLevel = hasWater ? (Integer) parameters.get(0) : 0.0d;
+				double crustThickness = parameters.get(1) == null ? 0.0d : (Integer) parameters.get(1);
+				return inputs -> {
+					SquareTerrain stampedTerrain = (SquareTerrain) inputs.get(0);
+					SquareTerrain terrain = new SquareTerrain(stampedTerrain.getSizeX(), stampedTerrain.getSizeY(),
+							hasWater, false);
+					terrain.setLandLayer(stampedTerrain.getLandLayer());
+					if (stampedTerrain.getMagmaLayer() != null) {
+						terrain.setMagmaLayer(new SquareTerrainLayer(stampedTerrain.getMagmaLayer()));
+					}
+					new SquareTerrainStamper(false, false).finish(terrain, seaLevel, crustThickness);
+					return terrain;
+				};
+			}
+
+		};
+	}
+
+	/**
+	 * Creates a stage of a parameter sweep whose result is an image of the square
+	 * terrain of the given stage, which doesn't read any parameter.
+	 * 
+	 * @param terrainStage A stage whose result is a terrain.
+	 * @return A stage whose result is an image.
+	 * @see #toImage(SquareTerrain)
+	 */
+	public static Stage<RenderedImage> createRenderStage(Stage<SquareTerrain> terrainStage) {
+		return new Stage<RenderedImage>(terrainStage) {
+
+			@Override
+			protected List<Object> getParameters() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			protected Function<List<Object>, RenderedImage> prepare(List<Object> parameters) {
+				return inputs -> toImage((SquareTerrain) inputs.get(0));
+			}
+
+		};
+	}
+
 }
@@ -0,0 +1,135 @@
+/*
+ * BatchMode.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import core.Crease;
+import io.BatchGeneration;
+import io.BatchTerrainConfigurer;
+import io.CreaseConfigurer;
+import io.GenerationConfigurer;
+import io.TerrainConfigurer;
+import parameter.ConsoleHelper;
+import parameter.configuration.ConfigurationConfigurer;
+import parameter.parameter.OptionParameter;
+
+/**
+ * This is the driver class for the batch mode of the application, which
+ * generates a terrain for each seed of a range or list of seeds and saves each
+ * to its own file. The arguments after the mode are the seeds, the format of
+ * the files, the directory they are saved to and, optionally, the number of
+ * threads, which is the number of processors by default. The rest of the
+ * parameters and the crease are read from the console once, as in the console
+ * mode, and used for every terrain.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see io.BatchGeneration
+ *
+ */
+public class BatchMode {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Program fields
+
+	/**
+	 * Console helper used to access console functions.
+	 */
+	private static ConsoleHelper CONSOLE;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Main method
+
+	/**
+	 * Run the batch mode as an entry point.
+	 * 
+	 * @param arguments Arguments.
+	 */
+	public static void main(String[] arguments) {
+		run(arguments);
+	}
+
+	/**
+	 * Run this program.
+	 * 
+	 * @param arguments The mode, the seeds, the format, the directory and,
+	 *                  optionally, the number of threads.
+	 * @throws IllegalArgumentException If the arguments aren't valid.
+	 * @throws UncheckedIOException     If a terrain can't be saved.
+	 */
+	public static void run(String[] arguments) {
+		if (arguments.length != 4 && arguments.length != 5) {
+			throw new IllegalArgumentException(
+					"The arguments must be: batch <first>..<last>|<seed>,<seed>... <format> <directory> [<threads>]");
+		}
+		long[] seeds = BatchGeneration.parseSeeds(arguments[1]);
+		int threads = arguments.length == 5 ? Integer.parseInt(arguments[4])
+				: Runtime.getRuntime().availableProcessors();
+
+		// initialize console
+		CONSOLE = new ConsoleHelper(System.in, System.out);
+
+		// initialize configuration
+		ConfigurationConfigurer.getConfiguration().load();
+
+		GenerationConfigurer generationConfigurer = new GenerationConfigurer("generation");
+		OptionParameter<TerrainConfigurer<?>> terrainTypeParameter = generationConfigurer.getTerrainTypeParameter();
+		CONSOLE.readParameter(terrainTypeParameter);
+		TerrainConfigurer<?> terrainTypeConfigurer = terrainTypeParameter.getCurrentValue();
+		if (!(terrainTypeConfigurer instanceof BatchTerrainConfigurer)) {
+			throw new IllegalArgumentException("This type of terrain can't be generated in batches.");
+		}
+		CONSOLE.readConfigurer(terrainTypeConfigurer);
+
+		OptionParameter<CreaseConfigurer<?>> creaseTypeParameter = generationConfigurer.getCreaseTypeParameter();
+		CONSOLE.readParameter(creaseTypeParameter);
+		CreaseConfigurer<?> creaseTypeConfigurer = creaseTypeParameter.getCurrentValue();
+		CONSOLE.readConfigurer(creaseTypeConfigurer);
+
+		// The crease is made once and shared by all terrains
+		Crease crease = creaseTypeConfigurer.generate();
+		BatchGeneration<?> batch = new BatchGeneration<>((BatchTerrainConfigurer<?>) terrainTypeConfigurer, crease,
+				arguments[2], new File(arguments[3]), threads);
+		BatchGeneration.Summary summary;
+		try {
+			summary = batch.run(seeds);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			CONSOLE.writeLine("INTERRUPTED");
+			return;
+		}
+
+		CONSOLE.writeLine();
+		CONSOLE.writeLine("TERRAINS:   " + summary.getTerrains() + " IN "
+				+ String.format("%.3f", summary.getElapsedTime() / 1.0e9d) + " S, " + threads + " THREADS");
+		CONSOLE.writeLine("THROUGHPUT: " + String.format("%.2f", summary.getTerrainsPerMinute()) + " TERRAINS/MIN");
+		CONSOLE.writeLine("LATENCY:    P50 " + String.format("%.3f", summary.getLatency(0.5d) / 1.0e6d) + " MS, P99 "
+				+ String.format("%.3f", summary.getLatency(0.99d) / 1.0e6d) + " MS");
+	}
+
+}
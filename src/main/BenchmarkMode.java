@@ -0,0 +1,284 @@
+/*
+ * BenchmarkMode.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package main;
+
+import core.Crease;
+import core.Crease.Kernel;
+import core.PlatePlan;
+import core.crease.Cone;
+import core.crease.GeneralizedSmoothStep;
+import core.crease.SmoothStep;
+import core.crease.SmoothStepFixedVolume;
+import core.crease.SmootherStep;
+import core.crease.SmoothestStep;
+import core.terrain.SquareTerrain;
+import core.terrain.SquareTerrainBlockStamper;
+import core.terrain.SquareTerrainEngine;
+import core.terrain.SquareTerrainFixedPointStamper;
+import core.terrain.SquareTerrainStamper;
+import parameter.ConsoleHelper;
+import parameter.configuration.ConfigurationConfigurer;
+import random.RandomGenerator;
+import random.Xorshift64StarGenerator;
+
+/**
+ * This is the driver class for the benchmark mode of the application, which
+ * measures how many tiles per second each crease is evaluated on when tiles are
+ * evaluated one at a time and when whole rows of tiles are evaluated at once,
+ * and how long it takes to generate a terrain bigger than the cache by stamping
+ * plate by plate and block by block.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see core.Crease.Kernel#accumulateRow(double, int, int, double[], int,
+ *      double)
+ *
+ */
+public class BenchmarkMode {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Program fields
+
+	/**
+	 * Console helper used to access console functions.
+	 */
+	private static ConsoleHelper CONSOLE;
+	/**
+	 * Amount of tiles along each axis of the area the creases are evaluated on.
+	 */
+	private static final int SIZE = 1024;
+	/**
+	 * Number of times the creases are evaluated on the whole area before measuring
+	 * so the compiler can optimize the code being measured.
+	 */
+	private static final int WARMUP_ROUNDS = 50;
+	/**
+	 * Number of times the creases are evaluated on the whole area while measuring.
+	 */
+	private static final int MEASURED_ROUNDS = 20;
+	/**
+	 * Amount of tiles along each axis of the terrain generated by the engines.
+	 */
+	private static final int TERRAIN_SIZE = 2048;
+	/**
+	 * Amount of tiles along each axis of the plates of the terrain generated by
+	 * the engines.
+	 */
+	private static final int PLATE_SIZE = 16;
+	/**
+	 * Number of times the terrain is generated by each engine while measuring.
+	 */
+	private static final int ENGINE_ROUNDS = 3;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Main method
+
+	/**
+	 * Run the benchmark mode as an entry point.
+	 * 
+	 * @param arguments Arguments.
+	 */
+	public static void main(String[] arguments) {
+		run();
+	}
+
+	/**
+	 * Run this program.
+	 */
+	public static void run() {
+		// initialize console
+		CONSOLE = new ConsoleHelper(System.in, System.out);
+
+		// initialize configuration
+		ConfigurationConfigurer.getConfiguration().load();
+
+		CONSOLE.writeLine("BENCHMARK: " + System.getProperty("java.vm.name") + " "
+				+ System.getProperty("java.vm.version") + " (" + System.getProperty("os.arch") + ")");
+		CONSOLE.writeLine("AREA: " + SIZE + "x" + SIZE + " TILES");
+		CONSOLE.writeLine();
+
+		String[] names = { "smoothStep", "smootherStep", "smoothestStep", "generalizedSmoothStep",
+				"smoothStepFixedVolume" };
+		Crease[] creases = { new SmoothStep(1.0d, 1.0d, 1.0d, 1.0d), new SmootherStep(1.0d, 1.0d, 1.0d, 1.0d),
+				new SmoothestStep(1.0d, 1.0d, 1.0d, 1.0d),
+				new GeneralizedSmoothStep(1.0d, 1.0d, 1.0d, 1.0d, 0.3d, 1.0d),
+				new SmoothStepFixedVolume(1.0d, 1.0d, 1.0d, 1.0d, 100000.0d) };
+		for (int index = 0; index < creases.length; ++index) {
+			// a movement vector whose region covers most of the area
+			Kernel kernel = creases[index].bind(SIZE / 2 - 300, SIZE / 2 - 400, SIZE / 2, SIZE / 2);
+			double tileTilesPerSecond = measure(perTile(kernel));
+			double rowTilesPerSecond = measure(kernel);
+			CONSOLE.writeLine(names[index] + ":");
+			CONSOLE.writeLine("  PER TILE: " + String.format("%.3e", tileTilesPerSecond) + " TILES/S");
+			CONSOLE.writeLine("  PER ROW:  " + String.format("%.3e", rowTilesPerSecond) + " TILES/S");
+			CONSOLE.writeLine("  SPEEDUP:  " + String.format("%.2f", rowTilesPerSecond / tileTilesPerSecond));
+		}
+
+		int parallelism = ConfigurationConfigurer.getConfiguration().getParallelismParameter().getCurrentValue()
+				.getValue();
+		PlatePlan platePlan = plan(new Xorshift64StarGenerator(1L));
+		Crease crease = new Cone(1.0d, 1.0d, 4.0d, 1.0d);
+		double rowSeconds = measure(new SquareTerrainStamper(true, true, parallelism), crease, platePlan);
+		double blockSeconds = measure(new SquareTerrainBlockStamper(true, true, parallelism), crease, platePlan);
+		double fixedSeconds = measure(new SquareTerrainFixedPointStamper(true, true, parallelism), crease,
+				platePlan);
+		CONSOLE.writeLine();
+		CONSOLE.writeLine("TERRAIN: " + TERRAIN_SIZE + "x" + TERRAIN_SIZE + " TILES, "
+				+ platePlan.getNumberOfPlates() + " PLATES, " + parallelism + " THREADS");
+		CONSOLE.writeLine("  BY PLATE: " + String.format("%.3f", rowSeconds) + " S");
+		CONSOLE.writeLine("  BY BLOCK: " + String.format("%.3f", blockSeconds) + " S");
+		CONSOLE.writeLine("  SPEEDUP:  " + String.format("%.2f", rowSeconds / blockSeconds));
+		CONSOLE.writeLine("  FIXED POINT BY PLATE: " + String.format("%.3f", fixedSeconds) + " S");
+		// Hardware counters such as cache misses aren't available from Java, so only
+		// times are measured
+		CONSOLE.writeLine();
+		CONSOLE.writeLine("TO COUNT CACHE MISSES RUN:");
+		CONSOLE.writeLine("  perf stat -e cache-references,cache-misses " + commandLine());
+
+		CONSOLE.writeLine();
+		CONSOLE.writeLine("PRESS ENTER TO CLOSE");
+		CONSOLE.readLine();
+		CONSOLE.writeLine("CLOSING...");
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Utility methods
+
+	/**
+	 * Get a kernel that evaluates the given kernel one tile at a time, which is
+	 * what the default implementation of accumulateRow does.
+	 * 
+	 * @param kernel A kernel.
+	 * @return A kernel with the same values as the given kernel that evaluates
+	 *         rows one tile at a time.
+	 */
+	private static Kernel perTile(Kernel kernel) {
+		return new Kernel() {
+
+			@Override
+			public double valueAt(double thisX, double thisY) {
+				return kernel.valueAt(thisX, thisY);
+			}
+
+			@Override
+			public double getRadius() {
+				return kernel.getRadius();
+			}
+
+		};
+	}
+
+	/**
+	 * Measures how many tiles per second the given kernel is evaluated on.
+	 * 
+	 * @param kernel A kernel.
+	 * @return The number of tiles per second the given kernel is evaluated on.
+	 */
+	private static double measure(Kernel kernel) {
+		double[][] tiles = new double[SIZE][SIZE];
+		for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+			evaluate(kernel, tiles);
+		}
+		long start = System.nanoTime();
+		for (int round = 0; round < MEASURED_ROUNDS; ++round) {
+			evaluate(kernel, tiles);
+		}
+		long end = System.nanoTime();
+		// use the result so the evaluation can't be removed as dead code
+		if (Double.isNaN(tiles[SIZE / 2][SIZE / 2])) {
+			CONSOLE.writeLine("NaN");
+		}
+		return (double) SIZE * SIZE * MEASURED_ROUNDS / ((end - start) / 1e9d);
+	}
+
+	/**
+	 * Get the command line this program was started with, or a command line that
+	 * starts the benchmark mode if it isn't known.
+	 * 
+	 * @return A command line that starts the benchmark mode.
+	 */
+	private static String commandLine() {
+		return ProcessHandle.current().info().commandLine()
+				.orElse("java -cp " + System.getProperty("java.class.path") + " main.Main benchmark");
+	}
+
+	/**
+	 * Measures the shortest time it takes the given engine to generate a terrain
+	 * with land and magma from the given plan.
+	 * 
+	 * @param engine    An engine.
+	 * @param crease    A crease.
+	 * @param platePlan A plan for the terrain.
+	 * @return The shortest time, in seconds.
+	 */
+	private static double measure(SquareTerrainEngine engine, Crease crease, PlatePlan platePlan) {
+		// the first generation lets the compiler optimize the code being measured
+		engine.generate(new SquareTerrain(TERRAIN_SIZE, TERRAIN_SIZE, false, true), crease, platePlan, 0.0d, 0.0d);
+		long shortest = Long.MAX_VALUE;
+		for (int round = 0; round < ENGINE_ROUNDS; ++round) {
+			SquareTerrain terrain = new SquareTerrain(TERRAIN_SIZE, TERRAIN_SIZE, false, true);
+			long start = System.nanoTime();
+			engine.generate(terrain, crease, platePlan, 0.0d, 0.0d);
+			shortest = java.lang.Math.min(shortest, System.nanoTime() - start);
+		}
+		return shortest / 1e9d;
+	}
+
+	/**
+	 * Makes a plan for the terrain generated by the engines with a plate in each
+	 * square of the terrain, like a square terrain configurer does.
+	 * 
+	 * @param randomGenerator A random generator.
+	 * @return A plan.
+	 */
+	private static PlatePlan plan(RandomGenerator randomGenerator) {
+		int numberOfPlates = TERRAIN_SIZE / PLATE_SIZE;
+		PlatePlan platePlan = new PlatePlan(numberOfPlates * numberOfPlates);
+		for (int plateIndexY = 0; plateIndexY < numberOfPlates; ++plateIndexY) {
+			for (int plateIndexX = 0; plateIndexX < numberOfPlates; ++plateIndexX) {
+				int firstX = plateIndexX * PLATE_SIZE;
+				int firstY = plateIndexY * PLATE_SIZE;
+				platePlan.setMovement(plateIndexY * numberOfPlates + plateIndexX,
+						(int) randomGenerator.generateLong(firstX, firstX + PLATE_SIZE),
+						(int) randomGenerator.generateLong(firstY, firstY + PLATE_SIZE),
+						(int) randomGenerator.generateLong(firstX, firstX + PLATE_SIZE),
+						(int) randomGenerator.generateLong(firstY, firstY + PLATE_SIZE));
+			}
+		}
+		return platePlan;
+	}
+
+	/**
+	 * Adds the values of the given kernel on all tiles of the given area to the
+	 * area.
+	 * 
+	 * @param kernel A kernel.
+	 * @param tiles  An area.
+	 */
+	private static void evaluate(Kernel kernel, double[][] tiles) {
+		for (int tileIndexY = 0; tileIndexY < SIZE; ++tileIndexY) {
+			kernel.accumulateRow(tileIndexY, 0, SIZE, tiles[tileIndexY], 0, 1.0d);
+		}
+	}
+
+}
@@ -23,15 +23,18 @@ package main;
 
 import java.awt.image.RenderedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
 import javax.imageio.ImageIO;
 
 import core.Crease;
 import io.CreaseConfigurer;
 import io.GenerationConfigurer;
+import io.ResumableTerrainConfigurer;
 import io.TerrainConfigurer;
 import parameter.ConsoleHelper;
 import parameter.configuration.ConfigurationConfigurer;
@@ -41,14 +44,12 @@ import parameter.parameter.FileParameter;
 import parameter.parameter.LoadingException;
 import parameter.parameter.OptionParameter;
 import parameter.parameter.OptionParameter.InternationalizedOption;
-import random.RandomGenerator;
-import random.Xorshift64StarGenerator;
 
 /**
  * This is the driver class for the console mode of the application.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.1
  *
  */
@@ -90,10 +91,14 @@ public class ConsoleMode {
 	private static final InternationalizedString LICENSE_LOGO = new InternationalizedString("program.license.logo");
 	private static final InternationalizedString LICENSE_MESSAGE = new InternationalizedString(
 			"console.command.license.info");
+	private static final InternationalizedString RESUME_SUCCESS_MESSAGE = new InternationalizedString(
+			"console.command.resume.success");
 	private static final InternationalizedString PRINT_SUCCESS_MESSAGE = new InternationalizedString(
 			"console.command.print.success");
 	private static final InternationalizedString ERROR_NO_TERRAIN = new InternationalizedString(
 			"console.command.error.noTerrain");
+	private static final InternationalizedString ERROR_NOT_RESUMABLE = new InternationalizedString(
+			"console.command.error.notResumable");
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Main method
@@ -130,6 +135,7 @@ public class ConsoleMode {
 			commands.addOption(new InternationalizedOption<String>("console.command.import", "import"));
 			commands.addOption(new InternationalizedOption<String>("console.command.license", "license"));
 			commands.addOption(new InternationalizedOption<String>("console.command.print", "print"));
+			commands.addOption(new InternationalizedOption<String>("console.command.resume", "resume"));
 			while (RUNNING) {
 				try {
 					CONSOLE.readParameter(commands);
@@ -158,6 +164,9 @@ public class ConsoleMode {
 					case "print":
 						printTerrain();
 						break;
+					case "resume":
+						resume();
+						break;
 					}
 				} catch (CancelledException cancelledException) {
 					CONSOLE.writeLine(cancelledException.getLocalizedMessage());
@@ -207,14 +216,56 @@ public class ConsoleMode {
 		CONSOLE.readConfigurer(creaseTypeConfigurer);
 
 		Crease crease = creaseTypeConfigurer.generate();
-		RandomGenerator randomGenerator = new Xorshift64StarGenerator(
-				terrainTypeConfigurer.getSeed().getCurrentValue().getValue());
-
-		terrainTypeConfigurer.generate(randomGenerator, crease);
+		int checkpointInterval = ConfigurationConfigurer.getConfiguration().getCheckpointIntervalParameter()
+				.getCurrentValue().getValue();
+		int workers = ConfigurationConfigurer.getConfiguration().getWorkersParameter().getCurrentValue().getValue();
+		if (workers > 0) {
+			try {
+				terrainTypeConfigurer.distribute(crease, workers, new File(ConfigurationConfigurer.DISTRIBUTION_PATH));
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		} else if (checkpointInterval == 0) {
+			// The plan is made again only if the seed or the terrain parameters changed
+			terrainTypeConfigurer.generate(crease);
+		} else {
+			try {
+				terrainTypeConfigurer.generate(crease, checkpointInterval,
+						new File(ConfigurationConfigurer.CHECKPOINT_PATH));
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
 
 		CONSOLE.writeLine(GENERATE_SUCCESS_MESSAGE.getValue());
 	}
 
+	private static void resume() {
+		// The terrain parameters and the crease are saved in the checkpoint
+		OptionParameter<TerrainConfigurer<?>> terrainTypeParameter = GENERATION_CONFIGURER.getTerrainTypeParameter();
+		CONSOLE.readParameter(terrainTypeParameter);
+		TerrainConfigurer<?> terrainTypeConfigurer = terrainTypeParameter.getCurrentValue();
+		if (!(terrainTypeConfigurer instanceof ResumableTerrainConfigurer)) {
+			CONSOLE.writeLine(ERROR_NOT_RESUMABLE.getValue());
+			return;
+		}
+
+		int checkpointInterval = ConfigurationConfigurer.getConfiguration().getCheckpointIntervalParameter()
+				.getCurrentValue().getValue();
+		if (checkpointInterval == 0) {
+			// The rest of the generation is done without checkpoints
+			checkpointInterval = Integer.MAX_VALUE;
+		}
+		try {
+			((ResumableTerrainConfigurer<?>) terrainTypeConfigurer).resume(checkpointInterval,
+					new File(ConfigurationConfigurer.CHECKPOINT_PATH));
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+
+		CONSOLE.writeLine(RESUME_SUCCESS_MESSAGE.getValue());
+	}
+
 	private static void printTerrain() {
 		if (GENERATION_CONFIGURER.getTerrainTypeParameter().getCurrentValue().getTerrain() == null) {
 			CONSOLE.writeLine(ERROR_NO_TERRAIN.getValue());
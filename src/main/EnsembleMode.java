@@ -0,0 +1,156 @@
+/*
+ * EnsembleMode.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import core.Crease;
+import io.BatchTerrainConfigurer;
+import io.CreaseConfigurer;
+import io.GenerationConfigurer;
+import io.TerrainConfigurer;
+import parameter.ConsoleHelper;
+import parameter.configuration.ConfigurationConfigurer;
+import parameter.parameter.OptionParameter;
+import parameter.parameter.OptionParameter.Option;
+
+/**
+ * This is the driver class for the ensemble mode of the application, which
+ * generates a terrain with each type of crease from the same plan and saves
+ * each to its own file. The arguments after the mode are the format of the
+ * files and the directory they are saved to. The parameters of the terrain and
+ * of each crease are read from the console, as in the console mode, and the
+ * plan is made once for all the creases.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see io.BatchTerrainConfigurer#generateEnsemble(core.PlatePlan, core.Crease...)
+ *
+ */
+public class EnsembleMode {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Program fields
+
+	/**
+	 * Console helper used to access console functions.
+	 */
+	private static ConsoleHelper CONSOLE;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Main method
+
+	/**
+	 * Run the ensemble mode as an entry point.
+	 * 
+	 * @param arguments Arguments.
+	 */
+	public static void main(String[] arguments) {
+		run(arguments);
+	}
+
+	/**
+	 * Run this program.
+	 * 
+	 * @param arguments The mode, the format and the directory.
+	 * @throws IllegalArgumentException If the arguments aren't valid.
+	 * @throws UncheckedIOException     If a terrain can't be saved.
+	 */
+	public static void run(String[] arguments) {
+		if (arguments.length != 3) {
+			throw new IllegalArgumentException("The arguments must be: ensemble <format> <directory>");
+		}
+
+		// initialize console
+		CONSOLE = new ConsoleHelper(System.in, System.out);
+
+		// initialize configuration
+		ConfigurationConfigurer.getConfiguration().load();
+
+		GenerationConfigurer generationConfigurer = new GenerationConfigurer("generation");
+		OptionParameter<TerrainConfigurer<?>> terrainTypeParameter = generationConfigurer.getTerrainTypeParameter();
+		CONSOLE.readParameter(terrainTypeParameter);
+		TerrainConfigurer<?> terrainTypeConfigurer = terrainTypeParameter.getCurrentValue();
+		if (!(terrainTypeConfigurer instanceof BatchTerrainConfigurer)) {
+			throw new IllegalArgumentException("This type of terrain can't be generated in ensembles.");
+		}
+		CONSOLE.readConfigurer(terrainTypeConfigurer);
+
+		// Every type of crease is read, in the order they are offered
+		List<Crease> creases = new ArrayList<>();
+		for (Option<CreaseConfigurer<?>> option : generationConfigurer.getCreaseTypeParameter().getOptions()) {
+			CreaseConfigurer<?> creaseTypeConfigurer = option.getValue();
+			CONSOLE.readConfigurer(creaseTypeConfigurer);
+			creases.add(creaseTypeConfigurer.generate());
+		}
+
+		long startTime = System.nanoTime();
+		try {
+			save((BatchTerrainConfigurer<?>) terrainTypeConfigurer, creases.toArray(new Crease[creases.size()]),
+					arguments[1], new File(arguments[2]));
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		long elapsedTime = System.nanoTime() - startTime;
+
+		CONSOLE.writeLine();
+		CONSOLE.writeLine("TERRAINS: " + creases.size() + " IN " + String.format("%.3f", elapsedTime / 1.0e9d) + " S");
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Utility methods
+
+	/**
+	 * Generates a terrain with each of the given creases and the plan of the given
+	 * configurer and saves each to a file named after its crease.
+	 * 
+	 * @param <T>        The type of terrain generated.
+	 * @param configurer A terrain configurer.
+	 * @param creases    The creases.
+	 * @param formatName A file format supported by the configurer.
+	 * @param directory  The directory the terrains are saved to.
+	 * @throws IOException If a terrain can't be saved.
+	 */
+	private static <T extends core.Terrain<?>> void save(BatchTerrainConfigurer<T> configurer, Crease[] creases,
+			String formatName, File directory) throws IOException {
+		Files.createDirectories(directory.toPath());
+		List<T> terrains = configurer.generateEnsemble(configurer.plan(), creases);
+		for (int creaseIndex = 0; creaseIndex < creases.length; ++creaseIndex) {
+			File file = new File(directory, "terrain-" + creases[creaseIndex].getClass().getSimpleName()
+					.toLowerCase(Locale.ROOT) + "." + formatName.toLowerCase(Locale.ROOT));
+			try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+				configurer.exportTerrain(terrains.get(creaseIndex), formatName, output);
+			}
+		}
+	}
+
+}
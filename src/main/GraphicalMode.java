@@ -30,6 +30,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
 
 import javax.imageio.ImageIO;
 import javax.swing.BoxLayout;
@@ -39,10 +40,13 @@ import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import core.Crease;
+import core.GenerationMonitor;
 import io.CreaseConfigurer;
 import io.GenerationConfigurer;
 import io.TerrainConfigurer;
@@ -52,14 +56,12 @@ import parameter.parameter.FileParameter;
 import parameter.ui.ConfigurerOptionPanel;
 import parameter.ui.ConfigurerPanel;
 import parameter.ui.ParameterPanel;
-import random.RandomGenerator;
-import random.Xorshift64StarGenerator;
 
 /**
  * This is the driver class for the graphical mode of the application.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.3
  *
  */
@@ -83,7 +85,16 @@ public class GraphicalMode {
 			"console.command.generate");
 	private static final InternationalizedString GENERATE_COMMAND_SUCCESS = new InternationalizedString(
 			"console.command.generate.success");
+	private static final InternationalizedString GENERATE_COMMAND_PROGRESS = new InternationalizedString(
+			"console.command.generate.progress");
+	private static final InternationalizedString GENERATE_COMMAND_PARTIAL = new InternationalizedString(
+			"console.command.generate.partial");
 	private static JButton GENERATE_BUTTON;
+	/**
+	 * Monitor of the generation running in the background, or null if no terrain
+	 * is being generated.
+	 */
+	private static GenerationMonitor GENERATION_MONITOR;
 	private static final InternationalizedString PRINT_COMMAND = new InternationalizedString("console.command.print");
 	private static JButton PRINT_BUTTON;
 	private static final InternationalizedString PRINT_COMMAND_SUCCESS = new InternationalizedString(
@@ -121,6 +132,9 @@ public class GraphicalMode {
 			case "generate":
 				generate();
 				break;
+			case "cancel":
+				GENERATION_MONITOR.cancel();
+				break;
 			case "import":
 				importTerrain();
 				break;
@@ -208,14 +222,59 @@ public class GraphicalMode {
 	private static void generate() {
 		TerrainConfigurer<?> terrainConfigurer = GENERATION_CONFIGURER.getTerrainTypeParameter().getCurrentValue();
 		CreaseConfigurer<?> creaseConfigurer = GENERATION_CONFIGURER.getCreaseTypeParameter().getCurrentValue();
+		GenerationMonitor monitor = new GenerationMonitor();
+		GENERATION_MONITOR = monitor;
 
-		Crease crease = creaseConfigurer.generate();
-		RandomGenerator randomGenerator = new Xorshift64StarGenerator(
-				terrainConfigurer.getSeed().getCurrentValue().getValue());
-		terrainConfigurer.generate(randomGenerator, crease);
+		// The terrain is generated in the background so the window keeps responding
+		// and the generate button cancels the generation meanwhile
+		Timer progressTimer = new Timer(250, event -> GENERATE_BUTTON.setText(GENERATE_COMMAND_PROGRESS
+				.getValue("{progress}", Integer.toString((int) (monitor.getProgress() * 100.0d)))));
+		SwingWorker<Object, Object> worker = new SwingWorker<>() {
 
-		JOptionPane.showMessageDialog(null, GENERATE_COMMAND_SUCCESS.getValue());
+			@Override
+			protected Object doInBackground() {
+				Crease crease = creaseConfigurer.generate();
+				// The plan is made again only if the seed or the terrain parameters changed
+				return terrainConfigurer.generate(crease, monitor);
+			}
 
+			@Override
+			protected void done() {
+				progressTimer.stop();
+				GENERATION_MONITOR = null;
+				GENERATE_BUTTON.setText(GENERATE_COMMAND.getValue());
+				GENERATE_BUTTON.setActionCommand("generate");
+				CONFIGURE_BUTTON.setEnabled(true);
+				IMPORT_BUTTON.setEnabled(true);
+				try {
+					this.get();
+				} catch (InterruptedException | ExecutionException exception) {
+					JOptionPane.showMessageDialog(null, exception.getCause() != null
+							? exception.getCause().getLocalizedMessage()
+							: exception.getLocalizedMessage());
+					return;
+				}
+				if (monitor.getStatus() == GenerationMonitor.Status.COMPLETED) {
+					JOptionPane.showMessageDialog(null, GENERATE_COMMAND_SUCCESS.getValue());
+				} else {
+					JOptionPane.showMessageDialog(null, GENERATE_COMMAND_PARTIAL.getValue());
+				}
+				showTerrainButtons();
+			}
+
+		};
+		CONFIGURE_BUTTON.setEnabled(false);
+		IMPORT_BUTTON.setEnabled(false);
+		GENERATE_BUTTON.setActionCommand("cancel");
+		GENERATE_BUTTON.setText(GENERATE_COMMAND_PROGRESS.getValue("{progress}", "0"));
+		progressTimer.start();
+		worker.execute();
+	}
+
+	/**
+	 * Shows the buttons that work on a generated terrain.
+	 */
+	private static void showTerrainButtons() {
 		BUTTON_PANEL.removeAll();
 		BUTTON_PANEL.add(CONFIGURE_BUTTON);
 		BUTTON_PANEL.add(GENERATE_BUTTON);
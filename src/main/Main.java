@@ -25,7 +25,7 @@ package main;
  * This is the driver class of the application.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.2
  *
  */
@@ -72,7 +72,24 @@ public class Main {
 		/**
 		 * Test mode where tests are run.
 		 */
-		TEST
+		TEST,
+		/**
+		 * Benchmark mode where the performance of the generation is measured.
+		 */
+		BENCHMARK,
+		/**
+		 * Worker mode where the tiles of a distributed generation are generated.
+		 */
+		WORKER,
+		/**
+		 * Batch mode where a terrain is generated for each of a range of seeds.
+		 */
+		BATCH,
+		/**
+		 * Ensemble mode where a terrain is generated with each type of crease from the
+		 * same plan.
+		 */
+		ENSEMBLE
 	}
 
 	/**
@@ -116,8 +133,21 @@ public class Main {
 			case "test":
 				Main.MODE = Mode.TEST;
 				break;
+			case "benchmark":
+				Main.MODE = Mode.BENCHMARK;
+				break;
+			case "worker":
+				Main.MODE = Mode.WORKER;
+				break;
+			case "batch":
+				Main.MODE = Mode.BATCH;
+				break;
+			case "ensemble":
+				Main.MODE = Mode.ENSEMBLE;
+				break;
 			default:
-				System.out.println("Option not supported. Options are \"gui\" and \"cl\".");
+				System.out.println("Option not supported. Options are \"gui\", \"cl\", \"test\", \"benchmark\", "
+						+ "\"worker\", \"batch\" and \"ensemble\".");
 				break;
 			}
 		}
@@ -132,6 +162,18 @@ public class Main {
 		case TEST:
 			TestMode.run();
 			break;
+		case BENCHMARK:
+			BenchmarkMode.run();
+			break;
+		case WORKER:
+			WorkerMode.run(arguments);
+			break;
+		case BATCH:
+			BatchMode.run(arguments);
+			break;
+		case ENSEMBLE:
+			EnsembleMode.run(arguments);
+			break;
 		}
 	}
 
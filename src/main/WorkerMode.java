@@ -0,0 +1,82 @@
+/*
+ * WorkerMode.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import io.terrain.DistributedGeneration;
+import parameter.configuration.ConfigurationConfigurer;
+
+/**
+ * This is the driver class for the worker mode of the application, run by the
+ * processes that generate the tiles of a distributed generation. The arguments
+ * after the mode are the directory of the generation, the index of the worker
+ * and the number of workers.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see io.terrain.DistributedGeneration
+ *
+ */
+public class WorkerMode {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Run the worker mode as an entry point.
+	 * 
+	 * @param arguments Arguments.
+	 */
+	public static void main(String[] arguments) {
+		run(arguments);
+	}
+
+	/**
+	 * Run this program. A worker that fails ends with an uncaught exception, so its
+	 * process ends with a status other than 0.
+	 * 
+	 * @param arguments The mode, the directory of the generation, the index of the
+	 *                  worker and the number of workers.
+	 * @throws IllegalArgumentException If the arguments aren't valid.
+	 * @throws UncheckedIOException     If the job can't be loaded or a tile can't
+	 *                                  be saved.
+	 */
+	public static void run(String[] arguments) {
+		if (arguments.length != 4) {
+			throw new IllegalArgumentException("The arguments must be: worker <directory> <worker> <workers>");
+		}
+		// initialize configuration
+		ConfigurationConfigurer.getConfiguration().load();
+
+		try {
+			DistributedGeneration.load(new File(arguments[1])).generate(Integer.parseInt(arguments[2]),
+					Integer.parseInt(arguments[3]));
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+}
@@ -33,15 +33,18 @@ import java.util.Properties;
 
 import parameter.i18n.InternationalizationParameter;
 import parameter.i18n.InternationalizationParameter.InternationalizationOption;
+import parameter.i18n.InternationalizedInteger;
 import parameter.parameter.Configurer;
 import parameter.parameter.FileParameter;
+import parameter.parameter.IntegerParameter;
 import parameter.parameter.LoadingException;
+import parameter.parameter.OptionParameter;
 
 /**
  * Configurer which handles the software's configuration.
  *
  * @author Javier Centeno Vega <jacenve@telefonica.net>
- * @version 0.3
+ * @version 0.5
  * @since 0.3
  *
  */
@@ -62,6 +65,14 @@ public class ConfigurationConfigurer extends Configurer {
 	 * Path to the internationalization folder used by the software.
 	 */
 	public static final String I18N_PATH = "i18n";
+	/**
+	 * Path to the file the checkpoints of generations are saved to.
+	 */
+	public static final String CHECKPOINT_PATH = "checkpoint.dat";
+	/**
+	 * Path to the directory the sections of distributed generations are saved to.
+	 */
+	public static final String DISTRIBUTION_PATH = "sections";
 	/**
 	 * The current configuration configurer used by the software. Implemented as a
 	 * singleton so other classes have direct access to the configuration.
@@ -104,6 +115,24 @@ public class ConfigurationConfigurer extends Configurer {
 	 */
 	private FileParameter configurationFile;
 	private final InternationalizationParameter internationalizationParameter;
+	/**
+	 * The parameter containing the number of threads used to generate terrains.
+	 */
+	private final IntegerParameter parallelismParameter;
+	/**
+	 * The parameter containing the name of the engine used to generate terrains.
+	 */
+	private final OptionParameter<String> engineParameter;
+	/**
+	 * The parameter containing the number of plates between checkpoints of a
+	 * generation, or 0 to generate terrains without checkpoints.
+	 */
+	private final IntegerParameter checkpointIntervalParameter;
+	/**
+	 * The parameter containing the number of worker processes that generate the
+	 * sections of a terrain, or 0 to generate terrains in this process.
+	 */
+	private final IntegerParameter workersParameter;
 
 	////////////////////////////////////////////////////////////////////////////////
 	// Constructors
@@ -127,6 +156,28 @@ public class ConfigurationConfigurer extends Configurer {
 		this.internationalizationParameter.addOption(new InternationalizationOption<>("Espaol neutro", "esp"));
 		// Set default value
 		this.internationalizationParameter.setDefaultValue("eng-USA");
+		// Parallelism parameter
+		this.parallelismParameter = new IntegerParameter("configuration.parallelism",
+				Runtime.getRuntime().availableProcessors(), 1, 1 << 10, false);
+		this.getParameters().add(this.parallelismParameter);
+		// Engine parameter
+		this.engineParameter = new OptionParameter<>("configuration.engine");
+		this.engineParameter.addOption(new InternationalizationOption<>("stamping", "stamping"));
+		this.engineParameter.addOption(new InternationalizationOption<>("automatic", "automatic"));
+		this.engineParameter.addOption(new InternationalizationOption<>("approximate", "approximate"));
+		this.engineParameter.addOption(new InternationalizationOption<>("fixed", "fixed"));
+		this.engineParameter.addOption(new InternationalizationOption<>("convolution", "convolution"));
+		// Stamping gives the same terrain on every machine
+		this.engineParameter.setDefaultValue("stamping");
+		this.engineParameter.setCurrentValue("stamping");
+		this.getParameters().add(this.engineParameter);
+		// Checkpoint interval parameter
+		this.checkpointIntervalParameter = new IntegerParameter("configuration.checkpointInterval", 0, 0, null,
+				false);
+		this.getParameters().add(this.checkpointIntervalParameter);
+		// Workers parameter
+		this.workersParameter = new IntegerParameter("configuration.workers", 0, 0, 1 << 10, false);
+		this.getParameters().add(this.workersParameter);
 	}
 
 	////////////////////////////////////////////////////////////////////////////////
@@ -153,6 +204,54 @@ public class ConfigurationConfigurer extends Configurer {
 		return this.internationalizationParameter;
 	}
 
+	/**
+	 * Get the parallelism parameter, which contains the number of threads used to
+	 * generate terrains.
+	 * 
+	 * @return The parallelism parameter.
+	 */
+	public IntegerParameter getParallelismParameter() {
+		return this.parallelismParameter;
+	}
+
+	/**
+	 * Get the engine parameter, which contains the name of the engine used to
+	 * generate terrains: "stamping", which is the default, "fixed" for stamping
+	 * with fixed point sums, "convolution", "automatic" to choose the engine with
+	 * the lowest estimated cost for each terrain among the engines whose result is
+	 * the same as stamping, or "approximate" to choose it among all engines,
+	 * including fixed point stamping and convolution, whose result differs from
+	 * stamping by rounding errors and may then depend on the number of processors
+	 * of the machine.
+	 * 
+	 * @return The engine parameter.
+	 */
+	public OptionParameter<String> getEngineParameter() {
+		return this.engineParameter;
+	}
+
+	/**
+	 * Get the checkpoint interval parameter, which contains the number of plates
+	 * between checkpoints of a generation, or 0 to generate terrains without
+	 * checkpoints.
+	 * 
+	 * @return The checkpoint interval parameter.
+	 */
+	public IntegerParameter getCheckpointIntervalParameter() {
+		return this.checkpointIntervalParameter;
+	}
+
+	/**
+	 * Get the workers parameter, which contains the number of worker processes
+	 * that generate the sections of a terrain, or 0 to generate terrains in this
+	 * process.
+	 * 
+	 * @return The workers parameter.
+	 */
+	public IntegerParameter getWorkersParameter() {
+		return this.workersParameter;
+	}
+
 	/**
 	 * Loads all the current settings from the configuration file.
 	 */
@@ -170,6 +269,44 @@ public class ConfigurationConfigurer extends Configurer {
 		}
 		// Set current value according to the stored configuration
 		this.internationalizationParameter.setCurrentValue(configuration.getProperty("language"));
+		// Parameters missing from the stored configuration keep their default value
+		String parallelism = configuration.getProperty("parallelism");
+		if (parallelism != null) {
+			try {
+				this.parallelismParameter.setCurrentValue(new InternationalizedInteger(Integer.valueOf(parallelism)));
+			} catch (IllegalArgumentException exception) {
+				// If an exception happens here, there's nothing that can be done
+				throw new LoadingException("ERROR LOADING CONFIGURATION");
+			}
+		}
+		String engine = configuration.getProperty("engine");
+		if (engine != null) {
+			try {
+				this.engineParameter.setCurrentValue(engine);
+			} catch (IllegalArgumentException exception) {
+				// If an exception happens here, there's nothing that can be done
+				throw new LoadingException("ERROR LOADING CONFIGURATION");
+			}
+		}
+		String checkpointInterval = configuration.getProperty("checkpointInterval");
+		if (checkpointInterval != null) {
+			try {
+				this.checkpointIntervalParameter
+						.setCurrentValue(new InternationalizedInteger(Integer.valueOf(checkpointInterval)));
+			} catch (IllegalArgumentException exception) {
+				// If an exception happens here, there's nothing that can be done
+				throw new LoadingException("ERROR LOADING CONFIGURATION");
+			}
+		}
+		String workers = configuration.getProperty("workers");
+		if (workers != null) {
+			try {
+				this.workersParameter.setCurrentValue(new InternationalizedInteger(Integer.valueOf(workers)));
+			} catch (IllegalArgumentException exception) {
+				// If an exception happens here, there's nothing that can be done
+				throw new LoadingException("ERROR LOADING CONFIGURATION");
+			}
+		}
 	}
 
 	/**
@@ -178,14 +315,18 @@ public class ConfigurationConfigurer extends Configurer {
 	public void save() {
 		Properties properties = new Properties();
 		properties.put("language", this.internationalizationParameter.getCurrentValue());
+		properties.put("parallelism", this.parallelismParameter.getCurrentValue().getValue());
+		properties.put("engine", this.engineParameter.getCurrentValue());
+		properties.put("checkpointInterval", this.checkpointIntervalParameter.getCurrentValue().getValue());
+		properties.put("workers", this.workersParameter.getCurrentValue().getValue());
 		Writer writer = new OutputStreamWriter(this.configurationFile.getOutputStream(), CHARSET);
 		try {
 			writer.write(COMMENTS);
 			writer.write("\n");
 			for (Entry<?, ?> entry : properties.entrySet()) {
 				writer.write(entry.getKey().toString() + " = " + entry.getValue().toString());
+				writer.write("\n");
 			}
-			writer.write("\n");
 			writer.flush();
 		} catch (IOException exception) {
 			// If an exception happens here, there's nothing that can be done
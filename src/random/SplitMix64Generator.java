@@ -0,0 +1,128 @@
+/*
+ * SplitMix64Generator.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package random;
+
+/**
+ * Implementation of a SplitMix64 PRNG.
+ *
+ * The mixing function of this generator is also used as a stateless hash of a
+ * seed and a pair of coordinates, so a generator can be started for any point
+ * of a grid without generating the numbers of the other points first.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ * @see random.RandomGenerator
+ *
+ */
+public class SplitMix64Generator implements RandomGenerator {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class fields
+
+	/**
+	 * The amount the state is increased by for each number generated, equal to
+	 * the odd integer closest to 2 to the power of 64 divided by the golden ratio.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	/**
+	 * The odd integer the x coordinate is multiplied by when hashing.
+	 */
+	private static final long X_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+	/**
+	 * The odd integer the y coordinate is multiplied by when hashing.
+	 */
+	private static final long Y_MULTIPLIER = 0x165667B19E3779F9L;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * State of this generator.
+	 */
+	private long state;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Constructs a generator with the given seed as the initial state.
+	 * 
+	 * @param seed A seed.
+	 */
+	public SplitMix64Generator(long seed) {
+		this.state = seed;
+	}
+
+	/**
+	 * Constructs a generator for the point of a grid with the given coordinates,
+	 * with the hash of the given seed and coordinates as the initial state.
+	 * 
+	 * @param seed A seed.
+	 * @param x    The x coordinate of a point.
+	 * @param y    The y coordinate of a point.
+	 */
+	public SplitMix64Generator(long seed, long x, long y) {
+		this(hash(seed, x, y));
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	@Override
+	public long generateLong() {
+		this.state += GOLDEN_GAMMA;
+		return mix(this.state);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Calculates a hash of the given seed and coordinates. The hash doesn't depend
+	 * on anything else, so it's the same every time it's calculated.
+	 * 
+	 * @param seed A seed.
+	 * @param x    The x coordinate of a point.
+	 * @param y    The y coordinate of a point.
+	 * @return A hash of the given seed and coordinates.
+	 */
+	public static long hash(long seed, long x, long y) {
+		long hash = mix(seed + GOLDEN_GAMMA);
+		hash = mix(hash + x * X_MULTIPLIER + GOLDEN_GAMMA);
+		return mix(hash + y * Y_MULTIPLIER + GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Mixes the bits of the given number so each bit of the result depends on
+	 * every bit of the number.
+	 * 
+	 * @param number A number.
+	 * @return The mixed number.
+	 */
+	private static long mix(long number) {
+		number = (number ^ (number >>> 30)) * 0xBF58476D1CE4E5B9L;
+		number = (number ^ (number >>> 27)) * 0x94D049BB133111EBL;
+		return number ^ (number >>> 31);
+	}
+
+}
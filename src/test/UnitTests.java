@@ -21,12 +21,61 @@
 
 package test;
 
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import core.Crease;
+import core.GenerationMonitor;
+import core.PlatePlan;
+import core.Terrain;
+import core.crease.Cone;
+import core.crease.CreaseUtil;
+import core.crease.Delta;
+import core.crease.Diamond;
+import core.crease.Pyramid;
+import core.crease.SmoothStepFixedVolume;
+import core.terrain.LazySquareTerrain;
+import core.terrain.LazySquareTerrain.LazySquareTerrainLayer;
+import core.terrain.SquareTerrain;
+import core.terrain.SquareTerrain.SquareTerrainLayer;
+import core.terrain.SquareTerrainBlockStamper;
+import core.terrain.SquareTerrainConvolver;
+import core.terrain.SquareTerrainEditor;
+import core.terrain.SquareTerrainEngineSelector;
+import core.terrain.SquareTerrainFixedPointStamper;
+import core.terrain.SquareTerrainStamper;
+import core.terrain.StampCache;
+import io.BatchGeneration;
+import io.BatchTerrainConfigurer;
+import io.ParameterSweep;
+import io.ResumableTerrainConfigurer;
+import io.SweepableTerrainConfigurer;
+import io.TerrainConfigurer;
+import io.crease.ConeConfigurer;
+import io.terrain.DistributedGeneration;
+import io.terrain.InfiniteSquareTerrainConfigurer;
+import io.terrain.IrregularSquareTerrainConfigurer;
+import io.terrain.SquareTerrainConfigurer;
+import io.terrain.TerrainCheckpoint;
+import io.terrain.TerrainFormatException;
+import io.terrain.TerrainUtil;
 import main.TestMode;
 import parameter.i18n.InternationalizedBigDecimal;
 import parameter.i18n.InternationalizedBigInteger;
@@ -45,7 +94,11 @@ import parameter.parameter.IntegerParameter;
 import parameter.parameter.LongParameter;
 import parameter.parameter.OptionParameter;
 import parameter.parameter.OptionParameter.Option;
+import parameter.parameter.Parameter;
 import parameter.parameter.ShortParameter;
+import random.SplitMix64Generator;
+import random.Xorshift64StarGenerator;
+import util.FourierTransform;
 
 /**
  * This class contains tests to be run by the test mode.
@@ -713,6 +766,941 @@ public class UnitTests {
 		TestMode.Tests.methodSuccessCheckResult(optionParameterGetCurrentValue, new OptionParameter.NullOption<>(),
 				optionParameter);
 
+		// Crease tests
+
+		Method creaseGetRadius = TestMode.getMethod(Crease.class, "getRadius", double.class, double.class,
+				double.class, double.class);
+
+		TestMode.Tests.methodSuccessCheckResult(creaseGetRadius, 20.0d, new Cone(1.0d, 1.0d, 4.0d, 1.0d), 0.0d, 0.0d,
+				3.0d, 4.0d);
+		TestMode.Tests.methodSuccessCheckResult(creaseGetRadius, 28.0d, new Diamond(1.0d, 1.0d, 4.0d, 1.0d), 0.0d,
+				0.0d, 3.0d, 4.0d);
+		TestMode.Tests.methodSuccessCheckResult(creaseGetRadius, 16.0d, new Pyramid(1.0d, 1.0d, 4.0d, 1.0d), 0.0d,
+				0.0d, 3.0d, 4.0d);
+		TestMode.Tests.methodSuccessCheckResult(creaseGetRadius, 0.0d, new Delta(), 0.0d, 0.0d, 3.0d, 4.0d);
+
+		Method kernelValueAt = TestMode.getMethod(Crease.Kernel.class, "valueAt", double.class, double.class);
+		Method kernelGetRadius = TestMode.getMethod(Crease.Kernel.class, "getRadius");
+		Crease.Kernel coneKernel = new Cone(1.0d, 1.0d, 4.0d, 1.0d).bind(0.0d, 0.0d, 3.0d, 4.0d);
+
+		TestMode.Tests.methodSuccessCheckResult(kernelValueAt, 5.0d, coneKernel, 3.0d, 4.0d);
+		TestMode.Tests.methodSuccessCheckResult(kernelValueAt, 2.5d, coneKernel, 3.0d, 14.0d);
+		TestMode.Tests.methodSuccessCheckResult(kernelValueAt, 0.0d, coneKernel, 3.0d, 25.0d);
+		TestMode.Tests.methodSuccessCheckResult(kernelGetRadius, 20.0d, coneKernel);
+		TestMode.Tests.methodSuccessCheckResult(kernelValueAt, 1.0d, new Delta().bind(0.0d, 0.0d, 3.0d, 4.0d), 3.0d,
+				4.0d);
+
+		Method kernelAccumulateRow = TestMode.getMethod(Crease.Kernel.class, "accumulateRow", double.class, int.class,
+				int.class, double[].class, int.class, double.class);
+		Method arraysEquals = TestMode.getMethod(Arrays.class, "equals", double[].class, double[].class);
+		double[] coneRow = { 1.0d, 1.0d, 1.0d, 1.0d, 1.0d };
+		double[] expectedConeRow = { 1.0d, 1.0d + coneKernel.valueAt(2.0d, 14.0d) * 2.0d,
+				1.0d + coneKernel.valueAt(3.0d, 14.0d) * 2.0d, 1.0d + coneKernel.valueAt(4.0d, 14.0d) * 2.0d, 1.0d };
+		double[] deltaRow = new double[4];
+		double[] expectedDeltaRow = { 0.0d, 0.0d, -1.0d, 0.0d };
+
+		TestMode.Tests.methodSuccess(kernelAccumulateRow, coneKernel, 14.0d, 2, 5, coneRow, 1, 2.0d);
+		TestMode.Tests.methodSuccessCheckResult(arraysEquals, true, null, coneRow, expectedConeRow);
+		TestMode.Tests.methodSuccess(kernelAccumulateRow, new Delta().bind(0.0d, 0.0d, 3.0d, 4.0d), 4.0d, 1, 5,
+				deltaRow, 0, -1.0d);
+		TestMode.Tests.methodSuccessCheckResult(arraysEquals, true, null, deltaRow, expectedDeltaRow);
+		TestMode.Tests.methodFailure(kernelAccumulateRow, coneKernel, 14.0d, 2, 5, coneRow, 3, 1.0d);
+
+		Method firstWithinEuclideanDistance = TestMode.getMethod(CreaseUtil.class, "firstWithinEuclideanDistance",
+				double.class, double.class, double.class, int.class, int.class);
+		Method lastWithinEuclideanDistance = TestMode.getMethod(CreaseUtil.class, "lastWithinEuclideanDistance",
+				double.class, double.class, double.class, int.class, int.class);
+
+		TestMode.Tests.methodSuccessCheckResult(firstWithinEuclideanDistance, 1, null, 5.0d, 9.0d, 5.0d, 0, 20);
+		TestMode.Tests.methodSuccessCheckResult(lastWithinEuclideanDistance, 10, null, 5.0d, 9.0d, 5.0d, 0, 20);
+		TestMode.Tests.methodSuccessCheckResult(firstWithinEuclideanDistance, 3, null, 5.0d, 9.0d, 5.0d, 3, 7);
+		TestMode.Tests.methodSuccessCheckResult(lastWithinEuclideanDistance, 7, null, 5.0d, 9.0d, 5.0d, 3, 7);
+		TestMode.Tests.methodSuccessCheckResult(firstWithinEuclideanDistance, 5, null, 5.0d, 9.0d, 2.0d, 0, 20);
+		TestMode.Tests.methodSuccessCheckResult(lastWithinEuclideanDistance, 5, null, 5.0d, 9.0d, 2.0d, 0, 20);
+		TestMode.Tests.methodSuccessCheckResult(firstWithinEuclideanDistance, 0, null, 5.0d, 9.0d, Double.NaN, 0,
+				20);
+		TestMode.Tests.methodSuccessCheckResult(lastWithinEuclideanDistance, 20, null, 5.0d, 9.0d, Double.NaN, 0,
+				20);
+
+		// Plate plan tests
+
+		PlatePlan platePlan = new PlatePlan(2);
+		platePlan.setMovement(0, 1, 2, 3, 4);
+		platePlan.setMovement(1, 5, 6, 7, 8);
+		PlatePlan reversePlatePlan = platePlan.reverse();
+
+		Method platePlanGetStartX = TestMode.getMethod(PlatePlan.class, "getStartX", int.class);
+		Method platePlanGetEndY = TestMode.getMethod(PlatePlan.class, "getEndY", int.class);
+		Method platePlanIsWithin = TestMode.getMethod(PlatePlan.class, "isWithin", int.class, int.class);
+
+		TestMode.Tests.methodSuccessCheckResult(platePlanGetStartX, 3, reversePlatePlan, 0);
+		TestMode.Tests.methodSuccessCheckResult(platePlanGetEndY, 6, reversePlatePlan, 1);
+		TestMode.Tests.methodSuccessCheckResult(platePlanIsWithin, true, platePlan, 8, 9);
+		TestMode.Tests.methodSuccessCheckResult(platePlanIsWithin, false, platePlan, 8, 8);
+		TestMode.Tests.methodSuccessCheckResult(platePlanIsWithin, false, platePlan, 7, 9);
+
+		// Stamp cache tests
+
+		StampCache stampCache = new StampCache();
+		Cone stampCone = new Cone(1.0d, 1.0d, 4.0d, 1.0d);
+		Crease.Kernel stampKernel = stampCache.bind(stampCone, 0, 0, 3, 4);
+		stampCache.bind(stampCone, 10, 10, 13, 14);
+		stampCache.bind(stampCone, 10, 10, 14, 13);
+
+		Method stampCacheGetHits = TestMode.getMethod(StampCache.class, "getHits");
+		Method stampCacheGetMisses = TestMode.getMethod(StampCache.class, "getMisses");
+
+		TestMode.Tests.methodSuccessCheckResult(stampCacheGetHits, 1L, stampCache);
+		TestMode.Tests.methodSuccessCheckResult(stampCacheGetMisses, 2L, stampCache);
+		TestMode.Tests.methodSuccessCheckResult(kernelValueAt, coneKernel.valueAt(5.0d, 9.0d), stampKernel, 5.0d,
+				9.0d);
+		TestMode.Tests.methodSuccessCheckResult(kernelGetRadius, 20.0d, stampKernel);
+		// Creases with the same parameters share their stamps
+		stampCache.bind(new Cone(1.0d, 1.0d, 4.0d, 1.0d), 20, 20, 23, 24);
+		TestMode.Tests.methodSuccessCheckResult(stampCacheGetHits, 2L, stampCache);
+		stampCache.bind(new Cone(1.0d, 1.0d, 5.0d, 1.0d), 20, 20, 23, 24);
+		stampCache.bind(new Diamond(1.0d, 1.0d, 4.0d, 1.0d), 20, 20, 23, 24);
+		TestMode.Tests.methodSuccessCheckResult(stampCacheGetMisses, 4L, stampCache);
+		Method creaseEquals = TestMode.getMethod(Object.class, "equals", Object.class);
+		TestMode.Tests.methodSuccessCheckResult(creaseEquals, true, new SmoothStepFixedVolume(1.0d, 1.0d, 4.0d,
+				1.0d, 2.0d), new SmoothStepFixedVolume(1.0d, 1.0d, 4.0d, 1.0d, 2.0d));
+		TestMode.Tests.methodSuccessCheckResult(creaseEquals, false, new SmoothStepFixedVolume(1.0d, 1.0d, 4.0d,
+				1.0d, 2.0d), new SmoothStepFixedVolume(1.0d, 1.0d, 4.0d, 1.0d, 3.0d));
+		TestMode.Tests.methodSuccessCheckResult(creaseEquals, true, new Delta(), new Delta());
+
+		// Fourier transform tests
+
+		Constructor<FourierTransform> fourierTransformConstructor = TestMode.getConstructor(FourierTransform.class,
+				int.class);
+		Method fourierTransformTransform = TestMode.getMethod(FourierTransform.class, "transform", double[].class,
+				double[].class);
+		Method fourierTransformIsPowerOfTwo = TestMode.getMethod(FourierTransform.class, "isPowerOfTwo", int.class);
+		Method fourierTransformNextPowerOfTwo = TestMode.getMethod(FourierTransform.class, "nextPowerOfTwo",
+				int.class);
+		double[] impulseReal = { 1.0d, 0.0d, 0.0d, 0.0d };
+		double[] impulseImaginary = new double[4];
+		double[] expectedImpulseReal = { 1.0d, 1.0d, 1.0d, 1.0d };
+
+		TestMode.Tests.constructorFailureCheckException(fourierTransformConstructor, IllegalArgumentException.class,
+				0);
+		TestMode.Tests.methodSuccessCheckResult(fourierTransformIsPowerOfTwo, true, null, 64);
+		TestMode.Tests.methodSuccessCheckResult(fourierTransformIsPowerOfTwo, false, null, 12);
+		TestMode.Tests.methodSuccessCheckResult(fourierTransformNextPowerOfTwo, 64, null, 33);
+		TestMode.Tests.methodSuccessCheckResult(fourierTransformNextPowerOfTwo, 1, null, 1);
+		TestMode.Tests.methodSuccess(fourierTransformTransform, new FourierTransform(4), impulseReal,
+				impulseImaginary);
+		TestMode.Tests.methodSuccessCheckResult(arraysEquals, true, null, impulseReal, expectedImpulseReal);
+		TestMode.Tests.methodFailureCheckException(fourierTransformTransform, IllegalArgumentException.class,
+				new FourierTransform(3), impulseReal, impulseImaginary);
+
+		// Convolver tests
+
+		PlatePlan convolverPlatePlan = new PlatePlan(2);
+		convolverPlatePlan.setMovement(0, 1, 1, 4, 5);
+		convolverPlatePlan.setMovement(1, 6, 2, 6, 2);
+		SquareTerrainLayer convolverLayer = new SquareTerrainLayer(7, 7);
+		new SquareTerrainConvolver(true, false).stamp(convolverLayer, new Cone(1.0d, 1.0d, 1.0d, 1.0d),
+				convolverPlatePlan);
+
+		Method layerGetTile = TestMode.getMethod(SquareTerrainLayer.class, "getTile", int.class, int.class);
+		Method mathRound = TestMode.getMethod(java.lang.Math.class, "round", double.class);
+
+		// The movement vector that doesn't move is stamped
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, Double.NaN, convolverLayer, 6, 2);
+		// The others are convolved, with rounding errors, and wrap around the x axis
+		TestMode.Tests.methodSuccessCheckResult(mathRound, 5000000L, null, convolverLayer.getTile(4, 5) * 1e6d);
+		TestMode.Tests.methodSuccessCheckResult(mathRound, 4000000L, null, convolverLayer.getTile(3, 5) * 1e6d);
+		TestMode.Tests.methodSuccessCheckResult(mathRound, 3000000L, null, convolverLayer.getTile(0, 5) * 1e6d);
+		// Tiles no plate influences stay exactly zero instead of receiving rounding
+		// errors
+		PlatePlan deltaPlatePlan = new PlatePlan(64);
+		for (int plateIndex = 0; plateIndex < 64; ++plateIndex) {
+			deltaPlatePlan.setMovement(plateIndex, plateIndex * 7 % 32, plateIndex * 11 % 32,
+					(plateIndex * 7 + 1 + plateIndex % 3) % 32, (plateIndex * 11 + plateIndex % 2) % 32);
+		}
+		SquareTerrainLayer stampedDeltaLayer = new SquareTerrainLayer(32, 32);
+		SquareTerrainLayer convolvedDeltaLayer = new SquareTerrainLayer(32, 32);
+		new SquareTerrainStamper(true, true).stamp(stampedDeltaLayer, new Delta(), deltaPlatePlan);
+		new SquareTerrainConvolver(true, true).stamp(convolvedDeltaLayer, new Delta(), deltaPlatePlan);
+		List<Double> convolvedZeroTiles = new ArrayList<>();
+		List<Double> stampedZeroTiles = new ArrayList<>();
+		for (int tileIndexY = 0; tileIndexY < 32; ++tileIndexY) {
+			for (int tileIndexX = 0; tileIndexX < 32; ++tileIndexX) {
+				if (stampedDeltaLayer.getTile(tileIndexX, tileIndexY) == 0.0d) {
+					convolvedZeroTiles.add(convolvedDeltaLayer.getTile(tileIndexX, tileIndexY));
+					stampedZeroTiles.add(0.0d);
+				}
+			}
+		}
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(Object.class, "equals", Object.class), true,
+				stampedZeroTiles, convolvedZeroTiles);
+		// Movement vectors with the same Euclidean magnitude but different
+		// displacements have different influences for creases that use other
+		// distances
+		PlatePlan displacementPlatePlan = new PlatePlan(3);
+		displacementPlatePlan.setMovement(0, 2, 3, 7, 3);
+		displacementPlatePlan.setMovement(1, 20, 5, 23, 9);
+		displacementPlatePlan.setMovement(2, 10, 20, 10, 25);
+		for (Crease displacementCrease : new Crease[] { new Diamond(1.0d, 1.0d, 1.0d, 1.0d),
+				new Pyramid(1.0d, 1.0d, 1.0d, 1.0d), new Cone(1.0d, 1.0d, 1.0d, 1.0d) }) {
+			SquareTerrainLayer stampedDisplacementLayer = new SquareTerrainLayer(32, 32);
+			SquareTerrainLayer convolvedDisplacementLayer = new SquareTerrainLayer(32, 32);
+			new SquareTerrainStamper(true, true).stamp(stampedDisplacementLayer, displacementCrease,
+					displacementPlatePlan);
+			new SquareTerrainConvolver(true, true).stamp(convolvedDisplacementLayer, displacementCrease,
+					displacementPlatePlan);
+			double maximumDifference = 0.0d;
+			for (int tileIndexY = 0; tileIndexY < 32; ++tileIndexY) {
+				for (int tileIndexX = 0; tileIndexX < 32; ++tileIndexX) {
+					maximumDifference = java.lang.Math.max(maximumDifference,
+							java.lang.Math.abs(stampedDisplacementLayer.getTile(tileIndexX, tileIndexY)
+									- convolvedDisplacementLayer.getTile(tileIndexX, tileIndexY)));
+				}
+			}
+			TestMode.Tests.methodSuccessCheckResult(mathRound, 0L, null, maximumDifference * 1e6d);
+		}
+
+		// Engine selector tests
+
+		SquareTerrainEngineSelector engineSelector = new SquareTerrainEngineSelector(false, false, 1, null);
+		PlatePlan smallPlatePlan = new PlatePlan(1);
+		smallPlatePlan.setMovement(0, 3, 3, 3, 5);
+		PlatePlan bigPlatePlan = new PlatePlan(4096);
+		for (int plateIndex = 0; plateIndex < 4096; ++plateIndex) {
+			bigPlatePlan.setMovement(plateIndex, plateIndex % 64, plateIndex / 64, plateIndex % 64 + plateIndex % 2,
+					plateIndex / 64);
+		}
+
+		Method engineSelectorEstimateStampingCost = TestMode.getMethod(SquareTerrainEngineSelector.class,
+				"estimateStampingCost", int.class, int.class, Crease.class, PlatePlan.class);
+		Method engineSelectorSelect = TestMode.getMethod(SquareTerrainEngineSelector.class, "select", int.class,
+				int.class, Crease.class, PlatePlan.class);
+		Method objectGetClass = TestMode.getMethod(Object.class, "getClass");
+
+		// A radius of 2 visits 5 by 5 tiles
+		TestMode.Tests.methodSuccessCheckResult(engineSelectorEstimateStampingCost, 25.0d, engineSelector, 10, 10,
+				new Cone(1.0d, 1.0d, 1.0d, 1.0d), smallPlatePlan);
+		TestMode.Tests.methodSuccessCheckResult(objectGetClass, SquareTerrainStamper.class,
+				engineSelector.select(10, 10, new Cone(1.0d, 1.0d, 1.0d, 1.0d), smallPlatePlan));
+		// Only engines whose result is the same as stamping are chosen unless
+		// approximate engines are allowed
+		TestMode.Tests.methodSuccessCheckResult(objectGetClass, SquareTerrainStamper.class,
+				engineSelector.select(64, 64, new Cone(1.0d, 1.0d, 64.0d, 1.0d), bigPlatePlan));
+		TestMode.Tests.methodSuccessCheckResult(objectGetClass, SquareTerrainConvolver.class,
+				new SquareTerrainEngineSelector(false, false, 1, null, true).select(64, 64,
+						new Cone(1.0d, 1.0d, 64.0d, 1.0d), bigPlatePlan));
+		TestMode.Tests.methodSuccess(engineSelectorSelect, engineSelector, 64, 64, new Delta(), bigPlatePlan);
+		// Each tile of a fixed point sum is added atomically and the sums are added
+		// to the layer
+		TestMode.Tests.methodSuccessCheckResult(
+				TestMode.getMethod(SquareTerrainEngineSelector.class, "estimateFixedPointCost", int.class, int.class,
+						Crease.class, PlatePlan.class),
+				175.0d, engineSelector, 10, 10, new Cone(1.0d, 1.0d, 1.0d, 1.0d), smallPlatePlan);
+		// A stamp of 7 by 7 tiles is filled once and then added twice
+		PlatePlan sharedPlatePlan = new PlatePlan(2);
+		sharedPlatePlan.setMovement(0, 3, 3, 3, 5);
+		sharedPlatePlan.setMovement(1, 1, 1, 1, 3);
+		TestMode.Tests.methodSuccessCheckResult(engineSelectorEstimateStampingCost, 61.5d,
+				new SquareTerrainEngineSelector(false, false, 1, new StampCache()), 10, 10,
+				new Cone(1.0d, 1.0d, 1.0d, 1.0d), sharedPlatePlan);
+		// Movement vectors of the same length in different directions are convolved
+		// apart
+		PlatePlan turnedPlatePlan = new PlatePlan(2);
+		turnedPlatePlan.setMovement(0, 10, 10, 13, 14);
+		turnedPlatePlan.setMovement(1, 20, 20, 20, 25);
+		PlatePlan parallelPlatePlan = new PlatePlan(2);
+		parallelPlatePlan.setMovement(0, 10, 10, 10, 15);
+		parallelPlatePlan.setMovement(1, 20, 20, 20, 25);
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(Double.class, "compare", double.class,
+				double.class), 1, null,
+				engineSelector.estimateConvolutionCost(64, 64, new Cone(1.0d, 1.0d, 4.0d, 1.0d), turnedPlatePlan),
+				engineSelector.estimateConvolutionCost(64, 64, new Cone(1.0d, 1.0d, 4.0d, 1.0d), parallelPlatePlan));
+
+		// Wrap around tests
+
+		PlatePlan wrappedPlatePlan = new PlatePlan(1);
+		wrappedPlatePlan.setMovement(0, 0, 0, 1, 2);
+		SquareTerrainLayer stampedWrappedLayer = new SquareTerrainLayer(3, 3);
+		new SquareTerrainStamper(true, true).stamp(stampedWrappedLayer, new Cone(1.0d, 1.0d, 4.0d, 1.0d),
+				wrappedPlatePlan);
+		SquareTerrainLayer convolvedWrappedLayer = new SquareTerrainLayer(3, 3);
+		new SquareTerrainConvolver(true, true).stamp(convolvedWrappedLayer, new Cone(1.0d, 1.0d, 4.0d, 1.0d),
+				wrappedPlatePlan);
+
+		// A crease larger than the terrain wraps around several times along both axes
+		TestMode.Tests.methodSuccessCheckResult(mathRound, 20757370L, null, stampedWrappedLayer.getTile(1, 2) * 1e6d);
+		TestMode.Tests.methodSuccessCheckResult(mathRound, 20757370L, null,
+				convolvedWrappedLayer.getTile(1, 2) * 1e6d);
+		TestMode.Tests.methodSuccessCheckResult(mathRound, 20845839L, null, stampedWrappedLayer.getTile(0, 0) * 1e6d);
+		TestMode.Tests.methodSuccessCheckResult(mathRound, 20845839L, null,
+				convolvedWrappedLayer.getTile(0, 0) * 1e6d);
+
+		// Fused generation tests
+
+		SquareTerrain fusedTerrain = new SquareTerrain(6, 6, true, true);
+		PlatePlan fusedPlatePlan = new PlatePlan(1);
+		fusedPlatePlan.setMovement(0, 0, 0, 3, 4);
+		new SquareTerrainStamper(false, false, 2).generate(fusedTerrain, new Cone(1.0d, 1.0d, 1.0d, 1.0d),
+				fusedPlatePlan, 7.0d, 2.0d);
+
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 5.0d, fusedTerrain.getLandLayer(), 3, 4);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 3.0d, fusedTerrain.getMagmaLayer(), 0, 0);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, -2.0d, fusedTerrain.getMagmaLayer(), 5, 5);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 7.0d, fusedTerrain.getWaterLayer(), 5, 0);
+
+
+		// Region tests
+
+		SquareTerrain wholeTerrain = new SquareTerrain(9, 7, false, true);
+		SquareTerrain regionTerrain = new SquareTerrain(4, 3, false, true);
+		PlatePlan regionPlatePlan = new PlatePlan(3);
+		regionPlatePlan.setMovement(0, 1, 1, 3, 2);
+		regionPlatePlan.setMovement(1, 7, 5, 8, 3);
+		regionPlatePlan.setMovement(2, 4, 6, 2, 6);
+		new SquareTerrainStamper(true, false).generate(wholeTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				regionPlatePlan, 0.0d, 1.0d);
+		new SquareTerrainStamper(true, false, 2).generate(regionTerrain, 5, 3, 9, 7, new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				regionPlatePlan, 0.0d, 1.0d);
+
+		Method stamperGenerateRegion = TestMode.getMethod(SquareTerrainStamper.class, "generate", SquareTerrain.class,
+				int.class, int.class, int.class, int.class, Crease.class, PlatePlan.class, double.class, double.class);
+
+		// The region has the same tiles as the whole terrain, including those reached
+		// by wrapping around
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, wholeTerrain.getLandLayer().getTile(5, 3),
+				regionTerrain.getLandLayer(), 0, 0);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, wholeTerrain.getLandLayer().getTile(8, 4),
+				regionTerrain.getLandLayer(), 3, 1);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, wholeTerrain.getMagmaLayer().getTile(7, 5),
+				regionTerrain.getMagmaLayer(), 2, 2);
+		// The region must be within the terrain
+		TestMode.Tests.methodFailureCheckException(stamperGenerateRegion, IllegalArgumentException.class,
+				new SquareTerrainStamper(false, false), regionTerrain, 6, 3, 9, 7, new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				regionPlatePlan, 0.0d, 1.0d);
+
+		// Hashed generator tests
+
+		Method generatorGenerateLong = TestMode.getMethod(SplitMix64Generator.class, "generateLong");
+		Method generatorHash = TestMode.getMethod(SplitMix64Generator.class, "hash", long.class, long.class,
+				long.class);
+
+		// The first number of SplitMix64 with a state of 0
+		TestMode.Tests.methodSuccessCheckResult(generatorGenerateLong, 0xE220A8397B1DCDAFL,
+				new SplitMix64Generator(0L));
+		// The generator of a point only depends on the seed and its coordinates
+		TestMode.Tests.methodSuccessCheckResult(generatorGenerateLong,
+				new SplitMix64Generator(7L, -3L, 5L).generateLong(), new SplitMix64Generator(7L, -3L, 5L));
+		TestMode.Tests.methodSuccessCheckResult(generatorHash, SplitMix64Generator.hash(7L, -3L, 5L), null, 7L, -3L,
+				5L);
+
+		// Progressive generation tests
+
+		SquareTerrain onceTerrain = new SquareTerrain(19, 11, true, true);
+		SquareTerrain progressiveTerrain = new SquareTerrain(19, 11, true, true);
+		PlatePlan progressivePlatePlan = new PlatePlan(2);
+		progressivePlatePlan.setMovement(0, 3, 4, 6, 6);
+		progressivePlatePlan.setMovement(1, 14, 5, 12, 9);
+		new SquareTerrainStamper(true, false).generate(onceTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				progressivePlatePlan, 1.0d, 2.0d);
+		List<SquareTerrain> levels = new ArrayList<>();
+		new SquareTerrainStamper(true, false, 2).generateProgressively(progressiveTerrain,
+				new Cone(1.0d, 1.0d, 2.0d, 1.0d), progressivePlatePlan, 1.0d, 2.0d, levels::add);
+
+		Method stamperGenerateLevel = TestMode.getMethod(SquareTerrainStamper.class, "generate", SquareTerrain.class,
+				Crease.class, PlatePlan.class, double.class, double.class, int.class, int.class);
+
+		// One terrain for each level, the last of which is the generated terrain
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(List.class, "size"), 4, levels);
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(List.class, "get", int.class),
+				progressiveTerrain, levels, 3);
+		// The first level only has the tiles whose indices are multiples of 8
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, onceTerrain.getLandLayer().getTile(8, 8),
+				levels.get(0).getLandLayer(), 15, 10);
+		// The last level is the same as the terrain generated at once
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, onceTerrain.getLandLayer().getTile(5, 5),
+				progressiveTerrain.getLandLayer(), 5, 5);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, onceTerrain.getLandLayer().getTile(18, 6),
+				progressiveTerrain.getLandLayer(), 18, 6);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 1.0d, progressiveTerrain.getWaterLayer(), 9, 3);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, onceTerrain.getMagmaLayer().getTile(13, 7),
+				progressiveTerrain.getMagmaLayer(), 13, 7);
+		// Levels must halve the stride
+		TestMode.Tests.methodFailureCheckException(stamperGenerateLevel, IllegalArgumentException.class,
+				new SquareTerrainStamper(false, false), progressiveTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				progressivePlatePlan, 0.0d, 0.0d, 2, 3);
+
+		// Lazy terrain tests
+
+		SquareTerrain stampedTerrain = new SquareTerrain(23, 17, true, true);
+		PlatePlan lazyPlatePlan = new PlatePlan(3);
+		lazyPlatePlan.setMovement(0, 2, 3, 4, 1);
+		lazyPlatePlan.setMovement(1, 20, 9, 17, 12);
+		lazyPlatePlan.setMovement(2, 11, 15, 11, 8);
+		new SquareTerrainStamper(true, true).generate(stampedTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				lazyPlatePlan, 1.0d, 2.0d);
+		LazySquareTerrain lazyTerrain = new LazySquareTerrain(23, 17, true, true, true, true,
+				new Cone(1.0d, 1.0d, 2.0d, 1.0d), lazyPlatePlan, 1.0d, 2.0d);
+
+		Method lazyLayerGetTile = TestMode.getMethod(LazySquareTerrainLayer.class, "getTile", int.class, int.class);
+		Method lazyLayerGetTiles = TestMode.getMethod(LazySquareTerrainLayer.class, "getTiles", int[].class,
+				int[].class, double[].class);
+
+		// Tiles are the same as the ones generated by stamping, including the ones
+		// reached through the edges
+		TestMode.Tests.methodSuccessCheckResult(lazyLayerGetTile, stampedTerrain.getLandLayer().getTile(4, 1),
+				lazyTerrain.getLandLayer(), 4, 1);
+		TestMode.Tests.methodSuccessCheckResult(lazyLayerGetTile, stampedTerrain.getLandLayer().getTile(0, 12),
+				lazyTerrain.getLandLayer(), 0, 12);
+		TestMode.Tests.methodSuccessCheckResult(lazyLayerGetTile, stampedTerrain.getLandLayer().getTile(3, 16),
+				lazyTerrain.getLandLayer(), 3, 16);
+		TestMode.Tests.methodSuccessCheckResult(lazyLayerGetTile, stampedTerrain.getMagmaLayer().getTile(21, 9),
+				lazyTerrain.getMagmaLayer(), 21, 9);
+		TestMode.Tests.methodSuccessCheckResult(lazyLayerGetTile, 1.0d, lazyTerrain.getWaterLayer(), 7, 7);
+		// Cached tiles keep their value
+		TestMode.Tests.methodSuccessCheckResult(lazyLayerGetTile, stampedTerrain.getLandLayer().getTile(4, 1),
+				lazyTerrain.getLandLayer(), 4, 1);
+		double[] lazyTiles = new double[3];
+		TestMode.Tests.methodSuccess(lazyLayerGetTiles, lazyTerrain.getLandLayer(), new int[] { 11, 17, 22 },
+				new int[] { 8, 12, 0 }, lazyTiles);
+		double[] expectedLazyTiles = { stampedTerrain.getLandLayer().getTile(11, 8),
+				stampedTerrain.getLandLayer().getTile(17, 12), stampedTerrain.getLandLayer().getTile(22, 0) };
+		TestMode.Tests.methodSuccessCheckResult(arraysEquals, true, null, lazyTiles, expectedLazyTiles);
+		// Tiles out of the terrain
+		TestMode.Tests.methodFailureCheckException(lazyLayerGetTile, IndexOutOfBoundsException.class,
+				lazyTerrain.getLandLayer(), 23, 0);
+		// Arrays of different lengths
+		TestMode.Tests.methodFailureCheckException(lazyLayerGetTiles, IllegalArgumentException.class,
+				lazyTerrain.getLandLayer(), new int[] { 0 }, new int[] { 0, 1 }, new double[1]);
+
+		// Block stamping tests
+
+		SquareTerrain rowTerrain = new SquareTerrain(150, 70, true, true);
+		SquareTerrain blockTerrain = new SquareTerrain(150, 70, true, true);
+		PlatePlan blockPlatePlan = new PlatePlan(3);
+		blockPlatePlan.setMovement(0, 60, 62, 66, 66);
+		blockPlatePlan.setMovement(1, 148, 3, 145, 8);
+		blockPlatePlan.setMovement(2, 100, 40, 130, 60);
+		new SquareTerrainStamper(true, false).generate(rowTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d), blockPlatePlan,
+				1.0d, 2.0d);
+		new SquareTerrainBlockStamper(true, false, 3).generate(blockTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				blockPlatePlan, 1.0d, 2.0d);
+
+		// Tiles on both sides of the edges between blocks and of the edges of the
+		// terrain are the same as when stamping plate by plate
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, rowTerrain.getLandLayer().getTile(63, 63),
+				blockTerrain.getLandLayer(), 63, 63);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, rowTerrain.getLandLayer().getTile(64, 64),
+				blockTerrain.getLandLayer(), 64, 64);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, rowTerrain.getLandLayer().getTile(1, 5),
+				blockTerrain.getLandLayer(), 1, 5);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, rowTerrain.getLandLayer().getTile(128, 55),
+				blockTerrain.getLandLayer(), 128, 55);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, rowTerrain.getMagmaLayer().getTile(102, 41),
+				blockTerrain.getMagmaLayer(), 102, 41);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 1.0d, blockTerrain.getWaterLayer(), 149, 69);
+
+		// Plan cache tests
+
+		SquareTerrainConfigurer planConfigurer = new SquareTerrainConfigurer("terrain.type.square");
+		planConfigurer.getNumberOfPlatesX().setCurrentValue(InternationalizedInteger.of(2));
+		planConfigurer.getNumberOfPlatesY().setCurrentValue(InternationalizedInteger.of(2));
+		Method configurerPlan = TestMode.getMethod(SquareTerrainConfigurer.class, "plan");
+		Method objectEquals = TestMode.getMethod(Object.class, "equals", Object.class);
+		PlatePlan cachedPlatePlan = planConfigurer.plan();
+
+		// The same plan is returned while the seed and the plan parameters don't
+		// change
+		TestMode.Tests.methodSuccessCheckResult(configurerPlan, cachedPlatePlan, planConfigurer);
+		planConfigurer.getWrapAroundX().setCurrentValue(true);
+		TestMode.Tests.methodSuccessCheckResult(configurerPlan, cachedPlatePlan, planConfigurer);
+		// A new plan is made when they change
+		planConfigurer.getNumberOfPlatesX().setCurrentValue(InternationalizedInteger.of(3));
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(PlatePlan.class, "getNumberOfPlates"), 6,
+				planConfigurer.plan());
+		planConfigurer.getNumberOfPlatesX().setCurrentValue(InternationalizedInteger.of(2));
+		planConfigurer.getSeed().setCurrentValue(InternationalizedLong.of(1L));
+		PlatePlan reseededPlatePlan = planConfigurer.plan();
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, false, cachedPlatePlan, reseededPlatePlan);
+
+		// Editing tests
+
+		// The influences of these movement vectors are small integers, so editing
+		// gives the same tiles as generating again without any rounding
+		Crease editCrease = new Pyramid(1.0d, 1.0d, 1.0d, 1.0d);
+		SquareTerrain editedTerrain = new SquareTerrain(20, 16, true, true);
+		PlatePlan editPlatePlan = new PlatePlan(3);
+		editPlatePlan.setMovement(0, 2, 2, 4, 2);
+		editPlatePlan.setMovement(1, 5, 8, 5, 12);
+		editPlatePlan.setMovement(2, 15, 10, 17, 12);
+		new SquareTerrainStamper(true, false).generate(editedTerrain, editCrease, editPlatePlan, 1.0d, 2.0d);
+		SquareTerrainEditor editor = new SquareTerrainEditor(editedTerrain, editPlatePlan, editCrease, true, false);
+
+		Method editorSetMovement = TestMode.getMethod(SquareTerrainEditor.class, "setMovement", int.class, int.class,
+				int.class, int.class, int.class);
+		Method editorAddMovement = TestMode.getMethod(SquareTerrainEditor.class, "addMovement", int.class, int.class,
+				int.class, int.class);
+		Method editorRemoveMovement = TestMode.getMethod(SquareTerrainEditor.class, "removeMovement", int.class);
+
+		// The dirty rectangle contains the old and new influence on land and magma
+		TestMode.Tests.methodSuccessCheckResult(editorSetMovement, new Rectangle(1, 1, 14, 15), editor, 1, 10, 3, 12,
+				3);
+		// The dirty rectangle of a movement vector next to an edge includes the tiles
+		// reached through the edge
+		TestMode.Tests.methodSuccessCheckResult(editorAddMovement, new Rectangle(0, 0, 20, 2), editor, 19, 0, 18, 0);
+		TestMode.Tests.methodSuccessCheckResult(editorRemoveMovement, new Rectangle(0, 0, 7, 5), editor, 0);
+		// The edited terrain is the same as one generated from the edited plan
+		SquareTerrain regeneratedTerrain = new SquareTerrain(20, 16, true, true);
+		PlatePlan regeneratedPlatePlan = new PlatePlan(3);
+		regeneratedPlatePlan.setMovement(0, 10, 3, 12, 3);
+		regeneratedPlatePlan.setMovement(1, 15, 10, 17, 12);
+		regeneratedPlatePlan.setMovement(2, 19, 0, 18, 0);
+		new SquareTerrainStamper(true, false).generate(regeneratedTerrain, editCrease, regeneratedPlatePlan, 1.0d,
+				2.0d);
+		for (int tileIndexY = 0; tileIndexY < 16; tileIndexY += 3) {
+			for (int tileIndexX = 0; tileIndexX < 20; tileIndexX += 3) {
+				TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+						regeneratedTerrain.getLandLayer().getTile(tileIndexX, tileIndexY),
+						editedTerrain.getLandLayer(), tileIndexX, tileIndexY);
+				TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+						regeneratedTerrain.getMagmaLayer().getTile(tileIndexX, tileIndexY),
+						editedTerrain.getMagmaLayer(), tileIndexX, tileIndexY);
+			}
+		}
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, true, Arrays.asList(3, 19, 0, 18, 0),
+				Arrays.asList(editor.getPlatePlan().getNumberOfPlates(), editPlatePlan.getStartX(2),
+						editPlatePlan.getStartY(2), editPlatePlan.getEndX(2), editPlatePlan.getEndY(2)));
+		// Plates that don't exist and movement vectors out of the terrain
+		TestMode.Tests.methodFailureCheckException(editorRemoveMovement, IndexOutOfBoundsException.class, editor, 3);
+		TestMode.Tests.methodFailureCheckException(editorAddMovement, IllegalArgumentException.class, editor, 0, 0,
+				20, 0);
+
+		// Only the dirty rectangle of the image of an edited terrain is drawn again
+		planConfigurer.getWrapAroundY().setCurrentValue(false);
+		planConfigurer.getWaterParameters().getDeterminer().setCurrentValue(false);
+		planConfigurer.getMagmaParameters().getDeterminer().setCurrentValue(false);
+		planConfigurer.generate(editCrease);
+		BufferedImage editedImage = (BufferedImage) planConfigurer.toImage();
+		SquareTerrainEditor configurerEditor = planConfigurer.edit(editCrease);
+		PlatePlan configurerPlatePlan = configurerEditor.getPlatePlan();
+		Rectangle dirtyRectangle = configurerEditor.setMovement(0, configurerPlatePlan.getStartX(0),
+				configurerPlatePlan.getStartY(0), configurerPlatePlan.getEndX(0), configurerPlatePlan.getEndY(0));
+		Method configurerToImage = TestMode.getMethod(SquareTerrainConfigurer.class, "toImage", BufferedImage.class,
+				Rectangle.class);
+		TestMode.Tests.methodSuccessCheckResult(configurerToImage, dirtyRectangle, planConfigurer, editedImage,
+				dirtyRectangle);
+		// The shared plan isn't modified by the edits
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, false, reseededPlatePlan, configurerPlatePlan);
+
+		// Checkpoint tests
+
+		SquareTerrain uninterruptedTerrain = new SquareTerrain(23, 17, true, true);
+		SquareTerrain interruptedTerrain = new SquareTerrain(23, 17, true, true);
+		PlatePlan checkpointPlatePlan = new PlatePlan(5);
+		checkpointPlatePlan.setMovement(0, 2, 3, 4, 1);
+		checkpointPlatePlan.setMovement(1, 20, 9, 17, 12);
+		checkpointPlatePlan.setMovement(2, 11, 15, 11, 8);
+		checkpointPlatePlan.setMovement(3, 0, 0, 22, 16);
+		checkpointPlatePlan.setMovement(4, 7, 6, 8, 9);
+		SquareTerrainStamper checkpointStamper = new SquareTerrainStamper(true, false);
+		checkpointStamper.generate(uninterruptedTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d), checkpointPlatePlan, 1.0d,
+				2.0d);
+		// The generation is stopped after the first two plates
+		checkpointStamper.stamp(interruptedTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d), checkpointPlatePlan, 0, 2);
+		File checkpointFile = null;
+		TerrainCheckpoint loadedCheckpoint = null;
+		try {
+			checkpointFile = File.createTempFile("checkpoint", ".dat");
+			new TerrainCheckpoint(7L, interruptedTerrain, true, false, 1.0d, 2.0d, checkpointPlatePlan,
+					new Cone(1.0d, 1.0d, 2.0d, 1.0d), 2).save(checkpointFile);
+			loadedCheckpoint = TerrainCheckpoint.load(checkpointFile);
+			loadedCheckpoint.generate(checkpointStamper, 2, checkpointFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		SquareTerrain resumedTerrain = loadedCheckpoint.getTerrain();
+
+		// The resumed terrain is the same as the one generated at once
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(4, 1),
+				resumedTerrain.getLandLayer(), 4, 1);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(22, 0),
+				resumedTerrain.getLandLayer(), 22, 0);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(8, 9),
+				resumedTerrain.getLandLayer(), 8, 9);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getMagmaLayer().getTile(11, 15),
+				resumedTerrain.getMagmaLayer(), 11, 15);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 1.0d, resumedTerrain.getWaterLayer(), 5, 5);
+		// The crease is saved in the checkpoint
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(Object.class, "equals", Object.class), true,
+				new Cone(1.0d, 1.0d, 2.0d, 1.0d), loadedCheckpoint.getCrease());
+		// Only the terrains generated whole can be resumed
+		Method classIsInstance = TestMode.getMethod(Class.class, "isInstance", Object.class);
+		TestMode.Tests.methodSuccessCheckResult(classIsInstance, true, ResumableTerrainConfigurer.class,
+				new IrregularSquareTerrainConfigurer("terrain.type.square.irregular"));
+		TestMode.Tests.methodSuccessCheckResult(classIsInstance, false, ResumableTerrainConfigurer.class,
+				new InfiniteSquareTerrainConfigurer("terrain.type.square.infinite"));
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(TerrainCheckpoint.class, "getAppliedPlates"), 5,
+				loadedCheckpoint);
+		// The checkpoint is deleted once the terrain is finished
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(File.class, "exists"), false, checkpointFile);
+		// Files that aren't checkpoints
+		TestMode.Tests.methodFailureCheckException(
+				TestMode.getMethod(TerrainCheckpoint.class, "load", File.class), IOException.class, null,
+				new File("config" + File.separator + "configuration.properties"));
+
+		// Cancellation tests
+
+		Method monitorGetStatus = TestMode.getMethod(GenerationMonitor.class, "getStatus");
+		Method monitorGetProgress = TestMode.getMethod(GenerationMonitor.class, "getProgress");
+		Method monitorGetEstimatedCompletedPlates = TestMode.getMethod(GenerationMonitor.class,
+				"getEstimatedCompletedPlates");
+		// A generation that isn't stopped is the same as an unmonitored one
+		SquareTerrain monitoredTerrain = new SquareTerrain(23, 17, true, true);
+		GenerationMonitor completedMonitor = new GenerationMonitor();
+		checkpointStamper.generate(monitoredTerrain, new Cone(1.0d, 1.0d, 2.0d, 1.0d), checkpointPlatePlan, 1.0d,
+				2.0d, completedMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetStatus, GenerationMonitor.Status.COMPLETED,
+				completedMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetProgress, 1.0d, completedMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetEstimatedCompletedPlates, 5, completedMonitor);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(4, 1),
+				monitoredTerrain.getLandLayer(), 4, 1);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(8, 9),
+				monitoredTerrain.getLandLayer(), 8, 9);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getMagmaLayer().getTile(11, 15),
+				monitoredTerrain.getMagmaLayer(), 11, 15);
+		// A generation cancelled before starting has no terrain to return
+		GenerationMonitor cancelledMonitor = new GenerationMonitor();
+		cancelledMonitor.cancel();
+		SquareTerrain cancelledTerrain = checkpointStamper.generateProgressively(new SquareTerrain(23, 17, true, true),
+				new Cone(1.0d, 1.0d, 2.0d, 1.0d), checkpointPlatePlan, 1.0d, 2.0d, terrain -> {
+				}, cancelledMonitor);
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(Objects.class, "isNull", Object.class), true, null,
+				cancelledTerrain);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetStatus, GenerationMonitor.Status.CANCELLED,
+				cancelledMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetEstimatedCompletedPlates, 0, cancelledMonitor);
+		// A generation cancelled after the first level of detail returns the coarse
+		// terrain of that level
+		SquareTerrain coarseTerrain = new SquareTerrain(23, 17, true, true);
+		GenerationMonitor coarseMonitor = new GenerationMonitor();
+		SquareTerrain stoppedTerrain = checkpointStamper.generateProgressively(coarseTerrain,
+				new Cone(1.0d, 1.0d, 2.0d, 1.0d), checkpointPlatePlan, 1.0d, 2.0d, terrain -> coarseMonitor.cancel(),
+				coarseMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetStatus, GenerationMonitor.Status.CANCELLED, coarseMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetProgress, 0.25d, coarseMonitor);
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, false, coarseTerrain, stoppedTerrain);
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(SquareTerrain.class, "getSizeX"), 23,
+				stoppedTerrain);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 1.0d, stoppedTerrain.getWaterLayer(), 5, 5);
+		// A generation whose deadline has passed stops as well
+		GenerationMonitor timedOutMonitor = new GenerationMonitor(0L, TimeUnit.NANOSECONDS);
+		checkpointStamper.generate(new SquareTerrain(23, 17, true, true), new Cone(1.0d, 1.0d, 2.0d, 1.0d),
+				checkpointPlatePlan, 1.0d, 2.0d, timedOutMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetStatus, GenerationMonitor.Status.TIMED_OUT,
+				timedOutMonitor);
+		TestMode.Tests.constructorFailureCheckException(
+				TestMode.getConstructor(GenerationMonitor.class, long.class, TimeUnit.class),
+				IllegalArgumentException.class, -1L, TimeUnit.SECONDS);
+
+		// Distribution tests
+
+		File distributionDirectory = null;
+		DistributedGeneration loadedGeneration = null;
+		SquareTerrain mergedTerrain = null;
+		try {
+			distributionDirectory = Files.createTempDirectory("distribution").toFile();
+			// Two worker processes generate the sections of the checkpoint terrain
+			new DistributedGeneration(distributionDirectory, 7L, 23, 17, true, true, true, false, 1.0d, 2.0d,
+					checkpointPlatePlan, new Cone(1.0d, 1.0d, 2.0d, 1.0d), 8).run(2);
+			loadedGeneration = DistributedGeneration.load(distributionDirectory);
+			mergedTerrain = loadedGeneration.merge();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		Method distributedGetSection = TestMode.getMethod(DistributedGeneration.class, "getSection", int.class,
+				int.class);
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(DistributedGeneration.class, "getSectionsX"), 3,
+				loadedGeneration);
+		TestMode.Tests.methodSuccessCheckResult(distributedGetSection, new Rectangle(16, 16, 7, 1), loadedGeneration,
+				2, 2);
+		TestMode.Tests.methodFailureCheckException(distributedGetSection, IndexOutOfBoundsException.class,
+				loadedGeneration, 3, 0);
+		// The merged terrain is the same as the one generated at once
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(4, 1),
+				mergedTerrain.getLandLayer(), 4, 1);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(22, 0),
+				mergedTerrain.getLandLayer(), 22, 0);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getLandLayer().getTile(8, 9),
+				mergedTerrain.getLandLayer(), 8, 9);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, uninterruptedTerrain.getMagmaLayer().getTile(11, 15),
+				mergedTerrain.getMagmaLayer(), 11, 15);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 1.0d, mergedTerrain.getWaterLayer(), 5, 5);
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(SquareTerrain.class, "getSeed"), 7L,
+				mergedTerrain);
+		try {
+			loadedGeneration.delete();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		// Once deleted, the directory has no job
+		TestMode.Tests.methodFailureCheckException(
+				TestMode.getMethod(DistributedGeneration.class, "load", File.class), FileNotFoundException.class,
+				null, distributionDirectory);
+		distributionDirectory.delete();
+
+		// Fixed point tests
+
+		PlatePlan fixedPlatePlan = new PlatePlan(40);
+		for (int plateIndex = 0; plateIndex < 40; ++plateIndex) {
+			int startX = plateIndex * 37 % 90;
+			int startY = plateIndex * 23 % 50;
+			fixedPlatePlan.setMovement(plateIndex, startX, startY, startX + plateIndex % 7 - 3,
+					startY + plateIndex % 5 - 2);
+		}
+		SquareTerrain sequentialFixedTerrain = new SquareTerrain(90, 50, true, true);
+		SquareTerrain parallelFixedTerrain = new SquareTerrain(90, 50, true, true);
+		new SquareTerrainFixedPointStamper(true, true).generate(sequentialFixedTerrain,
+				new Cone(1.0d, 1.0d, 8.0d, 1.0d), fixedPlatePlan, 1.0d, 2.0d);
+		new SquareTerrainFixedPointStamper(true, true, 4).generate(parallelFixedTerrain,
+				new Cone(1.0d, 1.0d, 8.0d, 1.0d), fixedPlatePlan, 1.0d, 2.0d);
+		// Plates applied by different threads in any order give the same tiles
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, sequentialFixedTerrain.getLandLayer().getTile(0, 0),
+				parallelFixedTerrain.getLandLayer(), 0, 0);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, sequentialFixedTerrain.getLandLayer().getTile(45, 25),
+				parallelFixedTerrain.getLandLayer(), 45, 25);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, sequentialFixedTerrain.getLandLayer().getTile(89, 49),
+				parallelFixedTerrain.getLandLayer(), 89, 49);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, sequentialFixedTerrain.getMagmaLayer().getTile(30, 12),
+				parallelFixedTerrain.getMagmaLayer(), 30, 12);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 1.0d, parallelFixedTerrain.getWaterLayer(), 7, 7);
+		// A single influence is the influence of the stamper rounded to the scale
+		PlatePlan singleFixedPlatePlan = new PlatePlan(1);
+		singleFixedPlatePlan.setMovement(0, 10, 10, 13, 14);
+		SquareTerrainLayer roundedLayer = new SquareTerrainLayer(30, 30);
+		SquareTerrainLayer unroundedLayer = new SquareTerrainLayer(30, 30);
+		new SquareTerrainFixedPointStamper(false, false, 1, 16.0d, null).stamp(roundedLayer,
+				new Cone(1.0d, 1.0d, 4.0d, 1.0d), singleFixedPlatePlan);
+		new SquareTerrainStamper(false, false).stamp(unroundedLayer, new Cone(1.0d, 1.0d, 4.0d, 1.0d),
+				singleFixedPlatePlan);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+				java.lang.Math.round(unroundedLayer.getTile(14, 13) * 16.0d) / 16.0d, roundedLayer, 14, 13);
+		TestMode.Tests.constructorFailureCheckException(
+				TestMode.getConstructor(SquareTerrainFixedPointStamper.class, boolean.class, boolean.class,
+						int.class, double.class, StampCache.class),
+				IllegalArgumentException.class, false, false, 1, 0.0d, null);
+		// Batch tests
+
+		SquareTerrainConfigurer batchConfigurer = new SquareTerrainConfigurer("terrain.type.square");
+		batchConfigurer.getNumberOfPlatesX().setCurrentValue(InternationalizedInteger.of(2));
+		batchConfigurer.getNumberOfPlatesY().setCurrentValue(InternationalizedInteger.of(2));
+		batchConfigurer.getWrapAroundX().setCurrentValue(true);
+		batchConfigurer.getWrapAroundY().setCurrentValue(false);
+		batchConfigurer.getWaterParameters().getDeterminer().setCurrentValue(false);
+		batchConfigurer.getMagmaParameters().getDeterminer().setCurrentValue(false);
+		Crease batchCrease = new Cone(1.0d, 1.0d, 4.0d, 1.0d);
+		File batchDirectory = null;
+		BatchGeneration<SquareTerrain> batch = null;
+		BatchGeneration.Summary batchSummary = null;
+		String batchFile = null;
+		String batchExport = null;
+		try {
+			batchDirectory = Files.createTempDirectory("batch").toFile();
+			batch = new BatchGeneration<>(batchConfigurer, batchCrease, "csv", batchDirectory, 2);
+			batchSummary = batch.run(BatchGeneration.parseSeeds("3..6"));
+			batchFile = Files.readString(batch.getFile(5L).toPath());
+			ByteArrayOutputStream batchOutput = new ByteArrayOutputStream();
+			batchConfigurer.exportTerrain(batchConfigurer.generate(new Xorshift64StarGenerator(5L), batchCrease),
+					"csv", batchOutput);
+			batchExport = batchOutput.toString();
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+		}
+		// Each file has the terrain generated with its seed on its own
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, true, batchFile, batchExport);
+		// Every configurer imports the terrains it exports
+		InfiniteSquareTerrainConfigurer importConfigurer = new InfiniteSquareTerrainConfigurer(
+				"terrain.type.square.infinite");
+		String importExport = null;
+		try {
+			importConfigurer.importTerrain("csv", new ByteArrayInputStream(batchExport.getBytes()));
+			ByteArrayOutputStream importOutput = new ByteArrayOutputStream();
+			importConfigurer.exportTerrain("csv", importOutput);
+			importExport = importOutput.toString();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, true, batchExport, importExport);
+		TestMode.Tests.methodFailureCheckException(
+				TestMode.getMethod(TerrainUtil.class, "importTerrain", String.class, InputStream.class),
+				TerrainFormatException.class, null, "csv", new ByteArrayInputStream("1,x,\n".getBytes()));
+		// The range of an image covers every layer of the terrain
+		SquareTerrain rangeTerrain = new SquareTerrain(2, 2, true, false);
+		rangeTerrain.getLandLayer().setTile(1, 0, -3.0d);
+		rangeTerrain.getWaterLayer().setTile(0, 1, 5.0d);
+		TestMode.Tests.methodSuccessCheckResult(
+				TestMode.getMethod(Arrays.class, "equals", double[].class, double[].class), true, null,
+				new double[] { -3.0d, 5.0d }, TerrainUtil.findRange(rangeTerrain));
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(BatchGeneration.Summary.class, "getTerrains"), 4,
+				batchSummary);
+		TestMode.Tests.methodFailureCheckException(
+				TestMode.getMethod(BatchGeneration.Summary.class, "getLatency", double.class),
+				IllegalArgumentException.class, batchSummary, 2.0d);
+		TestMode.Tests.methodFailureCheckException(TestMode.getMethod(BatchGeneration.class, "run", long[].class),
+				IllegalArgumentException.class, batch, new long[] { 1L, 2L, 1L });
+		TestMode.Tests.constructorFailureCheckException(
+				TestMode.getConstructor(BatchGeneration.class, BatchTerrainConfigurer.class, Crease.class,
+						String.class, File.class, int.class),
+				IllegalArgumentException.class, batchConfigurer, batchCrease, "png", batchDirectory, 2);
+		// Seeds are given as a range or a list
+		Method seedsEquals = TestMode.getMethod(Arrays.class, "equals", long[].class, long[].class);
+		TestMode.Tests.methodSuccessCheckResult(seedsEquals, true, null, new long[] { -1L, 0L, 1L },
+				BatchGeneration.parseSeeds("-1..1"));
+		TestMode.Tests.methodSuccessCheckResult(seedsEquals, true, null, new long[] { 3L, 14L, 15L },
+				BatchGeneration.parseSeeds("3,14,15"));
+		TestMode.Tests.methodFailureCheckException(TestMode.getMethod(BatchGeneration.class, "parseSeeds",
+				String.class), IllegalArgumentException.class, null, "5..4");
+		// The tiles of a terrain of the same size are reused
+		Method configurerGenerateInto = TestMode.getMethod(BatchTerrainConfigurer.class, "generate",
+				PlatePlan.class, Crease.class, Terrain.class);
+		SquareTerrain batchBuffer = batchConfigurer.generate(batchConfigurer.plan(), batchCrease);
+		TestMode.Tests.methodSuccessCheckResult(configurerGenerateInto, batchBuffer, batchConfigurer,
+				batchConfigurer.plan(), batchCrease, batchBuffer);
+		// Lazily generated terrains can't be generated apart from their configurer
+		TestMode.Tests.methodSuccessCheckResult(classIsInstance, false, BatchTerrainConfigurer.class,
+				new InfiniteSquareTerrainConfigurer("terrain.type.square.infinite"));
+		// A monitored generation uses the same engine as an unmonitored one
+		GenerationMonitor configurerMonitor = new GenerationMonitor();
+		SquareTerrain monitoredBatchTerrain = batchConfigurer.generate(batchConfigurer.plan(), batchCrease,
+				configurerMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetStatus, GenerationMonitor.Status.COMPLETED,
+				configurerMonitor);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, batchBuffer.getLandLayer().getTile(5, 7),
+				monitoredBatchTerrain.getLandLayer(), 5, 7);
+		GenerationMonitor cancelledConfigurerMonitor = new GenerationMonitor();
+		cancelledConfigurerMonitor.cancel();
+		batchConfigurer.generate(batchConfigurer.plan(), batchCrease, cancelledConfigurerMonitor);
+		TestMode.Tests.methodSuccessCheckResult(monitorGetStatus, GenerationMonitor.Status.CANCELLED,
+				cancelledConfigurerMonitor);
+		for (long seed = 3L; seed <= 6L; ++seed) {
+			batch.getFile(seed).delete();
+		}
+		batchDirectory.delete();
+
+		// Ensemble tests
+
+		Crease[] ensembleCreases = new Crease[] { new Cone(1.0d, 1.0d, 8.0d, 1.0d),
+				new Diamond(1.0d, 1.0d, 8.0d, 1.0d), new Pyramid(1.0d, 1.0d, 8.0d, 1.0d) };
+		SquareTerrain[] ensembleTerrains = new SquareTerrain[ensembleCreases.length];
+		SquareTerrain[] singleTerrains = new SquareTerrain[ensembleCreases.length];
+		for (int creaseIndex = 0; creaseIndex < ensembleCreases.length; ++creaseIndex) {
+			ensembleTerrains[creaseIndex] = new SquareTerrain(90, 50, true, true);
+			singleTerrains[creaseIndex] = new SquareTerrain(90, 50, true, true);
+			new SquareTerrainStamper(true, false).generate(singleTerrains[creaseIndex], ensembleCreases[creaseIndex],
+					fixedPlatePlan, 1.0d, 2.0d);
+		}
+		new SquareTerrainStamper(true, false, 3).generate(ensembleTerrains, ensembleCreases, fixedPlatePlan, 1.0d,
+				2.0d);
+		// Each terrain of the ensemble is the terrain generated with its crease alone
+		for (int creaseIndex = 0; creaseIndex < ensembleCreases.length; ++creaseIndex) {
+			TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+					singleTerrains[creaseIndex].getLandLayer().getTile(45, 25),
+					ensembleTerrains[creaseIndex].getLandLayer(), 45, 25);
+			TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+					singleTerrains[creaseIndex].getLandLayer().getTile(89, 0),
+					ensembleTerrains[creaseIndex].getLandLayer(), 89, 0);
+			TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+					singleTerrains[creaseIndex].getMagmaLayer().getTile(30, 12),
+					ensembleTerrains[creaseIndex].getMagmaLayer(), 30, 12);
+		}
+		TestMode.Tests.methodFailureCheckException(
+				TestMode.getMethod(SquareTerrainStamper.class, "generate", SquareTerrain[].class, Crease[].class,
+						PlatePlan.class, double.class, double.class),
+				IllegalArgumentException.class, new SquareTerrainStamper(true, false), ensembleTerrains,
+				new Crease[] { batchCrease }, fixedPlatePlan, 1.0d, 2.0d);
+		TestMode.Tests.methodFailureCheckException(
+				TestMode.getMethod(SquareTerrainStamper.class, "generate", SquareTerrain[].class, Crease[].class,
+						PlatePlan.class, double.class, double.class),
+				IllegalArgumentException.class, new SquareTerrainStamper(true, false),
+				new SquareTerrain[] { new SquareTerrain(90, 50, true, true), new SquareTerrain(50, 90, true, true) },
+				new Crease[] { batchCrease, batchCrease }, fixedPlatePlan, 1.0d, 2.0d);
+		// The configurer generates each terrain of the ensemble from the same plan
+		List<SquareTerrain> configurerEnsemble = batchConfigurer.generateEnsemble(batchConfigurer.plan(),
+				batchCrease, ensembleCreases[1]);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+				batchConfigurer.generate(batchConfigurer.plan(), batchCrease).getLandLayer().getTile(20, 20),
+				configurerEnsemble.get(0).getLandLayer(), 20, 20);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile,
+				batchConfigurer.generate(batchConfigurer.plan(), ensembleCreases[1]).getLandLayer().getTile(20, 20),
+				configurerEnsemble.get(1).getLandLayer(), 20, 20);
+
+		// Sweep tests
+
+		SquareTerrainConfigurer sweepConfigurer = new SquareTerrainConfigurer("terrain.type.square");
+		sweepConfigurer.getNumberOfPlatesX().setCurrentValue(InternationalizedInteger.of(2));
+		sweepConfigurer.getNumberOfPlatesY().setCurrentValue(InternationalizedInteger.of(2));
+		sweepConfigurer.getWrapAroundX().setCurrentValue(true);
+		sweepConfigurer.getWrapAroundY().setCurrentValue(false);
+		sweepConfigurer.getWaterParameters().getDeterminer().setCurrentValue(true);
+		sweepConfigurer.getMagmaParameters().getDeterminer().setCurrentValue(true);
+		sweepConfigurer.getMagmaParameters().getCrustThickness().setCurrentValue(InternationalizedInteger.of(3));
+		ConeConfigurer sweepCreaseConfigurer = new ConeConfigurer("crease.type.cone");
+		ParameterSweep.Stage<PlatePlan> planStage = sweepConfigurer.createPlanStage();
+		ParameterSweep.Stage<SquareTerrain> stampingStage = sweepConfigurer.createStampingStage(planStage,
+				sweepCreaseConfigurer.createStage());
+		ParameterSweep.Stage<SquareTerrain> postPassStage = sweepConfigurer.createPostPassStage(stampingStage);
+		ParameterSweep sweep = new ParameterSweep(3);
+		sweep.addAxis(sweepCreaseConfigurer.getHeightFactor(),
+				Arrays.asList(InternationalizedDouble.of(1.0d), InternationalizedDouble.of(2.0d)));
+		sweep.addAxis(sweepConfigurer.getWaterParameters().getSeaLevel(),
+				Arrays.asList(InternationalizedInteger.of(1), InternationalizedInteger.of(5),
+						InternationalizedInteger.of(9)));
+		List<ParameterSweep.Cell<SquareTerrain>> sweepCells = null;
+		try {
+			sweepCells = sweep.run(postPassStage);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		// Each stage is computed once for each combination of the parameters it reads
+		TestMode.Tests.methodSuccessCheckResult(TestMode.getMethod(ParameterSweep.class, "getCells"), 6, sweep);
+		Method sweepGetComputations = TestMode.getMethod(ParameterSweep.class, "getComputations",
+				ParameterSweep.Stage.class);
+		TestMode.Tests.methodSuccessCheckResult(sweepGetComputations, 1, sweep, planStage);
+		TestMode.Tests.methodSuccessCheckResult(sweepGetComputations, 2, sweep, stampingStage);
+		TestMode.Tests.methodSuccessCheckResult(sweepGetComputations, 6, sweep, postPassStage);
+		// Each cell is the terrain generated with the values of the cell
+		SquareTerrain sweepTerrain = new SquareTerrain(32, 32, true, true);
+		new SquareTerrainStamper(true, false).generate(sweepTerrain, new Cone(2.0d, 1.0d, 4.0d, 1.0d),
+				sweepConfigurer.plan(), 5.0d, 3.0d);
+		SquareTerrain sweepCell = sweepCells.get(4).getResult();
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, true, sweepCells.get(4).getValues(),
+				Arrays.asList(InternationalizedDouble.of(2.0d), InternationalizedInteger.of(5)));
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, sweepTerrain.getLandLayer().getTile(20, 11),
+				sweepCell.getLandLayer(), 20, 11);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, sweepTerrain.getMagmaLayer().getTile(20, 11),
+				sweepCell.getMagmaLayer(), 20, 11);
+		TestMode.Tests.methodSuccessCheckResult(layerGetTile, 5.0d, sweepCell.getWaterLayer(), 20, 11);
+		// The parameters get their previous values back
+		TestMode.Tests.methodSuccessCheckResult(objectEquals, true,
+				sweepCreaseConfigurer.getHeightFactor().getCurrentValue(), InternationalizedDouble.of(1.0d));
+		// Changing a parameter only read after the stamping never stamps again
+		ParameterSweep renderSweep = new ParameterSweep(2);
+		renderSweep.addAxis(sweepConfigurer.getMagmaParameters().getCrustThickness(),
+				Arrays.asList(InternationalizedInteger.of(3), InternationalizedInteger.of(7)));
+		try {
+			renderSweep.run(sweepConfigurer.createRenderStage(postPassStage));
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		TestMode.Tests.methodSuccessCheckResult(sweepGetComputations, 1, renderSweep, stampingStage);
+		TestMode.Tests.methodSuccessCheckResult(sweepGetComputations, 2, renderSweep, postPassStage);
+		TestMode.Tests.methodFailureCheckException(
+				TestMode.getMethod(ParameterSweep.class, "addAxis", Parameter.class, List.class),
+				IllegalArgumentException.class, sweep, sweepCreaseConfigurer.getWidthFactor(), new ArrayList<>());
+		TestMode.Tests.constructorFailureCheckException(TestMode.getConstructor(ParameterSweep.class, int.class),
+				IllegalArgumentException.class, 0);
+		// Lazily generated terrains can't be swept
+		TestMode.Tests.methodSuccessCheckResult(classIsInstance, false, SweepableTerrainConfigurer.class,
+				new InfiniteSquareTerrainConfigurer("terrain.type.square.infinite"));
 	}
 
 }
@@ -0,0 +1,296 @@
+/*
+ * FourierTransform.java
+ * 
+ * This file is part of Tectonic Tiles.
+ * Tectonic Tiles is a random terrain generator inspired by plate tectonics.
+ * Copyright (C) 2020 Javier Centeno Vega
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package util;
+
+/**
+ * A discrete Fourier transform of complex sequences of a fixed length,
+ * calculated with a fast Fourier transform.
+ *
+ * Lengths that are powers of two are transformed with the radix-2
+ * Cooley-Tukey algorithm. Any other length is transformed with Bluestein's
+ * algorithm, which turns the transform into a circular convolution of a length
+ * that is a power of two.
+ *
+ * The values that depend only on the length are calculated when the transform
+ * is constructed, so a transform can be used any number of times and by several
+ * threads at once.
+ *
+ * @author Javier Centeno Vega <jacenve@telefonica.net>
+ * @version 0.5
+ * @since 0.5
+ *
+ */
+public class FourierTransform {
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance fields
+
+	/**
+	 * The length of the sequences transformed by this transform.
+	 */
+	private final int length;
+	/**
+	 * The cosine of each twiddle factor of a radix-2 transform of the given
+	 * length, or of the convolution length if the length isn't a power of two.
+	 */
+	private final double[] cosines;
+	/**
+	 * The sine of each twiddle factor of a radix-2 transform.
+	 */
+	private final double[] sines;
+	/**
+	 * The transform used for the convolution of Bluestein's algorithm, or null if
+	 * the length is a power of two.
+	 */
+	private final FourierTransform convolution;
+	/**
+	 * The real part of the chirp of Bluestein's algorithm.
+	 */
+	private final double[] chirpReal;
+	/**
+	 * The imaginary part of the chirp of Bluestein's algorithm.
+	 */
+	private final double[] chirpImaginary;
+	/**
+	 * The real part of the transform of the conjugate chirp of Bluestein's
+	 * algorithm.
+	 */
+	private final double[] filterReal;
+	/**
+	 * The imaginary part of the transform of the conjugate chirp of Bluestein's
+	 * algorithm.
+	 */
+	private final double[] filterImaginary;
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance initializers
+
+	/**
+	 * Construct a new transform of sequences of the given length.
+	 * 
+	 * @param length The length of the sequences.
+	 * @throws IllegalArgumentException If the length is lower than 1.
+	 */
+	public FourierTransform(int length) {
+		if (length < 1) {
+			throw new IllegalArgumentException("The length must be at least 1.");
+		}
+		this.length = length;
+		if (isPowerOfTwo(length)) {
+			this.cosines = new double[length / 2];
+			this.sines = new double[length / 2];
+			for (int index = 0; index < length / 2; ++index) {
+				double angle = -2.0d * java.lang.Math.PI * index / length;
+				this.cosines[index] = java.lang.Math.cos(angle);
+				this.sines[index] = java.lang.Math.sin(angle);
+			}
+			this.convolution = null;
+			this.chirpReal = null;
+			this.chirpImaginary = null;
+			this.filterReal = null;
+			this.filterImaginary = null;
+		} else {
+			this.cosines = null;
+			this.sines = null;
+			// Long enough for a linear convolution of two sequences of the given length
+			this.convolution = new FourierTransform(nextPowerOfTwo(2 * length - 1));
+			int convolutionLength = this.convolution.length;
+			this.chirpReal = new double[length];
+			this.chirpImaginary = new double[length];
+			this.filterReal = new double[convolutionLength];
+			this.filterImaginary = new double[convolutionLength];
+			for (int index = 0; index < length; ++index) {
+				// index * index modulo 2 * length keeps the angle small and precise
+				long square = (long) index * index % (2L * length);
+				double angle = -java.lang.Math.PI * square / length;
+				this.chirpReal[index] = java.lang.Math.cos(angle);
+				this.chirpImaginary[index] = java.lang.Math.sin(angle);
+			}
+			this.filterReal[0] = this.chirpReal[0];
+			this.filterImaginary[0] = -this.chirpImaginary[0];
+			for (int index = 1; index < length; ++index) {
+				this.filterReal[index] = this.chirpReal[index];
+				this.filterImaginary[index] = -this.chirpImaginary[index];
+				this.filterReal[convolutionLength - index] = this.chirpReal[index];
+				this.filterImaginary[convolutionLength - index] = -this.chirpImaginary[index];
+			}
+			this.convolution.transform(this.filterReal, this.filterImaginary);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Instance methods
+
+	/**
+	 * Get the length of the sequences transformed by this transform.
+	 * 
+	 * @return The length of the sequences transformed by this transform.
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Replaces the given sequence with its discrete Fourier transform.
+	 * 
+	 * @param real      The real part of a sequence.
+	 * @param imaginary The imaginary part of a sequence.
+	 * @throws IllegalArgumentException If the length of the sequence isn't the
+	 *                                  length of this transform.
+	 */
+	public void transform(double[] real, double[] imaginary) {
+		if (real.length != this.length || imaginary.length != this.length) {
+			throw new IllegalArgumentException("The length of the sequence must be " + this.length + ".");
+		}
+		if (this.convolution == null) {
+			this.radix2(real, imaginary);
+		} else {
+			this.bluestein(real, imaginary);
+		}
+	}
+
+	/**
+	 * Replaces the given sequence with its inverse discrete Fourier transform,
+	 * including the division by the length, so the inverse transform of the
+	 * transform of a sequence is the sequence itself.
+	 * 
+	 * @param real      The real part of a sequence.
+	 * @param imaginary The imaginary part of a sequence.
+	 * @throws IllegalArgumentException If the length of the sequence isn't the
+	 *                                  length of this transform.
+	 */
+	public void inverseTransform(double[] real, double[] imaginary) {
+		// The inverse transform is the transform with the real and imaginary parts
+		// swapped
+		this.transform(imaginary, real);
+		double scale = 1.0d / this.length;
+		for (int index = 0; index < this.length; ++index) {
+			real[index] *= scale;
+			imaginary[index] *= scale;
+		}
+	}
+
+	/**
+	 * Replaces the given sequence, whose length must be a power of two, with its
+	 * discrete Fourier transform.
+	 * 
+	 * @param real      The real part of a sequence.
+	 * @param imaginary The imaginary part of a sequence.
+	 */
+	private void radix2(double[] real, double[] imaginary) {
+		int length = this.length;
+		// Reorder the sequence by bit-reversed index
+		for (int index = 1, reversed = 0; index < length; ++index) {
+			int bit = length >> 1;
+			for (; (reversed & bit) != 0; bit >>= 1) {
+				reversed ^= bit;
+			}
+			reversed ^= bit;
+			if (index < reversed) {
+				double temporary = real[index];
+				real[index] = real[reversed];
+				real[reversed] = temporary;
+				temporary = imaginary[index];
+				imaginary[index] = imaginary[reversed];
+				imaginary[reversed] = temporary;
+			}
+		}
+		// Combine transforms of increasing length
+		for (int half = 1; half < length; half <<= 1) {
+			int twiddleStride = length / (half << 1);
+			for (int start = 0; start < length; start += half << 1) {
+				for (int offset = 0; offset < half; ++offset) {
+					double twiddleReal = this.cosines[offset * twiddleStride];
+					double twiddleImaginary = this.sines[offset * twiddleStride];
+					int even = start + offset;
+					int odd = even + half;
+					double oddReal = real[odd] * twiddleReal - imaginary[odd] * twiddleImaginary;
+					double oddImaginary = real[odd] * twiddleImaginary + imaginary[odd] * twiddleReal;
+					real[odd] = real[even] - oddReal;
+					imaginary[odd] = imaginary[even] - oddImaginary;
+					real[even] += oddReal;
+					imaginary[even] += oddImaginary;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the given sequence with its discrete Fourier transform using
+	 * Bluestein's algorithm.
+	 * 
+	 * @param real      The real part of a sequence.
+	 * @param imaginary The imaginary part of a sequence.
+	 */
+	private void bluestein(double[] real, double[] imaginary) {
+		int length = this.length;
+		int convolutionLength = this.convolution.length;
+		double[] convolutionReal = new double[convolutionLength];
+		double[] convolutionImaginary = new double[convolutionLength];
+		for (int index = 0; index < length; ++index) {
+			convolutionReal[index] = real[index] * this.chirpReal[index]
+					- imaginary[index] * this.chirpImaginary[index];
+			convolutionImaginary[index] = real[index] * this.chirpImaginary[index]
+					+ imaginary[index] * this.chirpReal[index];
+		}
+		this.convolution.transform(convolutionReal, convolutionImaginary);
+		for (int index = 0; index < convolutionLength; ++index) {
+			double productReal = convolutionReal[index] * this.filterReal[index]
+					- convolutionImaginary[index] * this.filterImaginary[index];
+			double productImaginary = convolutionReal[index] * this.filterImaginary[index]
+					+ convolutionImaginary[index] * this.filterReal[index];
+			convolutionReal[index] = productReal;
+			convolutionImaginary[index] = productImaginary;
+		}
+		this.convolution.inverseTransform(convolutionReal, convolutionImaginary);
+		for (int index = 0; index < length; ++index) {
+			real[index] = convolutionReal[index] * this.chirpReal[index]
+					- convolutionImaginary[index] * this.chirpImaginary[index];
+			imaginary[index] = convolutionReal[index] * this.chirpImaginary[index]
+					+ convolutionImaginary[index] * this.chirpReal[index];
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// Class methods
+
+	/**
+	 * Checks whether the given number is a power of two.
+	 * 
+	 * @param number A positive number.
+	 * @return True if the given number is a power of two, false otherwise.
+	 */
+	public static boolean isPowerOfTwo(int number) {
+		return (number & (number - 1)) == 0;
+	}
+
+	/**
+	 * Calculates the lowest power of two that isn't lower than the given number.
+	 * 
+	 * @param number A positive number not greater than 2 to the power of 30.
+	 * @return The lowest power of two that isn't lower than the given number.
+	 */
+	public static int nextPowerOfTwo(int number) {
+		return number <= 1 ? 1 : Integer.highestOneBit(number - 1) << 1;
+	}
+
+}